@@ -8,19 +8,77 @@ public class LoggingConstants {
   public static final String GET_ENCOUNTER_BY_ID(Long id){
     return "Received request to get encounter by id: " + id;
   }
+  public static final String GET_ENCOUNTERS_BY_PATIENT_ID(Long patientId, Integer limit,
+      String sort) {
+    return "Received request to get a page of " + limit + " encounters of patient " + patientId
+        + " sorted by " + sort;
+  }
+  public static final String STREAM_ENCOUNTERS_BY_DATE(String from, String to) {
+    return "Received request to stream encounters dated from " + from + " to " + to;
+  }
   public static final String POST_ENCOUNTER = "Received request to post encounter";
 
   public static final String UPDATE_ENCOUNTER(Long id){
     return "Received request to update encounter: " + id;
   }
+  //Vitals Logging Constants
+  public static final String GET_VITALS(Long patientId, String from, String to) {
+    return "Received request to chart the vitals of patient " + patientId + " from " + from
+        + " to " + to;
+  }
+  //Analytics Logging Constants
+  public static final String GET_ENCOUNTER_ROLLUP(String groupBy) {
+    return "Received request to get the encounter rollup grouped by " + groupBy;
+  }
+  public static final String GET_VITALS_QUANTILES(String groupBy) {
+    return "Received request to get the vitals quantiles grouped by " + groupBy;
+  }
+  public static final String GET_TRENDING(String window) {
+    return "Received request to get the trending encounter values of the last " + window;
+  }
+  public static final String VITALS_QUANTILES_WARM_UP_FAILURE =
+      "Could not load the vitals quantiles at startup, they will load on first use";
+  public static final String GET_ENCOUNTER_SCAN(String groupBy) {
+    return "Received request to scan encounters grouped by " + groupBy;
+  }
+  public static final String ENCOUNTER_COLUMNS_WARM_UP_FAILURE =
+      "Could not load the encounter columns at startup, they will load on first use";
+  public static final String GET_DISTINCT_PATIENTS(String groupBy) {
+    return "Received request to count distinct patients grouped by " + groupBy;
+  }
+  public static final String DISTINCT_PATIENTS_WARM_UP_FAILURE =
+      "Could not load the distinct patient sketches at startup, they will load on first use";
+  //Cohorts Logging Constants
+  public static final String QUERY_COHORT = "Received request to query a cohort";
+  public static final String COHORT_WARM_UP_FAILURE =
+      "Could not load the cohort index at startup, it will load on first use";
   //Patients Logging Constants
   public static final String GET_PATIENTS = "Received request to get all patients";
 
+  public static final String STREAM_PATIENTS = "Received request to stream all patients";
+
+  public static final String GET_PATIENT_PAGE(Integer limit, String sort) {
+    return "Received request to get a page of " + limit + " patients sorted by " + sort;
+  }
+
+  public static final String SEARCH_PATIENTS(Integer limit, String sort) {
+    return "Received request to search a page of " + limit + " patients sorted by " + sort;
+  }
+
+  public static final String GET_PATIENT_SUMMARIES(Integer limit) {
+    return "Received request to get a page of " + limit + " patient summaries";
+  }
+
   public static final String GET_PATIENT_EMAILS = "Received request to get all patient emails.";
+  public static final String GET_PATIENT_CACHE_STATS = "Received request to get patient cache stats.";
   public static final String GET_PATIENT_BY_ID(Long id){
     return "Received request to get patient by id: " + id;
   }
   public static final String POST_PATIENT = "Received request to post patient";
+  public static final String IMPORT_PATIENTS = "Received request to import patients in bulk";
+  public static final String IMPORT_PATIENTS_COMPLETE(int received, int created) {
+    return "Imported " + created + " of " + received + " patients";
+  }
 
   public static final String UPDATE_PATIENT(Long id){
     return "Received request to update patient: " + id;
@@ -28,6 +86,20 @@ public class LoggingConstants {
   public static final String DELETE_PATIENT(Long id){
     return "Received request to delete rental: " + id;
   }
+  //Demo data Logging Constants
+  public static final String SEED_PATIENTS_PROGRESS(int seeded, int total) {
+    return "Seeded " + seeded + " of " + total + " patients";
+  }
+  public static final String SEED_ENCOUNTERS_PROGRESS(int seeded, int total) {
+    return "Seeded " + seeded + " of " + total + " encounters";
+  }
+  public static final String SEED_SUMMARIES_PROGRESS(int seeded, int total) {
+    return "Summarized " + seeded + " of " + total + " patients";
+  }
+  public static final String SEED_COMPLETE(int patients, int encounters, long millis) {
+    return "Seeded " + patients + " patients and " + encounters + " encounters in " + millis
+        + " ms. You can make requests now.";
+  }
   //Failures
   public static final String GET_BY_ID_FAILURE(Long id){
     return "Get by id failed, it does not exist in the database: " + id;
@@ -4,6 +4,9 @@ public class Paths {
 
   // Local
   public static final String PATIENTS_PATH = "/patients";
+  public static final String ALL_ENCOUNTERS_PATH = "/encounters";
+  public static final String ANALYTICS_PATH = "/analytics";
+  public static final String COHORTS_PATH = "/cohorts";
   public static final String ENCOUNTERS_PATH(Long patientId){
     return PATIENTS_PATH + "/" + patientId + "/encounters";
   }
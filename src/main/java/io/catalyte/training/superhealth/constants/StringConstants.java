@@ -6,6 +6,9 @@ import org.apache.commons.lang3.StringUtils;
 
 public class StringConstants {
 
+  // Media Types
+  public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
   // Exceptions and Errors
   public static final String NOT_FOUND = "404 Not Found";
   public static final String BAD_REQUEST = "400 Bad Request";
@@ -24,6 +27,10 @@ public class StringConstants {
   };
   public static final String GENDER_INVALID = "Gender must be set to 'Male', 'Female', or 'Other'";
   public static final String EMAIL_ALREADY_EXISTS = "Patient email already exists";
+  public static final String DELETE_MODE_INVALID = "mode must be 'restrict', 'cascade', or 'archive'";
+  public static final String INCLUDE_INVALID = "include must be 'encounters'";
+  public static final String EMAIL_DUPLICATED_IN_IMPORT = "Patient email appears earlier in this import";
+  public static final String IMPORT_RECORD_MALFORMED = "Record is not a valid patient JSON object; the rest of the import was skipped";
 
   // Error Messages - Encounters Validation
   public static final String PATIENT_ID_INVALID = "The patientId you entered does not match your request.";
@@ -33,6 +40,65 @@ public class StringConstants {
   public static final String COST_INVALID(String field){
     return field + " must be a number greater than 0 with 2 digits after the decimal place";}
   public static final String DATE_INVALID = "Date must match format 'YYYY-MM-DD'";
+  public static final String DATE_RANGE_INVALID = "from and to must be dates matching format 'YYYY-MM-DD', and from must not be after to";
+
+  // Error Messages - Pagination
+  public static final String PAGE_LIMIT_INVALID(int maxLimit) {
+    return "limit must be a number between 1 and " + maxLimit;
+  }
+  public static final String SORT_INVALID(List<String> sortableFields) {
+    return "sort must be one of " + String.join(", ", sortableFields)
+        + ", optionally followed by ',asc' or ',desc'";
+  }
+  public static final String CURSOR_INVALID = "The 'after' cursor is not valid for this listing.";
+
+  // Error Messages - Analytics
+  public static final String ROLLUP_GROUP_BY_INVALID(List<String> dimensions) {
+    return "groupBy must be a comma separated list of " + String.join(", ", dimensions);
+  }
+  public static final String MONTH_INVALID = "month must match format 'YYYY-MM'";
+  public static final String MONTH_RANGE_INVALID = "from and to must be months matching format 'YYYY-MM', and from must not be after to";
+  public static final String AGE_BAND_INVALID(List<String> ageBands) {
+    return "ageBand must be one of " + String.join(", ", ageBands);
+  }
+  public static final String TRENDING_WINDOW_INVALID(List<String> windows) {
+    return "window must be one of " + String.join(", ", windows);
+  }
+  public static final String TRENDING_LIMIT_INVALID(int maxLimit) {
+    return "limit must be a number from 1 to " + maxLimit;
+  }
+  public static final String SCAN_GROUP_BY_INVALID(List<String> dimensions) {
+    return "groupBy must be one of " + String.join(", ", dimensions);
+  }
+
+  // Error Messages - Cohorts
+  public static final String COHORT_EXPRESSION_EMPTY =
+      "A cohort expression must be an object with at least one condition";
+  public static final String COHORT_KEY_INVALID(String key, List<String> keys) {
+    return "Unknown cohort condition '" + key + "', expected one of " + String.join(", ", keys);
+  }
+  public static final String COHORT_VALUES_INVALID(String key) {
+    return key + " must be a string or a list of strings";
+  }
+  public static final String COHORT_OPERANDS_INVALID(String key) {
+    return key + " must be a non-empty list of cohort expressions";
+  }
+  public static final String COHORT_AGE_INVALID =
+      "age must be an object with a whole number min, max or both";
+  public static final String COHORT_EXPRESSION_TOO_DEEP(int maxDepth) {
+    return "A cohort expression may nest at most " + maxDepth + " levels";
+  }
+  public static final String COHORT_LIMIT_INVALID(int maxLimit) {
+    return "limit must be a number between 0 and " + maxLimit;
+  }
+
+  // Error Messages - Vitals
+  public static final String VITALS_POINTS_INVALID(int maxPoints) {
+    return "points must be a number from 1 to " + maxPoints;
+  }
+
+  // Error Messages - Patient Search
+  public static final String AGE_RANGE_INVALID = "minAge and maxAge must not be negative, and minAge must not be larger than maxAge";
 
   public static final String FIELDS_EMPTY(List<String> emptyFields) {
     String fieldsToString = String.join(", ", emptyFields);
@@ -0,0 +1,281 @@
+package io.catalyte.training.superhealth.data;
+
+import io.catalyte.training.superhealth.constants.LoggingConstants;
+import io.catalyte.training.superhealth.domains.encounter.Encounter;
+import io.catalyte.training.superhealth.domains.encounter.EncounterRepository;
+import io.catalyte.training.superhealth.domains.patient.Patient;
+import io.catalyte.training.superhealth.domains.patient.PatientEmailIndex;
+import io.catalyte.training.superhealth.domains.patient.PatientRepository;
+import io.catalyte.training.superhealth.domains.patient.PatientSummaryRepository;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Seeds the database with generated patients, their encounters and their summaries, at sizes up to
+ * tens of millions of rows.
+ *
+ * <p>Rows are generated in chunks of patients.demo.batch-size, several chunks at a time in
+ * parallel. Each chunk has its own factories, seeded from patients.demo.random-seed and the
+ * chunk's number, so a seed produces the same rows whatever the number of threads. Encounters are
+ * dated before patients.demo.encounter-end-date rather than today, so the rows do not change from
+ * one day to the next either. Chunks are
+ * inserted in order, each with one JDBC batch in its own transaction, while the next chunks are
+ * generated; ids are reserved from the tables' id sequences as each chunk is inserted, so the
+ * patients' ids follow the order of their numbers.
+ */
+@Component
+public class DataSeeder {
+
+  private static final String INSERT_PATIENT = "INSERT INTO patient (id, first_name, last_name, "
+      + "ssn, email, normalized_email, street, city, state, postal, age, height, weight, "
+      + "insurance, gender) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+  private static final String INSERT_ENCOUNTER = "INSERT INTO encounter (id, patient_id, notes, "
+      + "visit_code, provider, billing_code, icd10, total_cost_cents, copay_cents, chief_complaint, "
+      + "pulse, systolic, diastolic, date) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+  private static final long PATIENT_STREAM = 1;
+
+  private static final long ENCOUNTER_STREAM = 2;
+
+  /**
+   * Number of progress messages logged for each phase of a seed.
+   */
+  private static final int PROGRESS_STEPS = 20;
+
+  private final Logger logger = LogManager.getLogger(DataSeeder.class);
+
+  JdbcTemplate jdbcTemplate;
+
+  TransactionTemplate transactionTemplate;
+
+  PatientRepository patientRepository;
+
+  EncounterRepository encounterRepository;
+
+  PatientSummaryRepository patientSummaryRepository;
+
+  int batchSize;
+
+  long randomSeed;
+
+  LocalDate encounterEndDate;
+
+  @Autowired
+  public DataSeeder(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+      PatientRepository patientRepository, EncounterRepository encounterRepository,
+      PatientSummaryRepository patientSummaryRepository,
+      @Value("${patients.demo.batch-size:5000}") int batchSize,
+      @Value("${patients.demo.random-seed:42}") long randomSeed,
+      @Value("${patients.demo.encounter-end-date:2025-01-01}") String encounterEndDate) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.patientRepository = patientRepository;
+    this.encounterRepository = encounterRepository;
+    this.patientSummaryRepository = patientSummaryRepository;
+    this.batchSize = batchSize;
+    this.randomSeed = randomSeed;
+    this.encounterEndDate = LocalDate.parse(encounterEndDate);
+  }
+
+  /**
+   * Inserts generated patients, spreads generated encounters over them and creates their
+   * summaries. The second patient is left without encounters, as an example of a patient that can
+   * be deleted.
+   *
+   * @param numberOfPatients - the number of patients to insert
+   * @param numberOfEncounters - the number of encounters to insert, ignored without patients
+   */
+  public void seed(int numberOfPatients, int numberOfEncounters) {
+    long start = System.nanoTime();
+
+    long[] patientIds = new long[numberOfPatients];
+    insertInChunks(numberOfPatients, chunk -> patientRows(chunk, numberOfPatients),
+        INSERT_PATIENT, patientRepository::allocateIds, patientIds,
+        LoggingConstants::SEED_PATIENTS_PROGRESS);
+    int seededEncounters = patientIds.length == 0 ? 0 : numberOfEncounters;
+    insertInChunks(seededEncounters, chunk -> encounterRows(chunk, seededEncounters, patientIds),
+        INSERT_ENCOUNTER, encounterRepository::allocateIds, null,
+        LoggingConstants::SEED_ENCOUNTERS_PROGRESS);
+    summarize(patientIds);
+
+    logger.info(LoggingConstants.SEED_COMPLETE(patientIds.length, seededEncounters,
+        (System.nanoTime() - start) / 1_000_000));
+  }
+
+  /**
+   * Generates and inserts rows chunk by chunk. The chunks of the next window are generated in
+   * parallel while the chunks of the current one are inserted.
+   *
+   * @param total - the number of rows to insert
+   * @param rows - generates the rows of a chunk from its number, leaving their first value, the
+   *     id, to fill in
+   * @param sql - the insert statement of one row
+   * @param allocateIds - reserves the ids of a chunk's rows from the table's id sequence
+   * @param insertedIds - receives the id of each row in order, may be null
+   * @param progress - builds the progress message from the rows inserted and the total
+   */
+  private void insertInChunks(int total, IntFunction<List<Object[]>> rows, String sql,
+      IntFunction<long[]> allocateIds, long[] insertedIds,
+      BiFunction<Integer, Integer, String> progress) {
+    int chunks = chunkCount(total);
+    int window = Runtime.getRuntime().availableProcessors();
+    int logEvery = Math.max(1, chunks / PROGRESS_STEPS);
+
+    CompletableFuture<List<List<Object[]>>> next = generate(0, window, chunks, rows);
+    for (int first = 0; first < chunks; first += window) {
+      List<List<Object[]>> generated = next.join();
+      next = generate(first + window, window, chunks, rows);
+      for (int i = 0; i < generated.size(); i++) {
+        List<Object[]> chunkRows = generated.get(i);
+        int chunk = first + i;
+        transactionTemplate.execute(status -> {
+          long[] ids = allocateIds.apply(chunkRows.size());
+          for (int row = 0; row < ids.length; row++) {
+            chunkRows.get(row)[0] = ids[row];
+          }
+          if (insertedIds != null) {
+            System.arraycopy(ids, 0, insertedIds, chunk * batchSize, ids.length);
+          }
+          return jdbcTemplate.batchUpdate(sql, chunkRows);
+        });
+        if ((chunk + 1) % logEvery == 0 || chunk + 1 == chunks) {
+          logger.info(progress.apply(chunkEnd(chunk, total), total));
+        }
+      }
+    }
+  }
+
+  /**
+   * Starts generating the rows of a window of chunks in parallel.
+   *
+   * @param first - the number of the window's first chunk
+   * @param window - the number of chunks in a window
+   * @param chunks - the number of chunks in total
+   * @param rows - generates the rows of a chunk from its number
+   * @return the rows of each chunk of the window, in chunk order; none past the last chunk
+   */
+  private CompletableFuture<List<List<Object[]>>> generate(int first, int window, int chunks,
+      IntFunction<List<Object[]>> rows) {
+    if (first >= chunks) {
+      return CompletableFuture.completedFuture(Collections.emptyList());
+    }
+    return CompletableFuture.supplyAsync(() -> IntStream.range(first,
+        Math.min(first + window, chunks)).parallel().mapToObj(rows).collect(Collectors.toList()));
+  }
+
+  /**
+   * @param chunk - the number of the chunk
+   * @param total - the number of patients seeded
+   * @return the rows of the chunk's patients, whose emails are unique to their numbers
+   */
+  private List<Object[]> patientRows(int chunk, int total) {
+    PatientFactory patientFactory = new PatientFactory(chunkSeed(PATIENT_STREAM, chunk));
+    int end = chunkEnd(chunk, total);
+    List<Object[]> rows = new ArrayList<>(end - chunk * batchSize);
+    for (int number = chunk * batchSize; number < end; number++) {
+      Patient patient = patientFactory.createRandomPatient(number);
+      rows.add(new Object[]{null, patient.getFirstName(), patient.getLastName(), patient.getSsn(),
+          patient.getEmail(), PatientEmailIndex.normalize(patient.getEmail()),
+          patient.getStreet(), patient.getCity(), patient.getState(), patient.getPostal(),
+          patient.getAge(), patient.getHeight(), patient.getWeight(), patient.getInsurance(),
+          patient.getGender()});
+    }
+    return rows;
+  }
+
+  /**
+   * @param chunk - the number of the chunk
+   * @param total - the number of encounters seeded
+   * @param patientIds - ids of the seeded patients, in the order of their numbers
+   * @return the rows of the chunk's encounters, each for a random patient
+   */
+  private List<Object[]> encounterRows(int chunk, int total, long[] patientIds) {
+    Random random = new Random(chunkSeed(ENCOUNTER_STREAM, chunk));
+    EncounterFactory encounterFactory = new EncounterFactory(random.nextLong(), encounterEndDate);
+    int end = chunkEnd(chunk, total);
+    List<Object[]> rows = new ArrayList<>(end - chunk * batchSize);
+    for (int number = chunk * batchSize; number < end; number++) {
+      Encounter encounter = encounterFactory.createRandomEncounter(null);
+      rows.add(new Object[]{null, patientIds[patientIndex(random, patientIds.length)],
+          encounter.getNotes(), encounter.getVisitCode(), encounter.getProvider(),
+          encounter.getBillingCode(), encounter.getIcd10(), encounter.getTotalCostCents(),
+          encounter.getCopayCents(), encounter.getChiefComplaint(), encounter.getPulse(),
+          encounter.getSystolic(), encounter.getDiastolic(), Date.valueOf(encounter.getDate())});
+    }
+    return rows;
+  }
+
+  /**
+   * Picks a random patient, skipping the second one when there is more than one.
+   *
+   * @param random - the chunk's random generator
+   * @param patients - the number of seeded patients
+   * @return the number of the patient
+   */
+  private static int patientIndex(Random random, int patients) {
+    if (patients == 1) {
+      return 0;
+    }
+    int index = random.nextInt(patients - 1);
+    return index == 0 ? 0 : index + 1;
+  }
+
+  /**
+   * Creates the summaries of the seeded patients, one statement per chunk of ids.
+   *
+   * @param patientIds - ids of the seeded patients, in id order
+   */
+  private void summarize(long[] patientIds) {
+    int chunks = chunkCount(patientIds.length);
+    int logEvery = Math.max(1, chunks / PROGRESS_STEPS);
+    for (int chunk = 0; chunk < chunks; chunk++) {
+      int end = chunkEnd(chunk, patientIds.length);
+      patientSummaryRepository.insertForPatientIdsBetween(patientIds[chunk * batchSize],
+          patientIds[end - 1]);
+      if ((chunk + 1) % logEvery == 0 || chunk + 1 == chunks) {
+        logger.info(LoggingConstants.SEED_SUMMARIES_PROGRESS(end, patientIds.length));
+      }
+    }
+  }
+
+  private int chunkCount(int total) {
+    return (int) (((long) total + batchSize - 1) / batchSize);
+  }
+
+  private int chunkEnd(int chunk, int total) {
+    return (int) Math.min((long) (chunk + 1) * batchSize, total);
+  }
+
+  /**
+   * Derives the seed of a chunk's generators with the SplitMix64 finalizer, so neighbouring
+   * chunks and the two streams get unrelated sequences.
+   *
+   * @param stream - PATIENT_STREAM or ENCOUNTER_STREAM
+   * @param chunk - the number of the chunk
+   * @return the seed
+   */
+  private long chunkSeed(long stream, int chunk) {
+    long z = randomSeed + (stream << 32 | chunk) * 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+}
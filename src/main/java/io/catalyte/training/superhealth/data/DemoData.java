@@ -1,10 +1,5 @@
 package io.catalyte.training.superhealth.data;
 
-import io.catalyte.training.superhealth.domains.encounter.Encounter;
-import io.catalyte.training.superhealth.domains.encounter.EncounterRepository;
-import io.catalyte.training.superhealth.domains.patient.Patient;
-import io.catalyte.training.superhealth.domains.patient.PatientRepository;
-import java.util.List;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,19 +10,15 @@ import org.springframework.stereotype.Component;
 /**
  * Because this class implements CommandLineRunner, the run method is executed as soon as the server
  * successfully starts and before it begins accepting requests from the outside. Here, we use this
- * as a place to run some code that generates and saves a list of random patients and encounters into the
- * database.
+ * as a place to run some code that generates and saves patients.number random patients and
+ * patients.demo.encounters random encounters into the database.
  */
 @Component
 public class DemoData implements CommandLineRunner {
 
   private final Logger logger = LogManager.getLogger(DemoData.class);
-  private final PatientFactory patientFactory = new PatientFactory();
-  private final EncounterFactory encounterFactory = new EncounterFactory();
   @Autowired
-  private EncounterRepository encounterRepository;
-  @Autowired
-  private PatientRepository patientRepository;
+  private DataSeeder dataSeeder;
   @Autowired
   private Environment env;
 
@@ -49,28 +40,14 @@ public class DemoData implements CommandLineRunner {
   }
 
   private void seedDatabase() {
-    int numberOfPatients = 10;
-
-    // Generate patients
-    List<Patient> patientList = patientFactory.generateRandomPatientList(numberOfPatients);
-
-    // Persist them to the database
-    logger.info("Loading " + numberOfPatients + " patients...");
-    patientRepository.saveAll(patientList);
-    logger.info("Loading random number of encounters...");
-
-    // Generate random number of encounters for each patient and persist them to the database
-    // Made an exception for id #2 to have an example to delete
-    for (Patient patient : patientList){
-      if(patient.getId() != 2L) {
-        List<Encounter> encounterList = encounterFactory.generateRandomEncounterList(patient);
-        patient.setEncounters(encounterList);
-        encounterRepository.saveAll(encounterList);
-      }
-    }
-
-    logger.info("Data load completed. You can make requests now.");
-
+    int numberOfPatients = env.getProperty("patients.number", Integer.class, 1000);
+    // An average of three encounters per patient unless configured
+    int numberOfEncounters = env.getProperty("patients.demo.encounters", Integer.class,
+        numberOfPatients * 3);
+
+    logger.info("Loading " + numberOfPatients + " patients and " + numberOfEncounters
+        + " encounters...");
+    dataSeeder.seed(numberOfPatients, numberOfEncounters);
   }
 
 }
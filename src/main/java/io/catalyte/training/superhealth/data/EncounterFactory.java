@@ -1,6 +1,7 @@
 package io.catalyte.training.superhealth.data;
 
 
+import io.catalyte.training.superhealth.domains.encounter.Cents;
 import io.catalyte.training.superhealth.domains.encounter.Encounter;
 import io.catalyte.training.superhealth.domains.patient.Patient;
 import java.text.DecimalFormat;
@@ -8,7 +9,6 @@ import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
-import java.util.concurrent.ThreadLocalRandom;
 
 public class EncounterFactory {
 
@@ -39,14 +39,44 @@ public class EncounterFactory {
       "fever"
   };
 
-  private static final Random randomGenerator = new Random();
+  private final Random randomGenerator;
+
+  /**
+   * Day after the last encounter date, or null for today.
+   */
+  private final LocalDate endDate;
+
+  /**
+   * Creates a factory whose encounters differ on every run, dated up to yesterday.
+   */
+  public EncounterFactory() {
+    this(new Random(), null);
+  }
+
+  /**
+   * Creates a factory that generates the same encounters, in the same order, for the same seed and
+   * end date. A factory is not meant to be shared between threads; give each thread its own seed
+   * instead.
+   *
+   * @param seed - seed of the factory's random generator
+   * @param endDate - day after the last encounter date, fixed so the dates do not depend on the
+   * day the factory runs
+   */
+  public EncounterFactory(long seed, LocalDate endDate) {
+    this(new Random(seed), endDate);
+  }
+
+  private EncounterFactory(Random randomGenerator, LocalDate endDate) {
+    this.randomGenerator = randomGenerator;
+    this.endDate = endDate;
+  }
 
   /**
    * Gets a random note between from list.
    *
    * @return - string, a random note
    */
-  private static String getRandomNote(){
+  private String getRandomNote(){
     return notes[randomGenerator.nextInt(notes.length)];
   };
 
@@ -55,7 +85,7 @@ public class EncounterFactory {
    *
    * @return a random capital letter
    */
-  private static Character getRandomLetter(){
+  private Character getRandomLetter(){
     String letters = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
     return letters.charAt(randomGenerator.nextInt(letters.length()));
   };
@@ -64,7 +94,7 @@ public class EncounterFactory {
    * Generates a random visit code with format LDL DLD where L is a capital letter and D is a digit.
    * @return
    */
-  private static String getRandomVisitCode(){
+  private String getRandomVisitCode(){
     String visitCode = "";
     while(visitCode.length() < 6){
       visitCode += getRandomLetter();
@@ -77,7 +107,7 @@ public class EncounterFactory {
    * Gets random provider name from the list
    * @return provider string
    */
-  private static String getRandomProvider(){
+  private String getRandomProvider(){
     return providers[randomGenerator.nextInt(providers.length)];
   }
 
@@ -85,7 +115,7 @@ public class EncounterFactory {
    * Generates random billing code with format DDD.DDD.DDD-DD
    * @return billing code string
    */
-  private static String getRandomBillingCode(){
+  private String getRandomBillingCode(){
     int d1 = randomGenerator.nextInt(1000);
     int d2 = randomGenerator.nextInt(1000);
     int d3 = randomGenerator.nextInt(1000);
@@ -98,7 +128,7 @@ public class EncounterFactory {
    * Generates random icd10 with format LDD where L is a capital letter and D is a digit.
    * @return
    */
-  private static String getRandomIcd10(){
+  private String getRandomIcd10(){
     return getRandomLetter() + (String.format("%02d", randomGenerator.nextInt(100)));
   }
 
@@ -108,7 +138,7 @@ public class EncounterFactory {
    * @param max maximum value
    * @return Double
    */
-  public static Double generateRandomPrice(double min, double max){
+  public Double generateRandomPrice(double min, double max){
     DecimalFormat df = new DecimalFormat("0.00");
     return Double.valueOf(df.format((randomGenerator.nextDouble() * (max-min)) + min));
   }
@@ -117,7 +147,7 @@ public class EncounterFactory {
    * Gets random chief complaint from list
    * @return chief complaint string
    */
-  public static String getChiefComplaint(){
+  public String getChiefComplaint(){
     return complaints[randomGenerator.nextInt(complaints.length)];
   };
 
@@ -128,12 +158,11 @@ public class EncounterFactory {
    * @param endExclusive   - the ending bound
    * @return - a random date as a LocalDate
    */
-  private static LocalDate between(LocalDate startInclusive, LocalDate endExclusive) {
+  private LocalDate between(LocalDate startInclusive, LocalDate endExclusive) {
     long startEpochDay = startInclusive.toEpochDay();
     long endEpochDay = endExclusive.toEpochDay();
-    long randomDay = ThreadLocalRandom
-        .current()
-        .nextLong(startEpochDay, endEpochDay);
+    long randomDay = startEpochDay
+        + (long) (randomGenerator.nextDouble() * (endEpochDay - startEpochDay));
 
     return LocalDate.ofEpochDay(randomDay);
   }
@@ -147,18 +176,20 @@ public class EncounterFactory {
     Encounter encounter = new Encounter();
 //      Setters
       encounter.setPatient(patient);
-      encounter.setNotes(EncounterFactory.getRandomNote());
-      encounter.setVisitCode(EncounterFactory.getRandomVisitCode());
-      encounter.setProvider(EncounterFactory.getRandomProvider());
-      encounter.setBillingCode(EncounterFactory.getRandomBillingCode());
-      encounter.setIcd10(EncounterFactory.getRandomIcd10());
-      encounter.setTotalCost(EncounterFactory.generateRandomPrice(1.0, 500.0));
-      encounter.setCopay(EncounterFactory.generateRandomPrice(1.0, 25.0));
-      encounter.setChiefComplaint(EncounterFactory.getChiefComplaint());
+      encounter.setNotes(getRandomNote());
+      encounter.setVisitCode(getRandomVisitCode());
+      encounter.setProvider(getRandomProvider());
+      encounter.setBillingCode(getRandomBillingCode());
+      encounter.setIcd10(getRandomIcd10());
+      encounter.setTotalCostCents(
+          Cents.fromAmount(generateRandomPrice(1.0, 500.0)));
+      encounter.setCopayCents(Cents.fromAmount(generateRandomPrice(1.0, 25.0)));
+      encounter.setChiefComplaint(getChiefComplaint());
       encounter.setPulse(randomGenerator.nextInt(100) + 50);
       encounter.setSystolic(randomGenerator.nextInt(100) + 50);
       encounter.setDiastolic(randomGenerator.nextInt(50) + 50);
-      encounter.setDate(String.valueOf(between(LocalDate.parse("2000-01-01"), LocalDate.now())));
+      encounter.setDate(between(LocalDate.parse("2000-01-01"),
+          endDate == null ? LocalDate.now() : endDate));
 
     return encounter;
 
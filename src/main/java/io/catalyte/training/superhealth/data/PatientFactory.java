@@ -6,7 +6,7 @@ import java.util.List;
 import java.util.Random;
 
 /**
- * This class provides tools for random generation of products.
+ * This class provides tools for random generation of patients.
  */
 public class PatientFactory {
 
@@ -89,14 +89,35 @@ public class PatientFactory {
       "Other"
   };
 
-  private static final Random randomGenerator = new Random();
+  private final Random randomGenerator;
+
+  /**
+   * Creates a factory whose patients differ on every run.
+   */
+  public PatientFactory() {
+    this(new Random());
+  }
+
+  /**
+   * Creates a factory that generates the same patients, in the same order, for the same seed. A
+   * factory is not meant to be shared between threads; give each thread its own seed instead.
+   *
+   * @param seed - seed of the factory's random generator
+   */
+  public PatientFactory(long seed) {
+    this(new Random(seed));
+  }
+
+  private PatientFactory(Random randomGenerator) {
+    this.randomGenerator = randomGenerator;
+  }
 
   /**
    * Returns a random first name from the list of first names.
    *
    * @return - a first name string
    */
-  public static String getFirstName() {
+  public String getFirstName() {
     return firstNames[randomGenerator.nextInt(firstNames.length)];
   }
 
@@ -105,7 +126,7 @@ public class PatientFactory {
    *
    * @return - a last name string
    */
-  public static String getLastName() {
+  public String getLastName() {
     return lastNames[randomGenerator.nextInt(lastNames.length)];
   }
 
@@ -114,7 +135,7 @@ public class PatientFactory {
    *
    * @return - a string with format "DDD-DD-DDDD"
    */
-  public static String getRandomSsn() {
+  public String getRandomSsn() {
     int d1 = randomGenerator.nextInt(1000);
     int d2 = randomGenerator.nextInt(100);
     int d3 = randomGenerator.nextInt(10000);
@@ -126,26 +147,29 @@ public class PatientFactory {
    *
    * @return - an email string
    */
-  public static String getEmail() {
-    String domain = "gmail.com";
-    String emailAddress = "";
-    String alphabet = "abcdefghijklmnopqrstuvwxyz";
-    while (emailAddress.length() < 5) {
-      int character = (int) (Math.random() * 26);
-      emailAddress += alphabet.substring(character, character + 1);
-      emailAddress += Integer.valueOf((int) (Math.random() * 99)).toString();
-      emailAddress += "@" + domain;
-    }
-    return emailAddress;
+  public String getEmail() {
+    char letter = (char) ('a' + randomGenerator.nextInt(26));
+    return letter + String.valueOf(randomGenerator.nextInt(1000000)) + "@gmail.com";
   }
 
+  /**
+   * Returns an email that no other patient number shares.
+   *
+   * @param number - the patient's number
+   * @param firstName - the patient's first name
+   * @param lastName - the patient's last name
+   * @return - an email string
+   */
+  private static String getUniqueEmail(long number, String firstName, String lastName) {
+    return (firstName + lastName).toLowerCase() + number + "@gmail.com";
+  }
 
   /**
    * Generates a random street.
    *
    * @return - a street
    */
-  public static String getRandomStreet() {
+  public String getRandomStreet() {
     return streets[randomGenerator.nextInt(streets.length)];
   }
 
@@ -154,7 +178,7 @@ public class PatientFactory {
    *
    * @return - a city
    */
-  public static String getRandomCity() {
+  public String getRandomCity() {
     return cities[randomGenerator.nextInt(cities.length)];
   }
 
@@ -163,7 +187,7 @@ public class PatientFactory {
    *
    * @return - a state
    */
-  public static String getRandomState() {
+  public String getRandomState() {
     return states[randomGenerator.nextInt(states.length)];
   }
 
@@ -171,7 +195,7 @@ public class PatientFactory {
    * Generates random zip code
    * @return 5 digit zip code as string
    */
-  public static String getRandomPostal(){
+  public String getRandomPostal(){
     int number = randomGenerator.nextInt(100000);
     return String.format("%05d", number);
   }
@@ -181,7 +205,7 @@ public class PatientFactory {
    *
    * @return - an insurance string
    */
-  public static String getRandomInsurance(){
+  public String getRandomInsurance(){
     return insurances[randomGenerator.nextInt(insurances.length)];
   }
 
@@ -190,7 +214,7 @@ public class PatientFactory {
    *
    * @return - a gender string
    */
-  public static String getRandomGender(){
+  public String getRandomGender(){
     return genders[randomGenerator.nextInt(genders.length)];
   }
 
@@ -219,20 +243,33 @@ public class PatientFactory {
   public Patient createRandomPatient() {
     Patient patient = new Patient();
 //    Setters
-    patient.setFirstName(PatientFactory.getFirstName());
-    patient.setLastName(PatientFactory.getLastName());
-    patient.setSsn(PatientFactory.getRandomSsn());
-    patient.setEmail(PatientFactory.getEmail());
-    patient.setStreet(PatientFactory.getRandomStreet());
-    patient.setState(PatientFactory.getRandomState());
-    patient.setCity(PatientFactory.getRandomCity());
-    patient.setPostal(PatientFactory.getRandomPostal());
+    patient.setFirstName(getFirstName());
+    patient.setLastName(getLastName());
+    patient.setSsn(getRandomSsn());
+    patient.setEmail(getEmail());
+    patient.setStreet(getRandomStreet());
+    patient.setState(getRandomState());
+    patient.setCity(getRandomCity());
+    patient.setPostal(getRandomPostal());
     patient.setAge(randomGenerator.nextInt(100) + 1);
-    patient.setHeight(randomGenerator.nextInt(84));
-    patient.setWeight(randomGenerator.nextInt(400));
-    patient.setInsurance(PatientFactory.getRandomInsurance());
-    patient.setGender(PatientFactory.getRandomGender());
+    patient.setHeight(randomGenerator.nextInt(84) + 1);
+    patient.setWeight(randomGenerator.nextInt(400) + 1);
+    patient.setInsurance(getRandomInsurance());
+    patient.setGender(getRandomGender());
+
+    return patient;
+  }
 
+  /**
+   * Uses random generators to build a patient whose email is unique to its number, so any number
+   * of generated patients can be saved together.
+   *
+   * @param number - the patient's number
+   * @return - a randomly generated patient
+   */
+  public Patient createRandomPatient(long number) {
+    Patient patient = createRandomPatient();
+    patient.setEmail(getUniqueEmail(number, patient.getFirstName(), patient.getLastName()));
     return patient;
   }
 
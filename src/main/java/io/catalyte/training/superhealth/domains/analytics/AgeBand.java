@@ -0,0 +1,59 @@
+package io.catalyte.training.superhealth.domains.analytics;
+
+/**
+ * Patient age bands the vitals quantiles are sliced by.
+ */
+public enum AgeBand {
+  CHILD("0-17", 0),
+  YOUNG_ADULT("18-34", 18),
+  ADULT("35-49", 35),
+  MIDDLE_AGED("50-64", 50),
+  SENIOR("65+", 65);
+
+  private final String label;
+
+  private final int minimumAge;
+
+  AgeBand(String label, int minimumAge) {
+    this.label = label;
+    this.minimumAge = minimumAge;
+  }
+
+  /**
+   * Finds the band of an age.
+   *
+   * @param age - age in years
+   * @return the band, or null if the age is missing or negative
+   */
+  public static AgeBand of(Integer age) {
+    if (age == null || age < 0) {
+      return null;
+    }
+    AgeBand[] bands = values();
+    for (int i = bands.length - 1; i > 0; i--) {
+      if (age >= bands[i].minimumAge) {
+        return bands[i];
+      }
+    }
+    return bands[0];
+  }
+
+  /**
+   * Finds the band for a request parameter value.
+   *
+   * @param label - band label, e.g. "18-34"
+   * @return the band, or null if there is none by that label
+   */
+  public static AgeBand fromLabel(String label) {
+    for (AgeBand band : values()) {
+      if (band.label.equals(label)) {
+        return band;
+      }
+    }
+    return null;
+  }
+
+  public String getLabel() {
+    return label;
+  }
+}
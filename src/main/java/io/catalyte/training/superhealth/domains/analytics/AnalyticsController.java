@@ -0,0 +1,139 @@
+package io.catalyte.training.superhealth.domains.analytics;
+
+import static io.catalyte.training.superhealth.constants.Paths.ANALYTICS_PATH;
+
+import io.catalyte.training.superhealth.constants.LoggingConstants;
+import java.util.List;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Exposes endpoints for aggregate reports over the stored data.
+ */
+@RestController
+@RequestMapping(value = ANALYTICS_PATH)
+public class AnalyticsController {
+
+  private static final int DEFAULT_TRENDING_LIMIT = 10;
+
+  Logger logger = LogManager.getLogger(AnalyticsController.class);
+
+  @Autowired
+  private AnalyticsService analyticsService;
+
+  /**
+   * Handles a GET request to /analytics/encounters/rollup. Returns encounter counts, total costs
+   * and copays grouped by any of provider, icd10, billingCode and month.
+   *
+   * @param groupBy - comma separated dimensions to group by; a single grand total if omitted
+   * @param provider - optional provider filter
+   * @param icd10 - optional icd10 filter
+   * @param billingCode - optional billing code filter
+   * @param month - optional month filter, 'YYYY-MM'
+   * @return one row per group
+   */
+  @GetMapping(value = "/encounters/rollup")
+  public ResponseEntity<List<RollupRow>> getEncounterRollup(
+      @RequestParam(required = false) String groupBy,
+      @RequestParam(required = false) String provider,
+      @RequestParam(required = false) String icd10,
+      @RequestParam(required = false) String billingCode,
+      @RequestParam(required = false) String month) {
+    logger.info(LoggingConstants.GET_ENCOUNTER_ROLLUP(groupBy));
+    return new ResponseEntity<>(
+        analyticsService.getEncounterRollup(groupBy, provider, icd10, billingCode, month),
+        HttpStatus.OK);
+  }
+
+  /**
+   * Handles a GET request to /analytics/encounters/scan. Returns encounter counts, total costs,
+   * copays and average vitals, filtered by any of provider, icd10, billingCode, chiefComplaint
+   * and date range, grouped by one of the first four.
+   *
+   * @param groupBy - provider, icd10, billingCode or chiefComplaint; a single row if omitted
+   * @param provider - optional provider filter
+   * @param icd10 - optional icd10 filter
+   * @param billingCode - optional billing code filter
+   * @param chiefComplaint - optional chief complaint filter
+   * @param from - optional first day, 'YYYY-MM-DD'
+   * @param to - optional last day, 'YYYY-MM-DD'
+   * @return one row per group
+   */
+  @GetMapping(value = "/encounters/scan")
+  public ResponseEntity<List<EncounterScanRow>> getEncounterScan(
+      @RequestParam(required = false) String groupBy,
+      @RequestParam(required = false) String provider,
+      @RequestParam(required = false) String icd10,
+      @RequestParam(required = false) String billingCode,
+      @RequestParam(required = false) String chiefComplaint,
+      @RequestParam(required = false) String from,
+      @RequestParam(required = false) String to) {
+    logger.info(LoggingConstants.GET_ENCOUNTER_SCAN(groupBy));
+    return new ResponseEntity<>(analyticsService.getEncounterScan(groupBy, provider, icd10,
+        billingCode, chiefComplaint, from, to), HttpStatus.OK);
+  }
+
+  /**
+   * Handles a GET request to /analytics/patients/distinct. Returns the estimated number of
+   * distinct patients with encounters over a range of months, grouped by one of provider, icd10
+   * and month.
+   *
+   * @param groupBy - provider, icd10 or month; a single row if omitted
+   * @param from - optional first month, 'YYYY-MM'
+   * @param to - optional last month, 'YYYY-MM'
+   * @return one row per group
+   */
+  @GetMapping(value = "/patients/distinct")
+  public ResponseEntity<List<DistinctPatientsRow>> getDistinctPatients(
+      @RequestParam(required = false) String groupBy,
+      @RequestParam(required = false) String from,
+      @RequestParam(required = false) String to) {
+    logger.info(LoggingConstants.GET_DISTINCT_PATIENTS(groupBy));
+    return new ResponseEntity<>(analyticsService.getDistinctPatients(groupBy, from, to),
+        HttpStatus.OK);
+  }
+
+  /**
+   * Handles a GET request to /analytics/vitals/quantiles. Returns the estimated median, 90th and
+   * 99th percentile of pulse, systolic and diastolic pressure over all encounters, grouped by any
+   * of the patients' gender and age band.
+   *
+   * @param groupBy - comma separated dimensions, gender and ageBand, to group by; a single row if
+   * omitted
+   * @param gender - optional gender filter
+   * @param ageBand - optional age band filter, e.g. '18-34' or '65+'
+   * @return one row per group
+   */
+  @GetMapping(value = "/vitals/quantiles")
+  public ResponseEntity<List<VitalsQuantileRow>> getVitalsQuantiles(
+      @RequestParam(required = false) String groupBy,
+      @RequestParam(required = false) String gender,
+      @RequestParam(required = false) String ageBand) {
+    logger.info(LoggingConstants.GET_VITALS_QUANTILES(groupBy));
+    return new ResponseEntity<>(analyticsService.getVitalsQuantiles(groupBy, gender, ageBand),
+        HttpStatus.OK);
+  }
+
+  /**
+   * Handles a GET request to /analytics/trending. Returns the most frequent chief complaints and
+   * icd10 codes of the encounters saved in the last hour, day or week.
+   *
+   * @param window - "hour", "day" or "week"; the last day if omitted
+   * @param limit - number of values to return per field
+   * @return the trending values of the window
+   */
+  @GetMapping(value = "/trending")
+  public ResponseEntity<TrendingReport> getTrending(
+      @RequestParam(required = false) String window,
+      @RequestParam(defaultValue = "" + DEFAULT_TRENDING_LIMIT) Integer limit) {
+    logger.info(LoggingConstants.GET_TRENDING(window));
+    return new ResponseEntity<>(analyticsService.getTrending(window, limit), HttpStatus.OK);
+  }
+}
@@ -0,0 +1,22 @@
+package io.catalyte.training.superhealth.domains.analytics;
+
+import java.util.List;
+
+/**
+ * This interface provides an abstraction layer for the Analytics Service
+ */
+public interface AnalyticsService {
+
+  List<RollupRow> getEncounterRollup(String groupBy, String provider, String icd10,
+      String billingCode, String month);
+
+  List<VitalsQuantileRow> getVitalsQuantiles(String groupBy, String gender, String ageBand);
+
+  TrendingReport getTrending(String window, Integer limit);
+
+  List<EncounterScanRow> getEncounterScan(String groupBy, String provider, String icd10,
+      String billingCode, String chiefComplaint, String from, String to);
+
+  List<DistinctPatientsRow> getDistinctPatients(String groupBy, String from, String to);
+
+}
@@ -0,0 +1,388 @@
+package io.catalyte.training.superhealth.domains.analytics;
+
+import io.catalyte.training.superhealth.constants.LoggingConstants;
+import io.catalyte.training.superhealth.constants.StringConstants;
+import io.catalyte.training.superhealth.domains.encounter.EncounterRepository;
+import io.catalyte.training.superhealth.exceptions.BadRequest;
+import io.catalyte.training.superhealth.exceptions.ServiceUnavailable;
+import io.catalyte.training.superhealth.validation.FormatMatchers;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+/**
+ * This class provides the implementation for the AnalyticsService interface.
+ */
+@Service
+public class AnalyticsServiceImpl implements AnalyticsService {
+
+  private static final String GENDER = "gender";
+
+  private static final String AGE_BAND = "ageBand";
+
+  private final Logger logger = LogManager.getLogger(AnalyticsServiceImpl.class);
+
+  EncounterRepository encounterRepository;
+
+  EncounterRollup encounterRollup;
+
+  VitalsQuantiles vitalsQuantiles;
+
+  EncounterTrends encounterTrends;
+
+  EncounterColumns encounterColumns;
+
+  DistinctPatients distinctPatients;
+
+  private final VitalsQuantiles.Source vitalsSamples = new VitalsQuantiles.Source() {
+    @Override
+    public Long findMinId() {
+      try {
+        return encounterRepository.findMinId();
+      } catch (DataAccessException e) {
+        logger.error(e.getMessage());
+        throw new ServiceUnavailable(e.getMessage());
+      }
+    }
+
+    @Override
+    public Long findMaxId() {
+      try {
+        return encounterRepository.findMaxId();
+      } catch (DataAccessException e) {
+        logger.error(e.getMessage());
+        throw new ServiceUnavailable(e.getMessage());
+      }
+    }
+
+    @Override
+    public List<VitalsSample> findBetween(long fromId, long toId) {
+      try {
+        return encounterRepository.findVitalsSamplesByIdBetween(fromId, toId);
+      } catch (DataAccessException e) {
+        logger.error(e.getMessage());
+        throw new ServiceUnavailable(e.getMessage());
+      }
+    }
+  };
+
+  private final EncounterColumns.Source scanRecords = new EncounterColumns.Source() {
+    @Override
+    public Long findMinId() {
+      return vitalsSamples.findMinId();
+    }
+
+    @Override
+    public Long findMaxId() {
+      return vitalsSamples.findMaxId();
+    }
+
+    @Override
+    public List<EncounterScanRecord> findBetween(long fromId, long toId) {
+      try {
+        return encounterRepository.findScanRecordsByIdBetween(fromId, toId);
+      } catch (DataAccessException e) {
+        logger.error(e.getMessage());
+        throw new ServiceUnavailable(e.getMessage());
+      }
+    }
+  };
+
+  private final DistinctPatients.Source patientVisits = new DistinctPatients.Source() {
+    @Override
+    public Long findMinId() {
+      return vitalsSamples.findMinId();
+    }
+
+    @Override
+    public Long findMaxId() {
+      return vitalsSamples.findMaxId();
+    }
+
+    @Override
+    public List<PatientVisit> findBetween(long fromId, long toId) {
+      try {
+        return encounterRepository.findPatientVisitsByIdBetween(fromId, toId);
+      } catch (DataAccessException e) {
+        logger.error(e.getMessage());
+        throw new ServiceUnavailable(e.getMessage());
+      }
+    }
+  };
+
+  @Autowired
+  public AnalyticsServiceImpl(EncounterRepository encounterRepository,
+      EncounterRollup encounterRollup, VitalsQuantiles vitalsQuantiles,
+      EncounterTrends encounterTrends, EncounterColumns encounterColumns,
+      DistinctPatients distinctPatients) {
+    this.encounterRepository = encounterRepository;
+    this.encounterRollup = encounterRollup;
+    this.vitalsQuantiles = vitalsQuantiles;
+    this.encounterTrends = encounterTrends;
+    this.encounterColumns = encounterColumns;
+    this.distinctPatients = distinctPatients;
+  }
+
+  /**
+   * Loads the vitals quantiles once the application has started, so the first request does not
+   * wait for them. A failure leaves them to load on first use.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void warmUpVitalsQuantiles() {
+    try {
+      vitalsQuantiles.warmUp(vitalsSamples);
+    } catch (ServiceUnavailable e) {
+      logger.error(LoggingConstants.VITALS_QUANTILES_WARM_UP_FAILURE);
+    }
+  }
+
+  /**
+   * Loads the encounter columns once the application has started, so the first scan does not
+   * wait for them. A failure leaves them to load on first use.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void warmUpEncounterColumns() {
+    try {
+      encounterColumns.warmUp(scanRecords);
+    } catch (ServiceUnavailable e) {
+      logger.error(LoggingConstants.ENCOUNTER_COLUMNS_WARM_UP_FAILURE);
+    }
+  }
+
+  /**
+   * Loads the distinct patient sketches once the application has started, so the first request
+   * does not wait for them. A failure leaves them to load on first use.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void warmUpDistinctPatients() {
+    try {
+      distinctPatients.warmUp(patientVisits);
+    } catch (ServiceUnavailable e) {
+      logger.error(LoggingConstants.DISTINCT_PATIENTS_WARM_UP_FAILURE);
+    }
+  }
+
+  /**
+   * Totals encounter counts, costs and copays by any of provider, icd10, billing code and month,
+   * answered from the rollup cube rather than the encounter table.
+   *
+   * @param groupBy - comma separated dimensions to group by; a single grand total if omitted
+   * @param provider - only count encounters with this provider, may be null
+   * @param icd10 - only count encounters with this icd10, may be null
+   * @param billingCode - only count encounters with this billing code, may be null
+   * @param month - only count encounters in this month, 'YYYY-MM', may be null
+   * @return one row per group, ordered by the grouped dimensions
+   */
+  public List<RollupRow> getEncounterRollup(String groupBy, String provider, String icd10,
+      String billingCode, String month) {
+    int groupMask = 0;
+    if (groupBy != null && !groupBy.trim().isEmpty()) {
+      for (String parameter : groupBy.split(",")) {
+        RollupDimension dimension = RollupDimension.fromParameter(parameter.trim());
+        if (dimension == null) {
+          List<String> dimensions = new ArrayList<>();
+          for (RollupDimension value : RollupDimension.values()) {
+            dimensions.add(value.getParameter());
+          }
+          throw new BadRequest(StringConstants.ROLLUP_GROUP_BY_INVALID(dimensions));
+        }
+        groupMask |= dimension.bit();
+      }
+    }
+    if (month != null && !month.isEmpty() && !FormatMatchers.isCalendarDate(month + "-01")) {
+      throw new BadRequest(StringConstants.MONTH_INVALID);
+    }
+
+    Map<RollupDimension, String> filters = new EnumMap<>(RollupDimension.class);
+    putIfPresent(filters, RollupDimension.PROVIDER, provider);
+    putIfPresent(filters, RollupDimension.ICD10, icd10);
+    putIfPresent(filters, RollupDimension.BILLING_CODE, billingCode);
+    putIfPresent(filters, RollupDimension.MONTH, month);
+
+    return encounterRollup.query(groupMask, filters, this::findRollupCounts);
+  }
+
+  /**
+   * Estimates the median, 90th and 99th percentile of pulse, systolic and diastolic pressure over
+   * all encounters, optionally by patient gender and age band, from the vitals quantile sketches.
+   *
+   * @param groupBy - comma separated dimensions, gender and ageBand, to group by; all encounters
+   * in one row if omitted
+   * @param gender - only cover patients of this gender, may be null
+   * @param ageBand - only cover patients in this age band, e.g. '18-34', may be null
+   * @return one row per group with encounters, ordered by gender then age band
+   */
+  public List<VitalsQuantileRow> getVitalsQuantiles(String groupBy, String gender,
+      String ageBand) {
+    boolean groupByGender = false;
+    boolean groupByAgeBand = false;
+    if (groupBy != null && !groupBy.trim().isEmpty()) {
+      for (String parameter : groupBy.split(",")) {
+        String dimension = parameter.trim();
+        if (dimension.equals(GENDER)) {
+          groupByGender = true;
+        } else if (dimension.equals(AGE_BAND)) {
+          groupByAgeBand = true;
+        } else {
+          throw new BadRequest(
+              StringConstants.ROLLUP_GROUP_BY_INVALID(Arrays.asList(GENDER, AGE_BAND)));
+        }
+      }
+    }
+
+    String genderFilter = null;
+    if (gender != null && !gender.isEmpty()) {
+      if (!FormatMatchers.isGender(gender)) {
+        throw new BadRequest(StringConstants.GENDER_INVALID);
+      }
+      //genders are stored capitalized
+      genderFilter = FormatMatchers.formatGender(gender);
+    }
+    AgeBand ageBandFilter = null;
+    if (ageBand != null && !ageBand.isEmpty()) {
+      ageBandFilter = AgeBand.fromLabel(ageBand);
+      if (ageBandFilter == null) {
+        List<String> labels = new ArrayList<>();
+        for (AgeBand value : AgeBand.values()) {
+          labels.add(value.getLabel());
+        }
+        throw new BadRequest(StringConstants.AGE_BAND_INVALID(labels));
+      }
+    }
+
+    return vitalsQuantiles.query(groupByGender, groupByAgeBand, genderFilter, ageBandFilter,
+        vitalsSamples);
+  }
+
+  /**
+   * Reports the most frequent chief complaints and icd10 codes of the encounters saved in the last
+   * hour, day or week, answered from the trending summaries rather than the encounter table.
+   *
+   * @param window - "hour", "day" or "week"; the last day if omitted
+   * @param limit - number of values to report per field, from 1 to the trending capacity
+   * @return the trending values of the window
+   */
+  public TrendingReport getTrending(String window, Integer limit) {
+    TrendingWindow trendingWindow = TrendingWindow.DAY;
+    if (window != null && !window.isEmpty()) {
+      trendingWindow = TrendingWindow.fromParameter(window);
+      if (trendingWindow == null) {
+        List<String> windows = new ArrayList<>();
+        for (TrendingWindow value : TrendingWindow.values()) {
+          windows.add(value.getParameter());
+        }
+        throw new BadRequest(StringConstants.TRENDING_WINDOW_INVALID(windows));
+      }
+    }
+    if (limit == null || limit < 1 || limit > encounterTrends.getCapacity()) {
+      throw new BadRequest(StringConstants.TRENDING_LIMIT_INVALID(encounterTrends.getCapacity()));
+    }
+    return encounterTrends.query(trendingWindow, limit);
+  }
+
+  /**
+   * Counts encounters and totals their costs, copays and vitals, over any filters of provider,
+   * icd10, billing code, chief complaint and date, by scanning the encounter columns on every
+   * core.
+   *
+   * @param groupBy - provider, icd10, billingCode or chiefComplaint to return a row per value of;
+   * a single row if omitted
+   * @param provider - only count encounters with this provider, may be null
+   * @param icd10 - only count encounters with this icd10, may be null
+   * @param billingCode - only count encounters with this billing code, may be null
+   * @param chiefComplaint - only count encounters with this chief complaint, may be null
+   * @param from - only count encounters on or after this day, 'YYYY-MM-DD', may be null
+   * @param to - only count encounters on or before this day, 'YYYY-MM-DD', may be null
+   * @return one row per group with encounters, ordered by the grouped value
+   */
+  public List<EncounterScanRow> getEncounterScan(String groupBy, String provider, String icd10,
+      String billingCode, String chiefComplaint, String from, String to) {
+    ScanDimension groupByDimension = null;
+    if (groupBy != null && !groupBy.trim().isEmpty()) {
+      groupByDimension = ScanDimension.fromParameter(groupBy.trim());
+      if (groupByDimension == null) {
+        List<String> dimensions = new ArrayList<>();
+        for (ScanDimension value : ScanDimension.values()) {
+          dimensions.add(value.getParameter());
+        }
+        throw new BadRequest(StringConstants.SCAN_GROUP_BY_INVALID(dimensions));
+      }
+    }
+    boolean hasFrom = from != null && !from.isEmpty();
+    boolean hasTo = to != null && !to.isEmpty();
+    if ((hasFrom && !FormatMatchers.isCalendarDate(from))
+        || (hasTo && !FormatMatchers.isCalendarDate(to))
+        || (hasFrom && hasTo && from.compareTo(to) > 0)) {
+      throw new BadRequest(StringConstants.DATE_RANGE_INVALID);
+    }
+
+    Map<ScanDimension, String> filters = new EnumMap<>(ScanDimension.class);
+    putIfPresent(filters, ScanDimension.PROVIDER, provider);
+    putIfPresent(filters, ScanDimension.ICD10, icd10);
+    putIfPresent(filters, ScanDimension.BILLING_CODE, billingCode);
+    putIfPresent(filters, ScanDimension.CHIEF_COMPLAINT, chiefComplaint);
+
+    return encounterColumns.scan(groupByDimension, filters,
+        hasFrom ? LocalDate.parse(from).toEpochDay() : Long.MIN_VALUE,
+        hasTo ? LocalDate.parse(to).toEpochDay() : Long.MAX_VALUE, scanRecords);
+  }
+
+  /**
+   * Estimates the number of distinct patients with encounters, per provider, icd10 or month, over
+   * a range of months, from the distinct patient sketches rather than the encounter table.
+   *
+   * @param groupBy - provider, icd10 or month to return a row per value of; a single row if
+   * omitted
+   * @param from - first month counted, 'YYYY-MM', may be null
+   * @param to - last month counted, 'YYYY-MM', may be null
+   * @return one row per group with encounters, ordered by the grouped value
+   */
+  public List<DistinctPatientsRow> getDistinctPatients(String groupBy, String from, String to) {
+    DistinctDimension groupByDimension = null;
+    if (groupBy != null && !groupBy.trim().isEmpty()) {
+      groupByDimension = DistinctDimension.fromParameter(groupBy.trim());
+      if (groupByDimension == null) {
+        List<String> dimensions = new ArrayList<>();
+        for (DistinctDimension value : DistinctDimension.values()) {
+          dimensions.add(value.getParameter());
+        }
+        throw new BadRequest(StringConstants.SCAN_GROUP_BY_INVALID(dimensions));
+      }
+    }
+    boolean hasFrom = from != null && !from.isEmpty();
+    boolean hasTo = to != null && !to.isEmpty();
+    if ((hasFrom && !FormatMatchers.isCalendarDate(from + "-01"))
+        || (hasTo && !FormatMatchers.isCalendarDate(to + "-01"))
+        || (hasFrom && hasTo && from.compareTo(to) > 0)) {
+      throw new BadRequest(StringConstants.MONTH_RANGE_INVALID);
+    }
+
+    return distinctPatients.query(groupByDimension, hasFrom ? from : null, hasTo ? to : null,
+        patientVisits);
+  }
+
+  private static <K> void putIfPresent(Map<K, String> filters, K dimension, String value) {
+    if (value != null && !value.isEmpty()) {
+      filters.put(dimension, value);
+    }
+  }
+
+  private List<RollupCount> findRollupCounts() {
+    try {
+      return encounterRepository.findRollupCounts();
+    } catch (DataAccessException e) {
+      logger.error(e.getMessage());
+      throw new ServiceUnavailable(e.getMessage());
+    }
+  }
+}
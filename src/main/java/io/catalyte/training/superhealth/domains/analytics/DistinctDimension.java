@@ -0,0 +1,35 @@
+package io.catalyte.training.superhealth.domains.analytics;
+
+/**
+ * Dimensions the distinct patient counts are kept by.
+ */
+public enum DistinctDimension {
+  PROVIDER("provider"),
+  ICD10("icd10"),
+  MONTH("month");
+
+  private final String parameter;
+
+  DistinctDimension(String parameter) {
+    this.parameter = parameter;
+  }
+
+  /**
+   * Finds the dimension for a request parameter name.
+   *
+   * @param parameter - parameter name, e.g. "icd10"
+   * @return the dimension, or null if there is none by that name
+   */
+  public static DistinctDimension fromParameter(String parameter) {
+    for (DistinctDimension dimension : values()) {
+      if (dimension.parameter.equals(parameter)) {
+        return dimension;
+      }
+    }
+    return null;
+  }
+
+  public String getParameter() {
+    return parameter;
+  }
+}
@@ -0,0 +1,293 @@
+package io.catalyte.training.superhealth.domains.analytics;
+
+import io.catalyte.training.superhealth.domains.encounter.EncounterChange;
+import io.catalyte.training.superhealth.domains.patient.PatientChange;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.LongStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * HyperLogLog sketches of the patients seen per provider and month, per icd10 and month, and per
+ * month. A query merges the sketches of the months it covers, so it answers in time and memory
+ * that depend only on the number of sketches and their precision, whatever the number of
+ * encounters or patients.
+ *
+ * <p>The sketches are loaded on first use, or when the application starts, by splitting the
+ * encounter ids into ranges of analytics.distinct-patients.load-chunk-size, sketching the ranges
+ * in parallel and merging the results. They are then kept current by record, which applies each
+ * encounter change once it commits. Adding a patient to a sketch twice has no effect, so a change
+ * that a load already read is recorded again harmlessly; a change never waits for a load, it starts
+ * a new invalidation epoch so a load that may have missed it is not kept. A sketch cannot take a
+ * patient back, so an update that changes an encounter's patient, provider, icd10 or month, and a
+ * cascade delete of a patient, drop the sketches and the next query reloads them.
+ *
+ * <p>Most provider and icd10 cells see a handful of patients a month, so each sketch stays sparse,
+ * at 4 bytes per distinct patient in an array that doubles as it fills, until it would take as much
+ * as its 2^precision dense registers. Each cell also costs about 200 bytes of key, map entry and
+ * sketch objects. The sketches therefore take at most 8 bytes per distinct (patient, provider,
+ * month), (patient, icd10, month) and (patient, month), plus 200 bytes per cell, and never more
+ * than 2^precision + 200 bytes per cell: at the default precision of 12, the roughly 830,000 cells
+ * of tens of millions of encounters take about 170 MB of overhead plus their patients, where dense
+ * sketches alone would take 3.4 GB.
+ */
+@Component
+public class DistinctPatients {
+
+  private final ReentrantLock loadLock = new ReentrantLock();
+
+  private final int precision;
+
+  private final int loadChunkSize;
+
+  private volatile Sketches sketches;
+
+  private final InvalidationEpoch epoch = new InvalidationEpoch();
+
+  /**
+   * @param precision - precision of each sketch, which sets its largest size and its accuracy
+   * @param loadChunkSize - number of encounter ids read by each task of a load
+   */
+  @Autowired
+  public DistinctPatients(@Value("${analytics.distinct-patients.precision:12}") int precision,
+      @Value("${analytics.distinct-patients.load-chunk-size:10000}") int loadChunkSize) {
+    this.precision = precision;
+    this.loadChunkSize = loadChunkSize;
+  }
+
+  /**
+   * Adds the patient of a committed encounter to the sketches of its provider, icd10 and month, or
+   * drops the sketches if the change moved the encounter out of sketches that already count it.
+   *
+   * @param change - the committed encounter change
+   */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  public void record(EncounterChange change) {
+    epoch.apply(() -> {
+      Sketches current = sketches;
+      if (current == null) {
+        return;
+      }
+      PatientVisit visit = PatientVisit.of(change.getCurrent());
+      if (change.getPrevious() != null && !PatientVisit.of(change.getPrevious()).equals(visit)) {
+        sketches = null;
+      } else {
+        current.add(visit);
+      }
+    });
+  }
+
+  /**
+   * Drops the sketches so the next query reloads them from the database, without waiting for a
+   * load in progress; a load in progress is discarded once it finishes.
+   */
+  public void invalidate() {
+    epoch.invalidate(() -> sketches = null);
+  }
+
+  /**
+   * Drops the sketches once a patient delete that removed encounters commits.
+   *
+   * @param change - the committed patient change
+   */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  public void recordPatient(PatientChange change) {
+    if (change.isEncountersDeleted()) {
+      invalidate();
+    }
+  }
+
+  /**
+   * Loads the sketches if they are not loaded, so the first query does not wait for it.
+   *
+   * @param source - reads the visits of the encounters
+   */
+  public void warmUp(Source source) {
+    load(source);
+  }
+
+  /**
+   * Estimates the number of distinct patients by merging the sketches of the months covered,
+   * loading the sketches first if needed.
+   *
+   * @param groupBy - dimension to return a row per value of, null for a single row
+   * @param fromMonth - first month covered, 'YYYY-MM', null for no bound
+   * @param toMonth - last month covered, 'YYYY-MM', null for no bound
+   * @param source - reads the visits of the encounters
+   * @return one row per group with at least one encounter, ordered by the grouped value
+   */
+  public List<DistinctPatientsRow> query(DistinctDimension groupBy, String fromMonth,
+      String toMonth, Source source) {
+    Sketches current = load(source);
+    DistinctDimension dimension = groupBy == null ? DistinctDimension.MONTH : groupBy;
+
+    Map<String, HyperLogLog> groups = new TreeMap<>();
+    for (Map.Entry<Cell, HyperLogLog> entry : current.cells.get(dimension).entrySet()) {
+      String month = entry.getKey().month;
+      if ((fromMonth != null && month.compareTo(fromMonth) < 0)
+          || (toMonth != null && month.compareTo(toMonth) > 0)) {
+        continue;
+      }
+      String group = groupBy == null ? "" : entry.getKey().value;
+      HyperLogLog merged = groups.computeIfAbsent(group, key -> new HyperLogLog(precision));
+      HyperLogLog sketch = entry.getValue();
+      synchronized (sketch) {
+        merged.merge(sketch);
+      }
+    }
+
+    List<DistinctPatientsRow> rows = new ArrayList<>(groups.size());
+    for (Map.Entry<String, HyperLogLog> group : groups.entrySet()) {
+      rows.add(new DistinctPatientsRow(groupBy, group.getKey(), group.getValue().estimate()));
+    }
+    return rows;
+  }
+
+  private Sketches load(Source source) {
+    Sketches current = sketches;
+    if (current != null) {
+      return current;
+    }
+    //only loads wait for each other here, changes go through the epoch
+    loadLock.lock();
+    try {
+      current = sketches;
+      if (current == null) {
+        long loading = epoch.current();
+        Sketches built = build(source);
+        epoch.publish(loading, () -> sketches = built);
+        current = built;
+      }
+      return current;
+    } finally {
+      loadLock.unlock();
+    }
+  }
+
+  /**
+   * Sketches the encounters chunk by chunk of ids on the common fork join pool, each chunk into
+   * its own sketches, and merges the chunks' sketches.
+   */
+  private Sketches build(Source source) {
+    Long minId = source.findMinId();
+    Long maxId = source.findMaxId();
+    if (minId == null || maxId == null) {
+      return new Sketches();
+    }
+    long chunks = (maxId - minId) / loadChunkSize + 1;
+    return LongStream.range(0, chunks).parallel().collect(Sketches::new,
+        (loaded, chunk) -> {
+          long fromId = minId + chunk * loadChunkSize;
+          for (PatientVisit visit : source.findBetween(fromId, fromId + loadChunkSize - 1)) {
+            loaded.add(visit);
+          }
+        },
+        Sketches::merge);
+  }
+
+  /**
+   * Reads the visits the sketches are loaded from.
+   */
+  public interface Source {
+
+    /**
+     * @return the lowest encounter id, null if there are no encounters
+     */
+    Long findMinId();
+
+    /**
+     * @return the highest encounter id, null if there are no encounters
+     */
+    Long findMaxId();
+
+    /**
+     * @param fromId - lowest encounter id to read
+     * @param toId - highest encounter id to read
+     * @return the distinct visits of the encounters with ids in the range
+     */
+    List<PatientVisit> findBetween(long fromId, long toId);
+  }
+
+  /**
+   * A value of a dimension in one month. Month cells hold the month as their value.
+   */
+  private static final class Cell {
+
+    private final String value;
+
+    private final String month;
+
+    Cell(String value, String month) {
+      this.value = value;
+      this.month = month;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Cell cell = (Cell) o;
+      return value.equals(cell.value) && month.equals(cell.month);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(value, month);
+    }
+  }
+
+  /**
+   * One sketch per cell of each dimension. Each sketch is locked while it is changed or read, so
+   * saves can add to different cells at once, and while it grows from sparse to dense.
+   */
+  private final class Sketches {
+
+    private final Map<DistinctDimension, ConcurrentHashMap<Cell, HyperLogLog>> cells =
+        new EnumMap<>(DistinctDimension.class);
+
+    Sketches() {
+      for (DistinctDimension dimension : DistinctDimension.values()) {
+        cells.put(dimension, new ConcurrentHashMap<>());
+      }
+    }
+
+    void add(PatientVisit visit) {
+      if (visit.getPatientId() == null || visit.getMonth() == null) {
+        return;
+      }
+      for (DistinctDimension dimension : DistinctDimension.values()) {
+        String value = visit.get(dimension);
+        if (value != null) {
+          HyperLogLog sketch = cells.get(dimension).computeIfAbsent(
+              new Cell(value, visit.getMonth()), key -> new HyperLogLog(precision));
+          synchronized (sketch) {
+            sketch.add(visit.getPatientId());
+          }
+        }
+      }
+    }
+
+    void merge(Sketches other) {
+      for (DistinctDimension dimension : DistinctDimension.values()) {
+        for (Map.Entry<Cell, HyperLogLog> entry : other.cells.get(dimension).entrySet()) {
+          cells.get(dimension).computeIfAbsent(entry.getKey(),
+              key -> new HyperLogLog(precision)).merge(entry.getValue());
+        }
+      }
+    }
+  }
+}
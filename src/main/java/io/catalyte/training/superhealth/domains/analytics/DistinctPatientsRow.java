@@ -0,0 +1,46 @@
+package io.catalyte.training.superhealth.domains.analytics;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+/**
+ * One group of a distinct patients answer. Only the dimension the answer is grouped by is
+ * present.
+ */
+@JsonInclude(Include.NON_NULL)
+public class DistinctPatientsRow {
+
+  private final String provider;
+
+  private final String icd10;
+
+  private final String month;
+
+  private final long patients;
+
+  public DistinctPatientsRow(DistinctDimension groupBy, String group, long patients) {
+    this.provider = groupBy == DistinctDimension.PROVIDER ? group : null;
+    this.icd10 = groupBy == DistinctDimension.ICD10 ? group : null;
+    this.month = groupBy == DistinctDimension.MONTH ? group : null;
+    this.patients = patients;
+  }
+
+  public String getProvider() {
+    return provider;
+  }
+
+  public String getIcd10() {
+    return icd10;
+  }
+
+  public String getMonth() {
+    return month;
+  }
+
+  /**
+   * @return the estimated number of distinct patients
+   */
+  public long getPatients() {
+    return patients;
+  }
+}
@@ -0,0 +1,579 @@
+package io.catalyte.training.superhealth.domains.analytics;
+
+import io.catalyte.training.superhealth.domains.encounter.Cents;
+import io.catalyte.training.superhealth.domains.encounter.EncounterChange;
+import io.catalyte.training.superhealth.domains.encounter.EncounterChangeSequence;
+import io.catalyte.training.superhealth.domains.patient.PatientChange;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Columnar snapshot of every encounter for ad-hoc scans. Each field is its own primitive array
+ * indexed by row: costs in cents, vitals with 0 for not recorded, dates as epoch days, and
+ * provider, icd10, billing code and chief complaint as int codes into a dictionary of their
+ * distinct values. Rows are kept in id order. A scan splits the rows into ranges summed by tight
+ * loops over the arrays on the common fork join pool, with no entity or boxed value per row.
+ *
+ * <p>The snapshot is loaded on first use, or when the application starts, by reading the
+ * encounter ids in ranges of analytics.encounter-columns.load-chunk-size in parallel. It is then
+ * kept current by record, which applies each encounter change once it commits: a new encounter is
+ * inserted where its id sorts and an updated one is overwritten in place. Changes go through an
+ * invalidation epoch, as for the encounter rollup, so they never wait for a load, and a lock keeps
+ * scans from reading a row while it changes. Writes that bypass the encounter service must call
+ * invalidate so the next scan reloads the snapshot.
+ */
+@Component
+public class EncounterColumns {
+
+  /**
+   * Fewest rows a scan task sums itself rather than splitting.
+   */
+  static final int SCAN_LEAF_SIZE = 8192;
+
+  private static final ScanDimension[] DIMENSIONS = ScanDimension.values();
+
+  //layout of the totals of one group in a scan's accumulator
+  private static final int COUNT = 0;
+  private static final int TOTAL_COST = 1;
+  private static final int COPAY = 2;
+  private static final int PULSE_SUM = 3;
+  private static final int PULSE_COUNT = 4;
+  private static final int SYSTOLIC_SUM = 5;
+  private static final int SYSTOLIC_COUNT = 6;
+  private static final int DIASTOLIC_SUM = 7;
+  private static final int DIASTOLIC_COUNT = 8;
+  private static final int STRIDE = 9;
+
+  private final ReentrantLock loadLock = new ReentrantLock();
+
+  private final ReentrantReadWriteLock columnsLock = new ReentrantReadWriteLock();
+
+  private final int loadChunkSize;
+
+  private final int scanLeafSize;
+
+  private final EncounterChangeSequence changes;
+
+  private volatile Columns columns;
+
+  /**
+   * Last change numbered before the kept snapshot's load started, guarded by the epoch.
+   */
+  private long loadedThrough;
+
+  private final InvalidationEpoch epoch = new InvalidationEpoch();
+
+  /**
+   * @param loadChunkSize - number of encounter ids read by each task of a load
+   * @param changes - numbers the encounter changes as they commit
+   */
+  @Autowired
+  public EncounterColumns(
+      @Value("${analytics.encounter-columns.load-chunk-size:10000}") int loadChunkSize,
+      EncounterChangeSequence changes) {
+    this(loadChunkSize, SCAN_LEAF_SIZE, changes);
+  }
+
+  /**
+   * @param loadChunkSize - number of encounter ids read by each task of a load
+   * @param scanLeafSize - fewest rows a scan task sums itself rather than splitting
+   * @param changes - numbers the encounter changes as they commit
+   */
+  EncounterColumns(int loadChunkSize, int scanLeafSize, EncounterChangeSequence changes) {
+    this.loadChunkSize = loadChunkSize;
+    this.scanLeafSize = scanLeafSize;
+    this.changes = changes;
+  }
+
+  /**
+   * Inserts or overwrites the row of a committed encounter, unless a later change to it was
+   * applied first.
+   *
+   * @param change - the committed encounter change
+   */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  public void record(EncounterChange change) {
+    epoch.apply(() -> {
+      Columns current = columns;
+      if (current == null) {
+        return;
+      }
+      if (change.getSequence() <= loadedThrough) {
+        //the load may have read a later change to the row, which this one would overwrite
+        columns = null;
+        return;
+      }
+      columnsLock.writeLock().lock();
+      try {
+        current.put(EncounterScanRecord.of(change.getCurrent()), change.getSequence());
+      } finally {
+        columnsLock.writeLock().unlock();
+      }
+    });
+  }
+
+  /**
+   * Drops the snapshot so the next scan reloads it from the database, without waiting for a load
+   * in progress; a load in progress is discarded once it finishes.
+   */
+  public void invalidate() {
+    epoch.invalidate(() -> columns = null);
+  }
+
+  /**
+   * Drops the snapshot once a patient delete that removed encounters commits.
+   *
+   * @param change - the committed patient change
+   */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  public void recordPatient(PatientChange change) {
+    if (change.isEncountersDeleted()) {
+      invalidate();
+    }
+  }
+
+  /**
+   * Loads the snapshot if it is not loaded, so the first scan does not wait for it.
+   *
+   * @param source - reads the records of the encounters
+   */
+  public void warmUp(Source source) {
+    load(source);
+  }
+
+  /**
+   * Counts and totals the encounters matching the filters, loading the snapshot first if needed.
+   *
+   * @param groupBy - dimension to return a row per value of, null for a single row
+   * @param filters - only cover encounters with these dimension values
+   * @param fromEpochDay - only cover encounters dated on or after this day
+   * @param toEpochDay - only cover encounters dated on or before this day
+   * @param source - reads the records of the encounters
+   * @return one row per group with at least one encounter, ordered by the grouped value
+   */
+  public List<EncounterScanRow> scan(ScanDimension groupBy, Map<ScanDimension, String> filters,
+      long fromEpochDay, long toEpochDay, Source source) {
+    Columns current = load(source);
+    columnsLock.readLock().lock();
+    try {
+      int[][] filterColumns = new int[filters.size()][];
+      int[] filterCodes = new int[filters.size()];
+      int filter = 0;
+      for (Map.Entry<ScanDimension, String> entry : filters.entrySet()) {
+        int code = current.dictionaries[entry.getKey().ordinal()].find(entry.getValue());
+        if (code < 0) {
+          return Collections.emptyList();
+        }
+        filterColumns[filter] = current.codes[entry.getKey().ordinal()];
+        filterCodes[filter++] = code;
+      }
+
+      Dictionary groups = groupBy == null ? null : current.dictionaries[groupBy.ordinal()];
+      //no more than a few leaves per core, so each keeps its accumulator busy
+      int leafSize = Math.max(scanLeafSize,
+          current.size / (4 * ForkJoinPool.getCommonPoolParallelism()) + 1);
+      long[] totals = ForkJoinPool.commonPool().invoke(new ScanTask(current,
+          groupBy == null ? null : current.codes[groupBy.ordinal()],
+          groups == null ? 1 : groups.size(), filterColumns, filterCodes,
+          (int) Math.max(fromEpochDay, Integer.MIN_VALUE),
+          (int) Math.min(toEpochDay, Integer.MAX_VALUE), leafSize, 0, current.size));
+
+      List<EncounterScanRow> rows = new ArrayList<>();
+      for (int group = 0; group * STRIDE < totals.length; group++) {
+        int offset = group * STRIDE;
+        if (totals[offset + COUNT] > 0) {
+          rows.add(new EncounterScanRow(groupBy, groups == null ? null : groups.value(group),
+              totals[offset + COUNT], Cents.toAmount(totals[offset + TOTAL_COST]),
+              Cents.toAmount(totals[offset + COPAY]),
+              average(totals[offset + PULSE_SUM], totals[offset + PULSE_COUNT]),
+              average(totals[offset + SYSTOLIC_SUM], totals[offset + SYSTOLIC_COUNT]),
+              average(totals[offset + DIASTOLIC_SUM], totals[offset + DIASTOLIC_COUNT])));
+        }
+      }
+      if (groupBy != null) {
+        rows.sort(Comparator.comparing(row -> groupValue(groupBy, row),
+            Comparator.nullsFirst(Comparator.naturalOrder())));
+      }
+      return rows;
+    } finally {
+      columnsLock.readLock().unlock();
+    }
+  }
+
+  private Columns load(Source source) {
+    Columns current = columns;
+    if (current != null) {
+      return current;
+    }
+    //only loads wait for each other here, changes go through the epoch
+    loadLock.lock();
+    try {
+      current = columns;
+      if (current == null) {
+        long since = changes.current();
+        long loading = epoch.current();
+        Columns built = build(source);
+        epoch.publish(loading, () -> {
+          columns = built;
+          loadedThrough = since;
+        });
+        current = built;
+      }
+      return current;
+    } finally {
+      loadLock.unlock();
+    }
+  }
+
+  /**
+   * Reads the encounters chunk by chunk of ids on the common fork join pool, then appends the
+   * chunks in id order, encoding the dictionary columns as it goes.
+   */
+  private Columns build(Source source) {
+    Long minId = source.findMinId();
+    Long maxId = source.findMaxId();
+    if (minId == null || maxId == null) {
+      return new Columns(0);
+    }
+    long chunks = (maxId - minId) / loadChunkSize + 1;
+    List<List<EncounterScanRecord>> loaded = LongStream.range(0, chunks).parallel()
+        .mapToObj(chunk -> {
+          long fromId = minId + chunk * loadChunkSize;
+          return source.findBetween(fromId, fromId + loadChunkSize - 1);
+        })
+        .collect(Collectors.toList());
+
+    int size = 0;
+    for (List<EncounterScanRecord> chunk : loaded) {
+      size += chunk.size();
+    }
+    Columns built = new Columns(size);
+    for (List<EncounterScanRecord> chunk : loaded) {
+      for (EncounterScanRecord record : chunk) {
+        built.append(record);
+      }
+    }
+    return built;
+  }
+
+  private static Double average(long sum, long count) {
+    return count == 0 ? null : (double) sum / count;
+  }
+
+  private static String groupValue(ScanDimension groupBy, EncounterScanRow row) {
+    switch (groupBy) {
+      case PROVIDER:
+        return row.getProvider();
+      case ICD10:
+        return row.getIcd10();
+      case BILLING_CODE:
+        return row.getBillingCode();
+      default:
+        return row.getChiefComplaint();
+    }
+  }
+
+  /**
+   * Reads the records the snapshot is loaded from.
+   */
+  public interface Source {
+
+    /**
+     * @return the lowest encounter id, null if there are no encounters
+     */
+    Long findMinId();
+
+    /**
+     * @return the highest encounter id, null if there are no encounters
+     */
+    Long findMaxId();
+
+    /**
+     * @param fromId - lowest encounter id to read
+     * @param toId - highest encounter id to read
+     * @return the records of the encounters with ids in the range, in id order
+     */
+    List<EncounterScanRecord> findBetween(long fromId, long toId);
+  }
+
+  /**
+   * The distinct values of one dictionary encoded column, each coded by its position.
+   */
+  private static final class Dictionary {
+
+    private final Map<String, Integer> codes = new HashMap<>();
+
+    private final List<String> values = new ArrayList<>();
+
+    int encode(String value) {
+      Integer code = codes.get(value);
+      if (code == null) {
+        code = values.size();
+        values.add(value);
+        codes.put(value, code);
+      }
+      return code;
+    }
+
+    int find(String value) {
+      Integer code = codes.get(value);
+      return code == null ? -1 : code;
+    }
+
+    String value(int code) {
+      return values.get(code);
+    }
+
+    int size() {
+      return values.size();
+    }
+  }
+
+  /**
+   * The column arrays, with room for more rows than size.
+   */
+  private static final class Columns {
+
+    private final Dictionary[] dictionaries = new Dictionary[DIMENSIONS.length];
+
+    private long[] ids;
+
+    /**
+     * Number of the last change applied to each row, 0 for a row as loaded.
+     */
+    private long[] versions;
+
+    private final int[][] codes = new int[DIMENSIONS.length][];
+
+    private long[] totalCostCents;
+
+    private long[] copayCents;
+
+    private int[] pulse;
+
+    private int[] systolic;
+
+    private int[] diastolic;
+
+    private int[] epochDays;
+
+    private int size;
+
+    Columns(int capacity) {
+      for (int d = 0; d < DIMENSIONS.length; d++) {
+        dictionaries[d] = new Dictionary();
+        codes[d] = new int[capacity];
+      }
+      ids = new long[capacity];
+      versions = new long[capacity];
+      totalCostCents = new long[capacity];
+      copayCents = new long[capacity];
+      pulse = new int[capacity];
+      systolic = new int[capacity];
+      diastolic = new int[capacity];
+      epochDays = new int[capacity];
+    }
+
+    void append(EncounterScanRecord record) {
+      ensureCapacity(size + 1);
+      set(size++, record);
+    }
+
+    /**
+     * Overwrites the row of the record's id, or inserts it where the id sorts. Encounters can
+     * commit out of id order, so a new id is not always the greatest. Changes to one encounter
+     * are numbered in commit order but can be applied out of it, so a row is only overwritten by
+     * a later change.
+     */
+    void put(EncounterScanRecord record, long version) {
+      int row = Arrays.binarySearch(ids, 0, size, record.getId());
+      if (row >= 0 && versions[row] >= version) {
+        return;
+      }
+      if (row < 0) {
+        row = -row - 1;
+        ensureCapacity(size + 1);
+        int moved = size - row;
+        System.arraycopy(ids, row, ids, row + 1, moved);
+        System.arraycopy(versions, row, versions, row + 1, moved);
+        for (int[] column : codes) {
+          System.arraycopy(column, row, column, row + 1, moved);
+        }
+        System.arraycopy(totalCostCents, row, totalCostCents, row + 1, moved);
+        System.arraycopy(copayCents, row, copayCents, row + 1, moved);
+        System.arraycopy(pulse, row, pulse, row + 1, moved);
+        System.arraycopy(systolic, row, systolic, row + 1, moved);
+        System.arraycopy(diastolic, row, diastolic, row + 1, moved);
+        System.arraycopy(epochDays, row, epochDays, row + 1, moved);
+        size++;
+      }
+      set(row, record);
+      versions[row] = version;
+    }
+
+    private void set(int row, EncounterScanRecord record) {
+      ids[row] = record.getId();
+      for (ScanDimension dimension : DIMENSIONS) {
+        codes[dimension.ordinal()][row] =
+            dictionaries[dimension.ordinal()].encode(record.get(dimension));
+      }
+      totalCostCents[row] = orZero(record.getTotalCostCents());
+      copayCents[row] = orZero(record.getCopayCents());
+      pulse[row] = orZero(record.getPulse());
+      systolic[row] = orZero(record.getSystolic());
+      diastolic[row] = orZero(record.getDiastolic());
+      epochDays[row] = record.getDate() == null ? Integer.MIN_VALUE
+          : Math.toIntExact(record.getDate().toEpochDay());
+    }
+
+    private void ensureCapacity(int capacity) {
+      if (capacity <= ids.length) {
+        return;
+      }
+      int grown = Math.max(capacity, Math.max(16, ids.length + (ids.length >> 1)));
+      ids = Arrays.copyOf(ids, grown);
+      versions = Arrays.copyOf(versions, grown);
+      for (int d = 0; d < codes.length; d++) {
+        codes[d] = Arrays.copyOf(codes[d], grown);
+      }
+      totalCostCents = Arrays.copyOf(totalCostCents, grown);
+      copayCents = Arrays.copyOf(copayCents, grown);
+      pulse = Arrays.copyOf(pulse, grown);
+      systolic = Arrays.copyOf(systolic, grown);
+      diastolic = Arrays.copyOf(diastolic, grown);
+      epochDays = Arrays.copyOf(epochDays, grown);
+    }
+
+    private static long orZero(Long value) {
+      return value == null ? 0 : value;
+    }
+
+    private static int orZero(Integer value) {
+      return value == null ? 0 : value;
+    }
+  }
+
+  /**
+   * Sums a range of rows into an accumulator of STRIDE longs per group, splitting it in two while
+   * it is longer than the leaf size.
+   */
+  private static final class ScanTask extends RecursiveTask<long[]> {
+
+    private final Columns columns;
+
+    private final int[] groupCodes;
+
+    private final int groups;
+
+    private final int[][] filterColumns;
+
+    private final int[] filterCodes;
+
+    private final int fromDay;
+
+    private final int toDay;
+
+    private final int leafSize;
+
+    private final int from;
+
+    private final int to;
+
+    ScanTask(Columns columns, int[] groupCodes, int groups, int[][] filterColumns,
+        int[] filterCodes, int fromDay, int toDay, int leafSize, int from, int to) {
+      this.columns = columns;
+      this.groupCodes = groupCodes;
+      this.groups = groups;
+      this.filterColumns = filterColumns;
+      this.filterCodes = filterCodes;
+      this.fromDay = fromDay;
+      this.toDay = toDay;
+      this.leafSize = leafSize;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected long[] compute() {
+      if (to - from <= leafSize) {
+        return sum();
+      }
+      int middle = (from + to) >>> 1;
+      ScanTask left = new ScanTask(columns, groupCodes, groups, filterColumns, filterCodes,
+          fromDay, toDay, leafSize, from, middle);
+      left.fork();
+      long[] totals = new ScanTask(columns, groupCodes, groups, filterColumns, filterCodes,
+          fromDay, toDay, leafSize, middle, to).compute();
+      long[] leftTotals = left.join();
+      for (int i = 0; i < totals.length; i++) {
+        totals[i] += leftTotals[i];
+      }
+      return totals;
+    }
+
+    private long[] sum() {
+      long[] totals = new long[groups * STRIDE];
+      //locals, so the loop reads no field but the arrays
+      int[] epochDays = columns.epochDays;
+      long[] totalCostCents = columns.totalCostCents;
+      long[] copayCents = columns.copayCents;
+      int[] pulse = columns.pulse;
+      int[] systolic = columns.systolic;
+      int[] diastolic = columns.diastolic;
+      int[] groupCodes = this.groupCodes;
+      int[][] filterColumns = this.filterColumns;
+      int[] filterCodes = this.filterCodes;
+      int fromDay = this.fromDay;
+      int toDay = this.toDay;
+
+      rows:
+      for (int row = from; row < to; row++) {
+        int day = epochDays[row];
+        if (day < fromDay || day > toDay) {
+          continue;
+        }
+        for (int f = 0; f < filterColumns.length; f++) {
+          if (filterColumns[f][row] != filterCodes[f]) {
+            continue rows;
+          }
+        }
+        int offset = groupCodes == null ? 0 : groupCodes[row] * STRIDE;
+        totals[offset + COUNT]++;
+        totals[offset + TOTAL_COST] += totalCostCents[row];
+        totals[offset + COPAY] += copayCents[row];
+        int value = pulse[row];
+        if (value > 0) {
+          totals[offset + PULSE_SUM] += value;
+          totals[offset + PULSE_COUNT]++;
+        }
+        value = systolic[row];
+        if (value > 0) {
+          totals[offset + SYSTOLIC_SUM] += value;
+          totals[offset + SYSTOLIC_COUNT]++;
+        }
+        value = diastolic[row];
+        if (value > 0) {
+          totals[offset + DIASTOLIC_SUM] += value;
+          totals[offset + DIASTOLIC_COUNT]++;
+        }
+      }
+      return totals;
+    }
+  }
+}
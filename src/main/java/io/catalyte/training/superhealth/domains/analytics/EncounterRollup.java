@@ -0,0 +1,233 @@
+package io.catalyte.training.superhealth.domains.analytics;
+
+import io.catalyte.training.superhealth.domains.encounter.Encounter;
+import io.catalyte.training.superhealth.domains.encounter.EncounterChange;
+import io.catalyte.training.superhealth.domains.encounter.EncounterChangeSequence;
+import io.catalyte.training.superhealth.domains.patient.PatientChange;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * In-memory rollup cube of encounter counts, total costs and copays over provider, icd10, billing
+ * code and month. Every one of the CUBOIDS subsets of those dimensions is kept as its own map of
+ * cells, so a query only scans the cuboid of the dimensions it groups and filters by, whatever the
+ * number of encounters.
+ *
+ * <p>The cube is loaded from one grouped query on first use and then kept current by record,
+ * which applies each encounter change once it commits. A change never waits for a load: it starts
+ * a new invalidation epoch, so a load that may have read it is not kept, and a change that may have
+ * been read by the load the cube was kept from drops the cube rather than being counted twice.
+ * Writes that bypass the encounter service must call invalidate so the next query reloads the
+ * cube.
+ */
+@Component
+public class EncounterRollup {
+
+  private static final Comparator<RollupCell> CELL_ORDER;
+
+  static {
+    Comparator<RollupCell> order = null;
+    for (RollupDimension dimension : RollupDimension.values()) {
+      Comparator<RollupCell> byDimension = Comparator.comparing(cell -> cell.get(dimension),
+          Comparator.nullsFirst(Comparator.naturalOrder()));
+      order = order == null ? byDimension : order.thenComparing(byDimension);
+    }
+    CELL_ORDER = order;
+  }
+
+  private final ReentrantLock loadLock = new ReentrantLock();
+
+  private final EncounterChangeSequence changes;
+
+  private volatile List<ConcurrentHashMap<RollupCell, RollupTotals>> cuboids;
+
+  /**
+   * Last change numbered before the kept cube's load started, guarded by the epoch.
+   */
+  private long loadedThrough;
+
+  private final InvalidationEpoch epoch = new InvalidationEpoch();
+
+  /**
+   * @param changes - numbers the encounter changes as they commit
+   */
+  @Autowired
+  public EncounterRollup(EncounterChangeSequence changes) {
+    this.changes = changes;
+  }
+
+  /**
+   * Moves a committed encounter's measures out of the cell it was in before the change and into
+   * the cell it is in now.
+   *
+   * @param change - the committed encounter change
+   */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  public void record(EncounterChange change) {
+    epoch.apply(() -> {
+      List<ConcurrentHashMap<RollupCell, RollupTotals>> current = cuboids;
+      if (current == null) {
+        return;
+      }
+      if (change.getSequence() <= loadedThrough) {
+        //the load may or may not have read this change
+        cuboids = null;
+        return;
+      }
+      if (change.getPrevious() != null) {
+        Entry previous = entryOf(change.getPrevious());
+        apply(current, previous.cell, previous.totals.negate());
+      }
+      Entry entry = entryOf(change.getCurrent());
+      apply(current, entry.cell, entry.totals);
+    });
+  }
+
+  /**
+   * Drops the cube so the next query reloads it from the database, without waiting for a load in
+   * progress; a load in progress is discarded once it finishes.
+   */
+  public void invalidate() {
+    epoch.invalidate(() -> cuboids = null);
+  }
+
+  /**
+   * Drops the cube once a patient delete that removed encounters commits.
+   *
+   * @param change - the committed patient change
+   */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  public void recordPatient(PatientChange change) {
+    if (change.isEncountersDeleted()) {
+      invalidate();
+    }
+  }
+
+  /**
+   * Answers a rollup query from the cuboid of the grouped and filtered dimensions, loading the cube
+   * first if needed.
+   *
+   * @param groupMask - dimensions to group by
+   * @param filters - value each filtered dimension must have
+   * @param loader - reads the measures of every provider, icd10, billing code and month
+   * @return one row per group, ordered by the grouped dimensions
+   */
+  public List<RollupRow> query(int groupMask, Map<RollupDimension, String> filters,
+      Supplier<List<RollupCount>> loader) {
+    int mask = groupMask;
+    for (RollupDimension dimension : filters.keySet()) {
+      mask |= dimension.bit();
+    }
+
+    Map<RollupCell, RollupTotals> groups = new HashMap<>();
+    for (Map.Entry<RollupCell, RollupTotals> cell : load(loader).get(mask).entrySet()) {
+      if (matches(cell.getKey(), filters)) {
+        RollupCell group = mask == groupMask ? cell.getKey() : cell.getKey().project(groupMask);
+        groups.merge(group, cell.getValue(), RollupTotals::plus);
+      }
+    }
+
+    List<RollupCell> ordered = new ArrayList<>(groups.keySet());
+    ordered.sort(CELL_ORDER);
+    List<RollupRow> rows = new ArrayList<>(ordered.size());
+    for (RollupCell group : ordered) {
+      rows.add(new RollupRow(group, groups.get(group)));
+    }
+    return rows;
+  }
+
+  /**
+   * @param encounter encounter to read
+   * @return the encounter's finest cell and measures
+   */
+  public static Entry entryOf(Encounter encounter) {
+    return new Entry(RollupCell.of(encounter.getProvider(), encounter.getIcd10(),
+        encounter.getBillingCode(), encounter.getDate()),
+        new RollupTotals(1, valueOf(encounter.getTotalCostCents()),
+            valueOf(encounter.getCopayCents())));
+  }
+
+  private static long valueOf(Long cents) {
+    return cents == null ? 0 : cents;
+  }
+
+  private static boolean matches(RollupCell cell, Map<RollupDimension, String> filters) {
+    for (Map.Entry<RollupDimension, String> filter : filters.entrySet()) {
+      if (!filter.getValue().equals(cell.get(filter.getKey()))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void apply(List<ConcurrentHashMap<RollupCell, RollupTotals>> cuboids,
+      RollupCell cell, RollupTotals totals) {
+    for (int mask = 0; mask < RollupDimension.CUBOIDS; mask++) {
+      //a cell whose count drops to zero is removed
+      cuboids.get(mask).merge(cell.project(mask), totals, RollupTotals::plus);
+    }
+  }
+
+  private List<ConcurrentHashMap<RollupCell, RollupTotals>> load(
+      Supplier<List<RollupCount>> loader) {
+    List<ConcurrentHashMap<RollupCell, RollupTotals>> current = cuboids;
+    if (current != null) {
+      return current;
+    }
+    //only loads wait for each other here, changes go through the epoch
+    loadLock.lock();
+    try {
+      current = cuboids;
+      if (current == null) {
+        long since = changes.current();
+        long loading = epoch.current();
+        List<ConcurrentHashMap<RollupCell, RollupTotals>> loaded = new ArrayList<>();
+        for (int mask = 0; mask < RollupDimension.CUBOIDS; mask++) {
+          loaded.add(new ConcurrentHashMap<>());
+        }
+        for (RollupCount count : loader.get()) {
+          apply(loaded, RollupCell.of(count.getProvider(), count.getIcd10(),
+              count.getBillingCode(), LocalDate.of(count.getYear(), count.getMonth(), 1)),
+              new RollupTotals(count.getCount(), valueOf(count.getTotalCostCents()),
+                  valueOf(count.getCopayCents())));
+        }
+        epoch.publish(loading, () -> {
+          if (changes.current() == since) {
+            cuboids = loaded;
+            loadedThrough = since;
+          }
+        });
+        current = loaded;
+      }
+      return current;
+    } finally {
+      loadLock.unlock();
+    }
+  }
+
+  /**
+   * Where one encounter sits in the cube and what it adds there.
+   */
+  public static final class Entry {
+
+    private final RollupCell cell;
+
+    private final RollupTotals totals;
+
+    private Entry(RollupCell cell, RollupTotals totals) {
+      this.cell = cell;
+      this.totals = totals;
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package io.catalyte.training.superhealth.domains.analytics;
+
+import io.catalyte.training.superhealth.domains.encounter.Encounter;
+import java.time.LocalDate;
+
+/**
+ * The columns of one encounter the encounter columns snapshot holds, as read by the query it is
+ * loaded from.
+ */
+public class EncounterScanRecord {
+
+  private final Long id;
+
+  private final String provider;
+
+  private final String icd10;
+
+  private final String billingCode;
+
+  private final String chiefComplaint;
+
+  private final Long totalCostCents;
+
+  private final Long copayCents;
+
+  private final Integer pulse;
+
+  private final Integer systolic;
+
+  private final Integer diastolic;
+
+  private final LocalDate date;
+
+  public EncounterScanRecord(Long id, String provider, String icd10, String billingCode,
+      String chiefComplaint, Long totalCostCents, Long copayCents, Integer pulse,
+      Integer systolic, Integer diastolic, LocalDate date) {
+    this.id = id;
+    this.provider = provider;
+    this.icd10 = icd10;
+    this.billingCode = billingCode;
+    this.chiefComplaint = chiefComplaint;
+    this.totalCostCents = totalCostCents;
+    this.copayCents = copayCents;
+    this.pulse = pulse;
+    this.systolic = systolic;
+    this.diastolic = diastolic;
+    this.date = date;
+  }
+
+  /**
+   * @param encounter - encounter to read
+   * @return the encounter's record
+   */
+  public static EncounterScanRecord of(Encounter encounter) {
+    return new EncounterScanRecord(encounter.getId(), encounter.getProvider(),
+        encounter.getIcd10(), encounter.getBillingCode(), encounter.getChiefComplaint(),
+        encounter.getTotalCostCents(), encounter.getCopayCents(), encounter.getPulse(),
+        encounter.getSystolic(), encounter.getDiastolic(), encounter.getDate());
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  /**
+   * @param dimension - dimension to read
+   * @return the value of the dimension
+   */
+  public String get(ScanDimension dimension) {
+    switch (dimension) {
+      case PROVIDER:
+        return provider;
+      case ICD10:
+        return icd10;
+      case BILLING_CODE:
+        return billingCode;
+      default:
+        return chiefComplaint;
+    }
+  }
+
+  public Long getTotalCostCents() {
+    return totalCostCents;
+  }
+
+  public Long getCopayCents() {
+    return copayCents;
+  }
+
+  public Integer getPulse() {
+    return pulse;
+  }
+
+  public Integer getSystolic() {
+    return systolic;
+  }
+
+  public Integer getDiastolic() {
+    return diastolic;
+  }
+
+  public LocalDate getDate() {
+    return date;
+  }
+}
@@ -0,0 +1,87 @@
+package io.catalyte.training.superhealth.domains.analytics;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import java.math.BigDecimal;
+
+/**
+ * One group of an encounter scan answer. Only the dimension the answer is grouped by is present,
+ * and a vital's average is absent when no encounter of the group recorded it.
+ */
+@JsonInclude(Include.NON_NULL)
+public class EncounterScanRow {
+
+  private final String provider;
+
+  private final String icd10;
+
+  private final String billingCode;
+
+  private final String chiefComplaint;
+
+  private final long count;
+
+  private final BigDecimal totalCost;
+
+  private final BigDecimal copay;
+
+  private final Double averagePulse;
+
+  private final Double averageSystolic;
+
+  private final Double averageDiastolic;
+
+  public EncounterScanRow(ScanDimension groupBy, String group, long count, BigDecimal totalCost,
+      BigDecimal copay, Double averagePulse, Double averageSystolic, Double averageDiastolic) {
+    this.provider = groupBy == ScanDimension.PROVIDER ? group : null;
+    this.icd10 = groupBy == ScanDimension.ICD10 ? group : null;
+    this.billingCode = groupBy == ScanDimension.BILLING_CODE ? group : null;
+    this.chiefComplaint = groupBy == ScanDimension.CHIEF_COMPLAINT ? group : null;
+    this.count = count;
+    this.totalCost = totalCost;
+    this.copay = copay;
+    this.averagePulse = averagePulse;
+    this.averageSystolic = averageSystolic;
+    this.averageDiastolic = averageDiastolic;
+  }
+
+  public String getProvider() {
+    return provider;
+  }
+
+  public String getIcd10() {
+    return icd10;
+  }
+
+  public String getBillingCode() {
+    return billingCode;
+  }
+
+  public String getChiefComplaint() {
+    return chiefComplaint;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public BigDecimal getTotalCost() {
+    return totalCost;
+  }
+
+  public BigDecimal getCopay() {
+    return copay;
+  }
+
+  public Double getAveragePulse() {
+    return averagePulse;
+  }
+
+  public Double getAverageSystolic() {
+    return averageSystolic;
+  }
+
+  public Double getAverageDiastolic() {
+    return averageDiastolic;
+  }
+}
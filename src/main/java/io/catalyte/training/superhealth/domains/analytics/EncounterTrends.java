@@ -0,0 +1,154 @@
+package io.catalyte.training.superhealth.domains.analytics;
+
+import io.catalyte.training.superhealth.domains.encounter.Encounter;
+import io.catalyte.training.superhealth.domains.encounter.EncounterChange;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Counts the chief complaints and icd10 codes of the encounters saved in the last hour, day and
+ * week, for the trending report. Each window is a ring of time buckets and each bucket a
+ * Space-Saving summary of at most analytics.trending.capacity values, so memory stays the same
+ * however many encounters are saved, and a query merges the summaries of one window without
+ * touching the encounter table.
+ *
+ * <p>Encounters are counted by the time they are saved, not by their visit date, so backdated
+ * encounters count as trending now. Chief complaints are counted trimmed and in lower case.
+ */
+@Component
+public class EncounterTrends {
+
+  private final int capacity;
+
+  private final Clock clock;
+
+  private final Map<TrendingWindow, Ring> chiefComplaints = new EnumMap<>(TrendingWindow.class);
+
+  private final Map<TrendingWindow, Ring> icd10 = new EnumMap<>(TrendingWindow.class);
+
+  /**
+   * @param capacity - number of values counted per bucket, and the largest report limit
+   */
+  @Autowired
+  public EncounterTrends(@Value("${analytics.trending.capacity:100}") int capacity) {
+    this(capacity, Clock.systemUTC());
+  }
+
+  EncounterTrends(int capacity, Clock clock) {
+    this.capacity = capacity;
+    this.clock = clock;
+    for (TrendingWindow window : TrendingWindow.values()) {
+      chiefComplaints.put(window, new Ring(window));
+      icd10.put(window, new Ring(window));
+    }
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Counts a committed new encounter in every window; updates are not counted again.
+   *
+   * @param change - the committed encounter change
+   */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  public void record(EncounterChange change) {
+    if (change.getPrevious() == null) {
+      record(change.getCurrent());
+    }
+  }
+
+  /**
+   * Counts a saved encounter in every window.
+   *
+   * @param encounter - the encounter as stored
+   */
+  public void record(Encounter encounter) {
+    long now = clock.millis();
+    String complaint = encounter.getChiefComplaint() == null ? null
+        : encounter.getChiefComplaint().trim().toLowerCase(Locale.ROOT);
+    for (TrendingWindow window : TrendingWindow.values()) {
+      if (complaint != null && !complaint.isEmpty()) {
+        chiefComplaints.get(window).offer(now, complaint);
+      }
+      if (encounter.getIcd10() != null) {
+        icd10.get(window).offer(now, encounter.getIcd10());
+      }
+    }
+  }
+
+  /**
+   * Reports the most frequent values of one window.
+   *
+   * @param window - window to report
+   * @param limit - number of values to report per field, at most the capacity
+   * @return the values by descending count, ties by value
+   */
+  public TrendingReport query(TrendingWindow window, int limit) {
+    long now = clock.millis();
+    long oldestBucket = now / window.getBucketMillis() - window.getBuckets() + 1;
+    return new TrendingReport(window.getParameter(),
+        Instant.ofEpochMilli(oldestBucket * window.getBucketMillis()).toString(),
+        chiefComplaints.get(window).top(now, limit), icd10.get(window).top(now, limit));
+  }
+
+  /**
+   * One window of one field. A bucket is reset when the ring comes back around to it.
+   */
+  private final class Ring {
+
+    private final TrendingWindow window;
+
+    private final SpaceSaving[] buckets;
+
+    private final long[] bucketNumbers;
+
+    Ring(TrendingWindow window) {
+      this.window = window;
+      this.buckets = new SpaceSaving[window.getBuckets()];
+      this.bucketNumbers = new long[window.getBuckets()];
+    }
+
+    synchronized void offer(long now, String value) {
+      long bucketNumber = now / window.getBucketMillis();
+      int slot = (int) (bucketNumber % buckets.length);
+      if (buckets[slot] == null || bucketNumbers[slot] != bucketNumber) {
+        buckets[slot] = new SpaceSaving(capacity);
+        bucketNumbers[slot] = bucketNumber;
+      }
+      buckets[slot].offer(value);
+    }
+
+    synchronized List<TrendingItem> top(long now, int limit) {
+      long oldestBucket = now / window.getBucketMillis() - buckets.length + 1;
+      Map<String, long[]> merged = new HashMap<>();
+      long floor = 0;
+      for (int slot = 0; slot < buckets.length; slot++) {
+        if (buckets[slot] != null && bucketNumbers[slot] >= oldestBucket) {
+          floor += buckets[slot].addTo(merged);
+        }
+      }
+
+      List<TrendingItem> items = new ArrayList<>(merged.size());
+      for (Map.Entry<String, long[]> entry : merged.entrySet()) {
+        items.add(new TrendingItem(entry.getKey(), entry.getValue()[0] + floor,
+            entry.getValue()[1] + floor));
+      }
+      items.sort((a, b) -> a.getCount() != b.getCount() ? Long.compare(b.getCount(), a.getCount())
+          : a.getValue().compareTo(b.getValue()));
+      return items.size() > limit ? new ArrayList<>(items.subList(0, limit)) : items;
+    }
+  }
+}
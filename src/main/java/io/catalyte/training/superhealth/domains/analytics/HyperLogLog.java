@@ -0,0 +1,216 @@
+package io.catalyte.training.superhealth.domains.analytics;
+
+import java.util.Arrays;
+
+/**
+ * HyperLogLog sketch of the number of distinct longs added to it (Flajolet, Fusy, Gandouet and
+ * Meunier, "HyperLogLog: the analysis of a near-optimal cardinality estimation algorithm"). Each
+ * value is hashed to 64 bits; the first p bits pick one of 2^p registers, which keeps the
+ * greatest position of the first 1 bit seen among the remaining bits. The estimate is the
+ * normalized harmonic mean of 2 to the power of the registers, with linear counting of the empty
+ * registers for small cardinalities.
+ *
+ * <p>A sketch starts sparse: it only keeps the registers that are set, as one int each, sorted by
+ * register. Once a quarter of the registers are set, the sparse ints would take as much memory as
+ * every register, so it switches to a dense array of 2^p bytes. A sketch therefore never takes
+ * more than 2^p bytes of registers, and a sketch of n distinct values at most 8n of them, as the
+ * sparse array doubles when it fills. The registers, and so the estimates, are the same in both
+ * forms. The standard error of the estimate is about 1.04 / sqrt(2^p): 1.6% for p = 12. Adding a
+ * value twice has no effect, and two sketches of the same precision merge into the sketch of the
+ * union of their values by taking the greater of each pair of registers.
+ *
+ * <p>Not thread safe.
+ */
+public final class HyperLogLog {
+
+  /**
+   * Number of sparse entries a new sketch has room for.
+   */
+  private static final int INITIAL_SPARSE_CAPACITY = 4;
+
+  private final int precision;
+
+  /**
+   * The set registers as (register << 8 | rank), sorted by register, null once dense.
+   */
+  private int[] sparse;
+
+  private int sparseSize;
+
+  /**
+   * Every register, null while sparse.
+   */
+  private byte[] registers;
+
+  /**
+   * @param precision - number of hash bits that pick a register, from 4 to 16
+   */
+  public HyperLogLog(int precision) {
+    if (precision < 4 || precision > 16) {
+      throw new IllegalArgumentException("precision must be from 4 to 16");
+    }
+    this.precision = precision;
+    this.sparse = new int[INITIAL_SPARSE_CAPACITY];
+  }
+
+  public int getPrecision() {
+    return precision;
+  }
+
+  /**
+   * @param value - value to count, hashed before it is added
+   */
+  public void add(long value) {
+    long hash = hash(value);
+    int register = (int) (hash >>> (64 - precision));
+    //the guard bit caps the rank when the remaining bits are all 0
+    long remaining = (hash << precision) | (1L << (precision - 1));
+    set(register, Long.numberOfLeadingZeros(remaining) + 1);
+  }
+
+  /**
+   * Adds the values of another sketch to this one.
+   *
+   * @param other - sketch of the same precision
+   */
+  public void merge(HyperLogLog other) {
+    if (other.precision != precision) {
+      throw new IllegalArgumentException("cannot merge sketches of different precisions");
+    }
+    if (other.registers == null) {
+      for (int i = 0; i < other.sparseSize; i++) {
+        set(other.sparse[i] >>> 8, other.sparse[i] & 0xff);
+      }
+      return;
+    }
+    if (registers == null) {
+      toDense();
+    }
+    for (int i = 0; i < registers.length; i++) {
+      if (other.registers[i] > registers[i]) {
+        registers[i] = other.registers[i];
+      }
+    }
+  }
+
+  /**
+   * @return the estimated number of distinct values added
+   */
+  public long estimate() {
+    int m = 1 << precision;
+    double sum = 0;
+    int empty = 0;
+    if (registers == null) {
+      empty = m - sparseSize;
+      sum = empty;
+      for (int i = 0; i < sparseSize; i++) {
+        sum += 1.0 / (1L << (sparse[i] & 0xff));
+      }
+    } else {
+      for (byte register : registers) {
+        sum += 1.0 / (1L << register);
+        if (register == 0) {
+          empty++;
+        }
+      }
+    }
+    double estimate = alpha(m) * m * m / sum;
+    if (estimate <= 2.5 * m && empty > 0) {
+      estimate = m * Math.log((double) m / empty);
+    }
+    return Math.round(estimate);
+  }
+
+  /**
+   * @return the bytes the registers take, sparse or dense
+   */
+  int registerBytes() {
+    return registers == null ? sparse.length * Integer.BYTES : registers.length;
+  }
+
+  private void set(int register, int rank) {
+    if (registers != null) {
+      if (rank > registers[register]) {
+        registers[register] = (byte) rank;
+      }
+      return;
+    }
+    int i = find(register);
+    if (i >= 0) {
+      if (rank > (sparse[i] & 0xff)) {
+        sparse[i] = register << 8 | rank;
+      }
+      return;
+    }
+    if (sparseSize == (1 << precision) / Integer.BYTES) {
+      // as many ints as a quarter of the registers take the bytes of all of them
+      toDense();
+      registers[register] = (byte) rank;
+      return;
+    }
+    i = -i - 1;
+    if (sparseSize == sparse.length) {
+      int capacity = Math.min(sparse.length * 2, (1 << precision) / Integer.BYTES);
+      sparse = Arrays.copyOf(sparse, capacity);
+    }
+    System.arraycopy(sparse, i, sparse, i + 1, sparseSize - i);
+    sparse[i] = register << 8 | rank;
+    sparseSize++;
+  }
+
+  /**
+   * @return the index of the register's sparse entry, or (-(insertion point) - 1)
+   */
+  private int find(int register) {
+    int low = 0;
+    int high = sparseSize - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int midRegister = sparse[mid] >>> 8;
+      if (midRegister < register) {
+        low = mid + 1;
+      } else if (midRegister > register) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -(low + 1);
+  }
+
+  private void toDense() {
+    registers = new byte[1 << precision];
+    for (int i = 0; i < sparseSize; i++) {
+      registers[sparse[i] >>> 8] = (byte) (sparse[i] & 0xff);
+    }
+    sparse = null;
+    sparseSize = 0;
+  }
+
+  private static double alpha(int m) {
+    switch (m) {
+      case 16:
+        return 0.673;
+      case 32:
+        return 0.697;
+      case 64:
+        return 0.709;
+      default:
+        return 0.7213 / (1 + 1.079 / m);
+    }
+  }
+
+  /**
+   * Mixes the bits of a value so sequential ids spread over every register (the finalizer of
+   * MurmurHash3).
+   */
+  private static long hash(long value) {
+    long hash = value;
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
@@ -0,0 +1,57 @@
+package io.catalyte.training.superhealth.domains.analytics;
+
+/**
+ * Counts the invalidations and applied changes of an in-memory structure loaded from the database,
+ * so neither waits for a load in progress. A write can hold a database connection while it waits
+ * for the structure's lock, and a load holding the lock can be waiting for a connection, so a write
+ * that took the load's lock could deadlock the connection pool.
+ *
+ * <p>Instead a load notes the epoch it starts in, and only keeps what it built if no invalidation
+ * or applied change started a new epoch while it read; otherwise what it built answers the query
+ * that started it and the next query loads again. Changes are applied to the kept structure under
+ * this epoch's monitor, so they are not interleaved with a load being kept.
+ */
+public final class InvalidationEpoch {
+
+  private long epoch;
+
+  /**
+   * @return the epoch a load starting now belongs to
+   */
+  public synchronized long current() {
+    return epoch;
+  }
+
+  /**
+   * Starts a new epoch and drops the loaded structure.
+   *
+   * @param drop - clears the field holding the structure
+   */
+  public synchronized void invalidate(Runnable drop) {
+    epoch++;
+    drop.run();
+  }
+
+  /**
+   * Starts a new epoch and applies a committed change to the loaded structure. A load in progress
+   * may have read the rows before the change, so it is not kept.
+   *
+   * @param change - applies the change to the structure held in its field, if any
+   */
+  public synchronized void apply(Runnable change) {
+    epoch++;
+    change.run();
+  }
+
+  /**
+   * Keeps a loaded structure if no invalidation or change happened since its load started.
+   *
+   * @param loaded - the epoch the load started in
+   * @param keep - stores the structure in its field
+   */
+  public synchronized void publish(long loaded, Runnable keep) {
+    if (epoch == loaded) {
+      keep.run();
+    }
+  }
+}
@@ -0,0 +1,198 @@
+package io.catalyte.training.superhealth.domains.analytics;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * KLL quantile sketch of int values (Karnin, Lang and Liberty, "Optimal Quantile Approximation in
+ * Streams"). Values are kept in a stack of levels, where a value at level h stands for 2^h of the
+ * values added. When the sketch is full, the lowest full level is sorted and every other value,
+ * starting at a random one of the first two, is promoted to the level above.
+ *
+ * <p>Level capacities shrink by a factor of 2/3 going down from the top level, which holds k
+ * values, so the sketch keeps about 3k values, plus at most two per level below the top
+ * log2(n / k) levels, however many values n it was given. The rank of a returned quantile is off
+ * by less than about 1.65% of n for k = 200 with 99% confidence, the error shrinking in proportion
+ * to 1 / k. Two sketches merge into a sketch of the union of their values with the same
+ * guarantee.
+ *
+ * <p>Not thread safe.
+ */
+public final class KllSketch {
+
+  private static final double CAPACITY_DECAY = 2.0 / 3.0;
+
+  private final int k;
+
+  private int[][] levels = new int[1][];
+
+  private int[] sizes = new int[1];
+
+  private int height = 1;
+
+  private int size;
+
+  private int maxSize;
+
+  private long count;
+
+  /**
+   * @param k - capacity of the top level, which sets the accuracy of the sketch
+   */
+  public KllSketch(int k) {
+    if (k < 8) {
+      throw new IllegalArgumentException("k must be at least 8");
+    }
+    this.k = k;
+    this.levels[0] = new int[capacity(0)];
+    this.maxSize = capacity(0);
+  }
+
+  public int getK() {
+    return k;
+  }
+
+  /**
+   * @return the number of values added to the sketch and the sketches merged into it
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * @return the number of values the sketch holds, which bounds its memory
+   */
+  public int getRetained() {
+    return size;
+  }
+
+  /**
+   * Adds one value.
+   *
+   * @param value - value to add
+   */
+  public void add(int value) {
+    append(0, value);
+    size++;
+    count++;
+    if (size >= maxSize) {
+      compress();
+    }
+  }
+
+  /**
+   * Adds the values of another sketch to this one. The other sketch is unchanged.
+   *
+   * @param other - sketch to merge, built with the same k
+   */
+  public void merge(KllSketch other) {
+    if (other.k != k) {
+      throw new IllegalArgumentException("Cannot merge sketches with different k");
+    }
+    while (height < other.height) {
+      grow();
+    }
+    for (int h = 0; h < other.height; h++) {
+      for (int i = 0; i < other.sizes[h]; i++) {
+        append(h, other.levels[h][i]);
+      }
+    }
+    size += other.size;
+    count += other.count;
+    while (size >= maxSize) {
+      compress();
+    }
+  }
+
+  /**
+   * Estimates the values at the given ranks.
+   *
+   * @param ranks - normalized ranks, each between 0 and 1
+   * @return the estimated value at each rank, in the order of the ranks; null if the sketch is
+   * empty
+   */
+  public int[] quantiles(double... ranks) {
+    if (count == 0) {
+      return null;
+    }
+    //sort (value, level) pairs packed into longs, value in the high bits
+    long[] weighted = new long[size];
+    int n = 0;
+    for (int h = 0; h < height; h++) {
+      for (int i = 0; i < sizes[h]; i++) {
+        weighted[n++] = ((long) levels[h][i] << 8) | h;
+      }
+    }
+    Arrays.sort(weighted);
+
+    int[] quantiles = new int[ranks.length];
+    for (int q = 0; q < ranks.length; q++) {
+      double target = ranks[q] * count;
+      long cumulative = 0;
+      int i = 0;
+      while (true) {
+        cumulative += 1L << (weighted[i] & 0xFF);
+        if (cumulative >= target || i == n - 1) {
+          break;
+        }
+        i++;
+      }
+      quantiles[q] = (int) (weighted[i] >> 8);
+    }
+    return quantiles;
+  }
+
+  private int capacity(int level) {
+    int depth = height - level - 1;
+    return Math.max(2, (int) Math.ceil(k * Math.pow(CAPACITY_DECAY, depth)));
+  }
+
+  private void append(int level, int value) {
+    if (sizes[level] == levels[level].length) {
+      levels[level] = Arrays.copyOf(levels[level], Math.max(2, levels[level].length * 2));
+    }
+    levels[level][sizes[level]++] = value;
+  }
+
+  private void grow() {
+    height++;
+    levels = Arrays.copyOf(levels, height);
+    levels[height - 1] = new int[2];
+    sizes = Arrays.copyOf(sizes, height);
+    maxSize = 0;
+    for (int h = 0; h < height; h++) {
+      maxSize += capacity(h);
+    }
+  }
+
+  /**
+   * Compacts the lowest level that is at capacity.
+   */
+  private void compress() {
+    for (int h = 0; h < height; h++) {
+      if (sizes[h] >= capacity(h)) {
+        if (h + 1 == height) {
+          grow();
+        }
+        compact(h);
+        return;
+      }
+    }
+  }
+
+  /**
+   * Promotes half the values of a level, chosen as every other value in sorted order, to the level
+   * above. With an odd number of values the smallest one stays behind.
+   */
+  private void compact(int level) {
+    int[] values = levels[level];
+    int n = sizes[level];
+    Arrays.sort(values, 0, n);
+    int start = (n & 1) + (ThreadLocalRandom.current().nextBoolean() ? 1 : 0);
+    for (int i = start; i < n; i += 2) {
+      append(level + 1, values[i]);
+    }
+    sizes[level] = n & 1;
+    size -= n / 2;
+  }
+}
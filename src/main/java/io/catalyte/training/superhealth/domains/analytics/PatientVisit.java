@@ -0,0 +1,85 @@
+package io.catalyte.training.superhealth.domains.analytics;
+
+import io.catalyte.training.superhealth.domains.encounter.Encounter;
+import java.util.Objects;
+
+/**
+ * The patient, provider, icd10 and month of one encounter, as read by the query the distinct
+ * patient counts are loaded from.
+ */
+public class PatientVisit {
+
+  private final Long patientId;
+
+  private final String provider;
+
+  private final String icd10;
+
+  private final String month;
+
+  public PatientVisit(Long patientId, String provider, String icd10, Integer year,
+      Integer month) {
+    this(patientId, provider, icd10,
+        year == null || month == null ? null : String.format("%04d-%02d", year, month));
+  }
+
+  private PatientVisit(Long patientId, String provider, String icd10, String month) {
+    this.patientId = patientId;
+    this.provider = provider;
+    this.icd10 = icd10;
+    this.month = month;
+  }
+
+  /**
+   * @param encounter - encounter to read, with its patient
+   * @return the encounter's visit
+   */
+  public static PatientVisit of(Encounter encounter) {
+    return new PatientVisit(encounter.getPatient() == null ? null
+        : encounter.getPatient().getId(), encounter.getProvider(), encounter.getIcd10(),
+        encounter.getDate() == null ? null : encounter.getDate().toString().substring(0, 7));
+  }
+
+  public Long getPatientId() {
+    return patientId;
+  }
+
+  /**
+   * @param dimension - dimension to read
+   * @return the value of the dimension, the month as 'YYYY-MM'
+   */
+  public String get(DistinctDimension dimension) {
+    switch (dimension) {
+      case PROVIDER:
+        return provider;
+      case ICD10:
+        return icd10;
+      default:
+        return month;
+    }
+  }
+
+  public String getMonth() {
+    return month;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    PatientVisit that = (PatientVisit) o;
+    return Objects.equals(patientId, that.patientId)
+        && Objects.equals(provider, that.provider)
+        && Objects.equals(icd10, that.icd10)
+        && Objects.equals(month, that.month);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(patientId, provider, icd10, month);
+  }
+}
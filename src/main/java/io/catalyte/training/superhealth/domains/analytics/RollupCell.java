@@ -0,0 +1,68 @@
+package io.catalyte.training.superhealth.domains.analytics;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Coordinates of one rollup cell: a value for each dimension, or null where the cell is rolled up
+ * over that dimension. Months are written 'YYYY-MM'.
+ */
+public final class RollupCell {
+
+  private final String[] values;
+
+  private RollupCell(String[] values) {
+    this.values = values;
+  }
+
+  /**
+   * @param provider provider of the encounter
+   * @param icd10 icd10 of the encounter
+   * @param billingCode billing code of the encounter
+   * @param date date of the encounter
+   * @return the finest cell holding an encounter with these values
+   */
+  public static RollupCell of(String provider, String icd10, String billingCode, LocalDate date) {
+    String[] values = new String[RollupDimension.values().length];
+    values[RollupDimension.PROVIDER.ordinal()] = provider;
+    values[RollupDimension.ICD10.ordinal()] = icd10;
+    values[RollupDimension.BILLING_CODE.ordinal()] = billingCode;
+    values[RollupDimension.MONTH.ordinal()] = date == null ? null
+        : date.toString().substring(0, 7);
+    return new RollupCell(values);
+  }
+
+  /**
+   * @param mask dimensions to keep
+   * @return this cell rolled up over every dimension outside the mask
+   */
+  public RollupCell project(int mask) {
+    String[] projected = new String[values.length];
+    for (int i = 0; i < values.length; i++) {
+      if ((mask & (1 << i)) != 0) {
+        projected[i] = values[i];
+      }
+    }
+    return new RollupCell(projected);
+  }
+
+  public String get(RollupDimension dimension) {
+    return values[dimension.ordinal()];
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    return Arrays.equals(values, ((RollupCell) o).values);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(values);
+  }
+}
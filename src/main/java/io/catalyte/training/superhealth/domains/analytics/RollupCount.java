@@ -0,0 +1,68 @@
+package io.catalyte.training.superhealth.domains.analytics;
+
+/**
+ * One row of the grouped encounter query the rollup cube is loaded from: the measures of every
+ * encounter sharing a provider, icd10, billing code and month.
+ */
+public class RollupCount {
+
+  private final String provider;
+
+  private final String icd10;
+
+  private final String billingCode;
+
+  private final Integer year;
+
+  private final Integer month;
+
+  private final Long count;
+
+  private final Long totalCostCents;
+
+  private final Long copayCents;
+
+  public RollupCount(String provider, String icd10, String billingCode, Integer year,
+      Integer month, Long count, Long totalCostCents, Long copayCents) {
+    this.provider = provider;
+    this.icd10 = icd10;
+    this.billingCode = billingCode;
+    this.year = year;
+    this.month = month;
+    this.count = count;
+    this.totalCostCents = totalCostCents;
+    this.copayCents = copayCents;
+  }
+
+  public String getProvider() {
+    return provider;
+  }
+
+  public String getIcd10() {
+    return icd10;
+  }
+
+  public String getBillingCode() {
+    return billingCode;
+  }
+
+  public Integer getYear() {
+    return year;
+  }
+
+  public Integer getMonth() {
+    return month;
+  }
+
+  public Long getCount() {
+    return count;
+  }
+
+  public Long getTotalCostCents() {
+    return totalCostCents;
+  }
+
+  public Long getCopayCents() {
+    return copayCents;
+  }
+}
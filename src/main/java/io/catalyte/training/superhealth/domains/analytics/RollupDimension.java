@@ -0,0 +1,49 @@
+package io.catalyte.training.superhealth.domains.analytics;
+
+/**
+ * Dimensions the encounter rollup cube is sliced by. Each dimension owns one bit of a cuboid mask,
+ * so a set of dimensions is an int between 0 and CUBOIDS - 1.
+ */
+public enum RollupDimension {
+  PROVIDER("provider"),
+  ICD10("icd10"),
+  BILLING_CODE("billingCode"),
+  MONTH("month");
+
+  /**
+   * Number of cuboids in the cube, one per subset of the dimensions.
+   */
+  public static final int CUBOIDS = 1 << values().length;
+
+  private final String parameter;
+
+  RollupDimension(String parameter) {
+    this.parameter = parameter;
+  }
+
+  /**
+   * Finds the dimension for a request parameter name.
+   *
+   * @param parameter - parameter name, e.g. "billingCode"
+   * @return the dimension, or null if there is none by that name
+   */
+  public static RollupDimension fromParameter(String parameter) {
+    for (RollupDimension dimension : values()) {
+      if (dimension.parameter.equals(parameter)) {
+        return dimension;
+      }
+    }
+    return null;
+  }
+
+  public String getParameter() {
+    return parameter;
+  }
+
+  /**
+   * @return the dimension's bit in a cuboid mask
+   */
+  public int bit() {
+    return 1 << ordinal();
+  }
+}
@@ -0,0 +1,65 @@
+package io.catalyte.training.superhealth.domains.analytics;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import io.catalyte.training.superhealth.domains.encounter.Cents;
+import java.math.BigDecimal;
+
+/**
+ * One group of a rollup answer. Only the dimensions the answer is grouped by are present.
+ */
+@JsonInclude(Include.NON_NULL)
+public class RollupRow {
+
+  private final String provider;
+
+  private final String icd10;
+
+  private final String billingCode;
+
+  private final String month;
+
+  private final long count;
+
+  private final BigDecimal totalCost;
+
+  private final BigDecimal copay;
+
+  public RollupRow(RollupCell cell, RollupTotals totals) {
+    this.provider = cell.get(RollupDimension.PROVIDER);
+    this.icd10 = cell.get(RollupDimension.ICD10);
+    this.billingCode = cell.get(RollupDimension.BILLING_CODE);
+    this.month = cell.get(RollupDimension.MONTH);
+    this.count = totals.getCount();
+    this.totalCost = Cents.toAmount(totals.getTotalCostCents());
+    this.copay = Cents.toAmount(totals.getCopayCents());
+  }
+
+  public String getProvider() {
+    return provider;
+  }
+
+  public String getIcd10() {
+    return icd10;
+  }
+
+  public String getBillingCode() {
+    return billingCode;
+  }
+
+  public String getMonth() {
+    return month;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public BigDecimal getTotalCost() {
+    return totalCost;
+  }
+
+  public BigDecimal getCopay() {
+    return copay;
+  }
+}
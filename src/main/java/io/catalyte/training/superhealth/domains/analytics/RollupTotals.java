@@ -0,0 +1,48 @@
+package io.catalyte.training.superhealth.domains.analytics;
+
+/**
+ * Immutable measures of one rollup cell: the number of encounters and their summed costs in cents.
+ */
+public final class RollupTotals {
+
+  private final long count;
+
+  private final long totalCostCents;
+
+  private final long copayCents;
+
+  public RollupTotals(long count, long totalCostCents, long copayCents) {
+    this.count = count;
+    this.totalCostCents = totalCostCents;
+    this.copayCents = copayCents;
+  }
+
+  /**
+   * @param other totals to add
+   * @return the sum of both totals, or null when the sum holds no encounter
+   */
+  public RollupTotals plus(RollupTotals other) {
+    long sumCount = count + other.count;
+    return sumCount == 0 ? null : new RollupTotals(sumCount, totalCostCents + other.totalCostCents,
+        copayCents + other.copayCents);
+  }
+
+  /**
+   * @return totals that cancel these ones out when added
+   */
+  public RollupTotals negate() {
+    return new RollupTotals(-count, -totalCostCents, -copayCents);
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public long getTotalCostCents() {
+    return totalCostCents;
+  }
+
+  public long getCopayCents() {
+    return copayCents;
+  }
+}
@@ -0,0 +1,37 @@
+package io.catalyte.training.superhealth.domains.analytics;
+
+/**
+ * Dictionary encoded columns of the encounter columns snapshot, which scans can filter and group
+ * by.
+ */
+public enum ScanDimension {
+  PROVIDER("provider"),
+  ICD10("icd10"),
+  BILLING_CODE("billingCode"),
+  CHIEF_COMPLAINT("chiefComplaint");
+
+  private final String parameter;
+
+  ScanDimension(String parameter) {
+    this.parameter = parameter;
+  }
+
+  /**
+   * Finds the dimension for a request parameter name.
+   *
+   * @param parameter - parameter name, e.g. "chiefComplaint"
+   * @return the dimension, or null if there is none by that name
+   */
+  public static ScanDimension fromParameter(String parameter) {
+    for (ScanDimension dimension : values()) {
+      if (dimension.parameter.equals(parameter)) {
+        return dimension;
+      }
+    }
+    return null;
+  }
+
+  public String getParameter() {
+    return parameter;
+  }
+}
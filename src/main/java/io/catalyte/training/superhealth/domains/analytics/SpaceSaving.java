@@ -0,0 +1,83 @@
+package io.catalyte.training.superhealth.domains.analytics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Space-Saving summary of the most frequent values in a stream (Metwally, Agrawal and El Abbadi,
+ * "Efficient Computation of Frequent and Top-k Elements in Data Streams"). At most capacity values
+ * are counted. A value that is not counted when the summary is full takes the counter with the
+ * lowest count, and inherits that count as its possible overestimate, so every value that occurs
+ * more than n / capacity times in n offers is always counted.
+ *
+ * <p>Not thread safe.
+ */
+final class SpaceSaving {
+
+  private final int capacity;
+
+  private final Map<String, long[]> counters;
+
+  /**
+   * @param capacity - maximum number of values counted
+   */
+  SpaceSaving(int capacity) {
+    this.capacity = capacity;
+    this.counters = new HashMap<>(capacity * 2);
+  }
+
+  /**
+   * Counts one occurrence of a value.
+   *
+   * @param value - value that occurred
+   */
+  void offer(String value) {
+    long[] counter = counters.get(value);
+    if (counter != null) {
+      counter[0]++;
+      return;
+    }
+    if (counters.size() < capacity) {
+      counters.put(value, new long[]{1, 0});
+      return;
+    }
+    //the linear scan is cheaper than keeping counters ordered at the capacities used here
+    String minimum = null;
+    long[] minimumCounter = null;
+    for (Map.Entry<String, long[]> entry : counters.entrySet()) {
+      if (minimumCounter == null || entry.getValue()[0] < minimumCounter[0]) {
+        minimum = entry.getKey();
+        minimumCounter = entry.getValue();
+      }
+    }
+    counters.remove(minimum);
+    minimumCounter[1] = minimumCounter[0];
+    minimumCounter[0]++;
+    counters.put(value, minimumCounter);
+  }
+
+  /**
+   * Adds this summary's counts to counts merged from several summaries. A value missing from a
+   * full summary may still have occurred up to its lowest count times, so the merged counts start
+   * from the sum of the lowest counts of the full summaries, and each summary's counts are added
+   * in excess of its lowest count.
+   *
+   * @param merged - count and overestimate of each value, as count and error
+   * @return the lowest count of this summary if it is full, otherwise 0
+   */
+  long addTo(Map<String, long[]> merged) {
+    long floor = 0;
+    if (counters.size() == capacity) {
+      floor = Long.MAX_VALUE;
+      for (long[] counter : counters.values()) {
+        floor = Math.min(floor, counter[0]);
+      }
+    }
+    for (Map.Entry<String, long[]> entry : counters.entrySet()) {
+      long[] total = merged.computeIfAbsent(entry.getKey(), key -> new long[2]);
+      total[0] += entry.getValue()[0] - floor;
+      total[1] += entry.getValue()[1] - floor;
+    }
+    return floor;
+  }
+}
@@ -0,0 +1,33 @@
+package io.catalyte.training.superhealth.domains.analytics;
+
+/**
+ * One trending value with its estimated number of encounters in the window. The estimate never
+ * undercounts, and overcounts by at most error, so at least count - error encounters had the
+ * value.
+ */
+public class TrendingItem {
+
+  private final String value;
+
+  private final long count;
+
+  private final long error;
+
+  public TrendingItem(String value, long count, long error) {
+    this.value = value;
+    this.count = count;
+    this.error = error;
+  }
+
+  public String getValue() {
+    return value;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public long getError() {
+    return error;
+  }
+}
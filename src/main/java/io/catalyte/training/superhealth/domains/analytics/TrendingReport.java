@@ -0,0 +1,44 @@
+package io.catalyte.training.superhealth.domains.analytics;
+
+import java.util.List;
+
+/**
+ * The most frequent chief complaints and icd10 codes of the encounters saved in one window.
+ */
+public class TrendingReport {
+
+  private final String window;
+
+  private final String from;
+
+  private final List<TrendingItem> chiefComplaints;
+
+  private final List<TrendingItem> icd10;
+
+  public TrendingReport(String window, String from, List<TrendingItem> chiefComplaints,
+      List<TrendingItem> icd10) {
+    this.window = window;
+    this.from = from;
+    this.chiefComplaints = chiefComplaints;
+    this.icd10 = icd10;
+  }
+
+  public String getWindow() {
+    return window;
+  }
+
+  /**
+   * @return the start of the window's oldest bucket, as an ISO-8601 instant
+   */
+  public String getFrom() {
+    return from;
+  }
+
+  public List<TrendingItem> getChiefComplaints() {
+    return chiefComplaints;
+  }
+
+  public List<TrendingItem> getIcd10() {
+    return icd10;
+  }
+}
@@ -0,0 +1,53 @@
+package io.catalyte.training.superhealth.domains.analytics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sliding windows the trending values are counted over. Each window is a ring of equal time
+ * buckets, so it slides by one bucket at a time: the last hour by the minute, the last day by the
+ * hour and the last week by the day.
+ */
+public enum TrendingWindow {
+  HOUR("hour", 60, TimeUnit.MINUTES.toMillis(1)),
+  DAY("day", 24, TimeUnit.HOURS.toMillis(1)),
+  WEEK("week", 7, TimeUnit.DAYS.toMillis(1));
+
+  private final String parameter;
+
+  private final int buckets;
+
+  private final long bucketMillis;
+
+  TrendingWindow(String parameter, int buckets, long bucketMillis) {
+    this.parameter = parameter;
+    this.buckets = buckets;
+    this.bucketMillis = bucketMillis;
+  }
+
+  /**
+   * Finds the window for a request parameter value.
+   *
+   * @param parameter - window name, e.g. "day"
+   * @return the window, or null if there is none by that name
+   */
+  public static TrendingWindow fromParameter(String parameter) {
+    for (TrendingWindow window : values()) {
+      if (window.parameter.equals(parameter)) {
+        return window;
+      }
+    }
+    return null;
+  }
+
+  public String getParameter() {
+    return parameter;
+  }
+
+  public int getBuckets() {
+    return buckets;
+  }
+
+  public long getBucketMillis() {
+    return bucketMillis;
+  }
+}
@@ -0,0 +1,42 @@
+package io.catalyte.training.superhealth.domains.analytics;
+
+/**
+ * Estimated median, 90th and 99th percentile of one vital over a group of encounters. The
+ * percentiles are null when no encounter in the group recorded the vital.
+ */
+public class VitalQuantiles {
+
+  static final double[] RANKS = {0.5, 0.9, 0.99};
+
+  private final long count;
+
+  private final Integer p50;
+
+  private final Integer p90;
+
+  private final Integer p99;
+
+  public VitalQuantiles(KllSketch sketch) {
+    int[] quantiles = sketch.quantiles(RANKS);
+    this.count = sketch.getCount();
+    this.p50 = quantiles == null ? null : quantiles[0];
+    this.p90 = quantiles == null ? null : quantiles[1];
+    this.p99 = quantiles == null ? null : quantiles[2];
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public Integer getP50() {
+    return p50;
+  }
+
+  public Integer getP90() {
+    return p90;
+  }
+
+  public Integer getP99() {
+    return p99;
+  }
+}
@@ -0,0 +1,51 @@
+package io.catalyte.training.superhealth.domains.analytics;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+/**
+ * One group of a vitals quantiles answer. Only the dimensions the answer is grouped by are
+ * present.
+ */
+@JsonInclude(Include.NON_NULL)
+public class VitalsQuantileRow {
+
+  private final String gender;
+
+  private final String ageBand;
+
+  private final VitalQuantiles pulse;
+
+  private final VitalQuantiles systolic;
+
+  private final VitalQuantiles diastolic;
+
+  public VitalsQuantileRow(String gender, AgeBand ageBand, VitalQuantiles pulse,
+      VitalQuantiles systolic, VitalQuantiles diastolic) {
+    this.gender = gender;
+    this.ageBand = ageBand == null ? null : ageBand.getLabel();
+    this.pulse = pulse;
+    this.systolic = systolic;
+    this.diastolic = diastolic;
+  }
+
+  public String getGender() {
+    return gender;
+  }
+
+  public String getAgeBand() {
+    return ageBand;
+  }
+
+  public VitalQuantiles getPulse() {
+    return pulse;
+  }
+
+  public VitalQuantiles getSystolic() {
+    return systolic;
+  }
+
+  public VitalQuantiles getDiastolic() {
+    return diastolic;
+  }
+}
@@ -0,0 +1,312 @@
+package io.catalyte.training.superhealth.domains.analytics;
+
+import io.catalyte.training.superhealth.domains.encounter.EncounterChange;
+import io.catalyte.training.superhealth.domains.encounter.EncounterChangeSequence;
+import io.catalyte.training.superhealth.domains.patient.PatientChange;
+import io.catalyte.training.superhealth.domains.vitals.VitalSign;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.LongStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * KLL sketches of the pulse, systolic and diastolic pressure of every encounter, one per vital for
+ * each patient gender and age band. A query merges the sketches of the slices it covers, so it
+ * answers in time and memory that depend only on the sketch size, whatever the number of
+ * encounters.
+ *
+ * <p>The sketches are loaded on first use, or when the application starts, by splitting the
+ * encounter ids into ranges of analytics.vitals-quantiles.load-chunk-size, sketching the ranges
+ * in parallel and merging the results. They are then kept current by record, which applies each
+ * encounter change once it commits, through the same invalidation epoch as the encounter rollup. A
+ * sketch cannot take a value back, so an update that changes an encounter's vitals or patient, and
+ * a patient change of gender or age band, drops the sketches and the next query reloads them.
+ */
+@Component
+public class VitalsQuantiles {
+
+  /**
+   * Genders patients are stored with, in the order rows are returned.
+   */
+  static final String[] GENDERS = {"Female", "Male", "Other"};
+
+  private static final AgeBand[] AGE_BANDS = AgeBand.values();
+
+  private static final VitalSign[] SIGNS = VitalSign.values();
+
+  private final ReentrantLock loadLock = new ReentrantLock();
+
+  private final int k;
+
+  private final int loadChunkSize;
+
+  private final EncounterChangeSequence changes;
+
+  private volatile Sketches sketches;
+
+  /**
+   * Last change numbered before the kept sketches' load started, guarded by the epoch.
+   */
+  private long loadedThrough;
+
+  private final InvalidationEpoch epoch = new InvalidationEpoch();
+
+  /**
+   * @param k - size of each sketch, which sets the accuracy of the quantiles
+   * @param loadChunkSize - number of encounter ids read by each task of a load
+   * @param changes - numbers the encounter changes as they commit
+   */
+  @Autowired
+  public VitalsQuantiles(@Value("${analytics.vitals-quantiles.k:200}") int k,
+      @Value("${analytics.vitals-quantiles.load-chunk-size:10000}") int loadChunkSize,
+      EncounterChangeSequence changes) {
+    this.k = k;
+    this.loadChunkSize = loadChunkSize;
+    this.changes = changes;
+  }
+
+  /**
+   * Adds a committed new encounter's vitals to the sketches, or drops the sketches if the change
+   * altered vitals they already hold.
+   *
+   * @param change - the committed encounter change
+   */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  public void record(EncounterChange change) {
+    epoch.apply(() -> {
+      Sketches current = sketches;
+      if (current == null) {
+        return;
+      }
+      VitalsSample sample = VitalsSample.of(change.getCurrent());
+      if (change.getPrevious() == null && change.getSequence() > loadedThrough) {
+        current.add(sample);
+      } else if (change.getPrevious() == null
+          || !VitalsSample.of(change.getPrevious()).equals(sample)) {
+        //the load may already hold the new sample, or a sketch holds the old one
+        sketches = null;
+      }
+    });
+  }
+
+  /**
+   * Drops the sketches so the next query reloads them from the database, without waiting for a
+   * load in progress; a load in progress is discarded once it finishes.
+   */
+  public void invalidate() {
+    epoch.invalidate(() -> sketches = null);
+  }
+
+  /**
+   * Drops the sketches once a patient delete that removed encounters, or a patient update that moved
+   * the patient's encounters to another gender and age band slice, commits.
+   *
+   * @param change - the committed patient change
+   */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  public void recordPatient(PatientChange change) {
+    if (change.isEncountersDeleted() || change.isSliceChanged()) {
+      invalidate();
+    }
+  }
+
+  /**
+   * Loads the sketches if they are not loaded, so the first query does not wait for it.
+   *
+   * @param source - reads the samples of the encounters
+   */
+  public void warmUp(Source source) {
+    load(source);
+  }
+
+  /**
+   * Answers a quantiles query by merging the sketches of the slices it covers, loading the
+   * sketches first if needed.
+   *
+   * @param groupByGender - whether to return a row per gender
+   * @param groupByAgeBand - whether to return a row per age band
+   * @param gender - only cover this gender, may be null
+   * @param ageBand - only cover this age band, may be null
+   * @param source - reads the samples of the encounters
+   * @return one row per group with at least one encounter, ordered by gender then age band
+   */
+  public List<VitalsQuantileRow> query(boolean groupByGender, boolean groupByAgeBand,
+      String gender, AgeBand ageBand, Source source) {
+    Sketches current = load(source);
+
+    Map<List<Object>, KllSketch[]> groups = new LinkedHashMap<>();
+    for (int g = 0; g < GENDERS.length; g++) {
+      if (gender != null && !gender.equals(GENDERS[g])) {
+        continue;
+      }
+      for (AgeBand band : AGE_BANDS) {
+        if (ageBand != null && ageBand != band) {
+          continue;
+        }
+        List<Object> group = new ArrayList<>(2);
+        group.add(groupByGender ? GENDERS[g] : null);
+        group.add(groupByAgeBand ? band : null);
+        KllSketch[] merged = groups.computeIfAbsent(group, key -> newSketches(SIGNS.length));
+        for (VitalSign sign : SIGNS) {
+          current.mergeInto(merged[sign.ordinal()], g, band, sign);
+        }
+      }
+    }
+
+    List<VitalsQuantileRow> rows = new ArrayList<>(groups.size());
+    for (Map.Entry<List<Object>, KllSketch[]> group : groups.entrySet()) {
+      KllSketch[] merged = group.getValue();
+      long count = 0;
+      for (KllSketch sketch : merged) {
+        count += sketch.getCount();
+      }
+      if (count > 0) {
+        rows.add(new VitalsQuantileRow((String) group.getKey().get(0),
+            (AgeBand) group.getKey().get(1),
+            new VitalQuantiles(merged[VitalSign.PULSE.ordinal()]),
+            new VitalQuantiles(merged[VitalSign.SYSTOLIC.ordinal()]),
+            new VitalQuantiles(merged[VitalSign.DIASTOLIC.ordinal()])));
+      }
+    }
+    return rows;
+  }
+
+  private Sketches load(Source source) {
+    Sketches current = sketches;
+    if (current != null) {
+      return current;
+    }
+    //only loads wait for each other here, changes go through the epoch
+    loadLock.lock();
+    try {
+      current = sketches;
+      if (current == null) {
+        long since = changes.current();
+        long loading = epoch.current();
+        Sketches built = build(source);
+        epoch.publish(loading, () -> {
+          if (changes.current() == since) {
+            sketches = built;
+            loadedThrough = since;
+          }
+        });
+        current = built;
+      }
+      return current;
+    } finally {
+      loadLock.unlock();
+    }
+  }
+
+  /**
+   * Sketches the encounters chunk by chunk of ids on the common fork join pool, each chunk into
+   * its own sketches, and merges the chunks' sketches.
+   */
+  private Sketches build(Source source) {
+    Long minId = source.findMinId();
+    Long maxId = source.findMaxId();
+    if (minId == null || maxId == null) {
+      return new Sketches();
+    }
+    long chunks = (maxId - minId) / loadChunkSize + 1;
+    return LongStream.range(0, chunks).parallel().collect(Sketches::new,
+        (loaded, chunk) -> {
+          long fromId = minId + chunk * loadChunkSize;
+          for (VitalsSample sample : source.findBetween(fromId, fromId + loadChunkSize - 1)) {
+            loaded.add(sample);
+          }
+        },
+        Sketches::merge);
+  }
+
+  private KllSketch[] newSketches(int length) {
+    KllSketch[] sketches = new KllSketch[length];
+    for (int i = 0; i < length; i++) {
+      sketches[i] = new KllSketch(k);
+    }
+    return sketches;
+  }
+
+  private static int genderIndex(String gender) {
+    for (int g = 0; g < GENDERS.length; g++) {
+      if (GENDERS[g].equals(gender)) {
+        return g;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Reads the samples the sketches are loaded from.
+   */
+  public interface Source {
+
+    /**
+     * @return the lowest encounter id, null if there are no encounters
+     */
+    Long findMinId();
+
+    /**
+     * @return the highest encounter id, null if there are no encounters
+     */
+    Long findMaxId();
+
+    /**
+     * @param fromId - lowest encounter id to read
+     * @param toId - highest encounter id to read
+     * @return the samples of the encounters with ids in the range
+     */
+    List<VitalsSample> findBetween(long fromId, long toId);
+  }
+
+  /**
+   * One sketch per gender, age band and vital. Each sketch is locked while it is changed or read,
+   * so a change can be added while queries merge other slices.
+   */
+  private final class Sketches {
+
+    private final KllSketch[] cells = newSketches(GENDERS.length * AGE_BANDS.length
+        * SIGNS.length);
+
+    void add(VitalsSample sample) {
+      int g = genderIndex(sample.getGender());
+      AgeBand band = AgeBand.of(sample.getAge());
+      if (g < 0 || band == null) {
+        return;
+      }
+      for (VitalSign sign : SIGNS) {
+        Integer value = sample.get(sign);
+        if (value != null) {
+          KllSketch cell = cells[index(g, band, sign)];
+          synchronized (cell) {
+            cell.add(value);
+          }
+        }
+      }
+    }
+
+    void merge(Sketches other) {
+      for (int i = 0; i < cells.length; i++) {
+        cells[i].merge(other.cells[i]);
+      }
+    }
+
+    void mergeInto(KllSketch target, int g, AgeBand band, VitalSign sign) {
+      KllSketch cell = cells[index(g, band, sign)];
+      synchronized (cell) {
+        target.merge(cell);
+      }
+    }
+
+    private int index(int g, AgeBand band, VitalSign sign) {
+      return (g * AGE_BANDS.length + band.ordinal()) * SIGNS.length + sign.ordinal();
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package io.catalyte.training.superhealth.domains.analytics;
+
+import io.catalyte.training.superhealth.domains.encounter.Encounter;
+import io.catalyte.training.superhealth.domains.patient.Patient;
+import io.catalyte.training.superhealth.domains.vitals.VitalSign;
+import java.util.Objects;
+
+/**
+ * The vitals of one encounter with the gender and age of its patient, as read by the query the
+ * vitals quantiles are loaded from.
+ */
+public class VitalsSample {
+
+  private final String gender;
+
+  private final Integer age;
+
+  private final Integer pulse;
+
+  private final Integer systolic;
+
+  private final Integer diastolic;
+
+  public VitalsSample(String gender, Integer age, Integer pulse, Integer systolic,
+      Integer diastolic) {
+    this.gender = gender;
+    this.age = age;
+    this.pulse = pulse;
+    this.systolic = systolic;
+    this.diastolic = diastolic;
+  }
+
+  /**
+   * @param encounter - encounter to read, with its patient
+   * @return the encounter's sample
+   */
+  public static VitalsSample of(Encounter encounter) {
+    Patient patient = encounter.getPatient();
+    return new VitalsSample(patient == null ? null : patient.getGender(),
+        patient == null ? null : patient.getAge(), encounter.getPulse(), encounter.getSystolic(),
+        encounter.getDiastolic());
+  }
+
+  public String getGender() {
+    return gender;
+  }
+
+  public Integer getAge() {
+    return age;
+  }
+
+  /**
+   * @param sign - vital to read
+   * @return the value of the vital, null when it was not recorded
+   */
+  public Integer get(VitalSign sign) {
+    switch (sign) {
+      case PULSE:
+        return pulse;
+      case SYSTOLIC:
+        return systolic;
+      default:
+        return diastolic;
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    VitalsSample that = (VitalsSample) o;
+    return Objects.equals(gender, that.gender)
+        && Objects.equals(age, that.age)
+        && Objects.equals(pulse, that.pulse)
+        && Objects.equals(systolic, that.systolic)
+        && Objects.equals(diastolic, that.diastolic);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(gender, age, pulse, systolic, diastolic);
+  }
+}
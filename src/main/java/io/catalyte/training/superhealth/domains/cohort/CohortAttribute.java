@@ -0,0 +1,40 @@
+package io.catalyte.training.superhealth.domains.cohort;
+
+/**
+ * Attributes the cohort index keeps a bitmap of patient ids for, one bitmap per value. Patient
+ * attributes hold the patients with the value; encounter attributes hold the patients with at
+ * least one encounter with the value.
+ */
+public enum CohortAttribute {
+  STATE("state"),
+  GENDER("gender"),
+  INSURANCE("insurance"),
+  AGE("age"),
+  ICD10("icd10"),
+  PROVIDER("provider");
+
+  private final String parameter;
+
+  CohortAttribute(String parameter) {
+    this.parameter = parameter;
+  }
+
+  /**
+   * Finds the attribute for a cohort expression key.
+   *
+   * @param parameter - attribute name, e.g. "insurance"
+   * @return the attribute, or null if there is none by that name
+   */
+  public static CohortAttribute fromParameter(String parameter) {
+    for (CohortAttribute attribute : values()) {
+      if (attribute.parameter.equals(parameter)) {
+        return attribute;
+      }
+    }
+    return null;
+  }
+
+  public String getParameter() {
+    return parameter;
+  }
+}
@@ -0,0 +1,50 @@
+package io.catalyte.training.superhealth.domains.cohort;
+
+import static io.catalyte.training.superhealth.constants.Paths.COHORTS_PATH;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.catalyte.training.superhealth.constants.LoggingConstants;
+import io.catalyte.training.superhealth.pagination.CursorPage;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * The CohortController exposes endpoints for population health cohort queries.
+ */
+@RestController
+@RequestMapping(value = COHORTS_PATH)
+public class CohortController {
+
+  Logger logger = LogManager.getLogger(CohortController.class);
+
+  @Autowired
+  private CohortService cohortService;
+
+  /**
+   * Handles a POST request to /cohorts/query. Counts the patients matching a boolean cohort
+   * expression and returns one page of their ids, e.g.
+   * {"gender": "Female", "state": "WA", "age": {"min": 40, "max": 60}, "icd10": "J45",
+   * "not": {"insurance": "None"}}.
+   *
+   * @param expression - the cohort expression
+   * @param limit - maximum number of patient ids to return, 0 for the count only
+   * @param after - cursor returned with the previous page
+   * @return the cohort size and the page of patient ids
+   */
+  @PostMapping(value = "/query")
+  public ResponseEntity<CohortResult> queryCohort(@RequestBody JsonNode expression,
+      @RequestParam(defaultValue = "" + CursorPage.DEFAULT_LIMIT) Integer limit,
+      @RequestParam(required = false) String after) {
+    logger.info(LoggingConstants.QUERY_COHORT);
+    return new ResponseEntity<>(cohortService.queryCohort(expression, limit, after),
+        HttpStatus.OK);
+  }
+}
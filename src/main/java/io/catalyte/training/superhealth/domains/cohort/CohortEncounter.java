@@ -0,0 +1,32 @@
+package io.catalyte.training.superhealth.domains.cohort;
+
+/**
+ * A distinct icd10 and provider pair of one patient's encounters, as read by the query the cohort
+ * index is loaded from.
+ */
+public class CohortEncounter {
+
+  private final Long patientId;
+
+  private final String icd10;
+
+  private final String provider;
+
+  public CohortEncounter(Long patientId, String icd10, String provider) {
+    this.patientId = patientId;
+    this.icd10 = icd10;
+    this.provider = provider;
+  }
+
+  public Long getPatientId() {
+    return patientId;
+  }
+
+  public String getIcd10() {
+    return icd10;
+  }
+
+  public String getProvider() {
+    return provider;
+  }
+}
@@ -0,0 +1,107 @@
+package io.catalyte.training.superhealth.domains.cohort;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.IntPredicate;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+
+/**
+ * A boolean expression over the cohort index, evaluated to the bitmap of the patient ids it
+ * matches. Evaluation never changes the index's bitmaps.
+ */
+@FunctionalInterface
+public interface CohortExpression {
+
+  /**
+   * @param bitmaps - the index's bitmaps
+   * @return the ids of the matching patients; may be one of the index's bitmaps, so must not be
+   * changed
+   */
+  RoaringBitmap evaluate(Bitmaps bitmaps);
+
+  /**
+   * Patients matching every expression.
+   */
+  static CohortExpression and(List<CohortExpression> expressions) {
+    return bitmaps -> {
+      RoaringBitmap[] operands = evaluateAll(expressions, bitmaps);
+      return operands.length == 1 ? operands[0] : FastAggregation.and(operands);
+    };
+  }
+
+  /**
+   * Patients matching any of the expressions.
+   */
+  static CohortExpression or(List<CohortExpression> expressions) {
+    return bitmaps -> {
+      RoaringBitmap[] operands = evaluateAll(expressions, bitmaps);
+      return operands.length == 1 ? operands[0] : FastAggregation.or(operands);
+    };
+  }
+
+  /**
+   * Patients not matching the expression.
+   */
+  static CohortExpression not(CohortExpression expression) {
+    return bitmaps -> RoaringBitmap.andNot(bitmaps.all(), expression.evaluate(bitmaps));
+  }
+
+  /**
+   * Patients with any of the values of an attribute.
+   */
+  static CohortExpression match(CohortAttribute attribute, Collection<String> values) {
+    return bitmaps -> {
+      List<RoaringBitmap> operands = new ArrayList<>(values.size());
+      for (String value : values) {
+        operands.add(bitmaps.get(attribute, value));
+      }
+      return operands.size() == 1 ? operands.get(0) : FastAggregation.or(operands.iterator());
+    };
+  }
+
+  /**
+   * Patients whose age is accepted by the predicate. Only the ages patients have are tested.
+   */
+  static CohortExpression age(IntPredicate accepts) {
+    return bitmaps -> {
+      List<RoaringBitmap> operands = new ArrayList<>();
+      for (String age : bitmaps.values(CohortAttribute.AGE)) {
+        if (accepts.test(Integer.parseInt(age))) {
+          operands.add(bitmaps.get(CohortAttribute.AGE, age));
+        }
+      }
+      return FastAggregation.or(operands.iterator());
+    };
+  }
+
+  static RoaringBitmap[] evaluateAll(List<CohortExpression> expressions, Bitmaps bitmaps) {
+    RoaringBitmap[] operands = new RoaringBitmap[expressions.size()];
+    for (int i = 0; i < operands.length; i++) {
+      operands[i] = expressions.get(i).evaluate(bitmaps);
+    }
+    return operands;
+  }
+
+  /**
+   * Read access to the index's bitmaps while an expression is evaluated.
+   */
+  interface Bitmaps {
+
+    /**
+     * @return the ids of every indexed patient
+     */
+    RoaringBitmap all();
+
+    /**
+     * @return the ids of the patients with the value, empty if there are none
+     */
+    RoaringBitmap get(CohortAttribute attribute, String value);
+
+    /**
+     * @return the values of the attribute some patient has
+     */
+    Collection<String> values(CohortAttribute attribute);
+  }
+}
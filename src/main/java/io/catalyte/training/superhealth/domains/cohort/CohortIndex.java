@@ -0,0 +1,491 @@
+package io.catalyte.training.superhealth.domains.cohort;
+
+import io.catalyte.training.superhealth.domains.analytics.InvalidationEpoch;
+import io.catalyte.training.superhealth.domains.encounter.Encounter;
+import io.catalyte.training.superhealth.domains.patient.Patient;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory cohort index: for each value of each CohortAttribute, a compressed (Roaring) bitmap of
+ * the ids of the patients with that value. Cohort expressions are evaluated with bitmap AND, OR and
+ * AND NOT, so a query costs a handful of operations on compressed bitmaps rather than a scan of
+ * the patient and encounter tables. Patient ids are generated sequentially and stored as ints.
+ *
+ * <p>The index is loaded page by page of patients on first use and then kept current by the
+ * patient and encounter services, which apply each write once it has committed. A load builds a
+ * new index without holding any lock, and applying a write is idempotent and starts a new
+ * invalidation epoch, so a load that may have missed the write is not kept; no write or
+ * invalidation waits for a load. Writes that bypass the services must call invalidate so the next
+ * query reloads the index.
+ */
+@Component
+public class CohortIndex {
+
+  /**
+   * Number of patients read per query when the index loads.
+   */
+  static final int LOAD_PAGE_SIZE = 5000;
+
+  /**
+   * Number of times an encounter change looks up its patient's other encounters again when a
+   * change for the same patient is applied meanwhile, before it drops the index instead.
+   */
+  static final int MAX_LOOKUP_ATTEMPTS = 3;
+
+  private static final CohortAttribute[] PATIENT_ATTRIBUTES = {CohortAttribute.STATE,
+      CohortAttribute.GENDER, CohortAttribute.INSURANCE, CohortAttribute.AGE};
+
+  /**
+   * Number of counters encounter changes are spread over by patient id.
+   */
+  private static final int PATIENT_STRIPES = 64;
+
+  private final ReentrantLock loadLock = new ReentrantLock();
+
+  /**
+   * Keeps queries from reading the kept index while a write changes it.
+   */
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private volatile Index index;
+
+  /**
+   * Number of encounter changes applied per stripe of patient ids, guarded by its own monitor.
+   */
+  private final long[] patientChanges = new long[PATIENT_STRIPES];
+
+  private final InvalidationEpoch epoch = new InvalidationEpoch();
+
+  /**
+   * Indexes a saved patient under its current attribute values, removing it from any values it
+   * had before. Does nothing until the index is loaded, since the load reads the patient.
+   *
+   * @param patient - the patient as committed
+   */
+  public void putPatient(Patient patient) {
+    epoch.apply(() -> {
+      Index current = index;
+      if (current == null) {
+        return;
+      }
+      lock.writeLock().lock();
+      try {
+        int id = toId(patient.getId());
+        for (CohortAttribute attribute : PATIENT_ATTRIBUTES) {
+          for (RoaringBitmap bitmap : current.bitmaps.get(attribute).values()) {
+            bitmap.remove(id);
+          }
+        }
+        current.addPatient(new CohortPatient(patient.getId(), patient.getState(),
+            patient.getGender(), patient.getInsurance(), patient.getAge()));
+      } finally {
+        lock.writeLock().unlock();
+      }
+    });
+  }
+
+  /**
+   * Removes a deleted patient and the values of its encounters. Does nothing until the index is
+   * loaded.
+   *
+   * @param patientId - id of the deleted patient
+   */
+  public void removePatient(Long patientId) {
+    epoch.apply(() -> {
+      Index current = index;
+      if (current == null) {
+        return;
+      }
+      lock.writeLock().lock();
+      try {
+        int id = toId(patientId);
+        current.all.remove(id);
+        for (Map<String, RoaringBitmap> values : current.bitmaps.values()) {
+          for (RoaringBitmap bitmap : values.values()) {
+            bitmap.remove(id);
+          }
+        }
+      } finally {
+        lock.writeLock().unlock();
+      }
+    });
+  }
+
+  /**
+   * Indexes the icd10 and provider of a committed encounter under its patient, and, for an update,
+   * removes the patient from the encounter's previous values unless another of the patient's
+   * encounters still has them.
+   *
+   * <p>The lookups run before any lock is taken. A change for the same patient applied between
+   * the lookups and the removal could have added a value back, so the lookups then run again,
+   * up to MAX_LOOKUP_ATTEMPTS times before the index is dropped instead.
+   *
+   * @param previous - the encounter's entry before the write, null for a new encounter
+   * @param encounter - the encounter as committed
+   * @param lookup - checks whether a patient still has an encounter with a value
+   * @throws RuntimeException if the lookup fails, after dropping the index so the next query
+   *     reloads it
+   */
+  public void putEncounter(Entry previous, Encounter encounter, EncounterLookup lookup) {
+    Entry current = entryOf(encounter);
+    for (int attempt = 0; attempt < MAX_LOOKUP_ATTEMPTS; attempt++) {
+      Index seen;
+      long seenChanges;
+      synchronized (patientChanges) {
+        seen = index;
+        seenChanges = previous == null ? 0 : patientChanges[stripe(previous.patientId)];
+      }
+      String removedIcd10 = null;
+      String removedProvider = null;
+      if (seen != null) {
+        try {
+          removedIcd10 = removedValue(previous, current, CohortAttribute.ICD10, Entry::getIcd10,
+              lookup);
+          removedProvider = removedValue(previous, current, CohortAttribute.PROVIDER,
+              Entry::getProvider, lookup);
+        } catch (RuntimeException e) {
+          invalidate();
+          throw e;
+        }
+      }
+      String icd10 = removedIcd10;
+      String provider = removedProvider;
+      boolean[] applied = new boolean[1];
+      //a change always starts a new epoch, even with no index kept, so a load in progress that
+      //may have missed it is not kept
+      epoch.apply(() -> {
+        Index kept;
+        synchronized (patientChanges) {
+          kept = index;
+          if (kept != null && (kept != seen || (previous != null
+              && patientChanges[stripe(previous.patientId)] != seenChanges))) {
+            return;
+          }
+          if (current.patientId != null) {
+            patientChanges[stripe(current.patientId)]++;
+          }
+        }
+        applied[0] = true;
+        if (kept == null) {
+          return;
+        }
+        lock.writeLock().lock();
+        try {
+          if (icd10 != null) {
+            kept.remove(CohortAttribute.ICD10, icd10, previous.patientId);
+          }
+          if (provider != null) {
+            kept.remove(CohortAttribute.PROVIDER, provider, previous.patientId);
+          }
+          kept.addEncounter(new CohortEncounter(current.patientId, current.icd10,
+              current.provider));
+        } finally {
+          lock.writeLock().unlock();
+        }
+      });
+      if (applied[0]) {
+        return;
+      }
+    }
+    invalidate();
+  }
+
+  /**
+   * Drops the index so the next query reloads it from the database, without waiting for a load
+   * in progress; a load in progress is discarded once it finishes.
+   */
+  public void invalidate() {
+    epoch.invalidate(() -> index = null);
+  }
+
+  /**
+   * Loads the index if it is not loaded, so the first query does not wait for it.
+   *
+   * @param source - reads the patients and encounters to load
+   */
+  public void warmUp(Source source) {
+    load(source);
+  }
+
+  /**
+   * Evaluates a cohort expression and reads one page of the matching patient ids, loading the
+   * index first if needed.
+   *
+   * @param expression - the cohort
+   * @param afterId - only return ids greater than this one
+   * @param limit - maximum number of ids to return, 0 for the count only
+   * @param source - reads the patients and encounters to load
+   * @return the cohort size and the page of ids, in ascending order
+   */
+  public Page query(CohortExpression expression, long afterId, int limit, Source source) {
+    Index current = load(source);
+    lock.readLock().lock();
+    try {
+      RoaringBitmap cohort = expression.evaluate(current);
+      List<Long> ids = new ArrayList<>(Math.min(limit, 1024));
+      boolean more = false;
+      if (limit > 0 && afterId < Integer.MAX_VALUE) {
+        PeekableIntIterator iterator = cohort.getIntIterator();
+        iterator.advanceIfNeeded((int) afterId + 1);
+        while (iterator.hasNext() && ids.size() < limit) {
+          ids.add((long) iterator.next());
+        }
+        more = iterator.hasNext();
+      }
+      return new Page(cohort.getLongCardinality(), ids, more);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * @param encounter - encounter to read, with its patient
+   * @return the encounter's patient, icd10 and provider
+   */
+  public static Entry entryOf(Encounter encounter) {
+    return new Entry(encounter.getPatient() == null ? null : encounter.getPatient().getId(),
+        encounter.getIcd10(), encounter.getProvider());
+  }
+
+  private Index load(Source source) {
+    Index current = index;
+    if (current != null) {
+      return current;
+    }
+    //only loads wait for each other here, writes go through the epoch
+    loadLock.lock();
+    try {
+      current = index;
+      if (current == null) {
+        long loading = epoch.current();
+        Index built = build(source);
+        epoch.publish(loading, () -> index = built);
+        current = built;
+      }
+      return current;
+    } finally {
+      loadLock.unlock();
+    }
+  }
+
+  private Index build(Source source) {
+    Index built = new Index();
+    long afterId = 0;
+    List<CohortPatient> page;
+    do {
+      page = source.findPatients(afterId, LOAD_PAGE_SIZE);
+      if (page.isEmpty()) {
+        break;
+      }
+      for (CohortPatient patient : page) {
+        built.addPatient(patient);
+      }
+      long lastId = page.get(page.size() - 1).getId();
+      for (CohortEncounter encounter : source.findEncounters(afterId + 1, lastId)) {
+        built.addEncounter(encounter);
+      }
+      afterId = lastId;
+    } while (page.size() == LOAD_PAGE_SIZE);
+    built.runOptimize();
+    return built;
+  }
+
+  /**
+   * @return the previous value of the attribute if the change leaves the patient with no
+   *     encounter that has it, null if the patient keeps it
+   */
+  private static String removedValue(Entry previous, Entry current, CohortAttribute attribute,
+      Function<Entry, String> valueOf, EncounterLookup lookup) {
+    if (previous == null) {
+      return null;
+    }
+    String value = valueOf.apply(previous);
+    if (previous.patientId == null || value == null
+        || (Objects.equals(previous.patientId, current.patientId)
+        && value.equals(valueOf.apply(current)))) {
+      return null;
+    }
+    return lookup.hasEncounter(previous.patientId, attribute, value) ? null : value;
+  }
+
+  private static int stripe(Long patientId) {
+    return patientId == null ? 0 : (int) Math.floorMod(patientId, (long) PATIENT_STRIPES);
+  }
+
+  private static int toId(Long patientId) {
+    return Math.toIntExact(patientId);
+  }
+
+  /**
+   * The bitmaps of every attribute value and of every patient.
+   */
+  private static final class Index implements CohortExpression.Bitmaps {
+
+    private final Map<CohortAttribute, Map<String, RoaringBitmap>> bitmaps =
+        new EnumMap<>(CohortAttribute.class);
+
+    private final RoaringBitmap all = new RoaringBitmap();
+
+    Index() {
+      for (CohortAttribute attribute : CohortAttribute.values()) {
+        bitmaps.put(attribute, new HashMap<>());
+      }
+    }
+
+    @Override
+    public RoaringBitmap all() {
+      return all;
+    }
+
+    @Override
+    public RoaringBitmap get(CohortAttribute attribute, String value) {
+      RoaringBitmap bitmap = bitmaps.get(attribute).get(value);
+      return bitmap == null ? new RoaringBitmap() : bitmap;
+    }
+
+    @Override
+    public Collection<String> values(CohortAttribute attribute) {
+      return bitmaps.get(attribute).keySet();
+    }
+
+    void addPatient(CohortPatient patient) {
+      int id = toId(patient.getId());
+      all.add(id);
+      add(CohortAttribute.STATE, patient.getState(), id);
+      add(CohortAttribute.GENDER, patient.getGender(), id);
+      add(CohortAttribute.INSURANCE, patient.getInsurance(), id);
+      add(CohortAttribute.AGE, patient.getAge() == null ? null : patient.getAge().toString(), id);
+    }
+
+    void addEncounter(CohortEncounter encounter) {
+      if (encounter.getPatientId() == null) {
+        return;
+      }
+      int id = toId(encounter.getPatientId());
+      add(CohortAttribute.ICD10, encounter.getIcd10(), id);
+      add(CohortAttribute.PROVIDER, encounter.getProvider(), id);
+    }
+
+    void remove(CohortAttribute attribute, String value, Long patientId) {
+      RoaringBitmap bitmap = bitmaps.get(attribute).get(value);
+      if (bitmap != null) {
+        bitmap.remove(toId(patientId));
+      }
+    }
+
+    void runOptimize() {
+      for (Map<String, RoaringBitmap> values : bitmaps.values()) {
+        for (RoaringBitmap bitmap : values.values()) {
+          bitmap.runOptimize();
+        }
+      }
+      all.runOptimize();
+    }
+
+    private void add(CohortAttribute attribute, String value, int id) {
+      if (value != null) {
+        bitmaps.get(attribute).computeIfAbsent(value, key -> new RoaringBitmap()).add(id);
+      }
+    }
+  }
+
+  /**
+   * Where one encounter sits in the index.
+   */
+  public static final class Entry {
+
+    private final Long patientId;
+
+    private final String icd10;
+
+    private final String provider;
+
+    private Entry(Long patientId, String icd10, String provider) {
+      this.patientId = patientId;
+      this.icd10 = icd10;
+      this.provider = provider;
+    }
+
+    private String getIcd10() {
+      return icd10;
+    }
+
+    private String getProvider() {
+      return provider;
+    }
+  }
+
+  /**
+   * Checks whether a patient has an encounter with an icd10 or provider.
+   */
+  @FunctionalInterface
+  public interface EncounterLookup {
+
+    boolean hasEncounter(Long patientId, CohortAttribute attribute, String value);
+  }
+
+  /**
+   * Reads the patients and encounters the index is loaded from.
+   */
+  public interface Source {
+
+    /**
+     * @param afterId - only read patients with a greater id
+     * @param limit - maximum number of patients to read
+     * @return the patients in id order
+     */
+    List<CohortPatient> findPatients(long afterId, int limit);
+
+    /**
+     * @param fromPatientId - lowest patient id to read
+     * @param toPatientId - highest patient id to read
+     * @return the distinct icd10 and provider pairs of the patients' encounters
+     */
+    List<CohortEncounter> findEncounters(long fromPatientId, long toPatientId);
+  }
+
+  /**
+   * The size of a cohort and one page of its ids.
+   */
+  public static final class Page {
+
+    private final long count;
+
+    private final List<Long> ids;
+
+    private final boolean more;
+
+    private Page(long count, List<Long> ids, boolean more) {
+      this.count = count;
+      this.ids = ids;
+      this.more = more;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    public List<Long> getIds() {
+      return ids;
+    }
+
+    /**
+     * @return whether there are ids after the page
+     */
+    public boolean hasMore() {
+      return more;
+    }
+  }
+}
@@ -0,0 +1,45 @@
+package io.catalyte.training.superhealth.domains.cohort;
+
+/**
+ * The indexed attributes of one patient, as read by the query the cohort index is loaded from.
+ */
+public class CohortPatient {
+
+  private final Long id;
+
+  private final String state;
+
+  private final String gender;
+
+  private final String insurance;
+
+  private final Integer age;
+
+  public CohortPatient(Long id, String state, String gender, String insurance, Integer age) {
+    this.id = id;
+    this.state = state;
+    this.gender = gender;
+    this.insurance = insurance;
+    this.age = age;
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public String getState() {
+    return state;
+  }
+
+  public String getGender() {
+    return gender;
+  }
+
+  public String getInsurance() {
+    return insurance;
+  }
+
+  public Integer getAge() {
+    return age;
+  }
+}
@@ -0,0 +1,35 @@
+package io.catalyte.training.superhealth.domains.cohort;
+
+import java.util.List;
+
+/**
+ * The size of a cohort with one page of its patient ids, in ascending order. nextCursor is an
+ * opaque token to pass back as the 'after' parameter, with the same expression, for the following
+ * page, and is null on the last page.
+ */
+public class CohortResult {
+
+  private final long count;
+
+  private final List<Long> patientIds;
+
+  private final String nextCursor;
+
+  public CohortResult(long count, List<Long> patientIds, String nextCursor) {
+    this.count = count;
+    this.patientIds = patientIds;
+    this.nextCursor = nextCursor;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public List<Long> getPatientIds() {
+    return patientIds;
+  }
+
+  public String getNextCursor() {
+    return nextCursor;
+  }
+}
@@ -0,0 +1,12 @@
+package io.catalyte.training.superhealth.domains.cohort;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * This interface provides an abstraction layer for the Cohort Service
+ */
+public interface CohortService {
+
+  CohortResult queryCohort(JsonNode expression, Integer limit, String after);
+
+}
@@ -0,0 +1,282 @@
+package io.catalyte.training.superhealth.domains.cohort;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.catalyte.training.superhealth.constants.LoggingConstants;
+import io.catalyte.training.superhealth.constants.StringConstants;
+import io.catalyte.training.superhealth.domains.analytics.AgeBand;
+import io.catalyte.training.superhealth.domains.encounter.EncounterChange;
+import io.catalyte.training.superhealth.domains.encounter.EncounterRepository;
+import io.catalyte.training.superhealth.domains.patient.PatientChange;
+import io.catalyte.training.superhealth.domains.patient.PatientRepository;
+import io.catalyte.training.superhealth.exceptions.BadRequest;
+import io.catalyte.training.superhealth.exceptions.ServiceUnavailable;
+import io.catalyte.training.superhealth.pagination.CursorPage;
+import io.catalyte.training.superhealth.pagination.KeysetCursor;
+import io.catalyte.training.superhealth.validation.FormatMatchers;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * This class provides the implementation for the CohortService interface.
+ */
+@Service
+public class CohortServiceImpl implements CohortService {
+
+  /**
+   * Deepest nesting of and, or and not accepted in an expression.
+   */
+  static final int MAX_DEPTH = 32;
+
+  private static final String COHORT_SORT = "cohort";
+
+  private static final String AND = "and";
+
+  private static final String OR = "or";
+
+  private static final String NOT = "not";
+
+  private static final String AGE_BAND = "ageBand";
+
+  private final Logger logger = LogManager.getLogger(CohortServiceImpl.class);
+
+  PatientRepository patientRepository;
+
+  EncounterRepository encounterRepository;
+
+  CohortIndex cohortIndex;
+
+  private final CohortIndex.Source source = new CohortIndex.Source() {
+    @Override
+    public List<CohortPatient> findPatients(long afterId, int limit) {
+      try {
+        return patientRepository.findCohortPatients(afterId, PageRequest.of(0, limit));
+      } catch (DataAccessException e) {
+        logger.error(e.getMessage());
+        throw new ServiceUnavailable(e.getMessage());
+      }
+    }
+
+    @Override
+    public List<CohortEncounter> findEncounters(long fromPatientId, long toPatientId) {
+      try {
+        return encounterRepository.findCohortEncounters(fromPatientId, toPatientId);
+      } catch (DataAccessException e) {
+        logger.error(e.getMessage());
+        throw new ServiceUnavailable(e.getMessage());
+      }
+    }
+  };
+
+  @Autowired
+  public CohortServiceImpl(PatientRepository patientRepository,
+      EncounterRepository encounterRepository, CohortIndex cohortIndex) {
+    this.patientRepository = patientRepository;
+    this.encounterRepository = encounterRepository;
+    this.cohortIndex = cohortIndex;
+  }
+
+  /**
+   * Loads the cohort index once the application has started, so the first request does not wait
+   * for it. A failure leaves it to load on first use.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void warmUpCohortIndex() {
+    try {
+      cohortIndex.warmUp(source);
+    } catch (ServiceUnavailable e) {
+      logger.error(LoggingConstants.COHORT_WARM_UP_FAILURE);
+    }
+  }
+
+  /**
+   * Applies a committed encounter change to the cohort index. The change has already committed,
+   * so a failure to check the patient's other encounters only leaves the index to reload.
+   *
+   * @param change - the committed encounter change
+   */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  public void indexEncounter(EncounterChange change) {
+    try {
+      cohortIndex.putEncounter(change.getPrevious() == null ? null
+          : CohortIndex.entryOf(change.getPrevious()), change.getCurrent(),
+          this::patientHasEncounter);
+    } catch (DataAccessException e) {
+      logger.error(e.getMessage());
+    }
+  }
+
+  /**
+   * Applies a committed patient save, update or delete to the cohort index.
+   *
+   * @param change - the committed patient change
+   */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  public void indexPatient(PatientChange change) {
+    if (change.isDeleted()) {
+      cohortIndex.removePatient(change.getPatientId());
+    } else {
+      cohortIndex.putPatient(change.getCurrent());
+    }
+  }
+
+  /**
+   * Counts the patients matching a cohort expression and reads one page of their ids from the
+   * cohort index.
+   *
+   * <p>An expression is a JSON object whose conditions must all hold. "and" and "or" take a list
+   * of expressions and "not" takes one. "state", "gender", "insurance", "icd10" and "provider"
+   * take a value or a list of values, any of which may match; "icd10" and "provider" match
+   * patients with at least one such encounter. "age" takes an object with a min, a max or both,
+   * and "ageBand" takes a band label such as "35-49".
+   *
+   * @param expression - the cohort expression
+   * @param limit - maximum number of ids in the page, 0 for the count only
+   * @param after - cursor returned with the previous page, null for the first page
+   * @return the cohort size and one page of its patient ids in ascending order
+   */
+  public CohortResult queryCohort(JsonNode expression, Integer limit, String after) {
+    if (limit == null || limit < 0 || limit > CursorPage.MAX_LIMIT) {
+      throw new BadRequest(StringConstants.COHORT_LIMIT_INVALID(CursorPage.MAX_LIMIT));
+    }
+    long afterId = 0;
+    if (after != null && !after.isEmpty()) {
+      KeysetCursor cursor = KeysetCursor.decode(after);
+      if (!cursor.getSort().equals(COHORT_SORT)) {
+        throw new BadRequest(StringConstants.CURSOR_INVALID);
+      }
+      afterId = cursor.getId();
+    }
+
+    CohortIndex.Page page = cohortIndex.query(parse(expression, 0), afterId, limit, source);
+
+    String nextCursor = null;
+    if (page.hasMore()) {
+      Long lastId = page.getIds().get(page.getIds().size() - 1);
+      nextCursor = new KeysetCursor(COHORT_SORT, lastId, lastId.toString()).encode();
+    }
+    return new CohortResult(page.getCount(), page.getIds(), nextCursor);
+  }
+
+  /**
+   * Reads a JSON cohort expression into one the index can evaluate.
+   *
+   * @param node - the expression
+   * @param depth - number of expressions the node is nested in
+   * @return the expression
+   * @throws BadRequest if the expression is not valid
+   */
+  private CohortExpression parse(JsonNode node, int depth) {
+    if (depth > MAX_DEPTH) {
+      throw new BadRequest(StringConstants.COHORT_EXPRESSION_TOO_DEEP(MAX_DEPTH));
+    }
+    if (node == null || !node.isObject() || node.size() == 0) {
+      throw new BadRequest(StringConstants.COHORT_EXPRESSION_EMPTY);
+    }
+
+    List<CohortExpression> conditions = new ArrayList<>(node.size());
+    Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+    while (fields.hasNext()) {
+      Map.Entry<String, JsonNode> field = fields.next();
+      String key = field.getKey();
+      JsonNode value = field.getValue();
+      if (key.equals(AND) || key.equals(OR)) {
+        if (!value.isArray() || value.size() == 0) {
+          throw new BadRequest(StringConstants.COHORT_OPERANDS_INVALID(key));
+        }
+        List<CohortExpression> operands = new ArrayList<>(value.size());
+        for (JsonNode operand : value) {
+          operands.add(parse(operand, depth + 1));
+        }
+        conditions.add(key.equals(AND) ? CohortExpression.and(operands)
+            : CohortExpression.or(operands));
+      } else if (key.equals(NOT)) {
+        conditions.add(CohortExpression.not(parse(value, depth + 1)));
+      } else if (key.equals(CohortAttribute.AGE.getParameter())) {
+        conditions.add(parseAge(value));
+      } else if (key.equals(AGE_BAND)) {
+        AgeBand band = value.isTextual() ? AgeBand.fromLabel(value.asText()) : null;
+        if (band == null) {
+          List<String> labels = new ArrayList<>();
+          for (AgeBand ageBand : AgeBand.values()) {
+            labels.add(ageBand.getLabel());
+          }
+          throw new BadRequest(StringConstants.AGE_BAND_INVALID(labels));
+        }
+        conditions.add(CohortExpression.age(age -> AgeBand.of(age) == band));
+      } else {
+        CohortAttribute attribute = CohortAttribute.fromParameter(key);
+        if (attribute == null) {
+          List<String> keys = new ArrayList<>();
+          keys.add(AND);
+          keys.add(OR);
+          keys.add(NOT);
+          for (CohortAttribute cohortAttribute : CohortAttribute.values()) {
+            keys.add(cohortAttribute.getParameter());
+          }
+          keys.add(AGE_BAND);
+          throw new BadRequest(StringConstants.COHORT_KEY_INVALID(key, keys));
+        }
+        conditions.add(CohortExpression.match(attribute, parseValues(attribute, value)));
+      }
+    }
+    return conditions.size() == 1 ? conditions.get(0) : CohortExpression.and(conditions);
+  }
+
+  private boolean patientHasEncounter(Long patientId, CohortAttribute attribute, String value) {
+    return attribute == CohortAttribute.ICD10
+        ? encounterRepository.existsByPatientIdAndIcd10(patientId, value)
+        : encounterRepository.existsByPatientIdAndProvider(patientId, value);
+  }
+
+  private static CohortExpression parseAge(JsonNode value) {
+    JsonNode min = value.get("min");
+    JsonNode max = value.get("max");
+    if (!value.isObject() || (min == null && max == null)
+        || (min != null && !min.canConvertToInt()) || (max != null && !max.canConvertToInt())
+        || (min != null && !min.isIntegralNumber()) || (max != null && !max.isIntegralNumber())) {
+      throw new BadRequest(StringConstants.COHORT_AGE_INVALID);
+    }
+    int minAge = min == null ? Integer.MIN_VALUE : min.asInt();
+    int maxAge = max == null ? Integer.MAX_VALUE : max.asInt();
+    return CohortExpression.age(age -> age >= minAge && age <= maxAge);
+  }
+
+  private static List<String> parseValues(CohortAttribute attribute, JsonNode value) {
+    List<String> values = new ArrayList<>();
+    if (value.isTextual()) {
+      values.add(value.asText());
+    } else if (value.isArray() && value.size() > 0) {
+      for (JsonNode element : value) {
+        if (!element.isTextual()) {
+          throw new BadRequest(StringConstants.COHORT_VALUES_INVALID(attribute.getParameter()));
+        }
+        values.add(element.asText());
+      }
+    } else {
+      throw new BadRequest(StringConstants.COHORT_VALUES_INVALID(attribute.getParameter()));
+    }
+
+    if (attribute == CohortAttribute.GENDER) {
+      //genders are stored capitalized
+      for (int i = 0; i < values.size(); i++) {
+        if (!FormatMatchers.isGender(values.get(i))) {
+          throw new BadRequest(StringConstants.GENDER_INVALID);
+        }
+        values.set(i, FormatMatchers.formatGender(values.get(i)));
+      }
+    }
+    return values;
+  }
+}
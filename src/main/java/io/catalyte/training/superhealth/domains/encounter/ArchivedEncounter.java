@@ -0,0 +1,112 @@
+package io.catalyte.training.superhealth.domains.encounter;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+/**
+ * An encounter kept after its patient was deleted with the archive delete mode. Rows are copied
+ * from the encounter table with a single insert ... select, keeping the encounter's id and its
+ * patient's id.
+ */
+@Entity
+@Table(indexes = @Index(name = "archived_encounter_patient_id_idx", columnList = "patientId"))
+public class ArchivedEncounter {
+
+  @Id
+  private Long id;
+
+  private Long patientId;
+
+  private String notes;
+
+  private String visitCode;
+
+  private String provider;
+
+  private String billingCode;
+
+  private String icd10;
+
+  private Long totalCostCents;
+
+  private Long copayCents;
+
+  private String chiefComplaint;
+
+  private Integer pulse;
+
+  private Integer systolic;
+
+  private Integer diastolic;
+
+  private LocalDate date;
+
+  private Timestamp archivedAt;
+
+  public ArchivedEncounter() {
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public Long getPatientId() {
+    return patientId;
+  }
+
+  public String getNotes() {
+    return notes;
+  }
+
+  public String getVisitCode() {
+    return visitCode;
+  }
+
+  public String getProvider() {
+    return provider;
+  }
+
+  public String getBillingCode() {
+    return billingCode;
+  }
+
+  public String getIcd10() {
+    return icd10;
+  }
+
+  public Long getTotalCostCents() {
+    return totalCostCents;
+  }
+
+  public Long getCopayCents() {
+    return copayCents;
+  }
+
+  public String getChiefComplaint() {
+    return chiefComplaint;
+  }
+
+  public Integer getPulse() {
+    return pulse;
+  }
+
+  public Integer getSystolic() {
+    return systolic;
+  }
+
+  public Integer getDiastolic() {
+    return diastolic;
+  }
+
+  public LocalDate getDate() {
+    return date;
+  }
+
+  public Timestamp getArchivedAt() {
+    return archivedAt;
+  }
+}
@@ -0,0 +1,12 @@
+package io.catalyte.training.superhealth.domains.encounter;
+
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ArchivedEncounterRepository extends JpaRepository<ArchivedEncounter, Long> {
+
+  List<ArchivedEncounter> findByPatientId(Long patientId);
+
+}
@@ -0,0 +1,50 @@
+package io.catalyte.training.superhealth.domains.encounter;
+
+import java.math.BigDecimal;
+
+/**
+ * Conversions between money amounts and whole cents, the fixed-point form encounter costs are
+ * stored and summed in.
+ */
+public final class Cents {
+
+  /**
+   * Largest number of cents every amount up to which a double holds exactly.
+   */
+  private static final double MAX_CENTS = 1L << 53;
+
+  private Cents() {
+  }
+
+  /**
+   * Checks that an amount is greater than zero and has at most 2 digits after the decimal place,
+   * without allocating. An amount has at most 2 decimals exactly when it is the double nearest to
+   * its own number of cents divided by 100.
+   *
+   * @param amount - amount to check
+   * @return boolean if the amount is absent or valid
+   */
+  public static boolean isValidAmount(Double amount) {
+    if (amount == null) {
+      return true;
+    }
+    double cents = amount * 100;
+    return amount > 0 && cents < MAX_CENTS && Math.round(cents) / 100.0 == amount;
+  }
+
+  /**
+   * @param amount amount accepted by isValidAmount
+   * @return the amount in whole cents
+   */
+  public static Long fromAmount(Double amount) {
+    return amount == null ? null : Math.round(amount * 100);
+  }
+
+  /**
+   * @param cents amount in whole cents
+   * @return the amount with 2 digits after the decimal place
+   */
+  public static BigDecimal toAmount(Long cents) {
+    return cents == null ? null : BigDecimal.valueOf(cents, 2);
+  }
+}
@@ -1,24 +1,52 @@
 package io.catalyte.training.superhealth.domains.encounter;
 
+import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateDeserializer;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateSerializer;
 import io.catalyte.training.superhealth.domains.patient.Patient;
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.Objects;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 /**
  * This class is a representation of an encounter.
  */
 @Entity
+@Table(indexes = {
+    @Index(name = "encounter_patient_id_date_id_idx", columnList = "patientId, date, id"),
+    @Index(name = "encounter_date_id_idx", columnList = "date, id")
+})
 public class Encounter {
 
+  /**
+   * Sequence of the ids, read by the pooled-lo optimizer so that each call reserves a block of
+   * ID_BLOCK_SIZE ids and a batch of inserts needs no round trip per row.
+   */
+  public static final String ID_SEQUENCE = "encounter_id_seq";
+
+  public static final int ID_BLOCK_SIZE = 50;
+
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+  @GenericGenerator(name = ID_SEQUENCE, strategy = "enhanced-sequence", parameters = {
+      @Parameter(name = "sequence_name", value = ID_SEQUENCE),
+      @Parameter(name = "increment_size", value = "" + ID_BLOCK_SIZE),
+      @Parameter(name = "optimizer", value = "pooled-lo")
+  })
   private Long id;
 
   @ManyToOne(fetch = FetchType.LAZY)
@@ -36,9 +64,15 @@ public class Encounter {
 
   private String icd10;
 
-  private Double totalCost;
+  /**
+   * Costs are stored in whole cents so they are exact and sum as integers. They are written to and
+   * read from JSON as totalCost and copay amounts.
+   */
+  @JsonIgnore
+  private Long totalCostCents;
 
-  private Double copay;
+  @JsonIgnore
+  private Long copayCents;
 
   private String chiefComplaint;
 
@@ -48,14 +82,21 @@ public class Encounter {
 
   private Integer diastolic;
 
-  private String date;
+  /**
+   * Stored as a SQL date so date ranges are index range scans. Always written to and read from
+   * JSON as 'YYYY-MM-DD', whatever the object mapper's date settings.
+   */
+  @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+  @JsonSerialize(using = LocalDateSerializer.class)
+  @JsonDeserialize(using = LocalDateDeserializer.class)
+  private LocalDate date;
 
   public Encounter() {
   }
 
   public Encounter(Long id, Patient patient, String notes, String visitCode, String provider,
-      String billingCode, String icd10, Double totalCost, Double copay, String chiefComplaint,
-      Integer pulse, Integer systolic, Integer diastolic, String date) {
+      String billingCode, String icd10, Long totalCostCents, Long copayCents, String chiefComplaint,
+      Integer pulse, Integer systolic, Integer diastolic, LocalDate date) {
     this.id = id;
     this.patient = patient;
     this.notes = notes;
@@ -63,8 +104,8 @@ public class Encounter {
     this.provider = provider;
     this.billingCode = billingCode;
     this.icd10 = icd10;
-    this.totalCost = totalCost;
-    this.copay = copay;
+    this.totalCostCents = totalCostCents;
+    this.copayCents = copayCents;
     this.chiefComplaint = chiefComplaint;
     this.pulse = pulse;
     this.systolic = systolic;
@@ -127,20 +168,38 @@ public class Encounter {
     this.icd10 = icd10;
   }
 
-  public Double getTotalCost() {
-    return totalCost;
+  public BigDecimal getTotalCost() {
+    return Cents.toAmount(totalCostCents);
+  }
+
+  public void setTotalCost(BigDecimal totalCost) {
+    this.totalCostCents = totalCost == null ? null : totalCost.movePointRight(2).longValueExact();
+  }
+
+  @JsonIgnore
+  public Long getTotalCostCents() {
+    return totalCostCents;
+  }
+
+  public void setTotalCostCents(Long totalCostCents) {
+    this.totalCostCents = totalCostCents;
   }
 
-  public void setTotalCost(Double totalCost) {
-    this.totalCost = totalCost;
+  public BigDecimal getCopay() {
+    return Cents.toAmount(copayCents);
   }
 
-  public double getCopay() {
-    return copay;
+  public void setCopay(BigDecimal copay) {
+    this.copayCents = copay == null ? null : copay.movePointRight(2).longValueExact();
+  }
+
+  @JsonIgnore
+  public Long getCopayCents() {
+    return copayCents;
   }
 
-  public void setCopay(Double copay) {
-    this.copay = copay;
+  public void setCopayCents(Long copayCents) {
+    this.copayCents = copayCents;
   }
 
   public String getChiefComplaint() {
@@ -175,11 +234,11 @@ public class Encounter {
     this.diastolic = diastolic;
   }
 
-  public String getDate() {
+  public LocalDate getDate() {
     return date;
   }
 
-  public void setDate(String date) {
+  public void setDate(LocalDate date) {
     this.date = date;
   }
 
@@ -192,8 +251,8 @@ public class Encounter {
       return false;
     }
     Encounter encounter = (Encounter) o;
-    return Double.compare(encounter.totalCost, totalCost) == 0
-        && Double.compare(encounter.copay, copay) == 0 && pulse == encounter.pulse
+    return Objects.equals(encounter.totalCostCents, totalCostCents)
+        && Objects.equals(encounter.copayCents, copayCents) && pulse == encounter.pulse
         && systolic == encounter.systolic && diastolic == encounter.diastolic && patient.equals(
         encounter.patient) && notes.equals(encounter.notes) && visitCode.equals(encounter.visitCode)
         && provider.equals(encounter.provider) && billingCode.equals(encounter.billingCode)
@@ -203,8 +262,8 @@ public class Encounter {
 
   @Override
   public int hashCode() {
-    return Objects.hash(patient, notes, visitCode, provider, billingCode, icd10, totalCost, copay,
-        chiefComplaint, pulse, systolic, diastolic, date);
+    return Objects.hash(patient, notes, visitCode, provider, billingCode, icd10,
+        totalCostCents, copayCents, chiefComplaint, pulse, systolic, diastolic, date);
   }
 
 }
@@ -0,0 +1,65 @@
+package io.catalyte.training.superhealth.domains.encounter;
+
+import io.catalyte.training.superhealth.domains.patient.Patient;
+import org.hibernate.Hibernate;
+
+/**
+ * An encounter save or update, published by the encounter service inside the write's transaction
+ * and applied by the in-memory structures that mirror the encounter table once the transaction
+ * commits. Both states are copies taken inside the transaction, with their patients read, so later
+ * changes to the managed encounter do not reach them.
+ */
+public class EncounterChange {
+
+  private final Encounter previous;
+
+  private final Encounter current;
+
+  private long sequence;
+
+  /**
+   * @param previous - the encounter before the write, null for a new encounter
+   * @param current - the encounter as the write stores it
+   */
+  public EncounterChange(Encounter previous, Encounter current) {
+    this.previous = previous == null ? null : copyOf(previous);
+    this.current = copyOf(current);
+  }
+
+  /**
+   * @return the encounter before the write, null for a new encounter
+   */
+  public Encounter getPrevious() {
+    return previous;
+  }
+
+  /**
+   * @return the encounter as committed
+   */
+  public Encounter getCurrent() {
+    return current;
+  }
+
+  /**
+   * @return the number EncounterChangeSequence gave the change as it started to commit
+   */
+  public long getSequence() {
+    return sequence;
+  }
+
+  void setSequence(long sequence) {
+    this.sequence = sequence;
+  }
+
+  /**
+   * @param encounter - encounter to copy, with its patient
+   * @return a detached copy of the encounter's fields
+   */
+  static Encounter copyOf(Encounter encounter) {
+    return new Encounter(encounter.getId(), (Patient) Hibernate.unproxy(encounter.getPatient()),
+        encounter.getNotes(), encounter.getVisitCode(), encounter.getProvider(),
+        encounter.getBillingCode(), encounter.getIcd10(), encounter.getTotalCostCents(),
+        encounter.getCopayCents(), encounter.getChiefComplaint(), encounter.getPulse(),
+        encounter.getSystolic(), encounter.getDiastolic(), encounter.getDate());
+  }
+}
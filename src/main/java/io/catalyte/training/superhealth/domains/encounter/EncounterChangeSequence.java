@@ -0,0 +1,38 @@
+package io.catalyte.training.superhealth.domains.encounter;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Numbers encounter changes as their transactions start to commit, after the write's row lock is
+ * taken, so two changes to the same encounter are numbered in commit order.
+ *
+ * <p>A structure that loads from the database notes the number before it reads: a change numbered
+ * after it could not have committed before the load started, so the load may or may not have read
+ * it, and one numbered before it may still be committing. A load only keeps what it built if no
+ * change was numbered while it read.
+ */
+@Component
+public class EncounterChangeSequence {
+
+  private final AtomicLong sequence = new AtomicLong();
+
+  /**
+   * @return the number of the last change that started to commit
+   */
+  public long current() {
+    return sequence.get();
+  }
+
+  /**
+   * Numbers a change just before its transaction commits.
+   *
+   * @param change - the change committing
+   */
+  @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+  public void number(EncounterChange change) {
+    change.setSequence(sequence.incrementAndGet());
+  }
+}
@@ -3,6 +3,7 @@ package io.catalyte.training.superhealth.domains.encounter;
 import static io.catalyte.training.superhealth.constants.Paths.PATIENTS_PATH;
 
 import io.catalyte.training.superhealth.constants.LoggingConstants;
+import io.catalyte.training.superhealth.pagination.CursorPage;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,6 +15,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -29,6 +31,27 @@ public class EncounterController {
   @Autowired
   private EncounterService encounterService;
 
+  /**
+   * Handles a GET request to patients/{patientId}/encounters. Returns one keyset page of the
+   * patient's encounters ordered by date.
+   *
+   * @param patientId - path variable id of the patient
+   * @param limit - maximum number of encounters in the page, 50 if omitted
+   * @param after - nextCursor of the previous page, omitted for the first page
+   * @param sort - "date", optionally followed by ",asc" or ",desc"; latest first if omitted
+   * @return the page of encounters and the cursor of the following page
+   */
+  @GetMapping(value = "{patientId}/encounters")
+  public ResponseEntity<CursorPage<Encounter>> getEncountersByPatientId(
+      @PathVariable Long patientId,
+      @RequestParam(defaultValue = "" + CursorPage.DEFAULT_LIMIT) Integer limit,
+      @RequestParam(required = false) String after,
+      @RequestParam(required = false) String sort) {
+    logger.info(LoggingConstants.GET_ENCOUNTERS_BY_PATIENT_ID(patientId, limit, sort));
+    return new ResponseEntity<>(
+        encounterService.getEncountersByPatientId(patientId, limit, after, sort), HttpStatus.OK);
+  }
+
   /**
    * Handles a GET request to patients/{patientId}/encounters/{id}- returns a single encounter based on an id defined in the
    * path variable
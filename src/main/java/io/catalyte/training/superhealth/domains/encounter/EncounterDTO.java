@@ -104,7 +104,7 @@ public class EncounterDTO {
       this.totalCost = totalCost;
     }
 
-    public double getCopay() {
+    public Double getCopay() {
       return copay;
     }
 
@@ -0,0 +1,49 @@
+package io.catalyte.training.superhealth.domains.encounter;
+
+import static io.catalyte.training.superhealth.constants.Paths.ALL_ENCOUNTERS_PATH;
+
+import io.catalyte.training.superhealth.constants.LoggingConstants;
+import io.catalyte.training.superhealth.constants.StringConstants;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Exposes endpoints for encounters across every patient.
+ */
+@RestController
+@RequestMapping(value = ALL_ENCOUNTERS_PATH)
+public class EncounterRangeController {
+
+  Logger logger = LogManager.getLogger(EncounterRangeController.class);
+
+  @Autowired
+  private EncounterService encounterService;
+
+  /**
+   * Handles a GET request to /encounters. Streams every encounter dated within the range as one
+   * JSON object per line, in date order, starting as soon as the first rows are read.
+   *
+   * @param from - first date of the range, 'YYYY-MM-DD'
+   * @param to - last date of the range, 'YYYY-MM-DD'
+   * @return response body that streams the encounters
+   */
+  @GetMapping
+  public ResponseEntity<StreamingResponseBody> streamEncountersByDate(
+      @RequestParam(required = false) String from, @RequestParam(required = false) String to) {
+    logger.info(LoggingConstants.STREAM_ENCOUNTERS_BY_DATE(from, to));
+    encounterService.validateDateRange(from, to);
+    StreamingResponseBody body = outputStream ->
+        encounterService.streamEncountersByDate(from, to, outputStream);
+    return ResponseEntity.ok()
+        .contentType(MediaType.parseMediaType(StringConstants.APPLICATION_NDJSON))
+        .body(body);
+  }
+}
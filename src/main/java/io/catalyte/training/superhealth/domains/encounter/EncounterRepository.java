@@ -1,9 +1,155 @@
 package io.catalyte.training.superhealth.domains.encounter;
 
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+import io.catalyte.training.superhealth.domains.analytics.EncounterScanRecord;
+import io.catalyte.training.superhealth.domains.analytics.PatientVisit;
+import io.catalyte.training.superhealth.domains.analytics.RollupCount;
+import io.catalyte.training.superhealth.domains.analytics.VitalsSample;
+import io.catalyte.training.superhealth.domains.cohort.CohortEncounter;
+import io.catalyte.training.superhealth.domains.vitals.VitalsReading;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
-public interface EncounterRepository extends JpaRepository<Encounter, Long> {
+public interface EncounterRepository extends JpaRepository<Encounter, Long>,
+    EncounterRepositoryCustom {
+
+  /**
+   * Number of rows fetched per round trip, and between persistence context clears, when
+   * streaming encounters.
+   */
+  int STREAM_FETCH_SIZE = 500;
+
+  /**
+   * Reads only the id, date and vitals of a patient's encounters in (date, id) order, a range scan
+   * of the (patientId, date, id) index.
+   */
+  @Query("select new io.catalyte.training.superhealth.domains.vitals.VitalsReading(e.id, e.date,"
+      + " e.pulse, e.systolic, e.diastolic) from Encounter e where e.patient.id = :patientId"
+      + " order by e.date, e.id")
+  List<VitalsReading> findVitalsByPatientId(@Param("patientId") Long patientId);
+
+  /**
+   * Checks whether a patient has any encounter, stopping at the first one found.
+   */
+  boolean existsByPatientId(Long patientId);
+
+  /**
+   * Checks whether a patient has an encounter with an icd10, scanning only the patient's
+   * encounters through the (patientId, date, id) index.
+   */
+  boolean existsByPatientIdAndIcd10(Long patientId, String icd10);
+
+  /**
+   * Checks whether a patient has an encounter with a provider, scanning only the patient's
+   * encounters through the (patientId, date, id) index.
+   */
+  boolean existsByPatientIdAndProvider(Long patientId, String provider);
+
+  /**
+   * Reads the distinct icd10 and provider pairs of the encounters of a range of patients.
+   */
+  @Query("select distinct new io.catalyte.training.superhealth.domains.cohort.CohortEncounter("
+      + "e.patient.id, e.icd10, e.provider) from Encounter e"
+      + " where e.patient.id between :fromPatientId and :toPatientId")
+  List<CohortEncounter> findCohortEncounters(@Param("fromPatientId") Long fromPatientId,
+      @Param("toPatientId") Long toPatientId);
+
+  /**
+   * Streams the encounters dated from one day to another, both included, in (date, id) order. The
+   * range is an index range scan over (date, id), read from a forward-only, read-only cursor that
+   * fetches STREAM_FETCH_SIZE rows at a time. Must be called inside a transaction and closed after
+   * use.
+   */
+  @QueryHints({
+      @QueryHint(name = HINT_FETCH_SIZE, value = "" + EncounterRepository.STREAM_FETCH_SIZE),
+      @QueryHint(name = HINT_READONLY, value = "true")
+  })
+  Stream<Encounter> streamByDateBetweenOrderByDateAscIdAsc(LocalDate from, LocalDate to);
+
+  /**
+   * Reads the encounter count and summed costs of every provider, icd10, billing code and month
+   * with a single grouped query.
+   */
+  @Query("select new io.catalyte.training.superhealth.domains.analytics.RollupCount(e.provider,"
+      + " e.icd10, e.billingCode, year(e.date), month(e.date), count(e), sum(e.totalCostCents),"
+      + " sum(e.copayCents)) from Encounter e"
+      + " group by e.provider, e.icd10, e.billingCode, year(e.date), month(e.date)")
+  List<RollupCount> findRollupCounts();
+
+  /**
+   * Reads the lowest encounter id from the primary key index.
+   */
+  @Query("select min(e.id) from Encounter e")
+  Long findMinId();
+
+  /**
+   * Reads the highest encounter id from the primary key index.
+   */
+  @Query("select max(e.id) from Encounter e")
+  Long findMaxId();
+
+  /**
+   * Reads only the vitals of the encounters in a range of ids, with the gender and age of their
+   * patients, a range scan of the primary key joined to patients by id.
+   */
+  @Query("select new io.catalyte.training.superhealth.domains.analytics.VitalsSample(p.gender,"
+      + " p.age, e.pulse, e.systolic, e.diastolic) from Encounter e join e.patient p"
+      + " where e.id between :fromId and :toId")
+  List<VitalsSample> findVitalsSamplesByIdBetween(@Param("fromId") Long fromId,
+      @Param("toId") Long toId);
+
+  /**
+   * Reads only the columns the encounter columns snapshot holds for the encounters in a range of
+   * ids, in id order, a range scan of the primary key.
+   */
+  @Query("select new io.catalyte.training.superhealth.domains.analytics.EncounterScanRecord(e.id,"
+      + " e.provider, e.icd10, e.billingCode, e.chiefComplaint, e.totalCostCents, e.copayCents,"
+      + " e.pulse, e.systolic, e.diastolic, e.date) from Encounter e"
+      + " where e.id between :fromId and :toId order by e.id")
+  List<EncounterScanRecord> findScanRecordsByIdBetween(@Param("fromId") Long fromId,
+      @Param("toId") Long toId);
+
+  /**
+   * Reads the distinct patient, provider, icd10 and month of the encounters in a range of ids, a
+   * range scan of the primary key.
+   */
+  @Query("select distinct new io.catalyte.training.superhealth.domains.analytics.PatientVisit("
+      + "e.patient.id, e.provider, e.icd10, year(e.date), month(e.date)) from Encounter e"
+      + " where e.id between :fromId and :toId")
+  List<PatientVisit> findPatientVisitsByIdBetween(@Param("fromId") Long fromId,
+      @Param("toId") Long toId);
+
+  /**
+   * Deletes every encounter of a patient with a single statement.
+   */
+  @Transactional
+  @Modifying
+  @Query("delete from Encounter e where e.patient.id = :patientId")
+  int deleteByPatientId(@Param("patientId") Long patientId);
+
+  /**
+   * Copies every encounter of a patient into the archived encounter table with a single
+   * statement.
+   */
+  @Transactional
+  @Modifying
+  @Query("insert into ArchivedEncounter (id, patientId, notes, visitCode, provider, billingCode,"
+      + " icd10, totalCostCents, copayCents, chiefComplaint, pulse, systolic, diastolic, date, archivedAt)"
+      + " select e.id, e.patient.id, e.notes, e.visitCode, e.provider, e.billingCode, e.icd10,"
+      + " e.totalCostCents, e.copayCents, e.chiefComplaint, e.pulse, e.systolic, e.diastolic, e.date,"
+      + " current_timestamp() from Encounter e where e.patient.id = :patientId")
+  int archiveByPatientId(@Param("patientId") Long patientId);
 
 }
@@ -0,0 +1,43 @@
+package io.catalyte.training.superhealth.domains.encounter;
+
+import io.catalyte.training.superhealth.pagination.KeysetCursor;
+import java.util.List;
+
+/**
+ * Encounter queries that cannot be expressed as derived queries.
+ */
+public interface EncounterRepositoryCustom {
+
+  /**
+   * Reads one keyset page of a patient's encounters: the first encounters ordered by (date, id)
+   * that come after the cursor. Served by the index on (patientId, date, id), so only a range of
+   * the patient's index entries is scanned.
+   *
+   * @param patientId - id of the patient the encounters belong to
+   * @param descending - whether to start from the latest date
+   * @param after - position of the last row of the previous page, null for the first page
+   * @param limit - maximum number of encounters to return
+   * @return the page of encounters
+   */
+  List<Encounter> findPageByPatientId(Long patientId, boolean descending, KeysetCursor after,
+      int limit);
+
+  /**
+   * Reads an encounter and locks its row until the current transaction ends. An encounter already
+   * in the persistence context is read again, so its state is the one committed before the lock.
+   *
+   * @param id - id of the encounter
+   * @return the encounter, null if it does not exist
+   */
+  Encounter findByIdForUpdate(Long id);
+
+  /**
+   * Reserves ids from the encounter id sequence for rows inserted without Hibernate, in blocks shared
+   * with the ids Hibernate assigns.
+   *
+   * @param count - the number of ids to reserve
+   * @return the ids, in ascending order
+   */
+  long[] allocateIds(int count);
+
+}
@@ -0,0 +1,64 @@
+package io.catalyte.training.superhealth.domains.encounter;
+
+import io.catalyte.training.superhealth.pagination.KeysetCursor;
+import io.catalyte.training.superhealth.persistence.PooledLoSequence;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+/**
+ * Criteria API implementation of the custom encounter queries.
+ */
+public class EncounterRepositoryImpl implements EncounterRepositoryCustom {
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  public long[] allocateIds(int count) {
+    return PooledLoSequence.allocate(entityManager, Encounter.ID_SEQUENCE,
+        Encounter.ID_BLOCK_SIZE, count);
+  }
+
+  public Encounter findByIdForUpdate(Long id) {
+    Encounter encounter = entityManager.find(Encounter.class, id);
+    if (encounter != null) {
+      //find with a lock mode would lock an encounter already loaded without reading it again
+      entityManager.refresh(encounter, LockModeType.PESSIMISTIC_WRITE);
+    }
+    return encounter;
+  }
+
+  public List<Encounter> findPageByPatientId(Long patientId, boolean descending,
+      KeysetCursor after, int limit) {
+    CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Encounter> query = builder.createQuery(Encounter.class);
+    Root<Encounter> encounter = query.from(Encounter.class);
+    Expression<LocalDate> date = encounter.get("date");
+    Expression<Long> id = encounter.get("id");
+
+    List<Predicate> predicates = new ArrayList<>();
+    predicates.add(builder.equal(encounter.get("patient").get("id"), patientId));
+    if (after != null) {
+      LocalDate afterDate = LocalDate.parse(after.getValue());
+      Long afterId = after.getId();
+      predicates.add(descending
+          ? builder.or(builder.lessThan(date, afterDate),
+          builder.and(builder.equal(date, afterDate), builder.lessThan(id, afterId)))
+          : builder.or(builder.greaterThan(date, afterDate),
+              builder.and(builder.equal(date, afterDate), builder.greaterThan(id, afterId))));
+    }
+
+    query.select(encounter).where(predicates.toArray(new Predicate[0]))
+        .orderBy(descending ? builder.desc(date) : builder.asc(date),
+            descending ? builder.desc(id) : builder.asc(id));
+    return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+  }
+}
@@ -1,11 +1,22 @@
 package io.catalyte.training.superhealth.domains.encounter;
 
+import io.catalyte.training.superhealth.pagination.CursorPage;
+import java.io.IOException;
+import java.io.OutputStream;
 
 /**
  * This interface provides an abstraction layer for the Encounter Service
  */
 public interface EncounterService {
 
+  CursorPage<Encounter> getEncountersByPatientId(Long patientId, Integer limit, String after,
+      String sort);
+
+  void validateDateRange(String from, String to);
+
+  void streamEncountersByDate(String from, String to, OutputStream outputStream)
+      throws IOException;
+
   Encounter getEncounterById(Long patientId, Long id);
 
   Encounter saveEncounter(Long patientId, EncounterDTO encounterDTO);
@@ -1,26 +1,42 @@
 package io.catalyte.training.superhealth.domains.encounter;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.catalyte.training.superhealth.constants.LoggingConstants;
 import io.catalyte.training.superhealth.constants.StringConstants;
+import io.catalyte.training.superhealth.domains.patient.Patient;
 import io.catalyte.training.superhealth.domains.patient.PatientService;
+import io.catalyte.training.superhealth.domains.patient.PatientSummaryRepository;
 import io.catalyte.training.superhealth.exceptions.BadRequest;
 import io.catalyte.training.superhealth.exceptions.RequestConflict;
 import io.catalyte.training.superhealth.exceptions.ResourceNotFound;
 import io.catalyte.training.superhealth.exceptions.ServiceUnavailable;
-import java.lang.reflect.Field;
+import io.catalyte.training.superhealth.pagination.CursorPage;
+import io.catalyte.training.superhealth.pagination.KeysetCursor;
+import io.catalyte.training.superhealth.validation.FormatMatchers;
+import io.catalyte.training.superhealth.validation.ValidationPlan;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Objects;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * This class provides the implementation for the EncounterService interface.
@@ -30,14 +46,169 @@ public class EncounterServiceImpl implements EncounterService {
 
   private final Logger logger = LogManager.getLogger(EncounterServiceImpl.class);
 
+  /**
+   * Validations for encounter requests, built once. patientId, notes and the vitals are optional.
+   */
+  private static final ValidationPlan<EncounterDTO> VALIDATION_PLAN =
+      ValidationPlan.<EncounterDTO>builder()
+          .required("visitCode", EncounterDTO::getVisitCode)
+          .required("provider", EncounterDTO::getProvider)
+          .required("billingCode", EncounterDTO::getBillingCode)
+          .required("icd10", EncounterDTO::getIcd10)
+          .required("totalCost", EncounterDTO::getTotalCost)
+          .required("copay", EncounterDTO::getCopay)
+          .required("chiefComplaint", EncounterDTO::getChiefComplaint)
+          .required("date", EncounterDTO::getDate)
+          .format(EncounterDTO::getVisitCode, FormatMatchers::isVisitCode,
+              StringConstants.VISIT_CODE_INVALID)
+          .format(EncounterDTO::getBillingCode, FormatMatchers::isBillingCode,
+              StringConstants.BILLING_CODE_INVALID)
+          .format(EncounterDTO::getIcd10, FormatMatchers::isIcd10, StringConstants.ICD10_INVALID)
+          .rule(encounter -> Cents.isValidAmount(encounter.getTotalCost()),
+              StringConstants.COST_INVALID("Total cost"))
+          .rule(encounter -> Cents.isValidAmount(encounter.getCopay()),
+              StringConstants.COST_INVALID("Copay"))
+          .positive(EncounterDTO::getPulse, StringConstants.NUMBER_INVALID("Pulse"))
+          .positive(EncounterDTO::getSystolic, StringConstants.NUMBER_INVALID("Systolic"))
+          .positive(EncounterDTO::getDiastolic, StringConstants.NUMBER_INVALID("Diastolic"))
+          .format(EncounterDTO::getDate, FormatMatchers::isCalendarDate,
+              StringConstants.DATE_INVALID)
+          .build();
+
   EncounterRepository encounterRepository;
 
   PatientService patientService;
 
+  ObjectMapper objectMapper;
+
+  PatientSummaryRepository patientSummaryRepository;
+
+  TransactionTemplate transactionTemplate;
+
+  ApplicationEventPublisher eventPublisher;
+
+  @PersistenceContext
+  EntityManager entityManager;
+
+  /**
+   * Encounter writes publish an EncounterChange inside their transaction; the in-memory structures
+   * over the encounters listen for it and apply it once the transaction commits.
+   */
   @Autowired
-  public EncounterServiceImpl(EncounterRepository encounterRepository, PatientService patientService) {
+  public EncounterServiceImpl(EncounterRepository encounterRepository, PatientService patientService,
+      ObjectMapper objectMapper, PatientSummaryRepository patientSummaryRepository,
+      PlatformTransactionManager transactionManager, ApplicationEventPublisher eventPublisher) {
     this.encounterRepository = encounterRepository;
     this.patientService = patientService;
+    this.objectMapper = objectMapper;
+    this.patientSummaryRepository = patientSummaryRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.eventPublisher = eventPublisher;
+  }
+
+  /**
+   * Retrieves one keyset page of a patient's encounters ordered by date, with id breaking ties
+   * between encounters on the same date.
+   *
+   * @param patientId - id of the patient the encounters belong to
+   * @param limit - maximum number of encounters in the page
+   * @param after - cursor returned with the previous page, null for the first page
+   * @param sort - "date", optionally followed by ",asc" or ",desc"; latest first if omitted
+   * @return the page of encounters and the cursor of the following page
+   */
+  public CursorPage<Encounter> getEncountersByPatientId(Long patientId, Integer limit,
+      String after, String sort) {
+    if (limit == null || limit < 1 || limit > CursorPage.MAX_LIMIT) {
+      throw new BadRequest(StringConstants.PAGE_LIMIT_INVALID(CursorPage.MAX_LIMIT));
+    }
+    String requestedSort = sort == null || sort.isEmpty() ? "date,desc" : sort;
+    String[] sortParts = requestedSort.split(",");
+    boolean descending = sortParts.length > 1 && sortParts[1].trim().equalsIgnoreCase("desc");
+    if (!sortParts[0].trim().equals("date") || sortParts.length > 2
+        || (sortParts.length == 2 && !descending && !sortParts[1].trim().equalsIgnoreCase("asc"))) {
+      throw new BadRequest(StringConstants.SORT_INVALID(Collections.singletonList("date")));
+    }
+    String sortKey = descending ? "date,desc" : "date,asc";
+
+    KeysetCursor cursor = null;
+    if (after != null && !after.isEmpty()) {
+      cursor = KeysetCursor.decode(after);
+      if (!cursor.getSort().equals(sortKey) || !FormatMatchers.isCalendarDate(cursor.getValue())) {
+        throw new BadRequest(StringConstants.CURSOR_INVALID);
+      }
+    }
+
+    //responds 404 for a patient that does not exist rather than an empty page
+    patientService.getPatientById(patientId);
+
+    List<Encounter> encounters;
+    try {
+      //read one extra row to find out whether there is a following page
+      encounters = encounterRepository.findPageByPatientId(patientId, descending, cursor,
+          limit + 1);
+    } catch (DataAccessException e) {
+      logger.error(e.getMessage());
+      throw new ServiceUnavailable(e.getMessage());
+    }
+
+    String nextCursor = null;
+    if (encounters.size() > limit) {
+      encounters = new ArrayList<>(encounters.subList(0, limit));
+      Encounter last = encounters.get(limit - 1);
+      nextCursor = new KeysetCursor(sortKey, last.getId(), last.getDate().toString()).encode();
+    }
+    return new CursorPage<>(encounters, nextCursor);
+  }
+
+  /**
+   * Checks the bounds of a date range before any encounter is streamed, since an error can no
+   * longer be reported once the response has started.
+   *
+   * @param from - first date of the range, 'YYYY-MM-DD'
+   * @param to - last date of the range, 'YYYY-MM-DD'
+   * @throws BadRequest if either bound is not a date or the range is empty
+   */
+  public void validateDateRange(String from, String to) {
+    if (from == null || to == null || !FormatMatchers.isCalendarDate(from)
+        || !FormatMatchers.isCalendarDate(to) || from.compareTo(to) > 0) {
+      throw new BadRequest(StringConstants.DATE_RANGE_INVALID);
+    }
+  }
+
+  /**
+   * Writes every encounter dated from one day to another, both included, to the output stream as
+   * newline delimited JSON in date order. Encounters are read from a forward-only cursor and the
+   * persistence context is cleared every STREAM_FETCH_SIZE rows, so memory use does not grow with
+   * the range.
+   *
+   * @param from - first date of the range, checked by validateDateRange
+   * @param to - last date of the range, checked by validateDateRange
+   * @param outputStream - stream to write the encounters to
+   * @throws IOException if writing to the stream fails
+   */
+  @Transactional(readOnly = true)
+  public void streamEncountersByDate(String from, String to, OutputStream outputStream)
+      throws IOException {
+    ObjectWriter writer = objectMapper.writerFor(Encounter.class)
+        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    try (Stream<Encounter> encounters = encounterRepository
+        .streamByDateBetweenOrderByDateAscIdAsc(LocalDate.parse(from), LocalDate.parse(to));
+        JsonGenerator generator = writer.getFactory().createGenerator(outputStream)) {
+      generator.setRootValueSeparator(null);
+      int written = 0;
+      for (Iterator<Encounter> iterator = encounters.iterator(); iterator.hasNext(); ) {
+        writer.writeValue(generator, iterator.next());
+        generator.writeRaw('\n');
+        if (++written % EncounterRepository.STREAM_FETCH_SIZE == 0) {
+          generator.flush();
+          entityManager.clear();
+        }
+      }
+    } catch (DataAccessException e) {
+      logger.error(e.getMessage());
+      throw new ServiceUnavailable(e.getMessage());
+    }
   }
 
   /**
@@ -58,7 +229,7 @@ public class EncounterServiceImpl implements EncounterService {
     }
 
     if (encounter != null) {
-      if(encounter.getPatient().getId() != patientId){
+      if(!Objects.equals(encounter.getPatient().getId(), patientId)){
         logger.error(StringConstants.PATIENT_ID_INVALID);
         throw new BadRequest(StringConstants.PATIENT_ID_INVALID);
       }
@@ -71,13 +242,13 @@ public class EncounterServiceImpl implements EncounterService {
   }
 
   /**
-   * Adds an encounter to the database
+   * Adds an encounter to the database and counts it in the patient's summary, in one transaction.
    *
    * @param encounterDTO - encounter request object
    * @return encounter being added to the database
 //   */
   public Encounter saveEncounter(Long patientId, EncounterDTO encounterDTO) {
-    if(patientId != encounterDTO.getPatientId()){
+    if(!Objects.equals(patientId, encounterDTO.getPatientId())){
       logger.error(StringConstants.PATIENT_ID_INVALID);
       throw new RequestConflict(StringConstants.PATIENT_ID_INVALID);
     }
@@ -94,16 +265,22 @@ public class EncounterServiceImpl implements EncounterService {
     newEncounter.setProvider(encounterDTO.getProvider());
     newEncounter.setBillingCode(encounterDTO.getBillingCode());
     newEncounter.setIcd10(encounterDTO.getIcd10());
-    newEncounter.setTotalCost(encounterDTO.getTotalCost());
-    newEncounter.setCopay(encounterDTO.getCopay());
+    newEncounter.setTotalCostCents(Cents.fromAmount(encounterDTO.getTotalCost()));
+    newEncounter.setCopayCents(Cents.fromAmount(encounterDTO.getCopay()));
     newEncounter.setChiefComplaint(encounterDTO.getChiefComplaint());
     newEncounter.setPulse(encounterDTO.getPulse());
     newEncounter.setSystolic(encounterDTO.getSystolic());
     newEncounter.setDiastolic(encounterDTO.getDiastolic());
-    newEncounter.setDate(encounterDTO.getDate());
+    newEncounter.setDate(LocalDate.parse(encounterDTO.getDate()));
 
     try {
-      return encounterRepository.save(newEncounter);
+      return transactionTemplate.execute(status -> {
+        Encounter encounter = encounterRepository.save(newEncounter);
+        patientSummaryRepository.addEncounter(patientId, encounter.getDate(),
+            encounter.getTotalCostCents());
+        eventPublisher.publishEvent(new EncounterChange(null, encounter));
+        return encounter;
+      });
     } catch (DataAccessException e) {
       logger.error(e.getMessage());
       throw new ServiceUnavailable(e.getMessage());
@@ -112,7 +289,9 @@ public class EncounterServiceImpl implements EncounterService {
 
 
   /**
-   * Updates encounter in the database.
+   * Updates encounter in the database and, in the same transaction, moves it from the summary of
+   * the patient it belonged to into the summary of the patient it belongs to now. The encounter is
+   * read again under a row lock in that transaction, so concurrent updates of it move it in turn.
    * @param patientId - id of patient to which the encounter belongs
    * @param id - id of movie to be updated
    * @param encounter - updated encounter payload
@@ -121,7 +300,7 @@ public class EncounterServiceImpl implements EncounterService {
   public Encounter updateEncounter(Long patientId, Long id, EncounterDTO encounter){
     Encounter findEncounter;
 
-    if(patientId != encounter.getPatientId()){
+    if(!Objects.equals(patientId, encounter.getPatientId())){
       throw new RequestConflict(StringConstants.PATIENT_ID_INVALID);
     }
 
@@ -137,34 +316,53 @@ public class EncounterServiceImpl implements EncounterService {
       throw new ResourceNotFound(LoggingConstants.UPDATE_ENCOUNTER_FAILURE);
     }
 
-    findEncounter.setPatient(patientService.getPatientById(encounter.getPatientId()));
-    findEncounter.setNotes(encounter.getNotes());
-    findEncounter.setVisitCode(encounter.getVisitCode());
-    findEncounter.setProvider(encounter.getProvider());
-    findEncounter.setBillingCode(encounter.getBillingCode());
-    findEncounter.setIcd10(encounter.getIcd10());
-    findEncounter.setTotalCost(encounter.getTotalCost());
-    findEncounter.setCopay(encounter.getCopay());
-    findEncounter.setChiefComplaint(encounter.getChiefComplaint());
-    findEncounter.setPulse(encounter.getPulse());
-    findEncounter.setSystolic(encounter.getSystolic());
-    findEncounter.setDiastolic(encounter.getDiastolic());
-    findEncounter.setDate(encounter.getDate());
+    //validate before the transaction starts, the date is only parsed once valid
     List<String> encounterErrors = getEncounterErrors(encounter);
-
     if (!encounterErrors.isEmpty()) {
       throw new BadRequest(String.join("\n", encounterErrors));
     }
 
+    Patient patient = patientService.getPatientById(encounter.getPatientId());
+
     try{
-      return encounterRepository.save(findEncounter);
+      return transactionTemplate.execute(status -> {
+        //read the encounter again under a row lock, so concurrent updates of it each see the
+        //one committed before and their changes apply in commit order
+        Encounter lockedEncounter = encounterRepository.findByIdForUpdate(id);
+        if (lockedEncounter == null) {
+          logger.error(LoggingConstants.UPDATE_ENCOUNTER_FAILURE);
+          throw new ResourceNotFound(LoggingConstants.UPDATE_ENCOUNTER_FAILURE);
+        }
+        Encounter previous = EncounterChange.copyOf(lockedEncounter);
+        lockedEncounter.setPatient(patient);
+        lockedEncounter.setNotes(encounter.getNotes());
+        lockedEncounter.setVisitCode(encounter.getVisitCode());
+        lockedEncounter.setProvider(encounter.getProvider());
+        lockedEncounter.setBillingCode(encounter.getBillingCode());
+        lockedEncounter.setIcd10(encounter.getIcd10());
+        lockedEncounter.setTotalCostCents(Cents.fromAmount(encounter.getTotalCost()));
+        lockedEncounter.setCopayCents(Cents.fromAmount(encounter.getCopay()));
+        lockedEncounter.setChiefComplaint(encounter.getChiefComplaint());
+        lockedEncounter.setPulse(encounter.getPulse());
+        lockedEncounter.setSystolic(encounter.getSystolic());
+        lockedEncounter.setDiastolic(encounter.getDiastolic());
+        lockedEncounter.setDate(LocalDate.parse(encounter.getDate()));
+
+        Encounter updatedEncounter = encounterRepository.save(lockedEncounter);
+        //the deltas come from the locked read, so no concurrent update has moved the encounter
+        patientSummaryRepository.removeEncounter(previous.getPatient().getId(),
+            previous.getTotalCostCents());
+        patientSummaryRepository.addEncounter(patientId, updatedEncounter.getDate(),
+            updatedEncounter.getTotalCostCents());
+        eventPublisher.publishEvent(new EncounterChange(previous, updatedEncounter));
+        return updatedEncounter;
+      });
     }catch (DataAccessException e){
       logger.error(e.getMessage());
       throw new ServiceUnavailable(e.getMessage());
     }
   }
 
-
   /**
    * Helper method that reads an encounter and validates its properties
    *
@@ -172,55 +370,7 @@ public class EncounterServiceImpl implements EncounterService {
    * @return a list of errors
    */
   public List<String> getEncounterErrors(EncounterDTO encounter) {
-    List<String> errors = new ArrayList<>();
-    List<String> emptyFields = getFieldsEmptyOrNull(encounter).get("emptyFields");
-    List<String> nullFields = getFieldsEmptyOrNull(encounter).get("nullFields");
-
-    if (!nullFields.isEmpty()) {
-      errors.add(StringConstants.FIELDS_NULL(nullFields));
-    }
-
-    if (!emptyFields.isEmpty()) {
-      errors.add(StringConstants.FIELDS_EMPTY(emptyFields));
-    }
-
-    if(!validateVisitCodeFormat(encounter)){
-      errors.add(StringConstants.VISIT_CODE_INVALID);
-    }
-
-    if(!validateBillingCode(encounter)){
-      errors.add(StringConstants.BILLING_CODE_INVALID);
-    }
-
-    if(!validateIcd10(encounter)){
-      errors.add(StringConstants.ICD10_INVALID);
-    }
-
-    if (!validateCost(encounter.getTotalCost())) {
-      errors.add(StringConstants.COST_INVALID("Total cost"));
-    }
-
-    if (!validateCost(encounter.getCopay())) {
-      errors.add(StringConstants.COST_INVALID("Copay"));
-    }
-
-    if(!validateNumber(encounter.getPulse())){
-      errors.add(StringConstants.NUMBER_INVALID("Pulse"));
-    }
-
-    if(!validateNumber(encounter.getSystolic())){
-      errors.add(StringConstants.NUMBER_INVALID("Systolic"));
-    }
-
-    if(!validateNumber(encounter.getDiastolic())){
-      errors.add(StringConstants.NUMBER_INVALID("Diastolic"));
-    }
-
-    if(!validateDateFormat(encounter)){
-    errors.add(StringConstants.DATE_INVALID);
-  }
-
-    return errors;
+    return VALIDATION_PLAN.validate(encounter);
   }
 
   /**
@@ -231,13 +381,7 @@ public class EncounterServiceImpl implements EncounterService {
    * @return boolean if encounter has valid visit code
    */
   public Boolean validateVisitCodeFormat(EncounterDTO encounter) {
-    String regex = "^[A-Z]\\d[A-Z] \\d[A-Z]\\d$";
-    Pattern pattern = Pattern.compile(regex);
-    if (encounter.getVisitCode() != null && !encounter.getVisitCode().isEmpty()) {
-      Matcher matcher = pattern.matcher(encounter.getVisitCode());
-      return matcher.matches();
-    }
-    return true;
+    return FormatMatchers.matchesIfPresent(encounter.getVisitCode(), FormatMatchers::isVisitCode);
   }
 
   /**
@@ -248,13 +392,8 @@ public class EncounterServiceImpl implements EncounterService {
    * @return boolean if encounter has valid billing code
    */
   public Boolean validateBillingCode(EncounterDTO encounter) {
-    String regex = "^\\d{3}.\\d{3}.\\d{3}-\\d{2}$";
-    Pattern pattern = Pattern.compile(regex);
-    if (encounter.getBillingCode() != null && !encounter.getBillingCode().isEmpty()) {
-      Matcher matcher = pattern.matcher(encounter.getBillingCode());
-      return matcher.matches();
-    }
-    return true;
+    return FormatMatchers.matchesIfPresent(encounter.getBillingCode(),
+        FormatMatchers::isBillingCode);
   }
 
   /**
@@ -265,34 +404,18 @@ public class EncounterServiceImpl implements EncounterService {
    * @return boolean if encounter has valid icd10
    */
   public Boolean validateIcd10(EncounterDTO encounter) {
-    String regex = "^[A-Z]\\d{2}$";
-    Pattern pattern = Pattern.compile(regex);
-    if (encounter.getIcd10() != null && !encounter.getIcd10().isEmpty()) {
-      Matcher matcher = pattern.matcher(encounter.getIcd10());
-      return matcher.matches();
-    }
-    return true;
+    return FormatMatchers.matchesIfPresent(encounter.getIcd10(), FormatMatchers::isIcd10);
   }
 
   /**
    * Checks that a cost is a double value greater than zero and does not have more than 2 digits after the
-   * decimal
-   * <p>
-   * Because price is stored as a double, regardless of input the product will always have 1 digit
-   * after the decimal even if input as an integer, or with 2 zeros after decimal
+   * decimal, so it converts to whole cents exactly
    *
    * @param cost cost to be validated
    * @return boolean if a cost is valid
    */
   public Boolean validateCost(Double cost) {
-    if (cost != null) {
-      //Split price by the decimal
-      String[] costString = String.valueOf(cost).split("\\.");
-      Boolean price2Decimals = costString[1].length() <= 2;
-      Boolean priceGreaterThanZero = cost > 0;
-      return priceGreaterThanZero && price2Decimals;
-    }
-    return true;
+    return Cents.isValidAmount(cost);
   }
 
   /**
@@ -302,13 +425,7 @@ public class EncounterServiceImpl implements EncounterService {
    * @return boolean if date is valid
    */
   public Boolean validateDateFormat(EncounterDTO encounter) {
-    String regex = "^\\d{4}-(0[1-9]|1[0-2])-([0-2][0-9]|3[0-1])$";
-    Pattern pattern = Pattern.compile(regex);
-    if (encounter.getDate() != null && !encounter.getDate().isEmpty()) {
-      Matcher matcher = pattern.matcher(encounter.getDate());
-      return matcher.matches();
-    }
-    return true;
+    return FormatMatchers.matchesIfPresent(encounter.getDate(), FormatMatchers::isCalendarDate);
   }
 
   /**
@@ -325,45 +442,4 @@ public class EncounterServiceImpl implements EncounterService {
   }
 
 
-  /**
-   * Reads an encounter's fields and checks for fields that are empty or null
-   *
-   * @param encounter encounter to be validated
-   * @return A Hashmap {"emptyFields": List of empty fields, "nullFields": list of null fields}
-   */
-  public HashMap<String, List<String>> getFieldsEmptyOrNull(EncounterDTO encounter) {
-    List<Field> encounterFields = Arrays.asList(EncounterDTO.class.getDeclaredFields());
-    List<String> encounterFieldNames = new ArrayList<>();
-    List<String> emptyFields = new ArrayList<>();
-    List<String> nullFields = new ArrayList<>();
-    HashMap<String, List<String>> results = new HashMap<>();
-    //Get encounter field names
-    encounterFields.forEach((field -> encounterFieldNames.add(field.getName())));
-    //Remove fields that will be added automatically after the save or optional fields
-    List<String> optionalFields = new ArrayList<>(
-        Arrays.asList("patientId", "notes", "pulse", "systolic", "diastolic")
-    );
-    encounterFieldNames.removeAll(optionalFields);
-
-    //Convert encounter to a HashMap
-    ObjectMapper mapper = new ObjectMapper();
-    Map encounterMap = mapper.convertValue(encounter, HashMap.class);
-    //Loop through each fieldName to retrieve each encounter mapping value of the field
-    encounterFieldNames.forEach((field) -> {
-      //Check if the value for the encounter's field is null or empty and place in the corresponding list
-      if (encounterMap.get(field) == null) {
-        nullFields.add(field);
-      } else if (encounterMap.get(field).toString().trim() == "") {
-        emptyFields.add(field);
-      }
-    });
-    //place each list in the results
-    results.put("emptyFields", emptyFields);
-    results.put("nullFields", nullFields);
-    return results;
-  }
-
-
-
-
 }
\ No newline at end of file
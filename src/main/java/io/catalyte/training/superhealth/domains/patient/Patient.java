@@ -4,24 +4,61 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.catalyte.training.superhealth.domains.encounter.Encounter;
 import java.util.List;
 import java.util.Objects;
-import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.OneToMany;
+import javax.persistence.OrderBy;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
 import javax.persistence.criteria.CriteriaBuilder.In;
+import org.hibernate.annotations.GenericGenerator;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
+import org.hibernate.annotations.Parameter;
 
 /**
  * Describes a patient object
  */
 @Entity
+@Table(indexes = {
+    @Index(name = "patient_first_name_id_idx", columnList = "firstName, id"),
+    @Index(name = "patient_last_name_id_idx", columnList = "lastName, id"),
+    @Index(name = "patient_email_id_idx", columnList = "email, id"),
+    @Index(name = "patient_age_id_idx", columnList = "age, id"),
+    @Index(name = "patient_state_postal_id_idx", columnList = "state, postal, id"),
+    @Index(name = "patient_postal_id_idx", columnList = "postal, id"),
+    @Index(name = "patient_insurance_id_idx", columnList = "insurance, id"),
+    @Index(name = "patient_gender_age_id_idx", columnList = "gender, age, id")
+}, uniqueConstraints = @UniqueConstraint(name = Patient.NORMALIZED_EMAIL_CONSTRAINT,
+    columnNames = "normalizedEmail"))
 public class Patient {
 
+  /**
+   * Name of the unique constraint on the normalized email, so a violation of it can be told apart
+   * from other integrity violations.
+   */
+  public static final String NORMALIZED_EMAIL_CONSTRAINT = "patient_normalized_email_uk";
+
+  /**
+   * Sequence of the ids, read by the pooled-lo optimizer so that each call reserves a block of
+   * ID_BLOCK_SIZE ids and a batch of inserts needs no round trip per row.
+   */
+  public static final String ID_SEQUENCE = "patient_id_seq";
+
+  public static final int ID_BLOCK_SIZE = 50;
+
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+  @GenericGenerator(name = ID_SEQUENCE, strategy = "enhanced-sequence", parameters = {
+      @Parameter(name = "sequence_name", value = ID_SEQUENCE),
+      @Parameter(name = "increment_size", value = "" + ID_BLOCK_SIZE),
+      @Parameter(name = "optimizer", value = "pooled-lo")
+  })
   private Long id;
   private String firstName;
 
@@ -29,9 +66,11 @@ public class Patient {
 
   private String ssn;
 
-//  @Column(unique = true)
   private String email;
 
+  @JsonIgnore
+  private String normalizedEmail;
+
   private String street;
 
   private String city;
@@ -51,8 +90,10 @@ public class Patient {
   private String gender;
 
   @OneToMany(mappedBy = "patient")
+  @OrderBy("date ASC, id ASC")
   @OnDelete(action = OnDeleteAction.NO_ACTION)
-  public List<Encounter> encounters;
+  @JsonIgnore
+  private List<Encounter> encounters;
 
   public Patient() {
   }
@@ -117,6 +158,19 @@ public class Patient {
     this.email = email;
   }
 
+  public String getNormalizedEmail() {
+    return normalizedEmail;
+  }
+
+  /**
+   * Keeps the indexed, case-normalized copy of the email in sync before every insert and update.
+   */
+  @PrePersist
+  @PreUpdate
+  void normalizeEmail() {
+    this.normalizedEmail = PatientEmailIndex.normalize(email);
+  }
+
   public String getStreet() {
     return street;
   }
@@ -215,7 +269,6 @@ public class Patient {
         ", weight=" + weight +
         ", insurance='" + insurance + '\'' +
         ", gender='" + gender + '\'' +
-        ", encounters=" + encounters +
         '}';
   }
 
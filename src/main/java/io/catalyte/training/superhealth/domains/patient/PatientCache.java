@@ -0,0 +1,107 @@
+package io.catalyte.training.superhealth.domains.patient;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Bounded read-through cache of patients by id. Entries are evicted with Caffeine's W-TinyLFU
+ * policy once there are more than patients.cache.maximum-size of them. Setting
+ * patients.cache.enabled=false makes every lookup go to the loader.
+ *
+ * <p>Cached patients are shared between requests and must not be modified. Any write that changes
+ * a patient must invalidate it.
+ */
+@Component
+public class PatientCache {
+
+  private final Cache<Long, Patient> cache;
+
+  public PatientCache(@Value("${patients.cache.enabled:true}") boolean enabled,
+      @Value("${patients.cache.maximum-size:100000}") long maximumSize) {
+    this.cache = enabled
+        ? Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .recordStats()
+        .build()
+        : null;
+  }
+
+  public boolean isEnabled() {
+    return cache != null;
+  }
+
+  /**
+   * Returns the cached patient, loading and caching it on a miss. Patients the loader does not find
+   * are not cached.
+   *
+   * @param id - patient id
+   * @param loader - reads the patient from the database, returning null if it does not exist
+   * @return the patient, or null if it does not exist
+   */
+  public Patient get(Long id, Function<Long, Patient> loader) {
+    if (cache == null) {
+      return loader.apply(id);
+    }
+    return cache.get(id, loader);
+  }
+
+  /**
+   * Drops a patient from the cache. Waits for a load of the same patient that is in progress, so
+   * a value read before the write cannot be cached after it.
+   *
+   * @param id patient id
+   */
+  public void invalidate(Long id) {
+    if (cache != null && id != null) {
+      cache.invalidate(id);
+    }
+  }
+
+  /**
+   * Drops a patient from the cache once the current transaction commits, or right away outside of
+   * one, so a read between the write and its commit cannot cache the patient again.
+   *
+   * @param id - patient id
+   */
+  public void invalidateAfterCommit(Long id) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      invalidate(id);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        invalidate(id);
+      }
+    });
+  }
+
+  /**
+   * Drops every patient from the cache.
+   */
+  public void invalidateAll() {
+    if (cache != null) {
+      cache.invalidateAll();
+    }
+  }
+
+  /**
+   * Reads the cache counters.
+   *
+   * @return hit, miss and eviction counts and the current size
+   */
+  public PatientCacheStats getStats() {
+    if (cache == null) {
+      return new PatientCacheStats(false, 0, 0, 0, 0);
+    }
+    CacheStats stats = cache.stats();
+    return new PatientCacheStats(true, stats.hitCount(), stats.missCount(),
+        stats.evictionCount(), cache.estimatedSize());
+  }
+}
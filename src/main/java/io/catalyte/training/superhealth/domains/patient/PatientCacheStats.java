@@ -0,0 +1,45 @@
+package io.catalyte.training.superhealth.domains.patient;
+
+/**
+ * Counters of the patient cache since the application started.
+ */
+public class PatientCacheStats {
+
+  private final boolean enabled;
+
+  private final long hits;
+
+  private final long misses;
+
+  private final long evictions;
+
+  private final long size;
+
+  public PatientCacheStats(boolean enabled, long hits, long misses, long evictions, long size) {
+    this.enabled = enabled;
+    this.hits = hits;
+    this.misses = misses;
+    this.evictions = evictions;
+    this.size = size;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public long getHits() {
+    return hits;
+  }
+
+  public long getMisses() {
+    return misses;
+  }
+
+  public long getEvictions() {
+    return evictions;
+  }
+
+  public long getSize() {
+    return size;
+  }
+}
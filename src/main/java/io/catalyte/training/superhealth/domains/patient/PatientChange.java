@@ -0,0 +1,90 @@
+package io.catalyte.training.superhealth.domains.patient;
+
+/**
+ * A patient save, update or delete, published by the patient service inside the write's
+ * transaction and applied by the in-memory structures that index patients or their encounters
+ * once the transaction commits. The saved patient is a copy taken inside the transaction, without
+ * its encounters, so later changes to the managed patient do not reach it.
+ */
+public class PatientChange {
+
+  private final Long patientId;
+
+  private final Patient current;
+
+  private final boolean sliceChanged;
+
+  private final boolean encountersDeleted;
+
+  private PatientChange(Long patientId, Patient current, boolean sliceChanged,
+      boolean encountersDeleted) {
+    this.patientId = patientId;
+    this.current = current;
+    this.sliceChanged = sliceChanged;
+    this.encountersDeleted = encountersDeleted;
+  }
+
+  /**
+   * @param patient - the patient as the write stores it
+   * @param sliceChanged - true if an update changed the patient's gender or age band
+   * @return the change for a patient save or update
+   */
+  public static PatientChange saved(Patient patient, boolean sliceChanged) {
+    return new PatientChange(patient.getId(), copyOf(patient), sliceChanged, false);
+  }
+
+  /**
+   * @param patientId - id of the deleted patient
+   * @param encountersDeleted - true if the patient's encounters were deleted with it
+   * @return the change for a patient delete
+   */
+  public static PatientChange deleted(Long patientId, boolean encountersDeleted) {
+    return new PatientChange(patientId, null, false, encountersDeleted);
+  }
+
+  /**
+   * @return id of the saved or deleted patient
+   */
+  public Long getPatientId() {
+    return patientId;
+  }
+
+  /**
+   * @return the patient as committed, null for a delete
+   */
+  public Patient getCurrent() {
+    return current;
+  }
+
+  /**
+   * @return true for a delete
+   */
+  public boolean isDeleted() {
+    return current == null;
+  }
+
+  /**
+   * @return true if the patient's encounters moved to another gender and age band slice
+   */
+  public boolean isSliceChanged() {
+    return sliceChanged;
+  }
+
+  /**
+   * @return true if the patient's encounters were deleted with it
+   */
+  public boolean isEncountersDeleted() {
+    return encountersDeleted;
+  }
+
+  /**
+   * @param patient - patient to copy
+   * @return a detached copy of the patient's fields, without its encounters
+   */
+  static Patient copyOf(Patient patient) {
+    return new Patient(patient.getId(), patient.getFirstName(), patient.getLastName(),
+        patient.getSsn(), patient.getEmail(), patient.getStreet(), patient.getCity(),
+        patient.getState(), patient.getPostal(), patient.getAge(), patient.getHeight(),
+        patient.getWeight(), patient.getInsurance(), patient.getGender());
+  }
+}
@@ -3,12 +3,18 @@ package io.catalyte.training.superhealth.domains.patient;
 import static io.catalyte.training.superhealth.constants.Paths.PATIENTS_PATH;
 
 import io.catalyte.training.superhealth.constants.LoggingConstants;
+import io.catalyte.training.superhealth.constants.StringConstants;
+import io.catalyte.training.superhealth.pagination.CursorPage;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Set;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,8 +23,11 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * Exposes endpoints for the purchase domain
@@ -28,44 +37,165 @@ import org.springframework.web.bind.annotation.RestController;
 public class PatientController {
 
   private final PatientService patientService;
+  private final PatientImportService patientImportService;
   Logger logger = LogManager.getLogger(PatientController.class);
 
   @Autowired
-  public PatientController(PatientService patientService) {
+  public PatientController(PatientService patientService,
+      PatientImportService patientImportService) {
     this.patientService = patientService;
+    this.patientImportService = patientImportService;
   }
 
   /**
    * Handles a GET request directed at /patients.
    *
+   * @param include - "encounters" to return each patient's encounters, omitted for none
    * @return all rentals in database.
    */
   @GetMapping
-  public ResponseEntity<List<Patient>> getPatients() {
+  public ResponseEntity<List<?>> getPatients(@RequestParam(required = false) String include) {
     logger.info(LoggingConstants.GET_PATIENTS);
-    return new ResponseEntity<>(patientService.getPatients(), HttpStatus.OK);
+    Set<PatientInclude> includes = PatientInclude.parse(include);
+    List<Patient> patients = patientService.getPatients();
+    return new ResponseEntity<>(includes.contains(PatientInclude.ENCOUNTERS)
+        ? patientService.withEncounters(patients) : patients, HttpStatus.OK);
   }
 
   /**
-   * Handles a GET request directed at /patients/emails.
+   * Handles a GET request directed at /patients that accepts application/x-ndjson. Streams every
+   * patient as one JSON object per line, starting as soon as the first rows are read.
    *
-   * @return all rentals in database.
+   * @return response body that streams the patients
+   */
+  @GetMapping(produces = StringConstants.APPLICATION_NDJSON)
+  public ResponseEntity<StreamingResponseBody> streamPatients() {
+    logger.info(LoggingConstants.STREAM_PATIENTS);
+    StreamingResponseBody body = patientService::streamPatients;
+    return ResponseEntity.ok()
+        .contentType(MediaType.parseMediaType(StringConstants.APPLICATION_NDJSON))
+        .body(body);
+  }
+
+  /**
+   * Handles a GET request directed at /patients with a limit. Returns one keyset page of patients
+   * instead of the whole table.
+   *
+   * @param limit - maximum number of patients in the page
+   * @param after - nextCursor of the previous page, omitted for the first page
+   * @param sort - property to sort by, optionally followed by ",asc" or ",desc"
+   * @param include - "encounters" to return each patient's encounters, omitted for none
+   * @return the page of patients and the cursor of the following page
+   */
+  @GetMapping(params = "limit")
+  public ResponseEntity<CursorPage<?>> getPatientPage(@RequestParam Integer limit,
+      @RequestParam(required = false) String after,
+      @RequestParam(required = false) String sort,
+      @RequestParam(required = false) String include) {
+    logger.info(LoggingConstants.GET_PATIENT_PAGE(limit, sort));
+    Set<PatientInclude> includes = PatientInclude.parse(include);
+    return new ResponseEntity<>(include(patientService.getPatientPage(limit, after, sort),
+        includes), HttpStatus.OK);
+  }
+
+  /**
+   * Handles a GET request directed at /patients/search. Returns one keyset page of the patients
+   * matching every filter given.
+   *
+   * @param search - optional state, postal, insurance, gender, minAge and maxAge filters
+   * @param limit - maximum number of patients in the page, 50 if omitted
+   * @param after - nextCursor of the previous page, omitted for the first page
+   * @param sort - property to sort by, optionally followed by ",asc" or ",desc"
+   * @param include - "encounters" to return each patient's encounters, omitted for none
+   * @return the page of matching patients and the cursor of the following page
+   */
+  @GetMapping(value = "/search")
+  public ResponseEntity<CursorPage<?>> searchPatients(PatientSearch search,
+      @RequestParam(defaultValue = "" + CursorPage.DEFAULT_LIMIT) Integer limit,
+      @RequestParam(required = false) String after,
+      @RequestParam(required = false) String sort,
+      @RequestParam(required = false) String include) {
+    logger.info(LoggingConstants.SEARCH_PATIENTS(limit, sort));
+    Set<PatientInclude> includes = PatientInclude.parse(include);
+    return new ResponseEntity<>(include(patientService.searchPatients(search, limit, after, sort),
+        includes), HttpStatus.OK);
+  }
+
+  /**
+   * Replaces the patients of a page with the patients and their encounters when asked to.
+   *
+   * @param page - the page of patients
+   * @param includes - the associations the request asked for
+   * @return the page to return
+   */
+  private CursorPage<?> include(CursorPage<Patient> page, Set<PatientInclude> includes) {
+    if (!includes.contains(PatientInclude.ENCOUNTERS)) {
+      return page;
+    }
+    return new CursorPage<>(patientService.withEncounters(page.getItems()), page.getNextCursor());
+  }
+
+  /**
+   * Handles a GET request directed at /patients/summary. Returns one page of patient summaries,
+   * each with the patient's encounter count, last visit date and lifetime cost.
+   *
+   * @param limit - maximum number of summaries in the page, 50 if omitted
+   * @param after - nextCursor of the previous page, omitted for the first page
+   * @return the page of summaries and the cursor of the following page
+   */
+  @GetMapping(value = "/summary")
+  public ResponseEntity<CursorPage<PatientSummary>> getPatientSummaries(
+      @RequestParam(defaultValue = "" + CursorPage.DEFAULT_LIMIT) Integer limit,
+      @RequestParam(required = false) String after) {
+    logger.info(LoggingConstants.GET_PATIENT_SUMMARIES(limit));
+    return new ResponseEntity<>(patientService.getPatientSummaries(limit, after), HttpStatus.OK);
+  }
+
+  /**
+   * Handles a GET request directed at /patients/emails. Responds 304 without a body when the
+   * request's If-None-Match header holds the current entity tag.
+   *
+   * @param request - the current request, checked for If-None-Match
+   * @return map of patient ids and emails, tagged with the current entity tag.
    */
   @GetMapping(value = "/emails")
-  public ResponseEntity<HashMap<Long, String>> getPatientEmails() {
+  public ResponseEntity<HashMap<Long, String>> getPatientEmails(WebRequest request) {
     logger.info(LoggingConstants.GET_PATIENT_EMAILS);
-    return new ResponseEntity<>(patientService.getPatientEmails(), HttpStatus.OK);
+    String eTag = patientService.getPatientEmailsETag();
+    if (eTag == null) {
+      return new ResponseEntity<>(patientService.getPatientEmails(), HttpStatus.OK);
+    }
+    if (request.checkNotModified(eTag)) {
+      return null;
+    }
+    return ResponseEntity.ok().eTag(eTag).body(patientService.getPatientEmails());
+  }
+
+  /**
+   * Handles a GET request directed at /patients/cache/stats.
+   *
+   * @return hit, miss and eviction counts of the patient cache.
+   */
+  @GetMapping(value = "/cache/stats")
+  public ResponseEntity<PatientCacheStats> getPatientCacheStats() {
+    logger.info(LoggingConstants.GET_PATIENT_CACHE_STATS);
+    return new ResponseEntity<>(patientService.getPatientCacheStats(), HttpStatus.OK);
   }
 
   /**
    * Handles a GET request with an id parameter
    *
    * @param id - id of rental
+   * @param include - "encounters" to return the patient's encounters, omitted for none
    * @return a single rental from the rental's id.
    */
   @GetMapping(value = "/{id}")
-  public ResponseEntity getPatientById(@PathVariable Long id) {
+  public ResponseEntity getPatientById(@PathVariable Long id,
+      @RequestParam(required = false) String include) {
     logger.info(LoggingConstants.GET_PATIENT_BY_ID(id));
+    if (PatientInclude.parse(include).contains(PatientInclude.ENCOUNTERS)) {
+      return new ResponseEntity(patientService.getPatientWithEncountersById(id), HttpStatus.OK);
+    }
     return new ResponseEntity(patientService.getPatientById(id), HttpStatus.OK);
   }
 
@@ -83,6 +213,21 @@ public class PatientController {
     return new ResponseEntity<>(newPatient, HttpStatus.CREATED);
   }
 
+  /**
+   * Handles a POST request to /patients/bulk. Imports a JSON array of patients, or one patient
+   * JSON object per line, and reports the outcome of every record.
+   *
+   * @param body - request body holding the patients
+   * @return one result per record, in the order received
+   * @throws IOException if reading the request body fails
+   */
+  @PostMapping(value = "/bulk",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, StringConstants.APPLICATION_NDJSON})
+  public ResponseEntity<PatientImportReport> importPatients(InputStream body) throws IOException {
+    logger.info(LoggingConstants.IMPORT_PATIENTS);
+    return new ResponseEntity<>(patientImportService.importPatients(body), HttpStatus.OK);
+  }
+
   /**
    * Handles a PUT request to /rentals/id. This updates an existing rental object that gets saved to the
    * database.
@@ -102,12 +247,15 @@ public class PatientController {
    * Handles a DELETE request to /patients/id. This deletes an existing rental object.
    *
    * @param id - id of rental to be deleted
+   * @param mode - "restrict" (the default), "cascade" or "archive"; what to do with the patient's
+   * encounters
    * @return no content response entity
    */
   @DeleteMapping(value = "/{id}")
-  public ResponseEntity<?> deletePatientById(@PathVariable Long id){
+  public ResponseEntity<?> deletePatientById(@PathVariable Long id,
+      @RequestParam(required = false) String mode){
     logger.info(LoggingConstants.DELETE_PATIENT(id));;
-    patientService.deletePatientById(id);
+    patientService.deletePatientById(id, mode);
 
     return new ResponseEntity<>(HttpStatus.NO_CONTENT);
   }
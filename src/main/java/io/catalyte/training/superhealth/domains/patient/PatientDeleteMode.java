@@ -0,0 +1,43 @@
+package io.catalyte.training.superhealth.domains.patient;
+
+import io.catalyte.training.superhealth.constants.StringConstants;
+import io.catalyte.training.superhealth.exceptions.BadRequest;
+
+/**
+ * What deleting a patient does with the patient's encounters.
+ */
+public enum PatientDeleteMode {
+
+  /**
+   * Refuse to delete a patient that has encounters.
+   */
+  RESTRICT,
+
+  /**
+   * Delete the patient's encounters with the patient.
+   */
+  CASCADE,
+
+  /**
+   * Move the patient's encounters to the archived encounter table, then delete the patient.
+   */
+  ARCHIVE;
+
+  /**
+   * Reads a delete mode regardless of case.
+   *
+   * @param mode mode name, or null for RESTRICT
+   * @return the delete mode
+   */
+  public static PatientDeleteMode parse(String mode) {
+    if (mode == null || mode.isEmpty()) {
+      return RESTRICT;
+    }
+    for (PatientDeleteMode value : values()) {
+      if (value.name().equalsIgnoreCase(mode.trim())) {
+        return value;
+      }
+    }
+    throw new BadRequest(StringConstants.DELETE_MODE_INVALID);
+  }
+}
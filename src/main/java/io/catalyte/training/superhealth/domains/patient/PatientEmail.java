@@ -0,0 +1,24 @@
+package io.catalyte.training.superhealth.domains.patient;
+
+/**
+ * Two column projection of a patient's id and email.
+ */
+public class PatientEmail {
+
+  private final Long id;
+
+  private final String email;
+
+  public PatientEmail(Long id, String email) {
+    this.id = id;
+    this.email = email;
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public String getEmail() {
+    return email;
+  }
+}
@@ -0,0 +1,94 @@
+package io.catalyte.training.superhealth.domains.patient;
+
+import java.util.Locale;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Striped lock index over normalized patient emails. Writes that check and then persist an email
+ * run while holding the stripe for that email, so two concurrent requests for the same address
+ * cannot both pass the uniqueness check. The unique normalizedEmail column is still the final
+ * guard when several servers share the database.
+ */
+@Component
+public class PatientEmailIndex {
+
+  private static final int STRIPES = 64;
+
+  private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+  public PatientEmailIndex() {
+    for (int i = 0; i < STRIPES; i++) {
+      locks[i] = new ReentrantLock();
+    }
+  }
+
+  /**
+   * Normalizes an email for uniqueness comparisons by trimming it and lower casing it.
+   *
+   * @param email email to normalize
+   * @return normalized email, or null if the email is null
+   */
+  public static String normalize(String email) {
+    if (email == null) {
+      return null;
+    }
+    return email.trim().toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Tells whether an integrity violation raised by the database is a violation of the unique
+   * normalized email, as opposed to another constraint such as the patient summary's key. Looks for
+   * the constraint's name in the causes, as Hibernate reports it or as the driver's message does
+   * for JDBC batches.
+   *
+   * @param e - integrity violation raised by a write
+   * @return true if the normalized email constraint was violated
+   */
+  public static boolean isEmailViolation(DataIntegrityViolationException e) {
+    for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+      String detail = cause instanceof ConstraintViolationException
+          ? ((ConstraintViolationException) cause).getConstraintName() : cause.getMessage();
+      if (detail != null && detail.toLowerCase(Locale.ROOT)
+          .contains(Patient.NORMALIZED_EMAIL_CONSTRAINT)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Runs an action while holding the lock stripe for the given email.
+   *
+   * @param email - email the action checks and persists
+   * @param action - action to run
+   * @return the result of the action
+   */
+  public <T> T withEmailLock(String email, Supplier<T> action) {
+    if (email == null) {
+      return action.get();
+    }
+    ReentrantLock lock = locks[stripeFor(normalize(email))];
+    lock.lock();
+    try {
+      return action.get();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Spreads the hash of a normalized email over the available stripes.
+   *
+   * @param normalizedEmail normalized email
+   * @return stripe index
+   */
+  private int stripeFor(String normalizedEmail) {
+    int hash = normalizedEmail.hashCode();
+    hash ^= (hash >>> 16);
+    return hash & (STRIPES - 1);
+  }
+}
@@ -0,0 +1,131 @@
+package io.catalyte.training.superhealth.domains.patient;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-memory map of patient id to email. It is loaded from the database on first use and then kept
+ * current by the patient service on every save, update and delete. Each change bumps a version that
+ * is served as the ETag of /patients/emails, so clients holding an unchanged copy get a 304.
+ *
+ * <p>Writes that bypass the patient service must call invalidate so the next read reloads the map.
+ * The snapshot can be switched off with patients.emails.snapshot=false, in which case every read
+ * goes to the database.
+ */
+@Component
+public class PatientEmailSnapshot {
+
+  private final boolean enabled;
+
+  private final String instanceTag = UUID.randomUUID().toString().substring(0, 8);
+
+  private volatile ConcurrentHashMap<Long, String> emails;
+
+  private long version;
+
+  public PatientEmailSnapshot(@Value("${patients.emails.snapshot:true}") boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Returns a copy of the snapshot, loading it first if needed.
+   *
+   * @param loader - reads every patient id and email from the database
+   * @return map of patient ids and emails
+   */
+  public HashMap<Long, String> getEmails(Supplier<List<PatientEmail>> loader) {
+    return new HashMap<>(load(loader));
+  }
+
+  /**
+   * Returns the ETag of the current snapshot, loading it first if needed.
+   *
+   * @param loader - reads every patient id and email from the database
+   * @return quoted entity tag that changes whenever the snapshot changes
+   */
+  public synchronized String getETag(Supplier<List<PatientEmail>> loader) {
+    load(loader);
+    return "\"" + instanceTag + "-" + version + "\"";
+  }
+
+  /**
+   * Records a saved or updated patient's email.
+   *
+   * @param id - patient id
+   * @param email - the patient's current email
+   */
+  public synchronized void put(Long id, String email) {
+    if (emails != null) {
+      emails.put(id, email);
+      version++;
+    }
+  }
+
+  /**
+   * Removes a deleted patient.
+   *
+   * @param id patient id
+   */
+  public synchronized void remove(Long id) {
+    if (emails != null && emails.remove(id) != null) {
+      version++;
+    }
+  }
+
+  /**
+   * Removes a deleted patient once the current transaction commits, or right away outside of one,
+   * so a rolled back delete does not leave the patient out of the snapshot.
+   *
+   * @param id - patient id
+   */
+  public void removeAfterCommit(Long id) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      remove(id);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        remove(id);
+      }
+    });
+  }
+
+  /**
+   * Drops the snapshot so the next read reloads it from the database.
+   */
+  public synchronized void invalidate() {
+    emails = null;
+    version++;
+  }
+
+  private Map<Long, String> load(Supplier<List<PatientEmail>> loader) {
+    ConcurrentHashMap<Long, String> current = emails;
+    if (current != null) {
+      return current;
+    }
+    synchronized (this) {
+      if (emails == null) {
+        ConcurrentHashMap<Long, String> loaded = new ConcurrentHashMap<>();
+        for (PatientEmail patientEmail : loader.get()) {
+          loaded.put(patientEmail.getId(), patientEmail.getEmail());
+        }
+        emails = loaded;
+        version++;
+      }
+      return emails;
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package io.catalyte.training.superhealth.domains.patient;
+
+import java.util.List;
+
+/**
+ * Result of a bulk patient import: counts, and one result per record in the order received.
+ */
+public class PatientImportReport {
+
+  private final int received;
+
+  private final int created;
+
+  private final List<PatientImportResult> results;
+
+  public PatientImportReport(List<PatientImportResult> results) {
+    this.results = results;
+    this.received = results.size();
+    int createdCount = 0;
+    for (PatientImportResult result : results) {
+      if (result.getStatus() == PatientImportResult.Status.CREATED) {
+        createdCount++;
+      }
+    }
+    this.created = createdCount;
+  }
+
+  public int getReceived() {
+    return received;
+  }
+
+  public int getCreated() {
+    return created;
+  }
+
+  public int getRejected() {
+    return received - created;
+  }
+
+  public List<PatientImportResult> getResults() {
+    return results;
+  }
+}
@@ -0,0 +1,47 @@
+package io.catalyte.training.superhealth.domains.patient;
+
+import java.util.List;
+
+/**
+ * Outcome of one record of a bulk patient import.
+ */
+public class PatientImportResult {
+
+  /**
+   * Whether a record was created, failed validation, or conflicted with an existing email.
+   */
+  public enum Status {
+    CREATED, INVALID, CONFLICT
+  }
+
+  private final int index;
+
+  private final Status status;
+
+  private final Long id;
+
+  private final List<String> errors;
+
+  public PatientImportResult(int index, Status status, Long id, List<String> errors) {
+    this.index = index;
+    this.status = status;
+    this.id = id;
+    this.errors = errors;
+  }
+
+  public int getIndex() {
+    return index;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public List<String> getErrors() {
+    return errors;
+  }
+}
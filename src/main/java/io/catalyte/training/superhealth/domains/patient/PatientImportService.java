@@ -0,0 +1,13 @@
+package io.catalyte.training.superhealth.domains.patient;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * This interface provides an abstraction layer for bulk patient imports
+ */
+public interface PatientImportService {
+
+  PatientImportReport importPatients(InputStream inputStream) throws IOException;
+
+}
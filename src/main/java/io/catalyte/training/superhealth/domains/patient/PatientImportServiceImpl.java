@@ -0,0 +1,235 @@
+package io.catalyte.training.superhealth.domains.patient;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.catalyte.training.superhealth.constants.LoggingConstants;
+import io.catalyte.training.superhealth.constants.StringConstants;
+import io.catalyte.training.superhealth.domains.cohort.CohortIndex;
+import io.catalyte.training.superhealth.domains.patient.PatientImportResult.Status;
+import io.catalyte.training.superhealth.exceptions.ServiceUnavailable;
+import io.catalyte.training.superhealth.validation.FormatMatchers;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Imports patients in bulk from a JSON array or newline delimited JSON. Records are read and
+ * processed in chunks of patients.bulk.chunk-size: each chunk is validated in parallel, checked for
+ * emails repeated earlier in the import, checked against the database with one query, and inserted
+ * with one JDBC batch in its own transaction, together with the patients' summaries.
+ */
+@Service
+public class PatientImportServiceImpl implements PatientImportService {
+
+  private static final String INSERT_PATIENT = "INSERT INTO patient (id, first_name, last_name, "
+      + "ssn, email, normalized_email, street, city, state, postal, age, height, weight, "
+      + "insurance, gender) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+  /**
+   * Number of times a chunk is retried when a concurrent write claims one of its emails between
+   * the check and the insert.
+   */
+  private static final int MAX_CHUNK_ATTEMPTS = 3;
+
+  private final Logger logger = LogManager.getLogger(PatientImportServiceImpl.class);
+
+  PatientRepository patientRepository;
+
+  JdbcTemplate jdbcTemplate;
+
+  TransactionTemplate transactionTemplate;
+
+  ObjectMapper objectMapper;
+
+  PatientEmailSnapshot patientEmailSnapshot;
+
+  PatientSummaryRepository patientSummaryRepository;
+
+  CohortIndex cohortIndex;
+
+  int chunkSize;
+
+  @Autowired
+  public PatientImportServiceImpl(PatientRepository patientRepository, JdbcTemplate jdbcTemplate,
+      PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+      PatientEmailSnapshot patientEmailSnapshot, PatientSummaryRepository patientSummaryRepository,
+      CohortIndex cohortIndex, @Value("${patients.bulk.chunk-size:500}") int chunkSize) {
+    this.patientRepository = patientRepository;
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.objectMapper = objectMapper;
+    this.patientEmailSnapshot = patientEmailSnapshot;
+    this.patientSummaryRepository = patientSummaryRepository;
+    this.cohortIndex = cohortIndex;
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * Imports every patient in the stream. A record that cannot be read as a patient is reported as
+   * invalid and ends the import, since the position of the following record is unknown.
+   *
+   * @param inputStream - a JSON array of patients, or one patient JSON object per line
+   * @return one result per record, in the order received
+   * @throws IOException if reading the stream fails
+   */
+  public PatientImportReport importPatients(InputStream inputStream) throws IOException {
+    List<PatientImportResult> results = new ArrayList<>();
+    Set<String> importedEmails = new HashSet<>();
+    List<Patient> chunk = new ArrayList<>(chunkSize);
+    boolean malformed = false;
+
+    try (MappingIterator<Patient> records = objectMapper.readerFor(Patient.class)
+        .readValues(inputStream)) {
+      while (records.hasNextValue()) {
+        chunk.add(records.nextValue());
+        if (chunk.size() == chunkSize) {
+          importChunk(chunk, importedEmails, results);
+          chunk.clear();
+        }
+      }
+    } catch (JsonProcessingException e) {
+      logger.error(e.getMessage());
+      malformed = true;
+    }
+
+    if (!chunk.isEmpty()) {
+      importChunk(chunk, importedEmails, results);
+    }
+    if (malformed) {
+      results.add(new PatientImportResult(results.size(), Status.INVALID, null,
+          Collections.singletonList(StringConstants.IMPORT_RECORD_MALFORMED)));
+    }
+
+    PatientImportReport report = new PatientImportReport(results);
+    if (report.getCreated() > 0) {
+      patientEmailSnapshot.invalidate();
+      //the JDBC inserts bypass the patient service, so the index reloads with them
+      cohortIndex.invalidate();
+    }
+    logger.info(LoggingConstants.IMPORT_PATIENTS_COMPLETE(report.getReceived(),
+        report.getCreated()));
+    return report;
+  }
+
+  /**
+   * Validates and inserts one chunk, appending a result for each of its records.
+   *
+   * @param chunk - records to import; a null record is reported as malformed
+   * @param importedEmails - normalized emails of earlier records in the import
+   * @param results - results of the import so far
+   */
+  private void importChunk(List<Patient> chunk, Set<String> importedEmails,
+      List<PatientImportResult> results) {
+    int firstIndex = results.size();
+    PatientImportResult[] chunkResults = new PatientImportResult[chunk.size()];
+
+    List<List<String>> chunkErrors = chunk.parallelStream()
+        .map(patient -> patient == null
+            ? Collections.singletonList(StringConstants.IMPORT_RECORD_MALFORMED)
+            : PatientServiceImpl.VALIDATION_PLAN.validate(patient))
+        .collect(Collectors.toList());
+
+    //normalized email of each record to insert, mapped to its position in the chunk
+    Map<String, Integer> pending = new LinkedHashMap<>();
+    for (int i = 0; i < chunk.size(); i++) {
+      if (!chunkErrors.get(i).isEmpty()) {
+        chunkResults[i] = new PatientImportResult(firstIndex + i, Status.INVALID, null,
+            chunkErrors.get(i));
+        continue;
+      }
+      String normalizedEmail = PatientEmailIndex.normalize(chunk.get(i).getEmail());
+      if (!importedEmails.add(normalizedEmail)) {
+        chunkResults[i] = new PatientImportResult(firstIndex + i, Status.CONFLICT, null,
+            Collections.singletonList(StringConstants.EMAIL_DUPLICATED_IN_IMPORT));
+        continue;
+      }
+      pending.put(normalizedEmail, i);
+    }
+
+    for (int attempt = 1; !pending.isEmpty(); attempt++) {
+      try {
+        Map<String, Long> ids = transactionTemplate.execute(
+            status -> insertChunk(chunk, pending, firstIndex, chunkResults));
+        pending.forEach((normalizedEmail, i) -> chunkResults[i] =
+            new PatientImportResult(firstIndex + i, Status.CREATED, ids.get(normalizedEmail),
+                null));
+        break;
+      } catch (DataIntegrityViolationException e) {
+        logger.error(e.getMessage());
+        if (!PatientEmailIndex.isEmailViolation(e)) {
+          throw new ServiceUnavailable(e.getMessage());
+        }
+        if (attempt == MAX_CHUNK_ATTEMPTS) {
+          pending.forEach((normalizedEmail, i) -> chunkResults[i] =
+              new PatientImportResult(firstIndex + i, Status.CONFLICT, null,
+                  Collections.singletonList(StringConstants.EMAIL_ALREADY_EXISTS)));
+          break;
+        }
+      } catch (DataAccessException e) {
+        logger.error(e.getMessage());
+        throw new ServiceUnavailable(e.getMessage());
+      }
+    }
+
+    Collections.addAll(results, chunkResults);
+  }
+
+  /**
+   * Drops records whose email already exists in the database, then inserts the rest with one JDBC
+   * batch, with ids reserved from the patient id sequence, and creates their summaries with one
+   * statement. Must run inside a transaction.
+   *
+   * @param chunk - records of the chunk
+   * @param pending - normalized emails still to insert, mapped to their position in the chunk
+   * @param firstIndex - index of the chunk's first record within the import
+   * @param chunkResults - results of the chunk, filled in for records that conflict
+   * @return ids of the inserted patients by normalized email
+   */
+  private Map<String, Long> insertChunk(List<Patient> chunk, Map<String, Integer> pending,
+      int firstIndex, PatientImportResult[] chunkResults) {
+    for (PatientEmail existing : patientRepository.findByNormalizedEmailIn(pending.keySet())) {
+      int i = pending.remove(existing.getEmail());
+      chunkResults[i] = new PatientImportResult(firstIndex + i, Status.CONFLICT, null,
+          Collections.singletonList(StringConstants.EMAIL_ALREADY_EXISTS));
+    }
+    Map<String, Long> ids = new HashMap<>();
+    if (pending.isEmpty()) {
+      return ids;
+    }
+
+    long[] allocatedIds = patientRepository.allocateIds(pending.size());
+    List<Object[]> rows = new ArrayList<>(pending.size());
+    pending.forEach((normalizedEmail, i) -> {
+      Patient patient = chunk.get(i);
+      long id = allocatedIds[rows.size()];
+      ids.put(normalizedEmail, id);
+      rows.add(new Object[]{id, patient.getFirstName(), patient.getLastName(), patient.getSsn(),
+          patient.getEmail(), normalizedEmail, patient.getStreet(), patient.getCity(),
+          patient.getState(), patient.getPostal(), patient.getAge(), patient.getHeight(),
+          patient.getWeight(), patient.getInsurance(),
+          FormatMatchers.formatGender(patient.getGender())});
+    });
+    jdbcTemplate.batchUpdate(INSERT_PATIENT, rows);
+    patientSummaryRepository.insertForPatients(ids.values());
+    return ids;
+  }
+}
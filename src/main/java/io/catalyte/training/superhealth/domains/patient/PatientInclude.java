@@ -0,0 +1,44 @@
+package io.catalyte.training.superhealth.domains.patient;
+
+import io.catalyte.training.superhealth.constants.StringConstants;
+import io.catalyte.training.superhealth.exceptions.BadRequest;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Associations a patient request can ask to load with the patients. Without one, the association
+ * is never read, so a page of patients costs the same number of queries whatever their encounters.
+ */
+public enum PatientInclude {
+
+  /**
+   * Load each patient's encounters, ordered by date and id.
+   */
+  ENCOUNTERS;
+
+  /**
+   * Reads a comma separated list of associations regardless of case.
+   *
+   * @param include - association names, or null for none
+   * @return the associations to load
+   */
+  public static Set<PatientInclude> parse(String include) {
+    Set<PatientInclude> includes = EnumSet.noneOf(PatientInclude.class);
+    if (include == null || include.isEmpty()) {
+      return includes;
+    }
+    for (String name : include.split(",")) {
+      PatientInclude match = null;
+      for (PatientInclude value : values()) {
+        if (value.name().equalsIgnoreCase(name.trim())) {
+          match = value;
+        }
+      }
+      if (match == null) {
+        throw new BadRequest(StringConstants.INCLUDE_INVALID);
+      }
+      includes.add(match);
+    }
+    return includes;
+  }
+}
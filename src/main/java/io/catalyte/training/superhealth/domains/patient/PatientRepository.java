@@ -1,9 +1,83 @@
 package io.catalyte.training.superhealth.domains.patient;
 
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+import io.catalyte.training.superhealth.domains.cohort.CohortPatient;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
-public interface PatientRepository extends JpaRepository<Patient, Long> {
+public interface PatientRepository extends JpaRepository<Patient, Long>,
+    PatientRepositoryCustom {
+
+  boolean existsByNormalizedEmail(String normalizedEmail);
+
+  boolean existsByNormalizedEmailAndIdNot(String normalizedEmail, Long id);
+
+  /**
+   * Deletes a patient with a single statement, without loading it first.
+   *
+   * @return the number of patients deleted, 0 if none had the id
+   */
+  @Transactional
+  @Modifying
+  @Query("delete from Patient p where p.id = :id")
+  int removeById(@Param("id") Long id);
+
+  /**
+   * Reads only the id and email columns of every patient.
+   */
+  @Query("select new io.catalyte.training.superhealth.domains.patient.PatientEmail(p.id, p.email)"
+      + " from Patient p")
+  List<PatientEmail> findAllEmails();
+
+  /**
+   * Reads the id and normalized email of the patients holding any of the given normalized emails.
+   */
+  @Query("select new io.catalyte.training.superhealth.domains.patient.PatientEmail(p.id,"
+      + " p.normalizedEmail) from Patient p where p.normalizedEmail in :normalizedEmails")
+  List<PatientEmail> findByNormalizedEmailIn(
+      @Param("normalizedEmails") Collection<String> normalizedEmails);
+
+  /**
+   * Reads only the id and the cohort attributes of the patients with an id greater than the given
+   * one, in id order, a range scan of the primary key.
+   */
+  @Query("select new io.catalyte.training.superhealth.domains.cohort.CohortPatient(p.id, p.state,"
+      + " p.gender, p.insurance, p.age) from Patient p where p.id > :afterId order by p.id")
+  List<CohortPatient> findCohortPatients(@Param("afterId") Long afterId, Pageable pageable);
+
+  /**
+   * Streams every patient in id order from a forward-only, read-only cursor that fetches
+   * STREAM_FETCH_SIZE rows at a time. Must be called inside a transaction and closed after use.
+   */
+  @QueryHints({
+      @QueryHint(name = HINT_FETCH_SIZE, value = "" + PatientRepository.STREAM_FETCH_SIZE),
+      @QueryHint(name = HINT_READONLY, value = "true")
+  })
+  Stream<Patient> streamAllByOrderByIdAsc();
+
+  /**
+   * Reads the given patients together with their encounters in one query, a fetch join of the
+   * encounters named by the entity graph. Patients already in the persistence context get their
+   * encounters loaded in place.
+   */
+  @EntityGraph(attributePaths = "encounters")
+  @Query("select distinct p from Patient p where p.id in :ids")
+  List<Patient> findWithEncountersByIdIn(@Param("ids") Collection<Long> ids);
+
+  int STREAM_FETCH_SIZE = 500;
 
 }
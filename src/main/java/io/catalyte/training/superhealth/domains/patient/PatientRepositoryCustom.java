@@ -0,0 +1,35 @@
+package io.catalyte.training.superhealth.domains.patient;
+
+import io.catalyte.training.superhealth.pagination.KeysetCursor;
+import java.util.List;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Patient queries that cannot be expressed as derived queries.
+ */
+public interface PatientRepositoryCustom {
+
+  /**
+   * Reads one keyset page of patients: the first patients ordered by (sort, id) that come after the
+   * cursor. Only an index range scan is needed, no matter how deep the page is.
+   *
+   * @param filter - optional filter applied to the page, may be null
+   * @param sort - column to order by
+   * @param descending - whether to order from the highest value
+   * @param after - position of the last row of the previous page, null for the first page
+   * @param limit - maximum number of patients to return
+   * @return the page of patients
+   */
+  List<Patient> findPage(Specification<Patient> filter, PatientSort sort, boolean descending,
+      KeysetCursor after, int limit);
+
+  /**
+   * Reserves ids from the patient id sequence for rows inserted without Hibernate, in blocks shared
+   * with the ids Hibernate assigns.
+   *
+   * @param count - the number of ids to reserve
+   * @return the ids, in ascending order
+   */
+  long[] allocateIds(int count);
+
+}
@@ -0,0 +1,72 @@
+package io.catalyte.training.superhealth.domains.patient;
+
+import io.catalyte.training.superhealth.pagination.KeysetCursor;
+import io.catalyte.training.superhealth.persistence.PooledLoSequence;
+import java.util.ArrayList;
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Criteria API implementation of the custom patient queries.
+ */
+public class PatientRepositoryImpl implements PatientRepositoryCustom {
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  public long[] allocateIds(int count) {
+    return PooledLoSequence.allocate(entityManager, Patient.ID_SEQUENCE, Patient.ID_BLOCK_SIZE,
+        count);
+  }
+
+  public List<Patient> findPage(Specification<Patient> filter, PatientSort sort,
+      boolean descending, KeysetCursor after, int limit) {
+    CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Patient> query = builder.createQuery(Patient.class);
+    Root<Patient> patient = query.from(Patient.class);
+    Expression<Comparable> key = patient.get(sort.getProperty());
+    Expression<Comparable> id = patient.get("id");
+
+    List<Predicate> predicates = new ArrayList<>();
+    if (filter != null) {
+      Predicate filterPredicate = filter.toPredicate(patient, query, builder);
+      if (filterPredicate != null) {
+        predicates.add(filterPredicate);
+      }
+    }
+    if (after != null) {
+      Long afterId = after.getId();
+      if (sort == PatientSort.ID) {
+        predicates.add(beyond(builder, id, afterId, descending));
+      } else {
+        Comparable afterValue = sort.parse(after.getValue());
+        predicates.add(builder.or(
+            beyond(builder, key, afterValue, descending),
+            builder.and(builder.equal(key, afterValue), beyond(builder, id, afterId, descending))));
+      }
+    }
+
+    query.select(patient).where(predicates.toArray(new Predicate[0]));
+    if (sort == PatientSort.ID) {
+      query.orderBy(descending ? builder.desc(id) : builder.asc(id));
+    } else {
+      query.orderBy(descending ? builder.desc(key) : builder.asc(key),
+          descending ? builder.desc(id) : builder.asc(id));
+    }
+    return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+  }
+
+  @SuppressWarnings("unchecked")
+  private Predicate beyond(CriteriaBuilder builder, Expression<Comparable> expression,
+      Comparable value, boolean descending) {
+    return descending ? builder.lessThan(expression, value)
+        : builder.greaterThan(expression, value);
+  }
+}
@@ -0,0 +1,81 @@
+package io.catalyte.training.superhealth.domains.patient;
+
+/**
+ * Filters of a patient search, bound from the query parameters of /patients/search. Every filter
+ * is optional and those present are combined with AND.
+ */
+public class PatientSearch {
+
+  private String state;
+
+  private String postal;
+
+  private String insurance;
+
+  private String gender;
+
+  private Integer minAge;
+
+  private Integer maxAge;
+
+  public PatientSearch() {
+  }
+
+  public PatientSearch(String state, String postal, String insurance, String gender,
+      Integer minAge, Integer maxAge) {
+    this.state = state;
+    this.postal = postal;
+    this.insurance = insurance;
+    this.gender = gender;
+    this.minAge = minAge;
+    this.maxAge = maxAge;
+  }
+
+  public String getState() {
+    return state;
+  }
+
+  public void setState(String state) {
+    this.state = state;
+  }
+
+  public String getPostal() {
+    return postal;
+  }
+
+  public void setPostal(String postal) {
+    this.postal = postal;
+  }
+
+  public String getInsurance() {
+    return insurance;
+  }
+
+  public void setInsurance(String insurance) {
+    this.insurance = insurance;
+  }
+
+  public String getGender() {
+    return gender;
+  }
+
+  public void setGender(String gender) {
+    this.gender = gender;
+  }
+
+  public Integer getMinAge() {
+    return minAge;
+  }
+
+  public void setMinAge(Integer minAge) {
+    this.minAge = minAge;
+  }
+
+  public Integer getMaxAge() {
+    return maxAge;
+  }
+
+  public void setMaxAge(Integer maxAge) {
+    this.maxAge = maxAge;
+  }
+}
@@ -1,5 +1,8 @@
 package io.catalyte.training.superhealth.domains.patient;
 
+import io.catalyte.training.superhealth.pagination.CursorPage;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.List;
 
@@ -10,14 +13,33 @@ public interface PatientService {
 
   List<Patient> getPatients();
 
+  CursorPage<Patient> getPatientPage(Integer limit, String after, String sort);
+
+  CursorPage<Patient> searchPatients(PatientSearch search, Integer limit, String after,
+      String sort);
+
+  CursorPage<PatientSummary> getPatientSummaries(Integer limit, String after);
+
+  void streamPatients(OutputStream outputStream) throws IOException;
+
   HashMap<Long, String> getPatientEmails();
 
+  String getPatientEmailsETag();
+
   Patient getPatientById(Long id);
 
+  PatientWithEncounters getPatientWithEncountersById(Long id);
+
+  List<PatientWithEncounters> withEncounters(List<Patient> patients);
+
   Patient savePatient(Patient rentalToSave);
 
   Patient updatePatient(Long id, Patient rentalToUpdate);
 
   void deletePatientById(Long id);
 
+  void deletePatientById(Long id, String mode);
+
+  PatientCacheStats getPatientCacheStats();
+
 }
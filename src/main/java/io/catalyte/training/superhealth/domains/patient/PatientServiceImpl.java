@@ -1,37 +1,127 @@
 package io.catalyte.training.superhealth.domains.patient;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.catalyte.training.superhealth.constants.LoggingConstants;
 import io.catalyte.training.superhealth.constants.StringConstants;
+import io.catalyte.training.superhealth.domains.analytics.AgeBand;
 import io.catalyte.training.superhealth.domains.encounter.Encounter;
+import io.catalyte.training.superhealth.domains.encounter.EncounterRepository;
 import io.catalyte.training.superhealth.exceptions.BadRequest;
 import io.catalyte.training.superhealth.exceptions.RequestConflict;
 import io.catalyte.training.superhealth.exceptions.ResourceNotFound;
 import io.catalyte.training.superhealth.exceptions.ServiceUnavailable;
-import java.lang.reflect.Field;
+import io.catalyte.training.superhealth.pagination.CursorPage;
+import io.catalyte.training.superhealth.pagination.KeysetCursor;
+import io.catalyte.training.superhealth.validation.FormatMatchers;
+import io.catalyte.training.superhealth.validation.ValidationPlan;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 public class PatientServiceImpl implements PatientService {
 
   private final Logger logger = LogManager.getLogger(PatientServiceImpl.class);
 
+  /**
+   * Validations for patient requests, built once. Every field other than id and encounters is
+   * required.
+   */
+  static final ValidationPlan<Patient> VALIDATION_PLAN = ValidationPlan.<Patient>builder()
+      .required("firstName", Patient::getFirstName)
+      .required("lastName", Patient::getLastName)
+      .required("ssn", Patient::getSsn)
+      .required("email", Patient::getEmail)
+      .required("street", Patient::getStreet)
+      .required("city", Patient::getCity)
+      .required("state", Patient::getState)
+      .required("postal", Patient::getPostal)
+      .required("age", Patient::getAge)
+      .required("height", Patient::getHeight)
+      .required("weight", Patient::getWeight)
+      .required("insurance", Patient::getInsurance)
+      .required("gender", Patient::getGender)
+      .rule(patient ->
+              FormatMatchers.matchesIfPresent(patient.getFirstName(), FormatMatchers::isName)
+                  && FormatMatchers.matchesIfPresent(patient.getLastName(), FormatMatchers::isName),
+          StringConstants.NAME_INVALID)
+      .format(Patient::getSsn, FormatMatchers::isSsn, StringConstants.SSN_INVALID)
+      .format(Patient::getEmail, FormatMatchers::isEmail, StringConstants.EMAIL_INVALID)
+      .format(Patient::getState, FormatMatchers::isState, StringConstants.STATE_INVALID)
+      .format(Patient::getPostal, FormatMatchers::isPostal, StringConstants.POSTAL_CODE_INVALID)
+      .positive(Patient::getAge, StringConstants.NUMBER_INVALID("Age"))
+      .positive(Patient::getHeight, StringConstants.NUMBER_INVALID("Height"))
+      .positive(Patient::getWeight, StringConstants.NUMBER_INVALID("Weight"))
+      .format(Patient::getGender, FormatMatchers::isGender, StringConstants.GENDER_INVALID)
+      .build();
+
+  /**
+   * Sort recorded in patient summary cursors.
+   */
+  private static final String SUMMARY_SORT = "patientId,asc";
+
   PatientRepository patientRepository;
 
+  PatientEmailIndex patientEmailIndex;
+
+  ObjectMapper objectMapper;
+
+  PatientEmailSnapshot patientEmailSnapshot;
+
+  PatientCache patientCache;
+
+  EncounterRepository encounterRepository;
+
+  PatientSummaryRepository patientSummaryRepository;
+
+  TransactionTemplate transactionTemplate;
+
+  ApplicationEventPublisher eventPublisher;
+
+  @PersistenceContext
+  EntityManager entityManager;
+
   @Autowired
-  public PatientServiceImpl(PatientRepository patientRepository) {
+  public PatientServiceImpl(PatientRepository patientRepository,
+      PatientEmailIndex patientEmailIndex, ObjectMapper objectMapper,
+      PatientEmailSnapshot patientEmailSnapshot, PatientCache patientCache,
+      EncounterRepository encounterRepository, PatientSummaryRepository patientSummaryRepository,
+      PlatformTransactionManager transactionManager, ApplicationEventPublisher eventPublisher) {
     this.patientRepository = patientRepository;
+    this.patientEmailIndex = patientEmailIndex;
+    this.objectMapper = objectMapper;
+    this.patientEmailSnapshot = patientEmailSnapshot;
+    this.patientCache = patientCache;
+    this.encounterRepository = encounterRepository;
+    this.patientSummaryRepository = patientSummaryRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.eventPublisher = eventPublisher;
   }
 
   /**
@@ -49,25 +139,230 @@ public class PatientServiceImpl implements PatientService {
   }
 
   /**
-   * Retrieves maps of patient id's and corresponding emails to compare and validate unique emails
-   * @return map of patient ids and emails
+   * Retrieves one keyset page of patients ordered by the requested sort, with id breaking ties.
+   *
+   * @param limit - maximum number of patients in the page
+   * @param after - cursor returned with the previous page, null for the first page
+   * @param sort - property to sort by, optionally followed by ",asc" or ",desc"
+   * @return the page of patients and the cursor of the following page
    */
-  public HashMap<Long, String> getPatientEmails(){
+  public CursorPage<Patient> getPatientPage(Integer limit, String after, String sort) {
+    return findPatientPage(null, limit, after, sort);
+  }
+
+  /**
+   * Retrieves one keyset page of the patients matching every filter present in the search.
+   *
+   * @param search - filters on state, postal, insurance, gender and age range
+   * @param limit - maximum number of patients in the page
+   * @param after - cursor returned with the previous page, null for the first page
+   * @param sort - property to sort by, optionally followed by ",asc" or ",desc"
+   * @return the page of matching patients and the cursor of the following page
+   */
+  public CursorPage<Patient> searchPatients(PatientSearch search, Integer limit, String after,
+      String sort) {
+    List<String> searchErrors = new ArrayList<>();
+    if (!FormatMatchers.matchesIfPresent(search.getState(), FormatMatchers::isState)) {
+      searchErrors.add(StringConstants.STATE_INVALID);
+    }
+    if (!FormatMatchers.matchesIfPresent(search.getPostal(), FormatMatchers::isPostal)) {
+      searchErrors.add(StringConstants.POSTAL_CODE_INVALID);
+    }
+    if (!FormatMatchers.matchesIfPresent(search.getGender(), FormatMatchers::isGender)) {
+      searchErrors.add(StringConstants.GENDER_INVALID);
+    }
+    if ((search.getMinAge() != null && search.getMinAge() < 0)
+        || (search.getMaxAge() != null && search.getMaxAge() < 0)
+        || (search.getMinAge() != null && search.getMaxAge() != null
+        && search.getMinAge() > search.getMaxAge())) {
+      searchErrors.add(StringConstants.AGE_RANGE_INVALID);
+    }
+    if (!searchErrors.isEmpty()) {
+      throw new BadRequest(String.join("\n", searchErrors));
+    }
+
+    //genders are stored capitalized
+    if (search.getGender() != null && !search.getGender().isEmpty()) {
+      search.setGender(FormatMatchers.formatGender(search.getGender()));
+    }
+    return findPatientPage(PatientSpecifications.matching(search), limit, after, sort);
+  }
+
+  /**
+   * Reads one keyset page of the patients matching a filter.
+   *
+   * @param filter - filter applied to the page, null for every patient
+   * @param limit - maximum number of patients in the page
+   * @param after - cursor returned with the previous page, null for the first page
+   * @param sort - property to sort by, optionally followed by ",asc" or ",desc"
+   * @return the page of patients and the cursor of the following page
+   */
+  private CursorPage<Patient> findPatientPage(Specification<Patient> filter, Integer limit,
+      String after, String sort) {
+    if (limit == null || limit < 1 || limit > CursorPage.MAX_LIMIT) {
+      throw new BadRequest(StringConstants.PAGE_LIMIT_INVALID(CursorPage.MAX_LIMIT));
+    }
+    String requestedSort = sort == null || sort.isEmpty() ? PatientSort.ID.getProperty() : sort;
+    String[] sortParts = requestedSort.split(",");
+    PatientSort patientSort = PatientSort.fromProperty(sortParts[0].trim());
+    boolean descending = sortParts.length > 1 && sortParts[1].trim().equalsIgnoreCase("desc");
+    if (patientSort == null || sortParts.length > 2 || (sortParts.length == 2 && !descending
+        && !sortParts[1].trim().equalsIgnoreCase("asc"))) {
+      List<String> sortableFields = new ArrayList<>();
+      for (PatientSort value : PatientSort.values()) {
+        sortableFields.add(value.getProperty());
+      }
+      throw new BadRequest(StringConstants.SORT_INVALID(sortableFields));
+    }
+    String sortKey = patientSort.getProperty() + (descending ? ",desc" : ",asc");
+
+    KeysetCursor cursor = null;
+    if (after != null && !after.isEmpty()) {
+      cursor = KeysetCursor.decode(after);
+      if (!cursor.getSort().equals(sortKey)) {
+        throw new BadRequest(StringConstants.CURSOR_INVALID);
+      }
+      try {
+        patientSort.parse(cursor.getValue());
+      } catch (NumberFormatException e) {
+        throw new BadRequest(StringConstants.CURSOR_INVALID);
+      }
+    }
+
     List<Patient> patients;
-    try{
-      patients = patientRepository.findAll();
-    }catch (DataAccessException e){
+    try {
+      //read one extra row to find out whether there is a following page
+      patients = patientRepository.findPage(filter, patientSort, descending, cursor, limit + 1);
+    } catch (DataAccessException e) {
+      logger.error(e.getMessage());
+      throw new ServiceUnavailable(e.getMessage());
+    }
+
+    String nextCursor = null;
+    if (patients.size() > limit) {
+      patients = new ArrayList<>(patients.subList(0, limit));
+      Patient last = patients.get(limit - 1);
+      nextCursor = new KeysetCursor(sortKey, last.getId(), patientSort.valueOf(last)).encode();
+    }
+    return new CursorPage<>(patients, nextCursor);
+  }
+
+  /**
+   * Retrieves one page of patient summaries in patient id order. Each page is a single range read
+   * of the summary table's primary key; no encounter is loaded.
+   *
+   * @param limit - maximum number of summaries in the page
+   * @param after - cursor returned with the previous page, null for the first page
+   * @return the page of summaries and the cursor of the following page
+   */
+  public CursorPage<PatientSummary> getPatientSummaries(Integer limit, String after) {
+    if (limit == null || limit < 1 || limit > CursorPage.MAX_LIMIT) {
+      throw new BadRequest(StringConstants.PAGE_LIMIT_INVALID(CursorPage.MAX_LIMIT));
+    }
+
+    //patient ids start at 1, so the first page starts after 0
+    long afterId = 0;
+    if (after != null && !after.isEmpty()) {
+      KeysetCursor cursor = KeysetCursor.decode(after);
+      if (!cursor.getSort().equals(SUMMARY_SORT)) {
+        throw new BadRequest(StringConstants.CURSOR_INVALID);
+      }
+      afterId = cursor.getId();
+    }
+
+    List<PatientSummary> summaries;
+    try {
+      //read one extra row to find out whether there is a following page
+      summaries = patientSummaryRepository.findByPatientIdGreaterThanOrderByPatientIdAsc(afterId,
+          PageRequest.of(0, limit + 1));
+    } catch (DataAccessException e) {
+      logger.error(e.getMessage());
+      throw new ServiceUnavailable(e.getMessage());
+    }
+
+    String nextCursor = null;
+    if (summaries.size() > limit) {
+      summaries = new ArrayList<>(summaries.subList(0, limit));
+      Long lastId = summaries.get(limit - 1).getPatientId();
+      nextCursor = new KeysetCursor(SUMMARY_SORT, lastId, lastId.toString()).encode();
+    }
+    return new CursorPage<>(summaries, nextCursor);
+  }
+
+  /**
+   * Writes every patient to the output stream as newline delimited JSON, one patient per line.
+   * Patients are read from a forward-only cursor and the persistence context is cleared every
+   * STREAM_FETCH_SIZE rows, so memory use does not grow with the table.
+   *
+   * @param outputStream - stream to write the patients to
+   * @throws IOException if writing to the stream fails
+   */
+  @Transactional(readOnly = true)
+  public void streamPatients(OutputStream outputStream) throws IOException {
+    ObjectWriter writer = objectMapper.writerFor(Patient.class)
+        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    try (Stream<Patient> patients = patientRepository.streamAllByOrderByIdAsc();
+        JsonGenerator generator = writer.getFactory().createGenerator(outputStream)) {
+      generator.setRootValueSeparator(null);
+      int written = 0;
+      for (Iterator<Patient> iterator = patients.iterator(); iterator.hasNext(); ) {
+        writer.writeValue(generator, iterator.next());
+        generator.writeRaw('\n');
+        if (++written % PatientRepository.STREAM_FETCH_SIZE == 0) {
+          generator.flush();
+          entityManager.clear();
+        }
+      }
+    } catch (DataAccessException e) {
       logger.error(e.getMessage());
       throw new ServiceUnavailable(e.getMessage());
     }
+  }
+
+  /**
+   * Retrieves maps of patient id's and corresponding emails to compare and validate unique emails.
+   * Served from the in-memory email snapshot when it is enabled, otherwise from a two column query.
+   * @return map of patient ids and emails
+   */
+  public HashMap<Long, String> getPatientEmails(){
+    if(patientEmailSnapshot.isEnabled()){
+      return patientEmailSnapshot.getEmails(this::findPatientEmails);
+    }
     HashMap<Long, String> patientEmails = new HashMap<>();
-    patients.forEach(patient -> patientEmails.put(patient.getId(), patient.getEmail()));
+    findPatientEmails().forEach(
+        patientEmail -> patientEmails.put(patientEmail.getId(), patientEmail.getEmail()));
 
     return patientEmails;
   };
 
   /**
-   * Search for single patient by patient id.
+   * Retrieves the entity tag of the current patient emails, which changes whenever a patient is
+   * saved, updated or deleted.
+   * @return quoted entity tag, or null when the email snapshot is disabled
+   */
+  public String getPatientEmailsETag(){
+    if(!patientEmailSnapshot.isEnabled()){
+      return null;
+    }
+    return patientEmailSnapshot.getETag(this::findPatientEmails);
+  }
+
+  /**
+   * Reads every patient id and email without loading the patients themselves.
+   * @return list of patient ids and emails
+   */
+  private List<PatientEmail> findPatientEmails(){
+    try{
+      return patientRepository.findAllEmails();
+    }catch (DataAccessException e){
+      logger.error(e.getMessage());
+      throw new ServiceUnavailable(e.getMessage());
+    }
+  }
+
+  /**
+   * Search for single patient by patient id, served from the patient cache when it is enabled.
    *
    * @param id Long id
    * @return a single patient object.
@@ -76,7 +371,10 @@ public class PatientServiceImpl implements PatientService {
     Patient patient;
 
     try{
-      patient = patientRepository.findById(id).orElse(null);
+      //the session may hold the patient as the lazy proxy of an encounter loaded before it, which
+      //must not be cached and serialized once the session is gone
+      patient = patientCache.get(id, patientId -> patientRepository.findById(patientId)
+          .map(found -> (Patient) Hibernate.unproxy(found)).orElse(null));
     } catch (DataAccessException e){
       logger.error(e.getMessage());
       throw new ServiceUnavailable(e.getMessage());
@@ -90,6 +388,64 @@ public class PatientServiceImpl implements PatientService {
     }
   }
 
+  /**
+   * Retrieves a patient together with its encounters in one query. The patient cache is bypassed,
+   * as it holds patients without their encounters.
+   *
+   * @param id - id of the patient
+   * @return the patient and its encounters, ordered by date
+   */
+  public PatientWithEncounters getPatientWithEncountersById(Long id) {
+    List<Patient> found;
+
+    try {
+      found = patientRepository.findWithEncountersByIdIn(Collections.singletonList(id));
+    } catch (DataAccessException e) {
+      logger.error(e.getMessage());
+      throw new ServiceUnavailable(e.getMessage());
+    }
+
+    if (!found.isEmpty()) {
+      Patient patient = (Patient) Hibernate.unproxy(found.get(0));
+      return new PatientWithEncounters(patient, new ArrayList<>(patient.getEncounters()));
+    } else {
+      logger.info(LoggingConstants.GET_BY_ID_FAILURE(id));
+      throw new ResourceNotFound(LoggingConstants.GET_BY_ID_FAILURE(id));
+    }
+  }
+
+  /**
+   * Loads the encounters of the given patients with one fetch join query per CursorPage.MAX_LIMIT
+   * patients, rather than one query per patient as reading each lazy collection would.
+   *
+   * @param patients - the patients to load the encounters of
+   * @return each patient with its encounters, in the order of the given patients
+   */
+  public List<PatientWithEncounters> withEncounters(List<Patient> patients) {
+    Map<Long, List<Encounter>> encounters = new HashMap<>();
+
+    try {
+      for (int first = 0; first < patients.size(); first += CursorPage.MAX_LIMIT) {
+        List<Long> ids = patients.subList(first,
+            Math.min(first + CursorPage.MAX_LIMIT, patients.size())).stream()
+            .map(Patient::getId).collect(Collectors.toList());
+        for (Patient loaded : patientRepository.findWithEncountersByIdIn(ids)) {
+          encounters.put(loaded.getId(), new ArrayList<>(loaded.getEncounters()));
+        }
+      }
+    } catch (DataAccessException e) {
+      logger.error(e.getMessage());
+      throw new ServiceUnavailable(e.getMessage());
+    }
+
+    List<PatientWithEncounters> withEncounters = new ArrayList<>(patients.size());
+    for (Patient patient : patients) {
+      withEncounters.add(new PatientWithEncounters(patient,
+          encounters.getOrDefault(patient.getId(), Collections.emptyList())));
+    }
+    return withEncounters;
+  }
+
   /**
    * Persists a patient to the database
    *
@@ -103,30 +459,22 @@ public class PatientServiceImpl implements PatientService {
       throw new BadRequest(String.join("\n", patientErrors));
     }
 
-    if(patientEmailAlreadyExists(newPatient)){
-      throw new RequestConflict(StringConstants.EMAIL_ALREADY_EXISTS);
-    }
-
-    //set gender to be capitalized correctly if it is not.
-    String lowerCaseGender = newPatient.getGender().toLowerCase();
-    String formattedGender = lowerCaseGender.substring(0,1).toUpperCase() + lowerCaseGender.substring(1);
-    newPatient.setGender(formattedGender);
+    //set gender to be trimmed and capitalized correctly if it is not.
+    newPatient.setGender(FormatMatchers.formatGender(newPatient.getGender()));
 
     //set encounters to an empty array list.
     List<Encounter> encounters = new ArrayList<>();
     newPatient.setEncounters(encounters);
 
-    Patient savedPatient;
-
-    try {
-      savedPatient = patientRepository.save(newPatient);
-    } catch (DataAccessException e){
-      logger.error(e.getMessage());
-      throw new ServiceUnavailable(e.getMessage());
-    }
-
-
-    return savedPatient;
+    //check and insert under the email's lock so concurrent requests cannot both claim it
+    return patientEmailIndex.withEmailLock(newPatient.getEmail(), () -> {
+      if(patientEmailAlreadyExists(newPatient)){
+        throw new RequestConflict(StringConstants.EMAIL_ALREADY_EXISTS);
+      }
+      Patient savedPatient = persistPatient(newPatient, true, false);
+      patientEmailSnapshot.put(savedPatient.getId(), savedPatient.getEmail());
+      return savedPatient;
+    });
   }
 
 
@@ -154,16 +502,14 @@ public class PatientServiceImpl implements PatientService {
     if(!patientErrors.isEmpty()){
       throw new BadRequest(String.join("\n", patientErrors));
     }
-    if(patientEmailAlreadyExists(updatedPatient)){
-      throw new RequestConflict(StringConstants.EMAIL_ALREADY_EXISTS);
-    }
 
-    //set gender to be capitalized correctly if it is not.
-    String lowerCaseGender = updatedPatient.getGender().toLowerCase();
-    String formattedGender = lowerCaseGender.substring(0,1).toUpperCase() + lowerCaseGender.substring(1);
-    updatedPatient.setGender(formattedGender);
+    //set gender to be trimmed and capitalized correctly if it is not.
+    updatedPatient.setGender(FormatMatchers.formatGender(updatedPatient.getGender()));
+
+    //the vitals quantiles are sliced by gender and age band
+    boolean sliceChanged = !Objects.equals(findPatient.getGender(), updatedPatient.getGender())
+        || AgeBand.of(findPatient.getAge()) != AgeBand.of(updatedPatient.getAge());
 
-    Patient savedPatient;
     findPatient.setId(id);
     findPatient.setFirstName(updatedPatient.getFirstName());
     findPatient.setLastName(updatedPatient.getLastName());
@@ -179,129 +525,126 @@ public class PatientServiceImpl implements PatientService {
     findPatient.setInsurance(updatedPatient.getInsurance());
     findPatient.setGender(updatedPatient.getGender());
 
+    //check and update under the email's lock so concurrent requests cannot both claim it
+    return patientEmailIndex.withEmailLock(findPatient.getEmail(), () -> {
+      if(patientEmailAlreadyExists(findPatient)){
+        throw new RequestConflict(StringConstants.EMAIL_ALREADY_EXISTS);
+      }
+      Patient savedPatient = persistPatient(findPatient, false, sliceChanged);
+      patientCache.invalidate(id);
+      patientEmailSnapshot.put(savedPatient.getId(), savedPatient.getEmail());
+      return savedPatient;
+    });
+  }
+
+  /**
+   * Saves a patient and, in the same transaction, creates its summary or copies its name to it and
+   * publishes the PatientChange that the patient indexes apply once it commits. A unique email
+   * violation raised by the database is reported as a conflict, and any other integrity violation
+   * as the service being unavailable.
+   *
+   * @param patient - the patient to persist
+   * @param created - true for a new patient, false for an update
+   * @param sliceChanged - true if an update changes the patient's gender or age band
+   * @return the persisted patient object
+   */
+  private Patient persistPatient(Patient patient, boolean created, boolean sliceChanged){
     try {
-      savedPatient = patientRepository.save(findPatient);
-    }catch (DataAccessException e){
+      return transactionTemplate.execute(status -> {
+        Patient savedPatient = patientRepository.save(patient);
+        if(created){
+          patientSummaryRepository.insertForPatients(
+              Collections.singletonList(savedPatient.getId()));
+        } else {
+          patientSummaryRepository.updateName(savedPatient.getId(), savedPatient.getFirstName(),
+              savedPatient.getLastName());
+        }
+        eventPublisher.publishEvent(PatientChange.saved(savedPatient, sliceChanged));
+        return savedPatient;
+      });
+    } catch (DataIntegrityViolationException e){
+      logger.error(e.getMessage());
+      if(PatientEmailIndex.isEmailViolation(e)){
+        throw new RequestConflict(StringConstants.EMAIL_ALREADY_EXISTS);
+      }
+      throw new ServiceUnavailable(e.getMessage());
+    } catch (DataAccessException e){
       logger.error(e.getMessage());
       throw new ServiceUnavailable(e.getMessage());
     }
-    return savedPatient;
   }
 
   /**
-   * Deletes patient in the database.
+   * Deletes patient in the database, refusing if the patient has encounters. Transactional itself,
+   * as the call to the two argument overload does not go through the proxy.
    * @param id - id of the patient to be deleted
    */
+  @Transactional
   public void deletePatientById(Long id){
-    Patient findPatient;
-    try{
-       findPatient = patientRepository.findById(id).orElse(null);
-    }catch (DataAccessException e){
+    deletePatientById(id, null);
+  }
+
+  /**
+   * Deletes patient in the database. The encounter check is a single existence query and the
+   * patient, and in the cascade and archive modes its encounters, are each removed with a single
+   * statement. The published PatientChange drops the patient from the in-memory indexes once the
+   * delete commits.
+   * @param id - id of the patient to be deleted
+   * @param mode - "restrict" (the default) to refuse if the patient has encounters, "cascade" to
+   * delete them with the patient, or "archive" to move them to the archived encounters first
+   */
+  @Transactional
+  public void deletePatientById(Long id, String mode){
+    PatientDeleteMode deleteMode = PatientDeleteMode.parse(mode);
+    int deleted;
+    boolean encountersDeleted = false;
+    try {
+      if(deleteMode == PatientDeleteMode.RESTRICT && encounterRepository.existsByPatientId(id)){
+        logger.error(LoggingConstants.DELETE_PATIENT_CONFLICT);
+        throw new RequestConflict(LoggingConstants.DELETE_PATIENT_CONFLICT);
+      }
+      if(deleteMode == PatientDeleteMode.ARCHIVE){
+        encounterRepository.archiveByPatientId(id);
+      }
+      if(deleteMode != PatientDeleteMode.RESTRICT){
+        encountersDeleted = encounterRepository.deleteByPatientId(id) > 0;
+      }
+      patientSummaryRepository.removeByPatientId(id);
+      deleted = patientRepository.removeById(id);
+    } catch (DataIntegrityViolationException e) {
+      //an encounter was added after the check
+      logger.error(e.getMessage());
+      throw new RequestConflict(LoggingConstants.DELETE_PATIENT_CONFLICT);
+    } catch (DataAccessException e) {
       logger.error(e.getMessage());
       throw new ServiceUnavailable(e.getMessage());
     }
 
-    if(findPatient == null){
+    if(deleted == 0){
       logger.error(LoggingConstants.DELETE_PATIENT_FAILURE);
       throw new ResourceNotFound(LoggingConstants.DELETE_PATIENT_FAILURE);
     }
-
-    if(findPatient.getEncounters() != null && !findPatient.getEncounters().isEmpty()){
-      logger.error(LoggingConstants.DELETE_PATIENT_CONFLICT);
-      throw new RequestConflict(LoggingConstants.DELETE_PATIENT_CONFLICT);
-    }
-
-      try {
-        patientRepository.deleteById(id);
-      } catch (DataAccessException e) {
-        logger.error(e.getMessage());
-        throw new ServiceUnavailable(e.getMessage());
-      }
+    patientCache.invalidateAfterCommit(id);
+    patientEmailSnapshot.removeAfterCommit(id);
+    eventPublisher.publishEvent(PatientChange.deleted(id, encountersDeleted));
   }
 
   /**
-   * Helper method that reads a patient and validates its properties
-   *
-   * @param patient patient to be validated
-   * @return a list of errors
+   * Reads the patient cache counters.
+   * @return hit, miss and eviction counts and the current size
    */
-  public List<String> getPatientErrors(Patient patient) {
-    List<String> errors = new ArrayList<>();
-    List<String> emptyFields = getPatientFieldsEmptyOrNull(patient).get("emptyFields");
-    List<String> nullFields = getPatientFieldsEmptyOrNull(patient).get("nullFields");
-    if (!nullFields.isEmpty()) {
-      errors.add(StringConstants.FIELDS_NULL(nullFields));
-    }
-    if (!emptyFields.isEmpty()) {
-      errors.add(StringConstants.FIELDS_EMPTY(emptyFields));
-    }
-    if(!validateNameFormat(patient.getFirstName()) || !validateNameFormat(patient.getLastName())){
-      errors.add(StringConstants.NAME_INVALID);
-    }
-    if(!validateSSN(patient)){
-      errors.add(StringConstants.SSN_INVALID);
-    }
-    if(!validateEmailFormat(patient)){
-      errors.add(StringConstants.EMAIL_INVALID);
-    }
-    if(!validateStateFormat(patient)){
-      errors.add(StringConstants.STATE_INVALID);
-    }
-    if(!validatePostalCode(patient)){
-      errors.add(StringConstants.POSTAL_CODE_INVALID);
-    }
-    if(!validateNumber(patient.getAge())){
-      errors.add(StringConstants.NUMBER_INVALID("Age"));
-    }
-    if(!validateNumber(patient.getHeight())){
-      errors.add(StringConstants.NUMBER_INVALID("Height"));
-    }
-    if(!validateNumber(patient.getWeight())){
-      errors.add(StringConstants.NUMBER_INVALID("Weight"));
-    }
-    if(!validateGender(patient)){
-      errors.add(StringConstants.GENDER_INVALID);
-    }
-
-    return errors;
+  public PatientCacheStats getPatientCacheStats(){
+    return patientCache.getStats();
   }
 
-
   /**
-   * Reads patient fields and checks for fields that are empty or null
+   * Helper method that reads a patient and validates its properties
    *
    * @param patient patient to be validated
-   * @return A Hashmap {"emptyFields": List of empty fields, "nullFields": list of null fields}
+   * @return a list of errors
    */
-  public HashMap<String, List<String>> getPatientFieldsEmptyOrNull(Patient patient) {
-    List<Field> patientFields = Arrays.asList(Patient.class.getDeclaredFields());
-    List<String> patientFieldNames = new ArrayList<>();
-    List<String> emptyFields = new ArrayList<>();
-    List<String> nullFields = new ArrayList<>();
-    HashMap<String, List<String>> results = new HashMap<>();
-    //Get patient field names
-    patientFields.forEach((field -> patientFieldNames.add(field.getName())));
-    //Remove id as patient will not have an id before it is saved
-    patientFieldNames.remove("id");
-    //Remove encounters field as it can and should be null
-    patientFieldNames.remove("encounters");
-    //Convert patient to a HashMap
-    ObjectMapper mapper = new ObjectMapper();
-    Map patientMap = mapper.convertValue(patient, HashMap.class);
-    //Loop through each fieldName to retrieve each patient mapping value of the field
-    patientFieldNames.forEach((field) -> {
-      //Check if the value for the patient's field is null or empty and place in the corresponding list
-      if (patientMap.get(field) == null) {
-        nullFields.add(field);
-      } else if (patientMap.get(field).toString().trim() == "") {
-        emptyFields.add(field);
-      }
-    });
-
-    //place each list in the results
-    results.put("emptyFields", emptyFields);
-    results.put("nullFields", nullFields);
-    return results;
+  public List<String> getPatientErrors(Patient patient) {
+    return VALIDATION_PLAN.validate(patient);
   }
 
   /**
@@ -311,13 +654,7 @@ public class PatientServiceImpl implements PatientService {
    * @return boolean if the name string is valid
    */
   public Boolean validateNameFormat(String nameString){
-    String regex = "^[a-zA-Z\\s'-]+$";
-    Pattern pattern = Pattern.compile(regex);
-    if (nameString != null && !nameString.isEmpty()) {
-      Matcher matcher = pattern.matcher(nameString);
-      return matcher.matches();
-    }
-    return true;
+    return FormatMatchers.matchesIfPresent(nameString, FormatMatchers::isName);
   };
 
   /**
@@ -327,13 +664,7 @@ public class PatientServiceImpl implements PatientService {
    * @return boolean if patient has a valid ssn
    */
   public Boolean validateSSN(Patient newPatient){
-    String regex = "^\\d{3}-\\d{2}-\\d{4}$";
-    Pattern pattern = Pattern.compile(regex);
-    if (newPatient.getSsn() != null && !newPatient.getSsn().isEmpty()) {
-      Matcher matcher = pattern.matcher(newPatient.getSsn());
-      return matcher.matches();
-    }
-    return true;
+    return FormatMatchers.matchesIfPresent(newPatient.getSsn(), FormatMatchers::isSsn);
   };
 
   /**
@@ -343,14 +674,7 @@ public class PatientServiceImpl implements PatientService {
    * @return boolean if patient's email is valid
    */
   public Boolean validateEmailFormat(Patient newPatient){
-    String regex = "^[A-Za-z0-9]+@[A-Za-z]+\\.[A-Za-z]+$";
-    Pattern pattern = Pattern.compile(regex);
-    if (newPatient.getEmail() != null && !newPatient.getEmail().isEmpty()) {
-      Matcher matcher = pattern.matcher(newPatient.getEmail());
-      return matcher.matches();
-    }
-    return true;
-
+    return FormatMatchers.matchesIfPresent(newPatient.getEmail(), FormatMatchers::isEmail);
   };
 
   /**
@@ -360,13 +684,7 @@ public class PatientServiceImpl implements PatientService {
    * @return boolean if patient has valid state string
    */
   public Boolean validateStateFormat(Patient newPatient){
-    String regex = "^[A-Z]{2}$";
-    Pattern pattern = Pattern.compile(regex);
-    if (newPatient.getState() != null && !newPatient.getState().isEmpty()) {
-      Matcher matcher = pattern.matcher(newPatient.getState());
-      return matcher.matches();
-    }
-    return true;
+    return FormatMatchers.matchesIfPresent(newPatient.getState(), FormatMatchers::isState);
   };
 
   /**
@@ -376,16 +694,7 @@ public class PatientServiceImpl implements PatientService {
    * @return boolean if patient has valid postal code
    */
   public Boolean validatePostalCode(Patient newPatient){
-    String regex1 = "^\\d{5}$";
-    String regex2 = "^\\d{5}-\\d{4}$";
-    Pattern pattern1 = Pattern.compile(regex1);
-    Pattern pattern2 = Pattern.compile(regex2);
-    if (newPatient.getPostal() != null && !newPatient.getPostal().isEmpty()) {
-      Matcher matcher1 = pattern1.matcher(newPatient.getPostal());
-      Matcher matcher2 = pattern2.matcher(newPatient.getPostal());
-      return matcher1.matches() || matcher2.matches();
-    }
-    return true;
+    return FormatMatchers.matchesIfPresent(newPatient.getPostal(), FormatMatchers::isPostal);
   };
 
   /**
@@ -407,41 +716,28 @@ public class PatientServiceImpl implements PatientService {
    * @return boolean if gender is valid
    */
   public Boolean validateGender(Patient newPatient){
-    if(newPatient.getGender() != null && !newPatient.getGender().isEmpty()) {
-      String gender = newPatient.getGender().toLowerCase().trim();
-      if (gender.equals("male") || gender.equals("female") || gender.equals("other")) {
-        return true;
-      }
-      return false;
-    }
-    return true;
+    return FormatMatchers.matchesIfPresent(newPatient.getGender(), FormatMatchers::isGender);
   };
   /**
-   * Checks whether the email attempting to be added or updated already exists in the database.
+   * Checks whether the email attempting to be added or updated already belongs to another patient,
+   * using the indexed, case-normalized email column.
    * @param newPatient - patient to be saved
    * @return Boolean if the email exists already.
    */
   public Boolean patientEmailAlreadyExists(Patient newPatient){
-    List<Patient> allPatients;
+    if(newPatient.getEmail() == null){
+      return false;
+    }
+    String normalizedEmail = PatientEmailIndex.normalize(newPatient.getEmail());
     try{
-      allPatients = patientRepository.findAll();
+      if(newPatient.getId() == null){
+        return patientRepository.existsByNormalizedEmail(normalizedEmail);
+      }
+      return patientRepository.existsByNormalizedEmailAndIdNot(normalizedEmail, newPatient.getId());
     } catch (DataAccessException e){
       logger.error(e.getMessage());
       throw new ServiceUnavailable(e.getMessage());
     }
-    if(newPatient.getEmail() != null){
-      for(Patient patient : allPatients){
-        if (patient.getEmail().equals(newPatient.getEmail()) && !patient.getId().equals(newPatient.getId())) {
-        return true;
-          }
-      }
-    }
-    return false;
   }
 
-  }
-
-
-
-
-
+  }
\ No newline at end of file
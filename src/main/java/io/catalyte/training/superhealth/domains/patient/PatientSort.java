@@ -0,0 +1,61 @@
+package io.catalyte.training.superhealth.domains.patient;
+
+import java.util.function.Function;
+
+/**
+ * Columns a patient listing can be keyset paginated on. Every key is backed by an index on
+ * (column, id) declared on the Patient entity, with id breaking ties between equal values.
+ */
+public enum PatientSort {
+  ID("id", Patient::getId, Long::valueOf),
+  FIRST_NAME("firstName", Patient::getFirstName, value -> value),
+  LAST_NAME("lastName", Patient::getLastName, value -> value),
+  EMAIL("email", Patient::getEmail, value -> value),
+  AGE("age", Patient::getAge, Integer::valueOf);
+
+  private final String property;
+  private final Function<Patient, Comparable<?>> reader;
+  private final Function<String, Comparable<?>> parser;
+
+  PatientSort(String property, Function<Patient, Comparable<?>> reader,
+      Function<String, Comparable<?>> parser) {
+    this.property = property;
+    this.reader = reader;
+    this.parser = parser;
+  }
+
+  /**
+   * Finds the sort key for an entity property name.
+   *
+   * @param property - property name, e.g. "lastName"
+   * @return the sort key, or null if the property cannot be sorted on
+   */
+  public static PatientSort fromProperty(String property) {
+    for (PatientSort sort : values()) {
+      if (sort.property.equals(property)) {
+        return sort;
+      }
+    }
+    return null;
+  }
+
+  public String getProperty() {
+    return property;
+  }
+
+  /**
+   * @param patient patient to read
+   * @return the patient's value for this key, as written into a cursor
+   */
+  public String valueOf(Patient patient) {
+    return String.valueOf(reader.apply(patient));
+  }
+
+  /**
+   * @param value value read from a cursor
+   * @return the value converted to the property's type
+   */
+  public Comparable<?> parse(String value) {
+    return parser.apply(value);
+  }
+}
@@ -0,0 +1,51 @@
+package io.catalyte.training.superhealth.domains.patient;
+
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Filters for patient queries. Each is a plain comparison on one column, so the database can answer
+ * it from the indexes declared on Patient.
+ */
+public final class PatientSpecifications {
+
+  private PatientSpecifications() {
+  }
+
+  /**
+   * Combines the filters present in a search with AND.
+   *
+   * @param search - search filters, each may be null
+   * @return the combined filter, or null if the search has no filters
+   */
+  public static Specification<Patient> matching(PatientSearch search) {
+    Specification<Patient> filter = null;
+    filter = and(filter, equalTo("state", search.getState()));
+    filter = and(filter, equalTo("postal", search.getPostal()));
+    filter = and(filter, equalTo("insurance", search.getInsurance()));
+    filter = and(filter, equalTo("gender", search.getGender()));
+    if (search.getMinAge() != null) {
+      filter = and(filter, (patient, query, builder) ->
+          builder.greaterThanOrEqualTo(patient.get("age"), search.getMinAge()));
+    }
+    if (search.getMaxAge() != null) {
+      filter = and(filter, (patient, query, builder) ->
+          builder.lessThanOrEqualTo(patient.get("age"), search.getMaxAge()));
+    }
+    return filter;
+  }
+
+  private static Specification<Patient> equalTo(String property, String value) {
+    if (value == null || value.isEmpty()) {
+      return null;
+    }
+    return (patient, query, builder) -> builder.equal(patient.get(property), value);
+  }
+
+  private static Specification<Patient> and(Specification<Patient> filter,
+      Specification<Patient> next) {
+    if (next == null) {
+      return filter;
+    }
+    return filter == null ? Specification.where(next) : filter.and(next);
+  }
+}
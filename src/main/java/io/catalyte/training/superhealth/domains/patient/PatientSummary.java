@@ -0,0 +1,144 @@
+package io.catalyte.training.superhealth.domains.patient;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateDeserializer;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateSerializer;
+import io.catalyte.training.superhealth.domains.encounter.Cents;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * Read model of one patient for dashboards: the patient's name with the number of encounters, the
+ * date of the latest one and their lifetime cost. Rows are written in the same transaction as the
+ * patient or encounter change they reflect, so listing them never touches the encounter table.
+ */
+@Entity
+public class PatientSummary {
+
+  @Id
+  private Long patientId;
+
+  private String firstName;
+
+  private String lastName;
+
+  private Long encounterCount;
+
+  @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+  @JsonSerialize(using = LocalDateSerializer.class)
+  @JsonDeserialize(using = LocalDateDeserializer.class)
+  private LocalDate lastVisit;
+
+  @JsonIgnore
+  private Long totalCostCents;
+
+  public PatientSummary() {
+  }
+
+  public PatientSummary(Long patientId, String firstName, String lastName, Long encounterCount,
+      LocalDate lastVisit, Long totalCostCents) {
+    this.patientId = patientId;
+    this.firstName = firstName;
+    this.lastName = lastName;
+    this.encounterCount = encounterCount;
+    this.lastVisit = lastVisit;
+    this.totalCostCents = totalCostCents;
+  }
+
+  public Long getPatientId() {
+    return patientId;
+  }
+
+  public void setPatientId(Long patientId) {
+    this.patientId = patientId;
+  }
+
+  public String getFirstName() {
+    return firstName;
+  }
+
+  public void setFirstName(String firstName) {
+    this.firstName = firstName;
+  }
+
+  public String getLastName() {
+    return lastName;
+  }
+
+  public void setLastName(String lastName) {
+    this.lastName = lastName;
+  }
+
+  public Long getEncounterCount() {
+    return encounterCount;
+  }
+
+  public void setEncounterCount(Long encounterCount) {
+    this.encounterCount = encounterCount;
+  }
+
+  public LocalDate getLastVisit() {
+    return lastVisit;
+  }
+
+  public void setLastVisit(LocalDate lastVisit) {
+    this.lastVisit = lastVisit;
+  }
+
+  /**
+   * @return the lifetime cost of the patient's encounters as an amount
+   */
+  public BigDecimal getTotalCost() {
+    return Cents.toAmount(totalCostCents);
+  }
+
+  @JsonIgnore
+  public Long getTotalCostCents() {
+    return totalCostCents;
+  }
+
+  public void setTotalCostCents(Long totalCostCents) {
+    this.totalCostCents = totalCostCents;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    PatientSummary that = (PatientSummary) o;
+    return Objects.equals(patientId, that.patientId)
+        && Objects.equals(firstName, that.firstName)
+        && Objects.equals(lastName, that.lastName)
+        && Objects.equals(encounterCount, that.encounterCount)
+        && Objects.equals(lastVisit, that.lastVisit)
+        && Objects.equals(totalCostCents, that.totalCostCents);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(patientId, firstName, lastName, encounterCount, lastVisit,
+        totalCostCents);
+  }
+
+  @Override
+  public String toString() {
+    return "PatientSummary{" +
+        "patientId=" + patientId +
+        ", firstName='" + firstName + '\'' +
+        ", lastName='" + lastName + '\'' +
+        ", encounterCount=" + encounterCount +
+        ", lastVisit=" + lastVisit +
+        ", totalCostCents=" + totalCostCents +
+        '}';
+  }
+}
@@ -0,0 +1,102 @@
+package io.catalyte.training.superhealth.domains.patient;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Writes to the patient summaries are single statements that change the row in place, so
+ * concurrent encounter writes for one patient never overwrite each other's counts. They are meant
+ * to run in the transaction of the patient or encounter write they reflect.
+ */
+@Repository
+public interface PatientSummaryRepository extends JpaRepository<PatientSummary, Long> {
+
+  /**
+   * Reads the summaries with a patient id greater than the given one, in patient id order. The
+   * page is a range scan of the primary key.
+   */
+  List<PatientSummary> findByPatientIdGreaterThanOrderByPatientIdAsc(Long patientId,
+      Pageable pageable);
+
+  /**
+   * Creates the summaries of the given patients from their current encounters, with one
+   * statement.
+   *
+   * @return the number of summaries created
+   */
+  @Transactional
+  @Modifying(flushAutomatically = true)
+  @Query("insert into PatientSummary (patientId, firstName, lastName, encounterCount, lastVisit,"
+      + " totalCostCents) select p.id, p.firstName, p.lastName, count(e), max(e.date),"
+      + " coalesce(sum(e.totalCostCents), 0L) from Patient p left join p.encounters e"
+      + " where p.id in :patientIds group by p.id, p.firstName, p.lastName")
+  int insertForPatients(@Param("patientIds") Collection<Long> patientIds);
+
+  /**
+   * Creates the summaries of the patients with ids in the given range from their current
+   * encounters, with one statement. The patients are read with a range scan of the primary key,
+   * so large seeded ranges need no list of ids.
+   *
+   * @return the number of summaries created
+   */
+  @Transactional
+  @Modifying(flushAutomatically = true)
+  @Query("insert into PatientSummary (patientId, firstName, lastName, encounterCount, lastVisit,"
+      + " totalCostCents) select p.id, p.firstName, p.lastName, count(e), max(e.date),"
+      + " coalesce(sum(e.totalCostCents), 0L) from Patient p left join p.encounters e"
+      + " where p.id between :firstId and :lastId group by p.id, p.firstName, p.lastName")
+  int insertForPatientIdsBetween(@Param("firstId") Long firstId, @Param("lastId") Long lastId);
+
+  /**
+   * Copies a patient's changed name to the summary.
+   */
+  @Transactional
+  @Modifying
+  @Query("update PatientSummary s set s.firstName = :firstName, s.lastName = :lastName"
+      + " where s.patientId = :patientId")
+  int updateName(@Param("patientId") Long patientId, @Param("firstName") String firstName,
+      @Param("lastName") String lastName);
+
+  /**
+   * Counts a new encounter. The last visit only moves forward, so it is compared against the row
+   * as it is when locked, not as it was read.
+   */
+  @Transactional
+  @Modifying(flushAutomatically = true)
+  @Query("update PatientSummary s set s.encounterCount = s.encounterCount + 1,"
+      + " s.totalCostCents = s.totalCostCents + :totalCostCents,"
+      + " s.lastVisit = case when s.lastVisit is null or s.lastVisit < :date then :date"
+      + " else s.lastVisit end where s.patientId = :patientId")
+  int addEncounter(@Param("patientId") Long patientId, @Param("date") LocalDate date,
+      @Param("totalCostCents") Long totalCostCents);
+
+  /**
+   * Uncounts an encounter that moved or changed. The last visit is read again from the patient's
+   * encounters, a backwards scan of the (patientId, date, id) index, since the removed encounter
+   * may have been the latest.
+   */
+  @Transactional
+  @Modifying(flushAutomatically = true)
+  @Query("update PatientSummary s set s.encounterCount = s.encounterCount - 1,"
+      + " s.totalCostCents = s.totalCostCents - :totalCostCents,"
+      + " s.lastVisit = (select max(e.date) from Encounter e where e.patient.id = :patientId)"
+      + " where s.patientId = :patientId")
+  int removeEncounter(@Param("patientId") Long patientId,
+      @Param("totalCostCents") Long totalCostCents);
+
+  /**
+   * Deletes a patient's summary with a single statement.
+   */
+  @Transactional
+  @Modifying
+  @Query("delete from PatientSummary s where s.patientId = :patientId")
+  int removeByPatientId(@Param("patientId") Long patientId);
+}
@@ -0,0 +1,30 @@
+package io.catalyte.training.superhealth.domains.patient;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import io.catalyte.training.superhealth.domains.encounter.Encounter;
+import java.util.List;
+
+/**
+ * A patient serialized with its encounters, for requests with include=encounters. The patient's
+ * own properties are written at the top level, as they are without the encounters.
+ */
+public class PatientWithEncounters {
+
+  @JsonUnwrapped
+  private final Patient patient;
+
+  private final List<Encounter> encounters;
+
+  public PatientWithEncounters(Patient patient, List<Encounter> encounters) {
+    this.patient = patient;
+    this.encounters = encounters;
+  }
+
+  public Patient getPatient() {
+    return patient;
+  }
+
+  public List<Encounter> getEncounters() {
+    return encounters;
+  }
+}
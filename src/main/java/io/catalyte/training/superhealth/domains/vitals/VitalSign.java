@@ -0,0 +1,39 @@
+package io.catalyte.training.superhealth.domains.vitals;
+
+import java.util.function.Function;
+
+/**
+ * The vitals recorded with an encounter, each kept as its own series.
+ */
+public enum VitalSign {
+  PULSE("pulse", VitalsReading::getPulse),
+  SYSTOLIC("systolic", VitalsReading::getSystolic),
+  DIASTOLIC("diastolic", VitalsReading::getDiastolic);
+
+  private final String name;
+
+  private final Function<VitalsReading, Integer> accessor;
+
+  VitalSign(String name, Function<VitalsReading, Integer> accessor) {
+    this.name = name;
+    this.accessor = accessor;
+  }
+
+  /**
+   * @return the name used for the vital in JSON
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Reads the vital from a reading.
+   *
+   * @param reading - vitals of one encounter
+   * @return the value, or 0 when it was not recorded; recorded vitals are always positive
+   */
+  int valueOf(VitalsReading reading) {
+    Integer value = accessor.apply(reading);
+    return value == null ? 0 : value;
+  }
+}
@@ -0,0 +1,109 @@
+package io.catalyte.training.superhealth.domains.vitals;
+
+/**
+ * Running count, min, max, mean and population variance of one vital, updated with Welford's
+ * method as readings are added and removed. Not thread safe; guarded by the owning series.
+ */
+public class VitalStats {
+
+  private long count;
+
+  private int min;
+
+  private int max;
+
+  private double mean;
+
+  private double sumOfSquares;
+
+  public VitalStats() {
+  }
+
+  private VitalStats(VitalStats other) {
+    this.count = other.count;
+    this.min = other.min;
+    this.max = other.max;
+    this.mean = other.mean;
+    this.sumOfSquares = other.sumOfSquares;
+  }
+
+  void add(int value) {
+    if (count == 0 || value < min) {
+      min = value;
+    }
+    if (count == 0 || value > max) {
+      max = value;
+    }
+    count++;
+    double delta = value - mean;
+    mean += delta / count;
+    sumOfSquares += delta * (value - mean);
+  }
+
+  /**
+   * Removes a value added earlier.
+   *
+   * @param value - value to remove
+   * @return true when the value was the min or max, which then have to be recomputed
+   */
+  boolean remove(int value) {
+    if (count == 1) {
+      reset();
+      return false;
+    }
+    double previousMean = (count * mean - value) / (count - 1);
+    sumOfSquares = Math.max(0, sumOfSquares - (value - mean) * (value - previousMean));
+    mean = previousMean;
+    count--;
+    return value == min || value == max;
+  }
+
+  /**
+   * Recomputes the min and max from every value still in the series.
+   *
+   * @param values - values of the series, 0 where the vital was not recorded
+   * @param size - number of values in use
+   */
+  void recomputeBounds(int[] values, int size) {
+    boolean first = true;
+    for (int i = 0; i < size; i++) {
+      if (values[i] != 0) {
+        min = first ? values[i] : Math.min(min, values[i]);
+        max = first ? values[i] : Math.max(max, values[i]);
+        first = false;
+      }
+    }
+  }
+
+  void reset() {
+    count = 0;
+    min = 0;
+    max = 0;
+    mean = 0;
+    sumOfSquares = 0;
+  }
+
+  VitalStats copy() {
+    return new VitalStats(this);
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public Integer getMin() {
+    return count == 0 ? null : min;
+  }
+
+  public Integer getMax() {
+    return count == 0 ? null : max;
+  }
+
+  public Double getMean() {
+    return count == 0 ? null : mean;
+  }
+
+  public Double getVariance() {
+    return count == 0 ? null : sumOfSquares / count;
+  }
+}
@@ -0,0 +1,53 @@
+package io.catalyte.training.superhealth.domains.vitals;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A patient's vitals downsampled for charting, with running statistics over every reading of the
+ * patient.
+ */
+public class VitalsChart {
+
+  public static final int DEFAULT_POINTS = 200;
+
+  public static final int MAX_POINTS = 2000;
+
+  private final Long patientId;
+
+  private final int bucketDays;
+
+  private final List<VitalsPoint> points;
+
+  private final Map<String, VitalStats> stats;
+
+  public VitalsChart(Long patientId, int bucketDays, List<VitalsPoint> points,
+      Map<String, VitalStats> stats) {
+    this.patientId = patientId;
+    this.bucketDays = bucketDays;
+    this.points = points;
+    this.stats = stats;
+  }
+
+  public Long getPatientId() {
+    return patientId;
+  }
+
+  /**
+   * @return the number of days each point covers
+   */
+  public int getBucketDays() {
+    return bucketDays;
+  }
+
+  public List<VitalsPoint> getPoints() {
+    return points;
+  }
+
+  /**
+   * @return count, min, max, mean and variance of each vital, by vital name
+   */
+  public Map<String, VitalStats> getStats() {
+    return stats;
+  }
+}
@@ -0,0 +1,48 @@
+package io.catalyte.training.superhealth.domains.vitals;
+
+import static io.catalyte.training.superhealth.constants.Paths.PATIENTS_PATH;
+
+import io.catalyte.training.superhealth.constants.LoggingConstants;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * The VitalsController exposes endpoints for charting patient vitals.
+ */
+@RestController
+@RequestMapping(value = PATIENTS_PATH)
+public class VitalsController {
+
+  Logger logger = LogManager.getLogger(VitalsController.class);
+
+  @Autowired
+  private VitalsService vitalsService;
+
+  /**
+   * Handles a GET request to patients/{patientId}/vitals. Returns the patient's pulse, systolic and
+   * diastolic readings averaged into at most 'points' buckets of equal days.
+   *
+   * @param patientId - path variable id of the patient
+   * @param from - first day of the chart, 'YYYY-MM-DD', the first reading's if omitted
+   * @param to - last day of the chart, 'YYYY-MM-DD', the last reading's if omitted
+   * @param points - maximum number of points in the chart, 200 if omitted
+   * @return the downsampled chart and the statistics of every vital
+   */
+  @GetMapping(value = "{patientId}/vitals")
+  public ResponseEntity<VitalsChart> getVitals(@PathVariable Long patientId,
+      @RequestParam(required = false) String from,
+      @RequestParam(required = false) String to,
+      @RequestParam(defaultValue = "" + VitalsChart.DEFAULT_POINTS) Integer points) {
+    logger.info(LoggingConstants.GET_VITALS(patientId, from, to));
+    return new ResponseEntity<>(vitalsService.getVitals(patientId, from, to, points),
+        HttpStatus.OK);
+  }
+}
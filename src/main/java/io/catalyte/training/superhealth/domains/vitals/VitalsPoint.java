@@ -0,0 +1,59 @@
+package io.catalyte.training.superhealth.domains.vitals;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateSerializer;
+import java.time.LocalDate;
+
+/**
+ * One point of a downsampled vitals chart: the mean of each vital over the readings of one bucket
+ * of days. A vital is null when no reading in the bucket recorded it.
+ */
+public class VitalsPoint {
+
+  @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+  @JsonSerialize(using = LocalDateSerializer.class)
+  private final LocalDate date;
+
+  private final int count;
+
+  private final Double pulse;
+
+  private final Double systolic;
+
+  private final Double diastolic;
+
+  public VitalsPoint(LocalDate date, int count, Double pulse, Double systolic, Double diastolic) {
+    this.date = date;
+    this.count = count;
+    this.pulse = pulse;
+    this.systolic = systolic;
+    this.diastolic = diastolic;
+  }
+
+  /**
+   * @return the first day of the bucket
+   */
+  public LocalDate getDate() {
+    return date;
+  }
+
+  /**
+   * @return the number of readings in the bucket
+   */
+  public int getCount() {
+    return count;
+  }
+
+  public Double getPulse() {
+    return pulse;
+  }
+
+  public Double getSystolic() {
+    return systolic;
+  }
+
+  public Double getDiastolic() {
+    return diastolic;
+  }
+}
@@ -0,0 +1,49 @@
+package io.catalyte.training.superhealth.domains.vitals;
+
+import java.time.LocalDate;
+
+/**
+ * The vitals of one encounter, read as a projection so no encounter entity is materialized.
+ * Each vital is null when it was not recorded.
+ */
+public class VitalsReading {
+
+  private final long encounterId;
+
+  private final LocalDate date;
+
+  private final Integer pulse;
+
+  private final Integer systolic;
+
+  private final Integer diastolic;
+
+  public VitalsReading(Long encounterId, LocalDate date, Integer pulse, Integer systolic,
+      Integer diastolic) {
+    this.encounterId = encounterId;
+    this.date = date;
+    this.pulse = pulse;
+    this.systolic = systolic;
+    this.diastolic = diastolic;
+  }
+
+  public long getEncounterId() {
+    return encounterId;
+  }
+
+  public LocalDate getDate() {
+    return date;
+  }
+
+  public Integer getPulse() {
+    return pulse;
+  }
+
+  public Integer getSystolic() {
+    return systolic;
+  }
+
+  public Integer getDiastolic() {
+    return diastolic;
+  }
+}
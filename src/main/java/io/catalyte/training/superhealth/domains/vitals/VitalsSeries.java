@@ -0,0 +1,225 @@
+package io.catalyte.training.superhealth.domains.vitals;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * The vitals of one patient in primitive arrays ordered by (date, encounter id). Dates are stored
+ * as epoch days, delta encoded: the first entry holds the epoch day of the first reading and every
+ * other entry the days since the reading before it. Each vital has its own array, holding 0 where
+ * an encounter did not record it. Running statistics of every vital follow each put and remove.
+ *
+ * <p>A series starts unloaded and is read from the database on its first chart. Every method
+ * synchronizes on the series, so a write that arrives while the series loads waits for the load,
+ * and writes to a series that is not loaded are dropped since the load will read them. Puts and
+ * removes are keyed by encounter id, so applying a write the load already read changes nothing.
+ */
+final class VitalsSeries {
+
+  private static final int INITIAL_CAPACITY = 8;
+
+  private static final VitalSign[] SIGNS = VitalSign.values();
+
+  private final int[][] values = new int[SIGNS.length][INITIAL_CAPACITY];
+
+  private final VitalStats[] stats = new VitalStats[SIGNS.length];
+
+  private long[] encounterIds = new long[INITIAL_CAPACITY];
+
+  private int[] dayDeltas = new int[INITIAL_CAPACITY];
+
+  private int size;
+
+  private int lastDay;
+
+  private boolean loaded;
+
+  VitalsSeries() {
+    for (int s = 0; s < SIGNS.length; s++) {
+      stats[s] = new VitalStats();
+    }
+  }
+
+  /**
+   * Downsamples the readings dated from one day to another into at most maxPoints buckets of equal
+   * days, loading the series first if needed.
+   *
+   * @param patientId - id of the patient the series belongs to
+   * @param loader - reads every reading of the patient in (date, encounter id) order
+   * @param from - first day of the chart, the first reading's if null
+   * @param to - last day of the chart, the last reading's if null
+   * @param maxPoints - maximum number of points in the chart
+   * @return the chart, with statistics over every reading of the patient
+   */
+  synchronized VitalsChart chart(Long patientId, Supplier<List<VitalsReading>> loader,
+      LocalDate from, LocalDate to, int maxPoints) {
+    if (!loaded) {
+      for (VitalsReading reading : loader.get()) {
+        insert(reading);
+      }
+      loaded = true;
+    }
+
+    int[] days = decodeDays();
+    long first = from != null ? from.toEpochDay() : size == 0 ? 0 : days[0];
+    long last = to != null ? to.toEpochDay() : size == 0 ? 0 : days[size - 1];
+    //ceil((last - first + 1) / maxPoints)
+    int bucketDays = (int) Math.max(1, (last - first + maxPoints) / maxPoints);
+
+    List<VitalsPoint> points = new ArrayList<>();
+    int i = 0;
+    while (i < size && days[i] < first) {
+      i++;
+    }
+    while (i < size && days[i] <= last) {
+      long bucket = (days[i] - first) / bucketDays;
+      long bucketEnd = first + (bucket + 1) * bucketDays;
+      int count = 0;
+      long[] sums = new long[SIGNS.length];
+      int[] counts = new int[SIGNS.length];
+      for (; i < size && days[i] < bucketEnd && days[i] <= last; i++) {
+        count++;
+        for (int s = 0; s < SIGNS.length; s++) {
+          if (values[s][i] != 0) {
+            sums[s] += values[s][i];
+            counts[s]++;
+          }
+        }
+      }
+      points.add(new VitalsPoint(LocalDate.ofEpochDay(first + bucket * bucketDays), count,
+          mean(sums, counts, VitalSign.PULSE), mean(sums, counts, VitalSign.SYSTOLIC),
+          mean(sums, counts, VitalSign.DIASTOLIC)));
+    }
+
+    Map<String, VitalStats> statsByName = new LinkedHashMap<>();
+    for (int s = 0; s < SIGNS.length; s++) {
+      statsByName.put(SIGNS[s].getName(), stats[s].copy());
+    }
+    return new VitalsChart(patientId, bucketDays, points, statsByName);
+  }
+
+  /**
+   * Adds a reading, replacing the one of the same encounter if there is one.
+   *
+   * @param reading - vitals of a saved encounter
+   */
+  synchronized void put(VitalsReading reading) {
+    if (loaded) {
+      remove(reading.getEncounterId());
+      insert(reading);
+    }
+  }
+
+  /**
+   * Removes the reading of an encounter, if there is one.
+   *
+   * @param encounterId - id of the encounter
+   */
+  synchronized void remove(long encounterId) {
+    if (!loaded) {
+      return;
+    }
+    int p = 0;
+    while (p < size && encounterIds[p] != encounterId) {
+      p++;
+    }
+    if (p == size) {
+      return;
+    }
+
+    boolean[] boundRemoved = new boolean[SIGNS.length];
+    for (int s = 0; s < SIGNS.length; s++) {
+      if (values[s][p] != 0) {
+        boundRemoved[s] = stats[s].remove(values[s][p]);
+      }
+    }
+    if (p + 1 < size) {
+      dayDeltas[p + 1] += dayDeltas[p];
+    } else if (p > 0) {
+      lastDay -= dayDeltas[p];
+    }
+    System.arraycopy(encounterIds, p + 1, encounterIds, p, size - p - 1);
+    System.arraycopy(dayDeltas, p + 1, dayDeltas, p, size - p - 1);
+    for (int s = 0; s < SIGNS.length; s++) {
+      System.arraycopy(values[s], p + 1, values[s], p, size - p - 1);
+    }
+    size--;
+
+    for (int s = 0; s < SIGNS.length; s++) {
+      if (boundRemoved[s]) {
+        stats[s].recomputeBounds(values[s], size);
+      }
+    }
+  }
+
+  /**
+   * Inserts a reading at its place in (date, encounter id) order. Readings arriving in order, as
+   * they do on load and for new encounters, are appended without decoding the dates.
+   */
+  private void insert(VitalsReading reading) {
+    int day = (int) reading.getDate().toEpochDay();
+    long encounterId = reading.getEncounterId();
+    ensureCapacity(size + 1);
+
+    int p = size;
+    if (size == 0 || day > lastDay || (day == lastDay && encounterId > encounterIds[size - 1])) {
+      dayDeltas[p] = size == 0 ? day : day - lastDay;
+      lastDay = day;
+    } else {
+      int[] days = decodeDays();
+      while (p > 0 && (days[p - 1] > day
+          || (days[p - 1] == day && encounterIds[p - 1] > encounterId))) {
+        p--;
+      }
+      System.arraycopy(encounterIds, p, encounterIds, p + 1, size - p);
+      System.arraycopy(dayDeltas, p, dayDeltas, p + 1, size - p);
+      for (int s = 0; s < SIGNS.length; s++) {
+        System.arraycopy(values[s], p, values[s], p + 1, size - p);
+      }
+      dayDeltas[p] = p == 0 ? day : day - days[p - 1];
+      dayDeltas[p + 1] = days[p] - day;
+    }
+
+    encounterIds[p] = encounterId;
+    for (int s = 0; s < SIGNS.length; s++) {
+      int value = SIGNS[s].valueOf(reading);
+      values[s][p] = value;
+      if (value != 0) {
+        stats[s].add(value);
+      }
+    }
+    size++;
+  }
+
+  private int[] decodeDays() {
+    int[] days = new int[size];
+    int day = 0;
+    for (int i = 0; i < size; i++) {
+      day += dayDeltas[i];
+      days[i] = day;
+    }
+    return days;
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity <= encounterIds.length) {
+      return;
+    }
+    int newCapacity = Math.max(capacity, encounterIds.length * 2);
+    encounterIds = Arrays.copyOf(encounterIds, newCapacity);
+    dayDeltas = Arrays.copyOf(dayDeltas, newCapacity);
+    for (int s = 0; s < SIGNS.length; s++) {
+      values[s] = Arrays.copyOf(values[s], newCapacity);
+    }
+  }
+
+  private static Double mean(long[] sums, int[] counts, VitalSign sign) {
+    int s = sign.ordinal();
+    return counts[s] == 0 ? null : (double) sums[s] / counts[s];
+  }
+}
@@ -0,0 +1,10 @@
+package io.catalyte.training.superhealth.domains.vitals;
+
+/**
+ * This interface provides an abstraction layer for the Vitals Service
+ */
+public interface VitalsService {
+
+  VitalsChart getVitals(Long patientId, String from, String to, Integer points);
+
+}
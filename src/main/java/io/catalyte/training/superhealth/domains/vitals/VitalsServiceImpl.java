@@ -0,0 +1,72 @@
+package io.catalyte.training.superhealth.domains.vitals;
+
+import io.catalyte.training.superhealth.constants.StringConstants;
+import io.catalyte.training.superhealth.domains.encounter.EncounterRepository;
+import io.catalyte.training.superhealth.domains.patient.PatientService;
+import io.catalyte.training.superhealth.exceptions.BadRequest;
+import io.catalyte.training.superhealth.exceptions.ServiceUnavailable;
+import io.catalyte.training.superhealth.validation.FormatMatchers;
+import java.time.LocalDate;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+/**
+ * This class provides the implementation for the VitalsService interface.
+ */
+@Service
+public class VitalsServiceImpl implements VitalsService {
+
+  private final Logger logger = LogManager.getLogger(VitalsServiceImpl.class);
+
+  EncounterRepository encounterRepository;
+
+  PatientService patientService;
+
+  VitalsStore vitalsStore;
+
+  @Autowired
+  public VitalsServiceImpl(EncounterRepository encounterRepository,
+      PatientService patientService, VitalsStore vitalsStore) {
+    this.encounterRepository = encounterRepository;
+    this.patientService = patientService;
+    this.vitalsStore = vitalsStore;
+  }
+
+  /**
+   * Charts a patient's pulse and blood pressure from the patient's vitals series, without loading
+   * any encounter.
+   *
+   * @param patientId - id of the patient
+   * @param from - first day of the chart, 'YYYY-MM-DD', the first reading's if null
+   * @param to - last day of the chart, 'YYYY-MM-DD', the last reading's if null
+   * @param points - maximum number of points in the chart
+   * @return the downsampled chart and the statistics of every vital
+   */
+  public VitalsChart getVitals(Long patientId, String from, String to, Integer points) {
+    if (points == null || points < 1 || points > VitalsChart.MAX_POINTS) {
+      throw new BadRequest(StringConstants.VITALS_POINTS_INVALID(VitalsChart.MAX_POINTS));
+    }
+    boolean hasFrom = from != null && !from.isEmpty();
+    boolean hasTo = to != null && !to.isEmpty();
+    if ((hasFrom && !FormatMatchers.isCalendarDate(from))
+        || (hasTo && !FormatMatchers.isCalendarDate(to))
+        || (hasFrom && hasTo && from.compareTo(to) > 0)) {
+      throw new BadRequest(StringConstants.DATE_RANGE_INVALID);
+    }
+
+    //responds 404 for a patient that does not exist rather than an empty chart
+    patientService.getPatientById(patientId);
+
+    return vitalsStore.chart(patientId, () -> {
+      try {
+        return encounterRepository.findVitalsByPatientId(patientId);
+      } catch (DataAccessException e) {
+        logger.error(e.getMessage());
+        throw new ServiceUnavailable(e.getMessage());
+      }
+    }, hasFrom ? LocalDate.parse(from) : null, hasTo ? LocalDate.parse(to) : null, points);
+  }
+}
@@ -0,0 +1,87 @@
+package io.catalyte.training.superhealth.domains.vitals;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.catalyte.training.superhealth.domains.encounter.Encounter;
+import io.catalyte.training.superhealth.domains.encounter.EncounterChange;
+import io.catalyte.training.superhealth.domains.patient.PatientChange;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Per-patient vitals series, loaded from the database on a patient's first chart and then kept up
+ * to date by encounter writes. At most patients.vitals.maximum-size series are kept; an evicted
+ * series is read again on its next chart.
+ *
+ * <p>Writes must be recorded after they commit, so a series loaded concurrently either reads them
+ * or receives them.
+ */
+@Component
+public class VitalsStore {
+
+  private final Cache<Long, VitalsSeries> series;
+
+  public VitalsStore(@Value("${patients.vitals.maximum-size:10000}") long maximumSize) {
+    this.series = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .build();
+  }
+
+  /**
+   * Charts a patient's vitals, loading the patient's series first if needed.
+   *
+   * @param patientId - id of the patient
+   * @param loader - reads every reading of the patient in (date, encounter id) order
+   * @param from - first day of the chart, the first reading's if null
+   * @param to - last day of the chart, the last reading's if null
+   * @param maxPoints - maximum number of points in the chart
+   * @return the downsampled chart and the statistics of every vital
+   */
+  public VitalsChart chart(Long patientId, Supplier<List<VitalsReading>> loader, LocalDate from,
+      LocalDate to, int maxPoints) {
+    return series.get(patientId, id -> new VitalsSeries())
+        .chart(patientId, loader, from, to, maxPoints);
+  }
+
+  /**
+   * Applies a committed encounter save or update to the series of the patients it concerns.
+   *
+   * @param change - the committed encounter change
+   */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  public void record(EncounterChange change) {
+    Encounter encounter = change.getCurrent();
+    Long previousPatientId = change.getPrevious() == null ? null
+        : change.getPrevious().getPatient().getId();
+    Long patientId = encounter.getPatient().getId();
+    if (previousPatientId != null && !Objects.equals(previousPatientId, patientId)) {
+      VitalsSeries previous = series.getIfPresent(previousPatientId);
+      if (previous != null) {
+        previous.remove(encounter.getId());
+      }
+    }
+    VitalsSeries current = patientId == null ? null : series.getIfPresent(patientId);
+    if (current != null) {
+      current.put(new VitalsReading(encounter.getId(), encounter.getDate(), encounter.getPulse(),
+          encounter.getSystolic(), encounter.getDiastolic()));
+    }
+  }
+
+  /**
+   * Drops the series of a patient once its delete commits.
+   *
+   * @param change - the committed patient change
+   */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  public void recordPatient(PatientChange change) {
+    if (change.isDeleted()) {
+      series.invalidate(change.getPatientId());
+    }
+  }
+}
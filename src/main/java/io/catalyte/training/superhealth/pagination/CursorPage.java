@@ -0,0 +1,44 @@
+package io.catalyte.training.superhealth.pagination;
+
+import java.util.List;
+
+/**
+ * One page of a keyset paginated listing. nextCursor is an opaque token to pass back as the 'after'
+ * parameter for the following page, and is null on the last page.
+ *
+ * @param <T> the type of item listed
+ */
+public class CursorPage<T> {
+
+  public static final int MAX_LIMIT = 1000;
+
+  public static final int DEFAULT_LIMIT = 50;
+
+  private List<T> items;
+
+  private String nextCursor;
+
+  public CursorPage() {
+  }
+
+  public CursorPage(List<T> items, String nextCursor) {
+    this.items = items;
+    this.nextCursor = nextCursor;
+  }
+
+  public List<T> getItems() {
+    return items;
+  }
+
+  public void setItems(List<T> items) {
+    this.items = items;
+  }
+
+  public String getNextCursor() {
+    return nextCursor;
+  }
+
+  public void setNextCursor(String nextCursor) {
+    this.nextCursor = nextCursor;
+  }
+}
@@ -0,0 +1,70 @@
+package io.catalyte.training.superhealth.pagination;
+
+import io.catalyte.training.superhealth.constants.StringConstants;
+import io.catalyte.training.superhealth.exceptions.BadRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of the last row of a keyset page: the sort it was read with, the value of the sort
+ * column and the id that breaks ties. Clients only ever see it as an opaque, URL safe token.
+ */
+public class KeysetCursor {
+
+  private static final char SEPARATOR = '\u0000';
+
+  private final String sort;
+
+  private final long id;
+
+  private final String value;
+
+  public KeysetCursor(String sort, long id, String value) {
+    this.sort = sort;
+    this.id = id;
+    this.value = value;
+  }
+
+  /**
+   * Decodes a token produced by encode.
+   *
+   * @param token - opaque cursor token
+   * @return the decoded cursor
+   * @throws BadRequest if the token was not produced by encode
+   */
+  public static KeysetCursor decode(String token) {
+    try {
+      String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+      int first = decoded.indexOf(SEPARATOR);
+      int second = decoded.indexOf(SEPARATOR, first + 1);
+      if (first < 0 || second < 0) {
+        throw new BadRequest(StringConstants.CURSOR_INVALID);
+      }
+      return new KeysetCursor(decoded.substring(0, first),
+          Long.parseLong(decoded.substring(first + 1, second)), decoded.substring(second + 1));
+    } catch (IllegalArgumentException e) {
+      throw new BadRequest(StringConstants.CURSOR_INVALID);
+    }
+  }
+
+  /**
+   * @return the cursor as an opaque, URL safe token
+   */
+  public String encode() {
+    String raw = sort + SEPARATOR + id + SEPARATOR + value;
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public String getSort() {
+    return sort;
+  }
+
+  public long getId() {
+    return id;
+  }
+
+  public String getValue() {
+    return value;
+  }
+}
@@ -0,0 +1,249 @@
+package io.catalyte.training.superhealth.validation;
+
+import java.time.Month;
+import java.time.Year;
+import java.util.Locale;
+
+/**
+ * Character scanning matchers for the request formats the services validate. Each method accepts
+ * exactly the strings its documented regular expression would, without compiling a pattern or
+ * allocating a matcher.
+ */
+public final class FormatMatchers {
+
+  private FormatMatchers() {
+  }
+
+  /**
+   * Returns true when the value is null, empty, or accepted by the matcher. Format rules only
+   * report on values that are present; missing values are reported by the required field checks.
+   *
+   * @param value - value to check
+   * @param matcher - format the value must match when present
+   * @return boolean if the value is absent or valid
+   */
+  public static boolean matchesIfPresent(String value, StringMatcher matcher) {
+    return value == null || value.isEmpty() || matcher.matches(value);
+  }
+
+  /**
+   * Checks whether a value only contains characters String.trim() would remove.
+   *
+   * @param value value to check
+   * @return boolean if the value is blank
+   */
+  public static boolean isBlank(CharSequence value) {
+    for (int i = 0; i < value.length(); i++) {
+      if (value.charAt(i) > ' ') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * ^[a-zA-Z\s'-]+$
+   */
+  public static boolean isName(String value) {
+    int length = value.length();
+    if (length == 0) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      char c = value.charAt(i);
+      if (!isLetter(c) && !isRegexWhitespace(c) && c != '\'' && c != '-') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * ^\d{3}-\d{2}-\d{4}$
+   */
+  public static boolean isSsn(String value) {
+    return value.length() == 11
+        && isDigits(value, 0, 3) && value.charAt(3) == '-'
+        && isDigits(value, 4, 2) && value.charAt(6) == '-'
+        && isDigits(value, 7, 4);
+  }
+
+  /**
+   * ^[A-Za-z0-9]+@[A-Za-z]+\.[A-Za-z]+$
+   */
+  public static boolean isEmail(String value) {
+    int length = value.length();
+    int i = 0;
+    while (i < length && (isLetter(value.charAt(i)) || isDigit(value.charAt(i)))) {
+      i++;
+    }
+    if (i == 0 || i == length || value.charAt(i) != '@') {
+      return false;
+    }
+    int start = ++i;
+    while (i < length && isLetter(value.charAt(i))) {
+      i++;
+    }
+    if (i == start || i == length || value.charAt(i) != '.') {
+      return false;
+    }
+    start = ++i;
+    while (i < length && isLetter(value.charAt(i))) {
+      i++;
+    }
+    return i > start && i == length;
+  }
+
+  /**
+   * ^[A-Z]{2}$
+   */
+  public static boolean isState(String value) {
+    return value.length() == 2 && isUpperCase(value.charAt(0)) && isUpperCase(value.charAt(1));
+  }
+
+  /**
+   * ^\d{5}$ or ^\d{5}-\d{4}$
+   */
+  public static boolean isPostal(String value) {
+    if (value.length() == 5) {
+      return isDigits(value, 0, 5);
+    }
+    return value.length() == 10
+        && isDigits(value, 0, 5) && value.charAt(5) == '-' && isDigits(value, 6, 4);
+  }
+
+  /**
+   * ^[A-Z]\d[A-Z] \d[A-Z]\d$
+   */
+  public static boolean isVisitCode(String value) {
+    return value.length() == 7
+        && isUpperCase(value.charAt(0)) && isDigit(value.charAt(1))
+        && isUpperCase(value.charAt(2)) && value.charAt(3) == ' '
+        && isDigit(value.charAt(4)) && isUpperCase(value.charAt(5))
+        && isDigit(value.charAt(6));
+  }
+
+  /**
+   * ^\d{3}.\d{3}.\d{3}-\d{2}$ where, as in the regular expression, '.' is any character other
+   * than a line terminator.
+   */
+  public static boolean isBillingCode(String value) {
+    return value.length() == 14
+        && isDigits(value, 0, 3) && !isLineTerminator(value.charAt(3))
+        && isDigits(value, 4, 3) && !isLineTerminator(value.charAt(7))
+        && isDigits(value, 8, 3) && value.charAt(11) == '-'
+        && isDigits(value, 12, 2);
+  }
+
+  /**
+   * ^[A-Z]\d{2}$
+   */
+  public static boolean isIcd10(String value) {
+    return value.length() == 3 && isUpperCase(value.charAt(0)) && isDigits(value, 1, 2);
+  }
+
+  /**
+   * ^\d{4}-(0[1-9]|1[0-2])-([0-2][0-9]|3[0-1])$
+   */
+  public static boolean isDate(String value) {
+    if (value.length() != 10 || !isDigits(value, 0, 4)
+        || value.charAt(4) != '-' || value.charAt(7) != '-') {
+      return false;
+    }
+    char m1 = value.charAt(5);
+    char m2 = value.charAt(6);
+    boolean month = (m1 == '0' && m2 >= '1' && m2 <= '9') || (m1 == '1' && m2 >= '0' && m2 <= '2');
+    char d1 = value.charAt(8);
+    char d2 = value.charAt(9);
+    boolean day = (d1 >= '0' && d1 <= '2' && isDigit(d2)) || (d1 == '3' && (d2 == '0' || d2 == '1'));
+    return month && day;
+  }
+
+  /**
+   * ^\d{4}-(0[1-9]|1[0-2])-([0-2][0-9]|3[0-1])$, limited to days that exist in the month, so
+   * every accepted value can be read with LocalDate.parse.
+   */
+  public static boolean isCalendarDate(String value) {
+    if (!isDate(value)) {
+      return false;
+    }
+    int year = toInt(value, 0, 4);
+    int day = toInt(value, 8, 2);
+    return day >= 1 && day <= Month.of(toInt(value, 5, 2)).length(Year.isLeap(year));
+  }
+
+  /**
+   * Accepts "Male", "Female" or "Other" regardless of case or surrounding whitespace.
+   */
+  public static boolean isGender(String value) {
+    int start = 0;
+    int end = value.length();
+    while (start < end && value.charAt(start) <= ' ') {
+      start++;
+    }
+    while (end > start && value.charAt(end - 1) <= ' ') {
+      end--;
+    }
+    int length = end - start;
+    return (length == 4 && value.regionMatches(true, start, "male", 0, 4))
+        || (length == 6 && value.regionMatches(true, start, "female", 0, 6))
+        || (length == 5 && value.regionMatches(true, start, "other", 0, 5));
+  }
+
+  /**
+   * Formats a gender the way genders are stored, so every write and every gender filter agree.
+   *
+   * @param value - gender accepted by isGender
+   * @return "Male", "Female" or "Other"
+   */
+  public static String formatGender(String value) {
+    String lowerCaseGender = value.trim().toLowerCase(Locale.ROOT);
+    return lowerCaseGender.substring(0, 1).toUpperCase(Locale.ROOT) + lowerCaseGender.substring(1);
+  }
+
+  private static boolean isDigits(String value, int offset, int count) {
+    for (int i = offset; i < offset + count; i++) {
+      if (!isDigit(value.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int toInt(String digits, int offset, int count) {
+    int number = 0;
+    for (int i = offset; i < offset + count; i++) {
+      number = number * 10 + (digits.charAt(i) - '0');
+    }
+    return number;
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static boolean isUpperCase(char c) {
+    return c >= 'A' && c <= 'Z';
+  }
+
+  private static boolean isLetter(char c) {
+    return isUpperCase(c) || (c >= 'a' && c <= 'z');
+  }
+
+  private static boolean isRegexWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+  }
+
+  private static boolean isLineTerminator(char c) {
+    return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+  }
+
+  /**
+   * A format check over a string value.
+   */
+  @FunctionalInterface
+  public interface StringMatcher {
+
+    boolean matches(String value);
+  }
+}
@@ -0,0 +1,152 @@
+package io.catalyte.training.superhealth.validation;
+
+import io.catalyte.training.superhealth.constants.StringConstants;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * An immutable, precompiled set of validations for one request class. A plan is built once with
+ * its builder and then checks objects in a single pass: required fields are read through cached
+ * accessors, then each rule runs in the order it was added. Error lists are only allocated once a
+ * check fails, so valid objects are checked without allocating.
+ *
+ * @param <T> the class being validated
+ */
+public final class ValidationPlan<T> {
+
+  private final List<String> requiredFieldNames;
+  private final List<Function<T, ?>> requiredFieldAccessors;
+  private final List<Predicate<T>> ruleChecks;
+  private final List<String> ruleMessages;
+
+  private ValidationPlan(Builder<T> builder) {
+    this.requiredFieldNames = Collections.unmodifiableList(new ArrayList<>(builder.fieldNames));
+    this.requiredFieldAccessors =
+        Collections.unmodifiableList(new ArrayList<>(builder.fieldAccessors));
+    this.ruleChecks = Collections.unmodifiableList(new ArrayList<>(builder.ruleChecks));
+    this.ruleMessages = Collections.unmodifiableList(new ArrayList<>(builder.ruleMessages));
+  }
+
+  public static <T> Builder<T> builder() {
+    return new Builder<>();
+  }
+
+  /**
+   * Validates an object against the plan.
+   *
+   * @param target object to be validated
+   * @return the null field message, the empty field message and each failed rule's message, in
+   * that order; an empty immutable list if the object is valid
+   */
+  public List<String> validate(T target) {
+    List<String> nullFields = null;
+    List<String> emptyFields = null;
+    for (int i = 0; i < requiredFieldAccessors.size(); i++) {
+      Object value = requiredFieldAccessors.get(i).apply(target);
+      if (value == null) {
+        nullFields = append(nullFields, requiredFieldNames.get(i));
+      } else if (value instanceof CharSequence && FormatMatchers.isBlank((CharSequence) value)) {
+        emptyFields = append(emptyFields, requiredFieldNames.get(i));
+      }
+    }
+
+    List<String> errors = null;
+    if (nullFields != null) {
+      errors = append(errors, StringConstants.FIELDS_NULL(nullFields));
+    }
+    if (emptyFields != null) {
+      errors = append(errors, StringConstants.FIELDS_EMPTY(emptyFields));
+    }
+    for (int i = 0; i < ruleChecks.size(); i++) {
+      if (!ruleChecks.get(i).test(target)) {
+        errors = append(errors, ruleMessages.get(i));
+      }
+    }
+    return errors == null ? Collections.emptyList() : errors;
+  }
+
+  private static List<String> append(List<String> list, String value) {
+    if (list == null) {
+      list = new ArrayList<>();
+    }
+    list.add(value);
+    return list;
+  }
+
+  /**
+   * Collects the required fields and rules of a plan.
+   *
+   * @param <T> the class being validated
+   */
+  public static final class Builder<T> {
+
+    private final List<String> fieldNames = new ArrayList<>();
+    private final List<Function<T, ?>> fieldAccessors = new ArrayList<>();
+    private final List<Predicate<T>> ruleChecks = new ArrayList<>();
+    private final List<String> ruleMessages = new ArrayList<>();
+
+    private Builder() {
+    }
+
+    /**
+     * Adds a field that cannot be null, or blank when it is a string.
+     *
+     * @param name - field name reported in the error message
+     * @param accessor - reads the field
+     * @return this builder
+     */
+    public Builder<T> required(String name, Function<T, ?> accessor) {
+      fieldNames.add(name);
+      fieldAccessors.add(accessor);
+      return this;
+    }
+
+    /**
+     * Adds a rule that fails with the given message when the check returns false.
+     *
+     * @param check - rule check
+     * @param message - error message when the check fails
+     * @return this builder
+     */
+    public Builder<T> rule(Predicate<T> check, String message) {
+      ruleChecks.add(check);
+      ruleMessages.add(message);
+      return this;
+    }
+
+    /**
+     * Adds a rule that a string field, when present, matches a format.
+     *
+     * @param accessor - reads the field
+     * @param matcher - format the field must match
+     * @param message - error message when the field does not match
+     * @return this builder
+     */
+    public Builder<T> format(Function<T, String> accessor, FormatMatchers.StringMatcher matcher,
+        String message) {
+      return rule(target -> FormatMatchers.matchesIfPresent(accessor.apply(target), matcher),
+          message);
+    }
+
+    /**
+     * Adds a rule that a number field, when present, is greater than zero.
+     *
+     * @param accessor - reads the field
+     * @param message - error message when the field is zero or negative
+     * @return this builder
+     */
+    public Builder<T> positive(Function<T, Integer> accessor, String message) {
+      return rule(target -> {
+        Integer number = accessor.apply(target);
+        return number == null || number > 0;
+      }, message);
+    }
+
+    public ValidationPlan<T> build() {
+      return new ValidationPlan<>(this);
+    }
+  }
+}
@@ -0,0 +1,136 @@
+package io.catalyte.training.superhealth.benchmarks;
+
+import io.catalyte.training.superhealth.AppRunner;
+import io.catalyte.training.superhealth.data.EncounterFactory;
+import io.catalyte.training.superhealth.data.PatientFactory;
+import io.catalyte.training.superhealth.domains.encounter.Encounter;
+import io.catalyte.training.superhealth.domains.encounter.EncounterRepository;
+import io.catalyte.training.superhealth.domains.patient.Patient;
+import io.catalyte.training.superhealth.domains.patient.PatientRepository;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Boots the application against the in-memory H2 database from the test application.yml and seeds
+ * it directly through JDBC, so benchmarks can measure the service layer at realistic table sizes.
+ */
+public class BenchmarkContext {
+
+  private static final int SEED_BATCH_SIZE = 5000;
+
+  private static final String INSERT_PATIENT = "INSERT INTO patient (id, first_name, last_name, "
+      + "ssn, email, normalized_email, street, city, state, postal, age, height, weight, "
+      + "insurance, gender) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+  private static final String INSERT_ENCOUNTER = "INSERT INTO encounter (id, patient_id, notes, "
+      + "visit_code, provider, billing_code, icd10, total_cost_cents, copay_cents, chief_complaint, "
+      + "pulse, systolic, diastolic, date) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+  private BenchmarkContext() {
+  }
+
+  /**
+   * Starts the application without the web server and without demo data.
+   *
+   * @param args - command line arguments, such as --property=value overrides of application.yml
+   * @return the running application context
+   */
+  public static ConfigurableApplicationContext start(String... args) {
+    return builder().web(WebApplicationType.NONE).run(args);
+  }
+
+  /**
+   * Starts the application with its web server on a random free port and without demo data.
+   *
+   * @return the running application context
+   */
+  public static ConfigurableApplicationContext startServer() {
+    //an argument, as application.yml takes precedence over default properties
+    return builder().web(WebApplicationType.SERVLET).run("--server.port=0");
+  }
+
+  private static SpringApplicationBuilder builder() {
+    return new SpringApplicationBuilder(AppRunner.class)
+        .properties(
+            "spring.main.banner-mode=off",
+            "logging.level.root=WARN",
+            "patients.load=false");
+  }
+
+  /**
+   * Inserts random patients with unique emails 'seedN@bench.com' using batched JDBC inserts.
+   *
+   * @param context - the running application context
+   * @param numberOfPatients - the number of patients to insert
+   */
+  public static void seedPatients(ApplicationContext context, int numberOfPatients) {
+    JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+    PatientRepository patientRepository = context.getBean(PatientRepository.class);
+    PatientFactory patientFactory = new PatientFactory();
+    List<Object[]> batch = new ArrayList<>(SEED_BATCH_SIZE);
+    for (int i = 0; i < numberOfPatients; i++) {
+      Patient patient = patientFactory.createRandomPatient();
+      String email = "seed" + i + "@bench.com";
+      batch.add(new Object[]{null, patient.getFirstName(), patient.getLastName(), patient.getSsn(),
+          email, email, patient.getStreet(), patient.getCity(), patient.getState(),
+          patient.getPostal(), patient.getAge(), patient.getHeight(), patient.getWeight(),
+          patient.getInsurance(), patient.getGender()});
+      if (batch.size() == SEED_BATCH_SIZE) {
+        insert(jdbcTemplate, INSERT_PATIENT, patientRepository.allocateIds(batch.size()), batch);
+        batch.clear();
+      }
+    }
+    if (!batch.isEmpty()) {
+      insert(jdbcTemplate, INSERT_PATIENT, patientRepository.allocateIds(batch.size()), batch);
+    }
+  }
+
+  /**
+   * Inserts random encounters spread evenly over the patients already in the database using
+   * batched JDBC inserts.
+   *
+   * @param context - the running application context
+   * @param numberOfEncounters - the number of encounters to insert
+   */
+  public static void seedEncounters(ApplicationContext context, int numberOfEncounters) {
+    JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+    EncounterRepository encounterRepository = context.getBean(EncounterRepository.class);
+    List<Long> patientIds = jdbcTemplate.queryForList("SELECT id FROM patient ORDER BY id",
+        Long.class);
+    if (patientIds.isEmpty()) {
+      return;
+    }
+    EncounterFactory encounterFactory = new EncounterFactory();
+    List<Object[]> batch = new ArrayList<>(SEED_BATCH_SIZE);
+    for (int i = 0; i < numberOfEncounters; i++) {
+      Encounter encounter = encounterFactory.createRandomEncounter(null);
+      batch.add(new Object[]{null, patientIds.get(i % patientIds.size()), encounter.getNotes(),
+          encounter.getVisitCode(), encounter.getProvider(), encounter.getBillingCode(),
+          encounter.getIcd10(), encounter.getTotalCostCents(), encounter.getCopayCents(),
+          encounter.getChiefComplaint(), encounter.getPulse(), encounter.getSystolic(),
+          encounter.getDiastolic(), Date.valueOf(encounter.getDate())});
+      if (batch.size() == SEED_BATCH_SIZE) {
+        insert(jdbcTemplate, INSERT_ENCOUNTER, encounterRepository.allocateIds(batch.size()),
+            batch);
+        batch.clear();
+      }
+    }
+    if (!batch.isEmpty()) {
+      insert(jdbcTemplate, INSERT_ENCOUNTER, encounterRepository.allocateIds(batch.size()), batch);
+    }
+  }
+
+  private static void insert(JdbcTemplate jdbcTemplate, String sql, long[] ids,
+      List<Object[]> batch) {
+    for (int i = 0; i < ids.length; i++) {
+      batch.get(i)[0] = ids[i];
+    }
+    jdbcTemplate.batchUpdate(sql, batch);
+  }
+}
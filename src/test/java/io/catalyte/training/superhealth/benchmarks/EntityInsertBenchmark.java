@@ -0,0 +1,95 @@
+package io.catalyte.training.superhealth.benchmarks;
+
+import io.catalyte.training.superhealth.data.EncounterFactory;
+import io.catalyte.training.superhealth.data.PatientFactory;
+import io.catalyte.training.superhealth.domains.encounter.Encounter;
+import io.catalyte.training.superhealth.domains.encounter.EncounterRepository;
+import io.catalyte.training.superhealth.domains.patient.Patient;
+import io.catalyte.training.superhealth.domains.patient.PatientRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Measures the insert throughput of saveAll in rows per second, for RECORDS patients and RECORDS
+ * encounters at a time. A jdbcBatchSize of 1 sends one statement per row, as the identity ids did
+ * before the sequence ids let Hibernate batch inserts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class EntityInsertBenchmark {
+
+  private static final int RECORDS = 1000;
+
+  @Param({"1", "50"})
+  private int jdbcBatchSize;
+
+  private final PatientFactory patientFactory = new PatientFactory();
+  private final EncounterFactory encounterFactory = new EncounterFactory();
+  private ConfigurableApplicationContext context;
+  private PatientRepository patientRepository;
+  private EncounterRepository encounterRepository;
+  private Patient encounterPatient;
+  private List<Patient> patients;
+  private List<Encounter> encounters;
+  private long nextEmail;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    context = BenchmarkContext.start(
+        "--spring.jpa.properties.hibernate.jdbc.batch_size=" + jdbcBatchSize);
+    patientRepository = context.getBean(PatientRepository.class);
+    encounterRepository = context.getBean(EncounterRepository.class);
+    encounterPatient = patientRepository.save(patientFactory.createRandomPatient(nextEmail++));
+  }
+
+  /**
+   * Creates RECORDS new patients with emails no earlier invocation used, and RECORDS new
+   * encounters.
+   */
+  @Setup(Level.Invocation)
+  public void createRows() {
+    patients = new ArrayList<>(RECORDS);
+    encounters = new ArrayList<>(RECORDS);
+    for (int i = 0; i < RECORDS; i++) {
+      patients.add(patientFactory.createRandomPatient(nextEmail++));
+      encounters.add(encounterFactory.createRandomEncounter(encounterPatient));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(RECORDS)
+  public List<Patient> saveAllPatients() {
+    return patientRepository.saveAll(patients);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(RECORDS)
+  public List<Encounter> saveAllEncounters() {
+    return encounterRepository.saveAll(encounters);
+  }
+}
@@ -0,0 +1,154 @@
+package io.catalyte.training.superhealth.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.catalyte.training.superhealth.constants.StringConstants;
+import io.catalyte.training.superhealth.domains.encounter.EncounterDTO;
+import io.catalyte.training.superhealth.domains.patient.Patient;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * The reflection and regex based validation the services used before validation plans, kept
+ * unchanged as the baseline for ValidationBenchmark.
+ */
+public class LegacyValidation {
+
+  public List<String> getPatientErrors(Patient patient) {
+    List<String> errors = new ArrayList<>();
+    List<String> emptyFields = getFieldsEmptyOrNull(patient, Patient.class,
+        Arrays.asList("id", "encounters", "normalizedEmail")).get("emptyFields");
+    List<String> nullFields = getFieldsEmptyOrNull(patient, Patient.class,
+        Arrays.asList("id", "encounters", "normalizedEmail")).get("nullFields");
+    if (!nullFields.isEmpty()) {
+      errors.add(StringConstants.FIELDS_NULL(nullFields));
+    }
+    if (!emptyFields.isEmpty()) {
+      errors.add(StringConstants.FIELDS_EMPTY(emptyFields));
+    }
+    if (!matches("^[a-zA-Z\\s'-]+$", patient.getFirstName())
+        || !matches("^[a-zA-Z\\s'-]+$", patient.getLastName())) {
+      errors.add(StringConstants.NAME_INVALID);
+    }
+    if (!matches("^\\d{3}-\\d{2}-\\d{4}$", patient.getSsn())) {
+      errors.add(StringConstants.SSN_INVALID);
+    }
+    if (!matches("^[A-Za-z0-9]+@[A-Za-z]+\\.[A-Za-z]+$", patient.getEmail())) {
+      errors.add(StringConstants.EMAIL_INVALID);
+    }
+    if (!matches("^[A-Z]{2}$", patient.getState())) {
+      errors.add(StringConstants.STATE_INVALID);
+    }
+    if (!matches("^\\d{5}$", patient.getPostal()) && !matches("^\\d{5}-\\d{4}$",
+        patient.getPostal())) {
+      errors.add(StringConstants.POSTAL_CODE_INVALID);
+    }
+    if (!validateNumber(patient.getAge())) {
+      errors.add(StringConstants.NUMBER_INVALID("Age"));
+    }
+    if (!validateNumber(patient.getHeight())) {
+      errors.add(StringConstants.NUMBER_INVALID("Height"));
+    }
+    if (!validateNumber(patient.getWeight())) {
+      errors.add(StringConstants.NUMBER_INVALID("Weight"));
+    }
+    if (patient.getGender() != null && !patient.getGender().isEmpty()) {
+      String gender = patient.getGender().toLowerCase().trim();
+      if (!gender.equals("male") && !gender.equals("female") && !gender.equals("other")) {
+        errors.add(StringConstants.GENDER_INVALID);
+      }
+    }
+    return errors;
+  }
+
+  public List<String> getEncounterErrors(EncounterDTO encounter) {
+    List<String> errors = new ArrayList<>();
+    List<String> optional = Arrays.asList("patientId", "notes", "pulse", "systolic", "diastolic");
+    List<String> emptyFields = getFieldsEmptyOrNull(encounter, EncounterDTO.class, optional)
+        .get("emptyFields");
+    List<String> nullFields = getFieldsEmptyOrNull(encounter, EncounterDTO.class, optional)
+        .get("nullFields");
+    if (!nullFields.isEmpty()) {
+      errors.add(StringConstants.FIELDS_NULL(nullFields));
+    }
+    if (!emptyFields.isEmpty()) {
+      errors.add(StringConstants.FIELDS_EMPTY(emptyFields));
+    }
+    if (!matches("^[A-Z]\\d[A-Z] \\d[A-Z]\\d$", encounter.getVisitCode())) {
+      errors.add(StringConstants.VISIT_CODE_INVALID);
+    }
+    if (!matches("^\\d{3}.\\d{3}.\\d{3}-\\d{2}$", encounter.getBillingCode())) {
+      errors.add(StringConstants.BILLING_CODE_INVALID);
+    }
+    if (!matches("^[A-Z]\\d{2}$", encounter.getIcd10())) {
+      errors.add(StringConstants.ICD10_INVALID);
+    }
+    if (!validateCost(encounter.getTotalCost())) {
+      errors.add(StringConstants.COST_INVALID("Total cost"));
+    }
+    if (!validateCost(encounter.getCopay())) {
+      errors.add(StringConstants.COST_INVALID("Copay"));
+    }
+    if (!validateNumber(encounter.getPulse())) {
+      errors.add(StringConstants.NUMBER_INVALID("Pulse"));
+    }
+    if (!validateNumber(encounter.getSystolic())) {
+      errors.add(StringConstants.NUMBER_INVALID("Systolic"));
+    }
+    if (!validateNumber(encounter.getDiastolic())) {
+      errors.add(StringConstants.NUMBER_INVALID("Diastolic"));
+    }
+    if (!matches("^\\d{4}-(0[1-9]|1[0-2])-([0-2][0-9]|3[0-1])$", encounter.getDate())) {
+      errors.add(StringConstants.DATE_INVALID);
+    }
+    return errors;
+  }
+
+  private HashMap<String, List<String>> getFieldsEmptyOrNull(Object target, Class<?> type,
+      List<String> skippedFields) {
+    List<String> fieldNames = new ArrayList<>();
+    List<String> emptyFields = new ArrayList<>();
+    List<String> nullFields = new ArrayList<>();
+    HashMap<String, List<String>> results = new HashMap<>();
+    for (Field field : type.getDeclaredFields()) {
+      fieldNames.add(field.getName());
+    }
+    fieldNames.removeAll(skippedFields);
+    ObjectMapper mapper = new ObjectMapper();
+    Map targetMap = mapper.convertValue(target, HashMap.class);
+    fieldNames.forEach((field) -> {
+      if (targetMap.get(field) == null) {
+        nullFields.add(field);
+      } else if (targetMap.get(field).toString().trim() == "") {
+        emptyFields.add(field);
+      }
+    });
+    results.put("emptyFields", emptyFields);
+    results.put("nullFields", nullFields);
+    return results;
+  }
+
+  private boolean matches(String regex, String value) {
+    Pattern pattern = Pattern.compile(regex);
+    if (value != null && !value.isEmpty()) {
+      return pattern.matcher(value).matches();
+    }
+    return true;
+  }
+
+  private boolean validateNumber(Integer number) {
+    return number == null || number > 0;
+  }
+
+  private boolean validateCost(Double cost) {
+    if (cost != null) {
+      String[] costString = String.valueOf(cost).split("\\.");
+      return cost > 0 && costString[1].length() <= 2;
+    }
+    return true;
+  }
+}
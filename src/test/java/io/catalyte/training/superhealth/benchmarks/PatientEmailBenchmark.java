@@ -0,0 +1,75 @@
+package io.catalyte.training.superhealth.benchmarks;
+
+import io.catalyte.training.superhealth.data.PatientFactory;
+import io.catalyte.training.superhealth.domains.patient.Patient;
+import io.catalyte.training.superhealth.domains.patient.PatientServiceImpl;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Measures patient write latency and the email uniqueness check against tables of 1k to 1M
+ * patients. With the indexed normalizedEmail lookup both should stay flat as the table grows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class PatientEmailBenchmark {
+
+  @Param({"1000", "10000", "100000", "1000000"})
+  public int patientCount;
+
+  private final PatientFactory patientFactory = new PatientFactory();
+  private ConfigurableApplicationContext context;
+  private PatientServiceImpl patientService;
+  private Patient existingEmailPatient;
+  private long nextEmail;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    context = BenchmarkContext.start();
+    BenchmarkContext.seedPatients(context, patientCount);
+    patientService = context.getBean(PatientServiceImpl.class);
+    existingEmailPatient = validPatient();
+    existingEmailPatient.setEmail("seed" + (patientCount / 2) + "@bench.com");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public Patient savePatient() {
+    Patient patient = validPatient();
+    patient.setEmail("bench" + nextEmail++ + "@bench.com");
+    return patientService.savePatient(patient);
+  }
+
+  @Benchmark
+  public Boolean patientEmailAlreadyExists() {
+    return patientService.patientEmailAlreadyExists(existingEmailPatient);
+  }
+
+  private Patient validPatient() {
+    Patient patient = patientFactory.createRandomPatient();
+    patient.setHeight(70);
+    patient.setWeight(150);
+    return patient;
+  }
+}
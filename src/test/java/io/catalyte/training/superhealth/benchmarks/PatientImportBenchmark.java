@@ -0,0 +1,99 @@
+package io.catalyte.training.superhealth.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.catalyte.training.superhealth.data.PatientFactory;
+import io.catalyte.training.superhealth.domains.patient.Patient;
+import io.catalyte.training.superhealth.domains.patient.PatientImportReport;
+import io.catalyte.training.superhealth.domains.patient.PatientImportServiceImpl;
+import io.catalyte.training.superhealth.domains.patient.PatientServiceImpl;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Measures patient import throughput in records per second, for a bulk import of RECORDS patients
+ * as newline delimited JSON against the same patients saved one at a time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class PatientImportBenchmark {
+
+  private static final int RECORDS = 5000;
+
+  private final PatientFactory patientFactory = new PatientFactory();
+  private final ObjectMapper mapper = new ObjectMapper();
+  private ConfigurableApplicationContext context;
+  private PatientImportServiceImpl patientImportService;
+  private PatientServiceImpl patientService;
+  private List<Patient> patients;
+  private byte[] ndjson;
+  private long nextEmail;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    context = BenchmarkContext.start();
+    patientImportService = context.getBean(PatientImportServiceImpl.class);
+    patientService = context.getBean(PatientServiceImpl.class);
+  }
+
+  /**
+   * Creates RECORDS new patients with emails no earlier invocation used.
+   */
+  @Setup(Level.Invocation)
+  public void createPatients() throws IOException {
+    patients = new ArrayList<>(RECORDS);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (int i = 0; i < RECORDS; i++) {
+      Patient patient = patientFactory.createRandomPatient();
+      patient.setEmail("import" + nextEmail++ + "@bench.com");
+      patient.setHeight(70);
+      patient.setWeight(150);
+      patients.add(patient);
+      out.write(mapper.writeValueAsBytes(patient));
+      out.write('\n');
+    }
+    ndjson = out.toByteArray();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(RECORDS)
+  public PatientImportReport importPatients() throws IOException {
+    return patientImportService.importPatients(new ByteArrayInputStream(ndjson));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(RECORDS)
+  public Patient savePatientOneAtATime() {
+    Patient saved = null;
+    for (Patient patient : patients) {
+      saved = patientService.savePatient(patient);
+    }
+    return saved;
+  }
+}
@@ -0,0 +1,74 @@
+package io.catalyte.training.superhealth.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.catalyte.training.superhealth.data.EncounterFactory;
+import io.catalyte.training.superhealth.data.PatientFactory;
+import io.catalyte.training.superhealth.domains.encounter.Encounter;
+import io.catalyte.training.superhealth.domains.patient.Patient;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Measures Jackson serialization of the patient and encounter responses with an object mapper
+ * configured like the one Spring MVC writes them with: a single patient, a single encounter and a
+ * page of PAGE_SIZE encounters.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+  private static final int PAGE_SIZE = 20;
+
+  private final ObjectWriter writer = Jackson2ObjectMapperBuilder.json().build().writer();
+  private Patient patient;
+  private Encounter encounter;
+  private List<Encounter> encounters;
+
+  @Setup
+  public void setUp() {
+    patient = new PatientFactory().createRandomPatient();
+    patient.setId(1L);
+    patient.setHeight(70);
+    patient.setWeight(150);
+    EncounterFactory encounterFactory = new EncounterFactory();
+    encounters = new ArrayList<>(PAGE_SIZE);
+    for (long id = 1; id <= PAGE_SIZE; id++) {
+      Encounter pageEncounter = encounterFactory.createRandomEncounter(patient);
+      pageEncounter.setId(id);
+      encounters.add(pageEncounter);
+    }
+    encounter = encounters.get(0);
+  }
+
+  @Benchmark
+  public byte[] serializePatient() throws JsonProcessingException {
+    return writer.writeValueAsBytes(patient);
+  }
+
+  @Benchmark
+  public byte[] serializeEncounter() throws JsonProcessingException {
+    return writer.writeValueAsBytes(encounter);
+  }
+
+  @Benchmark
+  public byte[] serializeEncounterPage() throws JsonProcessingException {
+    return writer.writeValueAsBytes(encounters);
+  }
+}
@@ -0,0 +1,79 @@
+package io.catalyte.training.superhealth.benchmarks;
+
+import io.catalyte.training.superhealth.data.EncounterFactory;
+import io.catalyte.training.superhealth.data.PatientFactory;
+import io.catalyte.training.superhealth.domains.encounter.Encounter;
+import io.catalyte.training.superhealth.domains.encounter.EncounterDTO;
+import io.catalyte.training.superhealth.domains.encounter.EncounterServiceImpl;
+import io.catalyte.training.superhealth.domains.patient.Patient;
+import io.catalyte.training.superhealth.domains.patient.PatientEmailIndex;
+import io.catalyte.training.superhealth.domains.patient.PatientServiceImpl;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the validation plans in PatientServiceImpl and EncounterServiceImpl with the previous
+ * reflection and regex based validation on valid requests. The benchmark profile runs it with
+ * the GC profiler, so allocation per operation is compared as well as throughput.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationBenchmark {
+
+  private final LegacyValidation legacyValidation = new LegacyValidation();
+  private final PatientServiceImpl patientService =
+      new PatientServiceImpl(null, new PatientEmailIndex(), null, null, null, null, null, null,
+          null);
+  private final EncounterServiceImpl encounterService = new EncounterServiceImpl(null, null, null,
+      null, null, null);
+  private Patient patient;
+  private EncounterDTO encounterDTO;
+
+  @Setup
+  public void setUp() {
+    patient = new PatientFactory().createRandomPatient();
+    patient.setHeight(70);
+    patient.setWeight(150);
+    Encounter encounter = new EncounterFactory().createRandomEncounter(patient);
+    encounterDTO = new EncounterDTO(1L, encounter.getNotes(), encounter.getVisitCode(),
+        encounter.getProvider(), encounter.getBillingCode(), encounter.getIcd10(),
+        encounter.getTotalCost().doubleValue(), encounter.getCopay().doubleValue(),
+        encounter.getChiefComplaint(), encounter.getPulse(), encounter.getSystolic(),
+        encounter.getDiastolic(),
+        encounter.getDate().toString());
+  }
+
+  @Benchmark
+  public List<String> legacyPatientErrors() {
+    return legacyValidation.getPatientErrors(patient);
+  }
+
+  @Benchmark
+  public List<String> planPatientErrors() {
+    return patientService.getPatientErrors(patient);
+  }
+
+  @Benchmark
+  public List<String> legacyEncounterErrors() {
+    return legacyValidation.getEncounterErrors(encounterDTO);
+  }
+
+  @Benchmark
+  public List<String> planEncounterErrors() {
+    return encounterService.getEncounterErrors(encounterDTO);
+  }
+}
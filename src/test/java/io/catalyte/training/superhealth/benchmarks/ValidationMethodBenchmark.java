@@ -0,0 +1,135 @@
+package io.catalyte.training.superhealth.benchmarks;
+
+import io.catalyte.training.superhealth.data.EncounterFactory;
+import io.catalyte.training.superhealth.data.PatientFactory;
+import io.catalyte.training.superhealth.domains.encounter.Encounter;
+import io.catalyte.training.superhealth.domains.encounter.EncounterDTO;
+import io.catalyte.training.superhealth.domains.encounter.EncounterServiceImpl;
+import io.catalyte.training.superhealth.domains.patient.Patient;
+import io.catalyte.training.superhealth.domains.patient.PatientEmailIndex;
+import io.catalyte.training.superhealth.domains.patient.PatientServiceImpl;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures each validate method of PatientServiceImpl and EncounterServiceImpl on its own, so a
+ * regression in one format check shows up even when the whole validation plan hides it. Each
+ * invocation reads the next record of DATASET_SIZE factory generated patients and encounters, so
+ * the JIT cannot specialize on a single input.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationMethodBenchmark {
+
+  private static final int DATASET_SIZE = 1024;
+
+  private final PatientServiceImpl patientService =
+      new PatientServiceImpl(null, new PatientEmailIndex(), null, null, null, null, null, null,
+          null);
+  private final EncounterServiceImpl encounterService = new EncounterServiceImpl(null, null, null,
+      null, null, null);
+  private final Patient[] patients = new Patient[DATASET_SIZE];
+  private final EncounterDTO[] encounters = new EncounterDTO[DATASET_SIZE];
+  private int next;
+
+  @Setup
+  public void setUp() {
+    PatientFactory patientFactory = new PatientFactory();
+    EncounterFactory encounterFactory = new EncounterFactory();
+    for (int i = 0; i < DATASET_SIZE; i++) {
+      Patient patient = patientFactory.createRandomPatient();
+      patient.setHeight(70);
+      patient.setWeight(150);
+      patients[i] = patient;
+      Encounter encounter = encounterFactory.createRandomEncounter(patient);
+      encounters[i] = new EncounterDTO(1L, encounter.getNotes(), encounter.getVisitCode(),
+          encounter.getProvider(), encounter.getBillingCode(), encounter.getIcd10(),
+          encounter.getTotalCost().doubleValue(), encounter.getCopay().doubleValue(),
+          encounter.getChiefComplaint(), encounter.getPulse(), encounter.getSystolic(),
+          encounter.getDiastolic(), encounter.getDate().toString());
+    }
+  }
+
+  private int nextIndex() {
+    next = (next + 1) & (DATASET_SIZE - 1);
+    return next;
+  }
+
+  @Benchmark
+  public Boolean validateNameFormat() {
+    return patientService.validateNameFormat(patients[nextIndex()].getFirstName());
+  }
+
+  @Benchmark
+  public Boolean validateSSN() {
+    return patientService.validateSSN(patients[nextIndex()]);
+  }
+
+  @Benchmark
+  public Boolean validateEmailFormat() {
+    return patientService.validateEmailFormat(patients[nextIndex()]);
+  }
+
+  @Benchmark
+  public Boolean validateStateFormat() {
+    return patientService.validateStateFormat(patients[nextIndex()]);
+  }
+
+  @Benchmark
+  public Boolean validatePostalCode() {
+    return patientService.validatePostalCode(patients[nextIndex()]);
+  }
+
+  @Benchmark
+  public Boolean validateGender() {
+    return patientService.validateGender(patients[nextIndex()]);
+  }
+
+  @Benchmark
+  public Boolean validatePatientNumber() {
+    return patientService.validateNumber(patients[nextIndex()].getAge());
+  }
+
+  @Benchmark
+  public Boolean validateVisitCodeFormat() {
+    return encounterService.validateVisitCodeFormat(encounters[nextIndex()]);
+  }
+
+  @Benchmark
+  public Boolean validateBillingCode() {
+    return encounterService.validateBillingCode(encounters[nextIndex()]);
+  }
+
+  @Benchmark
+  public Boolean validateIcd10() {
+    return encounterService.validateIcd10(encounters[nextIndex()]);
+  }
+
+  @Benchmark
+  public Boolean validateCost() {
+    return encounterService.validateCost(encounters[nextIndex()].getTotalCost());
+  }
+
+  @Benchmark
+  public Boolean validateDateFormat() {
+    return encounterService.validateDateFormat(encounters[nextIndex()]);
+  }
+
+  @Benchmark
+  public Boolean validateEncounterNumber() {
+    return encounterService.validateNumber(encounters[nextIndex()].getPulse());
+  }
+}
@@ -0,0 +1,115 @@
+package io.catalyte.training.superhealth.data;
+
+import static org.junit.Assert.assertEquals;
+
+import io.catalyte.training.superhealth.domains.encounter.EncounterRepository;
+import io.catalyte.training.superhealth.domains.patient.PatientRepository;
+import io.catalyte.training.superhealth.domains.patient.PatientSummaryRepository;
+import java.util.List;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class DataSeederTest {
+
+  private static final String PATIENT_ROWS = "SELECT first_name, last_name, ssn, email, street, "
+      + "city, state, postal, age, height, weight, insurance, gender FROM patient ORDER BY id";
+
+  private static final String ENCOUNTER_ROWS = "SELECT p.email, e.notes, e.visit_code, "
+      + "e.provider, e.billing_code, e.icd10, e.total_cost_cents, e.copay_cents, "
+      + "e.chief_complaint, e.pulse, e.systolic, e.diastolic, e.date FROM encounter e "
+      + "JOIN patient p ON p.id = e.patient_id ORDER BY e.id";
+
+  @Autowired
+  public JdbcTemplate jdbcTemplate;
+  @Autowired
+  public PlatformTransactionManager transactionManager;
+  @Autowired
+  public PatientSummaryRepository patientSummaryRepository;
+  @Autowired
+  public PatientRepository patientRepository;
+  @Autowired
+  public EncounterRepository encounterRepository;
+
+  DataSeeder dataSeeder;
+
+  @Before
+  public void setUp() {
+    //a small batch size, so a seed spans several chunks and windows
+    dataSeeder = new DataSeeder(jdbcTemplate, transactionManager, patientRepository,
+        encounterRepository, patientSummaryRepository, 7, 42, "2010-01-01");
+  }
+
+  @After
+  public void tearDown() {
+    patientSummaryRepository.deleteAllInBatch();
+    encounterRepository.deleteAllInBatch();
+    patientRepository.deleteAllInBatch();
+  }
+
+  @Test
+  public void seedInsertsConfiguredCounts() {
+    dataSeeder.seed(50, 180);
+
+    assertEquals(50L, patientRepository.count());
+    assertEquals(180L, encounterRepository.count());
+    assertEquals(50L, patientSummaryRepository.count());
+    assertEquals(Long.valueOf(180), jdbcTemplate.queryForObject(
+        "SELECT SUM(encounter_count) FROM patient_summary", Long.class));
+  }
+
+  @Test
+  public void seedGivesEveryPatientAUniqueEmail() {
+    dataSeeder.seed(50, 0);
+
+    assertEquals(Long.valueOf(50), jdbcTemplate.queryForObject(
+        "SELECT COUNT(DISTINCT normalized_email) FROM patient", Long.class));
+  }
+
+  @Test
+  public void seedLeavesSecondPatientWithoutEncounters() {
+    dataSeeder.seed(50, 500);
+
+    List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM patient ORDER BY id", Long.class);
+    assertEquals(Long.valueOf(0), jdbcTemplate.queryForObject(
+        "SELECT COUNT(*) FROM encounter WHERE patient_id = ?", Long.class, ids.get(1)));
+  }
+
+  @Test
+  public void seedWithoutPatientsInsertsNoEncounters() {
+    dataSeeder.seed(0, 100);
+
+    assertEquals(0L, patientRepository.count());
+    assertEquals(0L, encounterRepository.count());
+  }
+
+  @Test
+  public void seedIsRepeatableForTheSameSeed() {
+    dataSeeder.seed(30, 90);
+    List<Map<String, Object>> patients = jdbcTemplate.queryForList(PATIENT_ROWS);
+    List<Map<String, Object>> encounters = jdbcTemplate.queryForList(ENCOUNTER_ROWS);
+    tearDown();
+
+    dataSeeder.seed(30, 90);
+
+    assertEquals(patients, jdbcTemplate.queryForList(PATIENT_ROWS));
+    assertEquals(encounters, jdbcTemplate.queryForList(ENCOUNTER_ROWS));
+  }
+
+  @Test
+  public void seedDatesEncountersBeforeEndDate() {
+    dataSeeder.seed(30, 90);
+
+    assertEquals(Long.valueOf(0), jdbcTemplate.queryForObject(
+        "SELECT COUNT(*) FROM encounter WHERE date >= DATE '2010-01-01'", Long.class));
+  }
+}
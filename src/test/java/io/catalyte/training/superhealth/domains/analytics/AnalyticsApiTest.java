@@ -0,0 +1,317 @@
+package io.catalyte.training.superhealth.domains.analytics;
+
+import static io.catalyte.training.superhealth.constants.Paths.ANALYTICS_PATH;
+import static io.catalyte.training.superhealth.constants.Paths.ENCOUNTERS_PATH;
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.catalyte.training.superhealth.constants.Paths;
+import io.catalyte.training.superhealth.data.PatientFactory;
+import io.catalyte.training.superhealth.domains.encounter.EncounterDTO;
+import io.catalyte.training.superhealth.domains.encounter.EncounterRepository;
+import io.catalyte.training.superhealth.domains.patient.Patient;
+import io.catalyte.training.superhealth.domains.patient.PatientRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class AnalyticsApiTest {
+
+  private static final String ROLLUP_PATH = ANALYTICS_PATH + "/encounters/rollup";
+
+  private static final String QUANTILES_PATH = ANALYTICS_PATH + "/vitals/quantiles";
+
+  private static final String TRENDING_PATH = ANALYTICS_PATH + "/trending";
+
+  private static final String SCAN_PATH = ANALYTICS_PATH + "/encounters/scan";
+
+  private static final String DISTINCT_PATIENTS_PATH = ANALYTICS_PATH + "/patients/distinct";
+
+  private final PatientFactory patientFactory = new PatientFactory();
+  private final ObjectMapper mapper = new ObjectMapper();
+  Patient testPatient;
+  @Autowired
+  public PatientRepository patientRepository;
+  @Autowired
+  public EncounterRepository encounterRepository;
+  @Autowired
+  public EncounterRollup encounterRollup;
+  @Autowired
+  public VitalsQuantiles vitalsQuantiles;
+  @Autowired
+  public EncounterColumns encounterColumns;
+  @Autowired
+  public DistinctPatients distinctPatients;
+  @Autowired
+  private WebApplicationContext wac;
+  private MockMvc mockMvc;
+
+  @Before
+  public void setUp() {
+    mockMvc = MockMvcBuilders.webAppContextSetup(this.wac).build();
+    testPatient = patientFactory.createRandomPatient();
+    testPatient.setHeight(70);
+    testPatient.setWeight(150);
+    patientRepository.save(testPatient);
+    encounterRollup.invalidate();
+    vitalsQuantiles.invalidate();
+    encounterColumns.invalidate();
+    distinctPatients.invalidate();
+  }
+
+  @After
+  public void tearDown() {
+    encounterRepository.deleteAll();
+    patientRepository.deleteAll();
+  }
+
+  private EncounterDTO encounterDTO(String provider, double totalCost, String date) {
+    return new EncounterDTO(testPatient.getId(), "notes", "N3W 3C3", provider, "123.456.789-00",
+        "Z99", totalCost, 1.50, "complaint", 78, 120, 80, date);
+  }
+
+  private long postEncounter(EncounterDTO encounterDTO) throws Exception {
+    String body = mockMvc.perform(post(ENCOUNTERS_PATH(testPatient.getId()))
+        .contentType("application/json")
+        .content(mapper.writeValueAsString(encounterDTO)))
+        .andExpect(status().isCreated())
+        .andReturn().getResponse().getContentAsString();
+    return mapper.readTree(body).get("id").asLong();
+  }
+
+  private JsonNode getRollup(String groupBy, String provider) throws Exception {
+    String body = mockMvc.perform(get(ROLLUP_PATH)
+        .param("groupBy", groupBy)
+        .param("provider", provider))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+    return mapper.readTree(body);
+  }
+
+  @Test
+  public void getEncounterRollupTotalsSavedEncountersByMonth() throws Exception {
+    postEncounter(encounterDTO("Rollup Clinic", 100.25, "2020-08-04"));
+    //loads the cube, later saves update it in place
+    assertEquals(1, getRollup("month", "Rollup Clinic").size());
+    postEncounter(encounterDTO("Rollup Clinic", 50.50, "2020-08-20"));
+    postEncounter(encounterDTO("Rollup Clinic", 10.00, "2020-09-01"));
+
+    JsonNode rows = getRollup("month", "Rollup Clinic");
+    assertEquals(2, rows.size());
+    assertEquals("2020-08", rows.get(0).get("month").asText());
+    assertEquals(2, rows.get(0).get("count").asLong());
+    assertEquals(150.75, rows.get(0).get("totalCost").asDouble(), 0);
+    assertEquals(3.00, rows.get(0).get("copay").asDouble(), 0);
+    assertEquals("2020-09", rows.get(1).get("month").asText());
+    assertEquals(false, rows.get(0).has("provider"));
+  }
+
+  @Test
+  public void getEncounterRollupMovesUpdatedEncounter() throws Exception {
+    long id = postEncounter(encounterDTO("Rollup Clinic", 100.25, "2020-08-04"));
+    getRollup("provider", "Rollup Clinic");
+
+    mockMvc.perform(put(ENCOUNTERS_PATH(testPatient.getId()) + "/" + id)
+        .contentType("application/json")
+        .content(mapper.writeValueAsString(encounterDTO("Other Clinic", 20.00, "2020-08-04"))))
+        .andExpect(status().isOk());
+
+    assertEquals(0, getRollup("provider", "Rollup Clinic").size());
+    JsonNode rows = getRollup("provider", "Other Clinic");
+    assertEquals(1, rows.get(0).get("count").asLong());
+    assertEquals(20.00, rows.get(0).get("totalCost").asDouble(), 0);
+  }
+
+  @Test
+  public void getEncounterRollupDropsEncountersOfCascadeDeletedPatient() throws Exception {
+    postEncounter(encounterDTO("Rollup Clinic", 100.25, "2020-08-04"));
+    assertEquals(1, getRollup("provider", "Rollup Clinic").size());
+
+    mockMvc.perform(delete(Paths.PATIENTS_PATH + "/" + testPatient.getId())
+        .param("mode", "cascade"))
+        .andExpect(status().isNoContent());
+
+    assertEquals(0, getRollup("provider", "Rollup Clinic").size());
+  }
+
+  @Test
+  public void getEncounterRollupReturns400WhenGroupByInvalid() throws Exception {
+    mockMvc.perform(get(ROLLUP_PATH).param("groupBy", "ssn"))
+        .andExpect(status().isBadRequest());
+  }
+
+  private JsonNode getQuantiles() throws Exception {
+    String body = mockMvc.perform(get(QUANTILES_PATH)
+        .param("groupBy", "gender,ageBand")
+        .param("gender", testPatient.getGender())
+        .param("ageBand", AgeBand.of(testPatient.getAge()).getLabel()))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+    return mapper.readTree(body);
+  }
+
+  @Test
+  public void getVitalsQuantilesFollowsSavedAndUpdatedEncounters() throws Exception {
+    long id = postEncounter(encounterDTO("Vitals Clinic", 10.00, "2020-08-04"));
+    //loads the sketches, the next save is added in place
+    assertEquals(1, getQuantiles().get(0).get("pulse").get("count").asLong());
+    EncounterDTO faster = encounterDTO("Vitals Clinic", 10.00, "2020-08-05");
+    faster.setPulse(100);
+    postEncounter(faster);
+
+    JsonNode rows = getQuantiles();
+    assertEquals(1, rows.size());
+    assertEquals(testPatient.getGender(), rows.get(0).get("gender").asText());
+    assertEquals(2, rows.get(0).get("pulse").get("count").asLong());
+    assertEquals(78, rows.get(0).get("pulse").get("p50").asInt());
+    assertEquals(100, rows.get(0).get("pulse").get("p99").asInt());
+
+    EncounterDTO slower = encounterDTO("Vitals Clinic", 10.00, "2020-08-04");
+    slower.setPulse(50);
+    mockMvc.perform(put(ENCOUNTERS_PATH(testPatient.getId()) + "/" + id)
+        .contentType("application/json")
+        .content(mapper.writeValueAsString(slower)))
+        .andExpect(status().isOk());
+
+    rows = getQuantiles();
+    assertEquals(2, rows.get(0).get("pulse").get("count").asLong());
+    assertEquals(50, rows.get(0).get("pulse").get("p50").asInt());
+  }
+
+  @Test
+  public void getVitalsQuantilesReturns400WhenAgeBandInvalid() throws Exception {
+    mockMvc.perform(get(QUANTILES_PATH).param("ageBand", "18-30"))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  public void getTrendingCountsSavedEncounters() throws Exception {
+    //a complaint no other test saves, so counts from earlier tests do not matter
+    EncounterDTO encounterDTO = encounterDTO("Trending Clinic", 10.00, "2020-08-04");
+    encounterDTO.setChiefComplaint("Trending Complaint");
+    postEncounter(encounterDTO);
+    postEncounter(encounterDTO);
+
+    String body = mockMvc.perform(get(TRENDING_PATH)
+        .param("window", "hour")
+        .param("limit", "100"))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+    JsonNode report = mapper.readTree(body);
+    assertEquals("hour", report.get("window").asText());
+    long count = 0;
+    for (JsonNode item : report.get("chiefComplaints")) {
+      if (item.get("value").asText().equals("trending complaint")) {
+        count = item.get("count").asLong();
+      }
+    }
+    assertEquals(2, count);
+  }
+
+  @Test
+  public void getTrendingReturns400WhenWindowInvalid() throws Exception {
+    mockMvc.perform(get(TRENDING_PATH).param("window", "month"))
+        .andExpect(status().isBadRequest());
+  }
+
+  private JsonNode getScan(String provider) throws Exception {
+    String body = mockMvc.perform(get(SCAN_PATH)
+        .param("groupBy", "provider")
+        .param("provider", provider))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+    return mapper.readTree(body);
+  }
+
+  @Test
+  public void getEncounterScanFollowsSavedAndUpdatedEncounters() throws Exception {
+    long id = postEncounter(encounterDTO("Scan Clinic", 100.25, "2020-08-04"));
+    //loads the columns, later saves update them in place
+    assertEquals(1, getScan("Scan Clinic").get(0).get("count").asLong());
+    postEncounter(encounterDTO("Scan Clinic", 50.50, "2020-08-20"));
+
+    JsonNode rows = getScan("Scan Clinic");
+    assertEquals(1, rows.size());
+    assertEquals("Scan Clinic", rows.get(0).get("provider").asText());
+    assertEquals(2, rows.get(0).get("count").asLong());
+    assertEquals(150.75, rows.get(0).get("totalCost").asDouble(), 0);
+    assertEquals(78.0, rows.get(0).get("averagePulse").asDouble(), 0);
+
+    mockMvc.perform(put(ENCOUNTERS_PATH(testPatient.getId()) + "/" + id)
+        .contentType("application/json")
+        .content(mapper.writeValueAsString(encounterDTO("Other Scan Clinic", 20.00,
+            "2020-08-04"))))
+        .andExpect(status().isOk());
+
+    assertEquals(1, getScan("Scan Clinic").get(0).get("count").asLong());
+    assertEquals(20.00, getScan("Other Scan Clinic").get(0).get("totalCost").asDouble(), 0);
+  }
+
+  @Test
+  public void getEncounterScanReturns400WhenDateRangeInvalid() throws Exception {
+    mockMvc.perform(get(SCAN_PATH).param("from", "2020-09-01").param("to", "2020-08-01"))
+        .andExpect(status().isBadRequest());
+  }
+
+  private JsonNode getDistinctPatients(String from, String to) throws Exception {
+    String body = mockMvc.perform(get(DISTINCT_PATIENTS_PATH)
+        .param("groupBy", "provider")
+        .param("from", from)
+        .param("to", to))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+    return mapper.readTree(body);
+  }
+
+  private long countPatients(JsonNode rows, String provider) {
+    for (JsonNode row : rows) {
+      if (provider.equals(row.get("provider").asText())) {
+        return row.get("patients").asLong();
+      }
+    }
+    return 0;
+  }
+
+  @Test
+  public void getDistinctPatientsCountsPatientsOfSavedEncounters() throws Exception {
+    postEncounter(encounterDTO("Distinct Clinic", 10.00, "2020-08-04"));
+    //loads the sketches, later saves are added in place
+    assertEquals(1, countPatients(getDistinctPatients("2020-08", "2020-09"), "Distinct Clinic"));
+    postEncounter(encounterDTO("Distinct Clinic", 20.00, "2020-09-01"));
+
+    Patient otherPatient = patientFactory.createRandomPatient();
+    otherPatient.setHeight(70);
+    otherPatient.setWeight(150);
+    patientRepository.save(otherPatient);
+    EncounterDTO otherEncounter = encounterDTO("Distinct Clinic", 30.00, "2020-10-01");
+    otherEncounter.setPatientId(otherPatient.getId());
+    mockMvc.perform(post(ENCOUNTERS_PATH(otherPatient.getId()))
+        .contentType("application/json")
+        .content(mapper.writeValueAsString(otherEncounter)))
+        .andExpect(status().isCreated());
+
+    assertEquals(1, countPatients(getDistinctPatients("2020-08", "2020-09"), "Distinct Clinic"));
+    assertEquals(2, countPatients(getDistinctPatients("2020-08", "2020-10"), "Distinct Clinic"));
+  }
+
+  @Test
+  public void getDistinctPatientsReturns400WhenMonthRangeInvalid() throws Exception {
+    mockMvc.perform(get(DISTINCT_PATIENTS_PATH).param("from", "2020-10").param("to", "2020-09"))
+        .andExpect(status().isBadRequest());
+  }
+}
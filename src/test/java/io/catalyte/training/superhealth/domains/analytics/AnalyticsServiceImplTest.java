@@ -0,0 +1,755 @@
+package io.catalyte.training.superhealth.domains.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.catalyte.training.superhealth.domains.encounter.Encounter;
+import io.catalyte.training.superhealth.domains.encounter.EncounterChange;
+import io.catalyte.training.superhealth.domains.encounter.EncounterChangeSequence;
+import io.catalyte.training.superhealth.domains.encounter.EncounterRepository;
+import io.catalyte.training.superhealth.domains.patient.Patient;
+import io.catalyte.training.superhealth.domains.patient.PatientChange;
+import io.catalyte.training.superhealth.exceptions.BadRequest;
+import io.catalyte.training.superhealth.exceptions.ServiceUnavailable;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.dao.DataAccessException;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AnalyticsServiceImplTest {
+
+  private AnalyticsServiceImpl analyticsServiceImpl;
+  private final EncounterChangeSequence changes = new EncounterChangeSequence();
+  private EncounterRollup encounterRollup;
+  private VitalsQuantiles vitalsQuantiles;
+  private EncounterTrends encounterTrends;
+  private EncounterColumns encounterColumns;
+  private DistinctPatients distinctPatients;
+  private final AtomicLong now = new AtomicLong(Instant.parse("2021-01-04T10:30:00Z").toEpochMilli());
+  @Mock
+  private EncounterRepository encounterRepository;
+
+  @Before
+  public void setUp() {
+    MockitoAnnotations.initMocks(this);
+    encounterRollup = new EncounterRollup(changes);
+    //two ids per chunk, so loads merge the sketches of several chunks
+    vitalsQuantiles = new VitalsQuantiles(200, 2, changes);
+    //three counters per bucket, so rare values are evicted
+    encounterTrends = new EncounterTrends(3, new Clock() {
+      @Override
+      public ZoneId getZone() {
+        return ZoneOffset.UTC;
+      }
+
+      @Override
+      public Clock withZone(ZoneId zone) {
+        return this;
+      }
+
+      @Override
+      public Instant instant() {
+        return Instant.ofEpochMilli(now.get());
+      }
+    });
+    //two ids per load chunk and one row per scan leaf, so loads and scans both split
+    encounterColumns = new EncounterColumns(2, 1, changes);
+    //two ids per load chunk, so loads merge the sketches of several chunks
+    distinctPatients = new DistinctPatients(12, 2);
+    analyticsServiceImpl = new AnalyticsServiceImpl(encounterRepository, encounterRollup,
+        vitalsQuantiles, encounterTrends, encounterColumns, distinctPatients);
+  }
+
+  private void loadCounts() {
+    when(encounterRepository.findRollupCounts()).thenReturn(Arrays.asList(
+        new RollupCount("Alpha", "A01", "111.111.111-11", 2020, 8, 2L, 10000L, 1000L),
+        new RollupCount("Alpha", "B02", "111.111.111-11", 2020, 9, 1L, 2550L, 500L),
+        new RollupCount("Beta", "A01", "222.222.222-22", 2020, 8, 3L, 30000L, 1500L)));
+  }
+
+  private void loadSamples() {
+    when(encounterRepository.findMinId()).thenReturn(1L);
+    when(encounterRepository.findMaxId()).thenReturn(5L);
+    when(encounterRepository.findVitalsSamplesByIdBetween(1L, 2L)).thenReturn(Arrays.asList(
+        new VitalsSample("Male", 30, 60, 110, 70),
+        new VitalsSample("Male", 70, 80, 140, 90)));
+    when(encounterRepository.findVitalsSamplesByIdBetween(3L, 4L)).thenReturn(Arrays.asList(
+        new VitalsSample("Female", 30, 70, 120, 80),
+        new VitalsSample("Female", 32, 90, null, null)));
+    when(encounterRepository.findVitalsSamplesByIdBetween(5L, 6L)).thenReturn(
+        Collections.singletonList(new VitalsSample("Other", 10, 100, 100, 60)));
+  }
+
+  private EncounterScanRecord scanRecord(long id, String provider, String chiefComplaint,
+      long totalCostCents, Integer pulse, String date) {
+    return new EncounterScanRecord(id, provider, "A01", "111.111.111-11", chiefComplaint,
+        totalCostCents, 100L, pulse, 120, 80, LocalDate.parse(date));
+  }
+
+  private void loadScanRecords() {
+    when(encounterRepository.findMinId()).thenReturn(1L);
+    when(encounterRepository.findMaxId()).thenReturn(5L);
+    when(encounterRepository.findScanRecordsByIdBetween(1L, 2L)).thenReturn(Arrays.asList(
+        scanRecord(1L, "Alpha", "Flu", 1000L, 60, "2020-08-04"),
+        scanRecord(2L, "Beta", "Cough", 2000L, 80, "2020-08-05")));
+    when(encounterRepository.findScanRecordsByIdBetween(3L, 4L)).thenReturn(
+        Collections.singletonList(scanRecord(4L, "Alpha", "Cough", 3000L, null, "2020-09-01")));
+    when(encounterRepository.findScanRecordsByIdBetween(5L, 6L)).thenReturn(
+        Collections.singletonList(scanRecord(5L, "Alpha", "Flu", 4000L, 100, "2020-10-01")));
+  }
+
+  private void loadPatientVisits() {
+    when(encounterRepository.findMinId()).thenReturn(1L);
+    when(encounterRepository.findMaxId()).thenReturn(5L);
+    when(encounterRepository.findPatientVisitsByIdBetween(1L, 2L)).thenReturn(Arrays.asList(
+        new PatientVisit(1L, "Alpha", "A01", 2020, 8),
+        new PatientVisit(2L, "Beta", "A01", 2020, 8)));
+    when(encounterRepository.findPatientVisitsByIdBetween(3L, 4L)).thenReturn(Arrays.asList(
+        new PatientVisit(1L, "Alpha", "A01", 2020, 8),
+        new PatientVisit(1L, "Alpha", "B02", 2020, 9)));
+    when(encounterRepository.findPatientVisitsByIdBetween(5L, 6L)).thenReturn(
+        Collections.singletonList(new PatientVisit(3L, "Alpha", "B02", 2020, 10)));
+  }
+
+  private Encounter visitedEncounter(long patientId, String provider, String date) {
+    Patient patient = new Patient();
+    patient.setId(patientId);
+    Encounter encounter = encounter(9L, provider, date, 100L);
+    encounter.setPatient(patient);
+    return encounter;
+  }
+
+  private Encounter sampledEncounter(String gender, int age, int pulse) {
+    Patient patient = new Patient();
+    patient.setGender(gender);
+    patient.setAge(age);
+    Encounter encounter = encounter(9L, "Alpha", "2020-10-04", 100L);
+    encounter.setPatient(patient);
+    encounter.setPulse(pulse);
+    return encounter;
+  }
+
+  private void saveEncounters(String chiefComplaint, String icd10, int count) {
+    for (int i = 0; i < count; i++) {
+      Encounter encounter = encounter(1L, "Alpha", "2020-10-04", 100L);
+      encounter.setChiefComplaint(chiefComplaint);
+      encounter.setIcd10(icd10);
+      encounterTrends.record(encounter);
+    }
+  }
+
+  /**
+   * A change as it is applied after its transaction commits, numbered after every load so far.
+   */
+  private EncounterChange committed(Encounter previous, Encounter current) {
+    EncounterChange change = new EncounterChange(previous, current);
+    changes.number(change);
+    return change;
+  }
+
+  private Encounter encounter(Long id, String provider, String date, long totalCostCents) {
+    return new Encounter(id, null, null, "N3W 3C3", provider, "111.111.111-11", "A01",
+        totalCostCents, 100L, "complaint", null, null, null, LocalDate.parse(date));
+  }
+
+  @Test
+  public void getEncounterRollupReturnsGrandTotalWithoutGroupBy() {
+    loadCounts();
+    List<RollupRow> rows = analyticsServiceImpl.getEncounterRollup(null, null, null, null, null);
+    assertEquals(1, rows.size());
+    assertEquals(6, rows.get(0).getCount());
+    assertEquals(new BigDecimal("425.50"), rows.get(0).getTotalCost());
+    assertEquals(new BigDecimal("30.00"), rows.get(0).getCopay());
+    assertNull(rows.get(0).getProvider());
+  }
+
+  @Test
+  public void getEncounterRollupGroupsAndOrdersByDimension() {
+    loadCounts();
+    List<RollupRow> rows = analyticsServiceImpl.getEncounterRollup("provider", null, null, null,
+        null);
+    assertEquals(2, rows.size());
+    assertEquals("Alpha", rows.get(0).getProvider());
+    assertEquals(3, rows.get(0).getCount());
+    assertEquals(new BigDecimal("125.50"), rows.get(0).getTotalCost());
+    assertEquals("Beta", rows.get(1).getProvider());
+    assertNull(rows.get(0).getMonth());
+  }
+
+  @Test
+  public void getEncounterRollupFiltersOnDimensionsNotGrouped() {
+    loadCounts();
+    List<RollupRow> rows = analyticsServiceImpl.getEncounterRollup("month", null, "A01", null,
+        null);
+    assertEquals(1, rows.size());
+    assertEquals("2020-08", rows.get(0).getMonth());
+    assertEquals(5, rows.get(0).getCount());
+    assertNull(rows.get(0).getIcd10());
+  }
+
+  @Test
+  public void getEncounterRollupLoadsCubeOnce() {
+    loadCounts();
+    analyticsServiceImpl.getEncounterRollup(null, null, null, null, null);
+    analyticsServiceImpl.getEncounterRollup("icd10,month", null, null, null, "2020-08");
+    verify(encounterRepository, times(1)).findRollupCounts();
+  }
+
+  @Test
+  public void recordAddsNewEncounterToLoadedCube() {
+    loadCounts();
+    analyticsServiceImpl.getEncounterRollup(null, null, null, null, null);
+    encounterRollup.record(committed(null, encounter(1L, "Gamma", "2020-10-04", 1234L)));
+
+    List<RollupRow> rows = analyticsServiceImpl.getEncounterRollup("provider,month", "Gamma",
+        null, null, null);
+    assertEquals(1, rows.size());
+    assertEquals("2020-10", rows.get(0).getMonth());
+    assertEquals(new BigDecimal("12.34"), rows.get(0).getTotalCost());
+    assertEquals(7, analyticsServiceImpl.getEncounterRollup(null, null, null, null, null)
+        .get(0).getCount());
+  }
+
+  @Test
+  public void recordMovesUpdatedEncounterBetweenCells() {
+    loadCounts();
+    analyticsServiceImpl.getEncounterRollup(null, null, null, null, null);
+    Encounter saved = encounter(1L, "Gamma", "2020-10-04", 1234L);
+    encounterRollup.record(committed(null, saved));
+    encounterRollup.record(committed(saved, encounter(1L, "Delta", "2020-10-04", 1000L)));
+
+    List<RollupRow> rows = analyticsServiceImpl.getEncounterRollup("provider", null, null, null,
+        "2020-10");
+    assertEquals(1, rows.size());
+    assertEquals("Delta", rows.get(0).getProvider());
+    assertEquals(new BigDecimal("10.00"), rows.get(0).getTotalCost());
+    assertEquals(7, analyticsServiceImpl.getEncounterRollup(null, null, null, null, null)
+        .get(0).getCount());
+  }
+
+  @Test
+  public void recordDiscardsLoadThatMayHaveMissedIt() {
+    List<RollupCount> counts = Collections.singletonList(
+        new RollupCount("Alpha", "A01", "111.111.111-11", 2020, 8, 2L, 10000L, 1000L));
+    //the change commits while the grouped query reads
+    when(encounterRepository.findRollupCounts()).thenAnswer(invocation -> {
+      encounterRollup.record(committed(null, encounter(1L, "Gamma", "2020-10-04", 1234L)));
+      return counts;
+    }).thenReturn(counts);
+
+    analyticsServiceImpl.getEncounterRollup(null, null, null, null, null);
+    analyticsServiceImpl.getEncounterRollup(null, null, null, null, null);
+    verify(encounterRepository, times(2)).findRollupCounts();
+  }
+
+  @Test
+  public void recordDropsCubeLoadedWhileItCommitted() {
+    loadCounts();
+    //numbered before the load started but applied after it was kept, so the load may have read it
+    EncounterChange change = committed(null, encounter(1L, "Gamma", "2020-10-04", 1234L));
+    analyticsServiceImpl.getEncounterRollup(null, null, null, null, null);
+    encounterRollup.record(change);
+
+    assertEquals(6, analyticsServiceImpl.getEncounterRollup(null, null, null, null, null)
+        .get(0).getCount());
+    verify(encounterRepository, times(2)).findRollupCounts();
+  }
+
+  @Test
+  public void invalidateReloadsCubeOnNextQuery() {
+    loadCounts();
+    analyticsServiceImpl.getEncounterRollup(null, null, null, null, null);
+    encounterRollup.invalidate();
+    analyticsServiceImpl.getEncounterRollup(null, null, null, null, null);
+    verify(encounterRepository, times(2)).findRollupCounts();
+  }
+
+  @Test
+  public void getEncounterRollupThrowsBadRequestWhenGroupByInvalid() {
+    assertThrows(BadRequest.class,
+        () -> analyticsServiceImpl.getEncounterRollup("provider,ssn", null, null, null, null));
+  }
+
+  @Test
+  public void getEncounterRollupThrowsBadRequestWhenMonthInvalid() {
+    assertThrows(BadRequest.class,
+        () -> analyticsServiceImpl.getEncounterRollup(null, null, null, null, "2020-13"));
+  }
+
+  @Test
+  public void getEncounterRollupThrowsServiceUnavailable() {
+    doThrow(new DataAccessException("TEST EXCEPTION") {
+    }).when(encounterRepository).findRollupCounts();
+    assertThrows(ServiceUnavailable.class,
+        () -> analyticsServiceImpl.getEncounterRollup(null, null, null, null, null));
+  }
+
+  @Test
+  public void getVitalsQuantilesCoversAllEncountersWithoutGroupBy() {
+    loadSamples();
+    List<VitalsQuantileRow> rows = analyticsServiceImpl.getVitalsQuantiles(null, null, null);
+    assertEquals(1, rows.size());
+    assertNull(rows.get(0).getGender());
+    assertEquals(5, rows.get(0).getPulse().getCount());
+    assertEquals(80, rows.get(0).getPulse().getP50());
+    assertEquals(100, rows.get(0).getPulse().getP99());
+    assertEquals(4, rows.get(0).getSystolic().getCount());
+  }
+
+  @Test
+  public void getVitalsQuantilesGroupsByGenderAndAgeBand() {
+    loadSamples();
+    List<VitalsQuantileRow> rows = analyticsServiceImpl.getVitalsQuantiles("gender,ageBand",
+        null, null);
+    assertEquals(4, rows.size());
+    assertEquals("Female", rows.get(0).getGender());
+    assertEquals("18-34", rows.get(0).getAgeBand());
+    assertEquals(2, rows.get(0).getPulse().getCount());
+    assertEquals(1, rows.get(0).getDiastolic().getCount());
+    assertEquals("Male", rows.get(1).getGender());
+    assertEquals("18-34", rows.get(1).getAgeBand());
+    assertEquals("Male", rows.get(2).getGender());
+    assertEquals("65+", rows.get(2).getAgeBand());
+    assertEquals("Other", rows.get(3).getGender());
+    assertEquals("0-17", rows.get(3).getAgeBand());
+  }
+
+  @Test
+  public void getVitalsQuantilesFiltersOnDimensionsNotGrouped() {
+    loadSamples();
+    List<VitalsQuantileRow> rows = analyticsServiceImpl.getVitalsQuantiles("gender", null,
+        "18-34");
+    assertEquals(2, rows.size());
+    assertNull(rows.get(0).getAgeBand());
+    assertEquals(90, rows.get(0).getPulse().getP99());
+    assertEquals(60, rows.get(1).getPulse().getP50());
+
+    rows = analyticsServiceImpl.getVitalsQuantiles(null, " male ", null);
+    assertEquals(1, rows.size());
+    assertEquals(2, rows.get(0).getPulse().getCount());
+  }
+
+  @Test
+  public void getVitalsQuantilesLoadsSketchesOnceInChunks() {
+    loadSamples();
+    analyticsServiceImpl.warmUpVitalsQuantiles();
+    analyticsServiceImpl.getVitalsQuantiles("gender", null, null);
+    verify(encounterRepository, times(1)).findMaxId();
+    verify(encounterRepository, times(1)).findVitalsSamplesByIdBetween(1L, 2L);
+    verify(encounterRepository, times(1)).findVitalsSamplesByIdBetween(5L, 6L);
+  }
+
+  @Test
+  public void recordAddsNewEncounterToLoadedSketches() {
+    loadSamples();
+    analyticsServiceImpl.getVitalsQuantiles(null, null, null);
+    vitalsQuantiles.record(committed(null, sampledEncounter("Other", 12, 120)));
+
+    List<VitalsQuantileRow> rows = analyticsServiceImpl.getVitalsQuantiles(null, "Other", null);
+    assertEquals(2, rows.get(0).getPulse().getCount());
+    assertEquals(120, rows.get(0).getPulse().getP99());
+    verify(encounterRepository, times(1)).findMaxId();
+  }
+
+  @Test
+  public void recordReloadsSketchesWhenUpdateChangesVitals() {
+    loadSamples();
+    analyticsServiceImpl.getVitalsQuantiles(null, null, null);
+    Encounter saved = sampledEncounter("Other", 12, 120);
+    vitalsQuantiles.record(committed(null, saved));
+
+    //an unchanged sample keeps the sketches
+    vitalsQuantiles.record(committed(saved, sampledEncounter("Other", 12, 120)));
+    analyticsServiceImpl.getVitalsQuantiles(null, null, null);
+    verify(encounterRepository, times(1)).findMaxId();
+
+    vitalsQuantiles.record(committed(saved, sampledEncounter("Other", 12, 110)));
+    analyticsServiceImpl.getVitalsQuantiles(null, null, null);
+    verify(encounterRepository, times(2)).findMaxId();
+  }
+
+  @Test
+  public void recordPatientReloadsSketchesWhenSliceChanges() {
+    loadSamples();
+    analyticsServiceImpl.getVitalsQuantiles(null, null, null);
+    Patient patient = new Patient();
+    patient.setId(1L);
+
+    vitalsQuantiles.recordPatient(PatientChange.saved(patient, false));
+    vitalsQuantiles.recordPatient(PatientChange.deleted(1L, false));
+    analyticsServiceImpl.getVitalsQuantiles(null, null, null);
+    verify(encounterRepository, times(1)).findMaxId();
+
+    vitalsQuantiles.recordPatient(PatientChange.saved(patient, true));
+    analyticsServiceImpl.getVitalsQuantiles(null, null, null);
+    verify(encounterRepository, times(2)).findMaxId();
+  }
+
+  @Test
+  public void getVitalsQuantilesReturnsNoRowsWithoutEncounters() {
+    assertEquals(0, analyticsServiceImpl.getVitalsQuantiles(null, null, null).size());
+  }
+
+  @Test
+  public void getVitalsQuantilesThrowsBadRequestWhenGroupByInvalid() {
+    assertThrows(BadRequest.class,
+        () -> analyticsServiceImpl.getVitalsQuantiles("gender,provider", null, null));
+  }
+
+  @Test
+  public void getVitalsQuantilesThrowsBadRequestWhenGenderInvalid() {
+    assertThrows(BadRequest.class,
+        () -> analyticsServiceImpl.getVitalsQuantiles(null, "unknown", null));
+  }
+
+  @Test
+  public void getVitalsQuantilesThrowsBadRequestWhenAgeBandInvalid() {
+    assertThrows(BadRequest.class,
+        () -> analyticsServiceImpl.getVitalsQuantiles(null, null, "18-30"));
+  }
+
+  @Test
+  public void getVitalsQuantilesThrowsServiceUnavailable() {
+    when(encounterRepository.findMinId()).thenReturn(1L);
+    when(encounterRepository.findMaxId()).thenReturn(1L);
+    doThrow(new DataAccessException("TEST EXCEPTION") {
+    }).when(encounterRepository).findVitalsSamplesByIdBetween(1L, 2L);
+    assertThrows(ServiceUnavailable.class,
+        () -> analyticsServiceImpl.getVitalsQuantiles(null, null, null));
+  }
+
+  @Test
+  public void warmUpVitalsQuantilesLeavesFailedLoadForFirstUse() {
+    doThrow(new DataAccessException("TEST EXCEPTION") {
+    }).when(encounterRepository).findMinId();
+    analyticsServiceImpl.warmUpVitalsQuantiles();
+    assertThrows(ServiceUnavailable.class,
+        () -> analyticsServiceImpl.getVitalsQuantiles(null, null, null));
+  }
+
+  @Test
+  public void getTrendingReturnsMostFrequentValuesOfWindow() {
+    saveEncounters("Flu", "J10", 5);
+    saveEncounters(" flu ", "J10", 2);
+    saveEncounters("Cough", "R05", 4);
+    saveEncounters("Headache", "R51", 1);
+
+    TrendingReport report = analyticsServiceImpl.getTrending("hour", 2);
+    assertEquals("hour", report.getWindow());
+    assertEquals("2021-01-04T09:31:00Z", report.getFrom());
+    assertEquals(2, report.getChiefComplaints().size());
+    assertEquals("flu", report.getChiefComplaints().get(0).getValue());
+    assertEquals(7, report.getChiefComplaints().get(0).getCount());
+    assertEquals(0, report.getChiefComplaints().get(0).getError());
+    assertEquals("cough", report.getChiefComplaints().get(1).getValue());
+    assertEquals("J10", report.getIcd10().get(0).getValue());
+  }
+
+  @Test
+  public void getTrendingKeepsHeavyHittersPastCapacity() {
+    saveEncounters("Flu", "J10", 10);
+    for (int i = 0; i < 6; i++) {
+      saveEncounters("Rare " + i, "Z0" + i, 1);
+    }
+    TrendingItem flu = analyticsServiceImpl.getTrending("hour", 3).getChiefComplaints().get(0);
+    assertEquals("flu", flu.getValue());
+    assertEquals(10, flu.getCount());
+  }
+
+  @Test
+  public void getTrendingMergesBucketsAndDropsExpiredOnes() {
+    saveEncounters("Flu", "J10", 3);
+    now.addAndGet(TimeUnit.MINUTES.toMillis(30));
+    saveEncounters("Flu", "J10", 2);
+    saveEncounters("Cough", "R05", 4);
+
+    List<TrendingItem> hour = analyticsServiceImpl.getTrending("hour", 3).getChiefComplaints();
+    assertEquals("flu", hour.get(0).getValue());
+    assertEquals(5, hour.get(0).getCount());
+
+    now.addAndGet(TimeUnit.MINUTES.toMillis(45));
+    hour = analyticsServiceImpl.getTrending("hour", 3).getChiefComplaints();
+    assertEquals("cough", hour.get(0).getValue());
+    assertEquals(4, hour.get(0).getCount());
+    assertEquals(2, hour.get(1).getCount());
+    assertEquals(5, analyticsServiceImpl.getTrending(null, 3).getChiefComplaints().get(0)
+        .getCount());
+
+    now.addAndGet(TimeUnit.DAYS.toMillis(8));
+    assertEquals(0, analyticsServiceImpl.getTrending("week", 3).getChiefComplaints().size());
+  }
+
+  @Test
+  public void getTrendingThrowsBadRequestWhenWindowInvalid() {
+    assertThrows(BadRequest.class, () -> analyticsServiceImpl.getTrending("month", 3));
+  }
+
+  @Test
+  public void getTrendingThrowsBadRequestWhenLimitInvalid() {
+    assertThrows(BadRequest.class, () -> analyticsServiceImpl.getTrending("day", 0));
+    assertThrows(BadRequest.class, () -> analyticsServiceImpl.getTrending("day", 4));
+  }
+
+  @Test
+  public void getEncounterScanTotalsAllEncountersWithoutGroupBy() {
+    loadScanRecords();
+    List<EncounterScanRow> rows = analyticsServiceImpl.getEncounterScan(null, null, null, null,
+        null, null, null);
+    assertEquals(1, rows.size());
+    assertEquals(4, rows.get(0).getCount());
+    assertEquals(new BigDecimal("100.00"), rows.get(0).getTotalCost());
+    assertEquals(new BigDecimal("4.00"), rows.get(0).getCopay());
+    //the encounter without a pulse is left out of its average
+    assertEquals(80.0, rows.get(0).getAveragePulse(), 0);
+    assertEquals(120.0, rows.get(0).getAverageSystolic(), 0);
+    assertNull(rows.get(0).getProvider());
+  }
+
+  @Test
+  public void getEncounterScanGroupsAndFilters() {
+    loadScanRecords();
+    List<EncounterScanRow> rows = analyticsServiceImpl.getEncounterScan("chiefComplaint",
+        "Alpha", null, null, null, "2020-08-01", "2020-09-30");
+    assertEquals(2, rows.size());
+    assertEquals("Cough", rows.get(0).getChiefComplaint());
+    assertEquals(new BigDecimal("30.00"), rows.get(0).getTotalCost());
+    assertNull(rows.get(0).getAveragePulse());
+    assertEquals("Flu", rows.get(1).getChiefComplaint());
+    assertEquals(1, rows.get(1).getCount());
+    assertNull(rows.get(1).getProvider());
+  }
+
+  @Test
+  public void getEncounterScanReturnsNoRowsForUnknownValue() {
+    loadScanRecords();
+    assertEquals(0, analyticsServiceImpl.getEncounterScan("provider", "Gamma", null, null, null,
+        null, null).size());
+  }
+
+  @Test
+  public void getEncounterScanFollowsRecordedEncounters() {
+    loadScanRecords();
+    analyticsServiceImpl.getEncounterScan(null, null, null, null, null, null, null);
+
+    //a new encounter committed before one with a greater id, and an update of an existing one
+    Encounter inserted = encounter(3L, "Gamma", "2020-08-06", 500L);
+    encounterColumns.record(committed(null, inserted));
+    Encounter updated = encounter(1L, "Beta", "2020-08-04", 1000L);
+    encounterColumns.record(committed(encounter(1L, "Alpha", "2020-08-04", 100L), updated));
+
+    List<EncounterScanRow> rows = analyticsServiceImpl.getEncounterScan("provider", null, null,
+        null, null, null, null);
+    assertEquals(3, rows.size());
+    assertEquals("Alpha", rows.get(0).getProvider());
+    assertEquals(2, rows.get(0).getCount());
+    assertEquals("Beta", rows.get(1).getProvider());
+    assertEquals(new BigDecimal("30.00"), rows.get(1).getTotalCost());
+    assertEquals("Gamma", rows.get(2).getProvider());
+    assertEquals(5, analyticsServiceImpl.getEncounterScan(null, null, null, null, null, null,
+        null).get(0).getCount());
+    verify(encounterRepository, times(1)).findScanRecordsByIdBetween(1L, 2L);
+  }
+
+  @Test
+  public void getEncounterScanKeepsLaterUpdateAppliedFirst() {
+    loadScanRecords();
+    analyticsServiceImpl.getEncounterScan(null, null, null, null, null, null, null);
+
+    //two updates of one encounter, applied in the opposite order they committed in
+    Encounter loaded = encounter(1L, "Alpha", "2020-08-04", 100L);
+    Encounter first = encounter(1L, "Beta", "2020-08-04", 1000L);
+    EncounterChange earlier = committed(loaded, first);
+    EncounterChange later = committed(first, encounter(1L, "Gamma", "2020-08-04", 500L));
+    encounterColumns.record(later);
+    encounterColumns.record(earlier);
+
+    List<EncounterScanRow> rows = analyticsServiceImpl.getEncounterScan("provider", null, null,
+        null, null, null, null);
+    assertEquals(3, rows.size());
+    assertEquals("Beta", rows.get(1).getProvider());
+    assertEquals(1, rows.get(1).getCount());
+    assertEquals("Gamma", rows.get(2).getProvider());
+    assertEquals(new BigDecimal("5.00"), rows.get(2).getTotalCost());
+    verify(encounterRepository, times(1)).findScanRecordsByIdBetween(1L, 2L);
+  }
+
+  @Test
+  public void getEncounterScanReloadsAfterInvalidate() {
+    loadScanRecords();
+    analyticsServiceImpl.getEncounterScan(null, null, null, null, null, null, null);
+    encounterColumns.invalidate();
+    analyticsServiceImpl.getEncounterScan(null, null, null, null, null, null, null);
+    verify(encounterRepository, times(2)).findScanRecordsByIdBetween(1L, 2L);
+  }
+
+  @Test
+  public void getEncounterScanThrowsBadRequestWhenGroupByInvalid() {
+    assertThrows(BadRequest.class, () -> analyticsServiceImpl.getEncounterScan("month", null,
+        null, null, null, null, null));
+    assertThrows(BadRequest.class, () -> analyticsServiceImpl.getEncounterScan(
+        "provider,icd10", null, null, null, null, null, null));
+  }
+
+  @Test
+  public void getEncounterScanThrowsBadRequestWhenDatesInvalid() {
+    assertThrows(BadRequest.class, () -> analyticsServiceImpl.getEncounterScan(null, null, null,
+        null, null, "2020-13-01", null));
+    assertThrows(BadRequest.class, () -> analyticsServiceImpl.getEncounterScan(null, null, null,
+        null, null, "2020-09-01", "2020-08-01"));
+  }
+
+  @Test
+  public void getEncounterScanThrowsServiceUnavailable() {
+    when(encounterRepository.findMinId()).thenReturn(1L);
+    when(encounterRepository.findMaxId()).thenReturn(1L);
+    doThrow(new DataAccessException("TEST EXCEPTION") {
+    }).when(encounterRepository).findScanRecordsByIdBetween(1L, 2L);
+    assertThrows(ServiceUnavailable.class, () -> analyticsServiceImpl.getEncounterScan(null,
+        null, null, null, null, null, null));
+  }
+
+  @Test
+  public void getDistinctPatientsCountsEachPatientOnceWithoutGroupBy() {
+    loadPatientVisits();
+    List<DistinctPatientsRow> rows = analyticsServiceImpl.getDistinctPatients(null, null, null);
+    assertEquals(1, rows.size());
+    assertEquals(3, rows.get(0).getPatients());
+    assertNull(rows.get(0).getProvider());
+    assertNull(rows.get(0).getMonth());
+  }
+
+  @Test
+  public void getDistinctPatientsGroupsByDimension() {
+    loadPatientVisits();
+    List<DistinctPatientsRow> providers = analyticsServiceImpl.getDistinctPatients("provider",
+        null, null);
+    assertEquals(2, providers.size());
+    assertEquals("Alpha", providers.get(0).getProvider());
+    assertEquals(2, providers.get(0).getPatients());
+    assertEquals("Beta", providers.get(1).getProvider());
+    assertEquals(1, providers.get(1).getPatients());
+
+    List<DistinctPatientsRow> icd10s = analyticsServiceImpl.getDistinctPatients("icd10", null,
+        null);
+    assertEquals("A01", icd10s.get(0).getIcd10());
+    assertEquals(2, icd10s.get(0).getPatients());
+    assertEquals("B02", icd10s.get(1).getIcd10());
+    assertEquals(2, icd10s.get(1).getPatients());
+
+    List<DistinctPatientsRow> months = analyticsServiceImpl.getDistinctPatients("month", null,
+        null);
+    assertEquals(3, months.size());
+    assertEquals("2020-08", months.get(0).getMonth());
+    assertEquals(2, months.get(0).getPatients());
+    assertEquals("2020-10", months.get(2).getMonth());
+    assertEquals(1, months.get(2).getPatients());
+  }
+
+  @Test
+  public void getDistinctPatientsMergesOnlyMonthsInRange() {
+    loadPatientVisits();
+    List<DistinctPatientsRow> rows = analyticsServiceImpl.getDistinctPatients("provider",
+        "2020-09", "2020-10");
+    assertEquals(1, rows.size());
+    assertEquals("Alpha", rows.get(0).getProvider());
+    assertEquals(2, rows.get(0).getPatients());
+    assertEquals(1, analyticsServiceImpl.getDistinctPatients(null, "2020-09", "2020-09").get(0)
+        .getPatients());
+  }
+
+  @Test
+  public void getDistinctPatientsLoadsSketchesOnceInChunks() {
+    loadPatientVisits();
+    analyticsServiceImpl.getDistinctPatients(null, null, null);
+    analyticsServiceImpl.getDistinctPatients("provider", null, null);
+    verify(encounterRepository, times(1)).findPatientVisitsByIdBetween(1L, 2L);
+    verify(encounterRepository, times(1)).findPatientVisitsByIdBetween(3L, 4L);
+    verify(encounterRepository, times(1)).findPatientVisitsByIdBetween(5L, 6L);
+  }
+
+  @Test
+  public void recordAddsNewPatientToLoadedSketches() {
+    loadPatientVisits();
+    analyticsServiceImpl.getDistinctPatients(null, null, null);
+    distinctPatients.record(committed(null, visitedEncounter(4L, "Beta", "2020-08-20")));
+    //a patient already counted in the cell
+    distinctPatients.record(committed(null, visitedEncounter(2L, "Beta", "2020-08-21")));
+
+    List<DistinctPatientsRow> rows = analyticsServiceImpl.getDistinctPatients("provider", null,
+        null);
+    assertEquals("Beta", rows.get(1).getProvider());
+    assertEquals(2, rows.get(1).getPatients());
+    verify(encounterRepository, times(1)).findPatientVisitsByIdBetween(1L, 2L);
+  }
+
+  @Test
+  public void recordReloadsSketchesWhenUpdateMovesEncounter() {
+    loadPatientVisits();
+    analyticsServiceImpl.getDistinctPatients(null, null, null);
+    Encounter previous = visitedEncounter(3L, "Alpha", "2020-10-01");
+    previous.setIcd10("B02");
+    Encounter encounter = visitedEncounter(3L, "Alpha", "2020-10-01");
+    encounter.setIcd10("B02");
+
+    //an update that keeps the visit leaves the sketches loaded
+    distinctPatients.record(committed(previous, encounter));
+    analyticsServiceImpl.getDistinctPatients(null, null, null);
+    verify(encounterRepository, times(1)).findPatientVisitsByIdBetween(5L, 6L);
+
+    encounter.setProvider("Beta");
+    distinctPatients.record(committed(previous, encounter));
+    analyticsServiceImpl.getDistinctPatients(null, null, null);
+    verify(encounterRepository, times(2)).findPatientVisitsByIdBetween(5L, 6L);
+  }
+
+  @Test
+  public void getDistinctPatientsReturnsNoRowsWithoutEncounters() {
+    assertEquals(0, analyticsServiceImpl.getDistinctPatients("provider", null, null).size());
+  }
+
+  @Test
+  public void getDistinctPatientsThrowsBadRequestWhenGroupByInvalid() {
+    assertThrows(BadRequest.class, () -> analyticsServiceImpl.getDistinctPatients("gender",
+        null, null));
+  }
+
+  @Test
+  public void getDistinctPatientsThrowsBadRequestWhenMonthsInvalid() {
+    assertThrows(BadRequest.class, () -> analyticsServiceImpl.getDistinctPatients(null,
+        "2020-13", null));
+    assertThrows(BadRequest.class, () -> analyticsServiceImpl.getDistinctPatients(null,
+        "2020-08-01", null));
+    assertThrows(BadRequest.class, () -> analyticsServiceImpl.getDistinctPatients(null,
+        "2020-10", "2020-09"));
+  }
+
+  @Test
+  public void getDistinctPatientsThrowsServiceUnavailable() {
+    when(encounterRepository.findMinId()).thenReturn(1L);
+    when(encounterRepository.findMaxId()).thenReturn(1L);
+    doThrow(new DataAccessException("TEST EXCEPTION") {
+    }).when(encounterRepository).findPatientVisitsByIdBetween(1L, 2L);
+    assertThrows(ServiceUnavailable.class, () -> analyticsServiceImpl.getDistinctPatients(null,
+        null, null));
+  }
+}
@@ -0,0 +1,126 @@
+package io.catalyte.training.superhealth.domains.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.Test;
+
+public class HyperLogLogTest {
+
+  private static final int VALUES = 100_000;
+
+  /**
+   * Allowed relative error of an estimate, three standard errors of a sketch with p = 12.
+   */
+  private static final double ERROR = 0.05;
+
+  @Test
+  public void estimateIsWithinErrorOfDistinctValues() {
+    HyperLogLog sketch = new HyperLogLog(12);
+    for (long value = 1; value <= VALUES; value++) {
+      sketch.add(value);
+    }
+    assertEstimate(VALUES, sketch.estimate());
+  }
+
+  @Test
+  public void repeatedValuesDoNotChangeEstimate() {
+    HyperLogLog sketch = new HyperLogLog(12);
+    for (long value = 1; value <= VALUES; value++) {
+      sketch.add(value);
+    }
+    long estimate = sketch.estimate();
+    for (long value = 1; value <= VALUES; value++) {
+      sketch.add(value);
+    }
+    assertEquals(estimate, sketch.estimate());
+  }
+
+  @Test
+  public void mergedSketchesEstimateUnionOfValues() {
+    HyperLogLog merged = new HyperLogLog(12);
+    HyperLogLog union = new HyperLogLog(12);
+    int parts = 8;
+    for (int part = 0; part < parts; part++) {
+      HyperLogLog sketch = new HyperLogLog(12);
+      //the parts overlap, so most values are in several sketches
+      for (long value = part * (VALUES / parts) / 2;
+          value < part * (VALUES / parts) / 2 + VALUES / parts * 2; value++) {
+        sketch.add(value);
+        union.add(value);
+      }
+      merged.merge(sketch);
+    }
+    assertEquals(union.estimate(), merged.estimate());
+  }
+
+  @Test
+  public void smallCountsAreNearlyExact() {
+    HyperLogLog sketch = new HyperLogLog(12);
+    assertEquals(0, sketch.estimate());
+    for (long value = 1; value <= 100; value++) {
+      sketch.add(value);
+    }
+    assertTrue(Math.abs(sketch.estimate() - 100) <= 2, "estimate " + sketch.estimate());
+  }
+
+  @Test
+  public void smallSketchTakesFourBytesPerSetRegister() {
+    HyperLogLog sketch = new HyperLogLog(12);
+    assertEquals(16, sketch.registerBytes());
+    for (long value = 1; value <= 100; value++) {
+      sketch.add(value);
+    }
+    //the sparse entries double from 4, so 100 values fit in 128
+    assertEquals(128 * 4, sketch.registerBytes());
+  }
+
+  @Test
+  public void sketchNeverTakesMoreThanItsDenseRegisters() {
+    HyperLogLog sketch = new HyperLogLog(12);
+    for (long value = 1; value <= VALUES; value++) {
+      sketch.add(value);
+      assertTrue(sketch.registerBytes() <= 1 << 12, "bytes " + sketch.registerBytes());
+    }
+    assertEquals(1 << 12, sketch.registerBytes());
+  }
+
+  @Test
+  public void sparseAndDenseSketchesMergeToUnionOfValues() {
+    HyperLogLog small = new HyperLogLog(12);
+    HyperLogLog large = new HyperLogLog(12);
+    HyperLogLog union = new HyperLogLog(12);
+    for (long value = 1; value <= VALUES; value++) {
+      large.add(value);
+      union.add(value);
+    }
+    for (long value = VALUES; value < VALUES + 100; value++) {
+      small.add(value);
+      union.add(value);
+    }
+    HyperLogLog denseIntoSparse = new HyperLogLog(12);
+    denseIntoSparse.merge(small);
+    denseIntoSparse.merge(large);
+    large.merge(small);
+    assertEquals(union.estimate(), denseIntoSparse.estimate());
+    assertEquals(union.estimate(), large.estimate());
+  }
+
+  @Test
+  public void constructorRejectsPrecisionOutOfRange() {
+    assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(3));
+    assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(17));
+  }
+
+  @Test
+  public void mergeRejectsDifferentPrecision() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new HyperLogLog(12).merge(new HyperLogLog(10)));
+  }
+
+  private static void assertEstimate(long expected, long estimate) {
+    assertTrue(Math.abs(estimate - expected) <= expected * ERROR,
+        "estimate " + estimate + " of " + expected);
+  }
+}
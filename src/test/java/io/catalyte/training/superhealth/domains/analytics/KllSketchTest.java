@@ -0,0 +1,108 @@
+package io.catalyte.training.superhealth.domains.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.Test;
+
+public class KllSketchTest {
+
+  private static final int VALUES = 200_000;
+
+  /**
+   * Allowed distance between the requested rank and the true rank of the returned value, a
+   * little above the 1.65% the sketch holds for k = 200 with 99% confidence.
+   */
+  private static final double RANK_ERROR = 0.02;
+
+  @Test
+  public void quantilesAreWithinRankErrorOfShuffledValues() {
+    KllSketch sketch = new KllSketch(200);
+    for (int value : shuffled(VALUES, 1)) {
+      sketch.add(value);
+    }
+    assertEquals(VALUES, sketch.getCount());
+    int[] quantiles = sketch.quantiles(0.5, 0.9, 0.99);
+    assertRank(0.5, quantiles[0]);
+    assertRank(0.9, quantiles[1]);
+    assertRank(0.99, quantiles[2]);
+  }
+
+  @Test
+  public void retainedValuesStayBounded() {
+    KllSketch sketch = new KllSketch(200);
+    for (int value : shuffled(VALUES, 2)) {
+      sketch.add(value);
+    }
+    assertTrue(sketch.getRetained() < 3 * 200 + 64, "retained " + sketch.getRetained());
+  }
+
+  @Test
+  public void mergedSketchesAreWithinRankErrorOfAllValues() {
+    KllSketch merged = new KllSketch(200);
+    int[] values = shuffled(VALUES, 3);
+    int parts = 8;
+    for (int part = 0; part < parts; part++) {
+      KllSketch sketch = new KllSketch(200);
+      for (int i = part; i < values.length; i += parts) {
+        sketch.add(values[i]);
+      }
+      merged.merge(sketch);
+    }
+    assertEquals(VALUES, merged.getCount());
+    int[] quantiles = merged.quantiles(0.5, 0.9, 0.99);
+    assertRank(0.5, quantiles[0]);
+    assertRank(0.9, quantiles[1]);
+    assertRank(0.99, quantiles[2]);
+  }
+
+  @Test
+  public void quantilesOfFewValuesAreExact() {
+    KllSketch sketch = new KllSketch(200);
+    for (int value = 1; value <= 10; value++) {
+      sketch.add(value);
+    }
+    int[] quantiles = sketch.quantiles(0, 0.5, 1);
+    assertEquals(1, quantiles[0]);
+    assertEquals(5, quantiles[1]);
+    assertEquals(10, quantiles[2]);
+  }
+
+  @Test
+  public void quantilesOfEmptySketchAreNull() {
+    assertNull(new KllSketch(200).quantiles(0.5));
+  }
+
+  @Test
+  public void mergeRejectsDifferentK() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new KllSketch(200).merge(new KllSketch(100)));
+  }
+
+  /**
+   * The values 0 to count - 1 in random order, so a value is also its true rank.
+   */
+  private static int[] shuffled(int count, long seed) {
+    int[] values = new int[count];
+    for (int i = 0; i < count; i++) {
+      values[i] = i;
+    }
+    Random random = new Random(seed);
+    for (int i = count - 1; i > 0; i--) {
+      int j = random.nextInt(i + 1);
+      int swap = values[i];
+      values[i] = values[j];
+      values[j] = swap;
+    }
+    return values;
+  }
+
+  private static void assertRank(double rank, int value) {
+    double actual = (double) value / VALUES;
+    assertTrue(Math.abs(actual - rank) <= RANK_ERROR,
+        "rank " + rank + " estimated at " + actual);
+  }
+}
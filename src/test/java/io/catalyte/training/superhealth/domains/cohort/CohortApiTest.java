@@ -0,0 +1,138 @@
+package io.catalyte.training.superhealth.domains.cohort;
+
+import static io.catalyte.training.superhealth.constants.Paths.COHORTS_PATH;
+import static io.catalyte.training.superhealth.constants.Paths.ENCOUNTERS_PATH;
+import static io.catalyte.training.superhealth.constants.Paths.PATIENTS_PATH;
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.catalyte.training.superhealth.data.PatientFactory;
+import io.catalyte.training.superhealth.domains.encounter.EncounterDTO;
+import io.catalyte.training.superhealth.domains.encounter.EncounterRepository;
+import io.catalyte.training.superhealth.domains.patient.Patient;
+import io.catalyte.training.superhealth.domains.patient.PatientRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class CohortApiTest {
+
+  private static final String QUERY_PATH = COHORTS_PATH + "/query";
+
+  private final PatientFactory patientFactory = new PatientFactory();
+  private final ObjectMapper mapper = new ObjectMapper();
+  Patient testPatient;
+  @Autowired
+  public PatientRepository patientRepository;
+  @Autowired
+  public EncounterRepository encounterRepository;
+  @Autowired
+  public CohortIndex cohortIndex;
+  @Autowired
+  private WebApplicationContext wac;
+  private MockMvc mockMvc;
+
+  @Before
+  public void setUp() {
+    mockMvc = MockMvcBuilders.webAppContextSetup(this.wac).build();
+    testPatient = patientFactory.createRandomPatient();
+    testPatient.setHeight(70);
+    testPatient.setWeight(150);
+    patientRepository.save(testPatient);
+    cohortIndex.invalidate();
+  }
+
+  @After
+  public void tearDown() {
+    encounterRepository.deleteAll();
+    patientRepository.deleteAll();
+  }
+
+  private EncounterDTO encounterDTO(String provider) {
+    return new EncounterDTO(testPatient.getId(), "notes", "N3W 3C3", provider, "123.456.789-00",
+        "Z99", 10.00, 1.50, "complaint", 78, 120, 80, "2020-08-04");
+  }
+
+  private long postEncounter(EncounterDTO encounterDTO) throws Exception {
+    String body = mockMvc.perform(post(ENCOUNTERS_PATH(testPatient.getId()))
+        .contentType("application/json")
+        .content(mapper.writeValueAsString(encounterDTO)))
+        .andExpect(status().isCreated())
+        .andReturn().getResponse().getContentAsString();
+    return mapper.readTree(body).get("id").asLong();
+  }
+
+  private JsonNode queryCohort(String expression) throws Exception {
+    String body = mockMvc.perform(post(QUERY_PATH)
+        .contentType("application/json")
+        .content(expression))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+    return mapper.readTree(body);
+  }
+
+  @Test
+  public void queryCohortFollowsSavedAndUpdatedEncounters() throws Exception {
+    String cohortClinic = "{\"provider\": \"Cohort Clinic\", \"gender\": \""
+        + testPatient.getGender() + "\"}";
+    //loads the index, later saves update it in place
+    assertEquals(0, queryCohort(cohortClinic).get("count").asLong());
+    long id = postEncounter(encounterDTO("Cohort Clinic"));
+
+    JsonNode result = queryCohort(cohortClinic);
+    assertEquals(1, result.get("count").asLong());
+    assertEquals(testPatient.getId().longValue(), result.get("patientIds").get(0).asLong());
+
+    mockMvc.perform(put(ENCOUNTERS_PATH(testPatient.getId()) + "/" + id)
+        .contentType("application/json")
+        .content(mapper.writeValueAsString(encounterDTO("Other Cohort Clinic"))))
+        .andExpect(status().isOk());
+
+    assertEquals(0, queryCohort(cohortClinic).get("count").asLong());
+    assertEquals(1,
+        queryCohort("{\"provider\": \"Other Cohort Clinic\"}").get("count").asLong());
+  }
+
+  @Test
+  public void queryCohortDropsCascadeDeletedPatient() throws Exception {
+    postEncounter(encounterDTO("Cohort Clinic"));
+    assertEquals(1, queryCohort("{\"provider\": \"Cohort Clinic\"}").get("count").asLong());
+
+    mockMvc.perform(delete(PATIENTS_PATH + "/" + testPatient.getId())
+        .param("mode", "cascade"))
+        .andExpect(status().isNoContent());
+
+    assertEquals(0, queryCohort("{\"provider\": \"Cohort Clinic\"}").get("count").asLong());
+  }
+
+  @Test
+  public void queryCohortReturns400WhenExpressionInvalid() throws Exception {
+    mockMvc.perform(post(QUERY_PATH)
+        .contentType("application/json")
+        .content("{\"city\": \"Austin\"}"))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  public void queryCohortReturns400WhenLimitInvalid() throws Exception {
+    mockMvc.perform(post(QUERY_PATH)
+        .contentType("application/json")
+        .param("limit", "-1")
+        .content("{\"state\": \"CA\"}"))
+        .andExpect(status().isBadRequest());
+  }
+}
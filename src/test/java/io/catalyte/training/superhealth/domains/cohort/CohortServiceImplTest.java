@@ -0,0 +1,324 @@
+package io.catalyte.training.superhealth.domains.cohort;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.catalyte.training.superhealth.constants.StringConstants;
+import io.catalyte.training.superhealth.domains.encounter.Encounter;
+import io.catalyte.training.superhealth.domains.encounter.EncounterRepository;
+import io.catalyte.training.superhealth.domains.patient.Patient;
+import io.catalyte.training.superhealth.domains.patient.PatientChange;
+import io.catalyte.training.superhealth.domains.patient.PatientRepository;
+import io.catalyte.training.superhealth.exceptions.BadRequest;
+import io.catalyte.training.superhealth.exceptions.ServiceUnavailable;
+import io.catalyte.training.superhealth.pagination.CursorPage;
+import io.catalyte.training.superhealth.pagination.KeysetCursor;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.dao.DataAccessException;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CohortServiceImplTest {
+
+  private final ObjectMapper mapper = new ObjectMapper();
+  private CohortServiceImpl cohortServiceImpl;
+  private CohortIndex cohortIndex;
+  @Mock
+  private PatientRepository patientRepository;
+  @Mock
+  private EncounterRepository encounterRepository;
+
+  @Before
+  public void setUp() {
+    MockitoAnnotations.initMocks(this);
+    cohortIndex = new CohortIndex();
+    cohortServiceImpl = new CohortServiceImpl(patientRepository, encounterRepository, cohortIndex);
+
+    when(patientRepository.findCohortPatients(anyLong(), any())).thenAnswer(invocation ->
+        invocation.<Long>getArgument(0) == 0 ? Arrays.asList(
+            new CohortPatient(1L, "CA", "Female", "Medicare", 30),
+            new CohortPatient(2L, "NY", "Male", "Aetna", 70),
+            new CohortPatient(3L, "CA", "Male", "Medicare", 10),
+            new CohortPatient(4L, "TX", "Other", "Aetna", 40))
+            : Collections.emptyList());
+    when(encounterRepository.findCohortEncounters(anyLong(), anyLong())).thenReturn(Arrays.asList(
+        new CohortEncounter(1L, "A01", "Alpha"),
+        new CohortEncounter(2L, "B02", "Beta"),
+        new CohortEncounter(3L, "A01", "Beta")));
+  }
+
+  private CohortResult query(String expression) throws Exception {
+    return cohortServiceImpl.queryCohort(mapper.readTree(expression), CursorPage.DEFAULT_LIMIT,
+        null);
+  }
+
+  private Encounter encounter(Long patientId, String icd10, String provider) {
+    Patient patient = new Patient();
+    patient.setId(patientId);
+    Encounter encounter = new Encounter();
+    encounter.setPatient(patient);
+    encounter.setIcd10(icd10);
+    encounter.setProvider(provider);
+    return encounter;
+  }
+
+  @Test
+  public void queryCohortMatchesAnyOfTheValues() throws Exception {
+    CohortResult result = query("{\"state\": [\"CA\", \"TX\"]}");
+    assertEquals(3, result.getCount());
+    assertEquals(Arrays.asList(1L, 3L, 4L), result.getPatientIds());
+    assertNull(result.getNextCursor());
+  }
+
+  @Test
+  public void queryCohortAndsTheConditionsOfAnObject() throws Exception {
+    assertEquals(Collections.singletonList(3L),
+        query("{\"gender\": \"Male\", \"icd10\": \"A01\"}").getPatientIds());
+    assertEquals(Collections.singletonList(3L),
+        query("{\"and\": [{\"provider\": \"Beta\"}, {\"insurance\": \"Medicare\"}]}")
+            .getPatientIds());
+  }
+
+  @Test
+  public void queryCohortEvaluatesOrAndNot() throws Exception {
+    assertEquals(Arrays.asList(1L, 2L, 4L),
+        query("{\"or\": [{\"state\": \"TX\"}, {\"provider\": \"Alpha\"}, {\"age\": {\"min\": 65}}]}")
+            .getPatientIds());
+    assertEquals(Arrays.asList(2L, 4L), query("{\"not\": {\"state\": \"CA\"}}").getPatientIds());
+  }
+
+  @Test
+  public void queryCohortMatchesAgeRangesAndBands() throws Exception {
+    assertEquals(Arrays.asList(1L, 4L),
+        query("{\"age\": {\"min\": 18, \"max\": 64}}").getPatientIds());
+    assertEquals(Collections.singletonList(2L), query("{\"ageBand\": \"65+\"}").getPatientIds());
+  }
+
+  @Test
+  public void queryCohortNormalizesGender() throws Exception {
+    assertEquals(Arrays.asList(2L, 3L), query("{\"gender\": \" male\"}").getPatientIds());
+  }
+
+  @Test
+  public void queryCohortMatchesNoPatientsForUnknownValue() throws Exception {
+    CohortResult result = query("{\"icd10\": \"Z99\"}");
+    assertEquals(0, result.getCount());
+    assertTrue(result.getPatientIds().isEmpty());
+  }
+
+  @Test
+  public void queryCohortPagesIdsWithCursor() throws Exception {
+    JsonNode everyone = mapper.readTree("{\"not\": {\"state\": \"none\"}}");
+    CohortResult first = cohortServiceImpl.queryCohort(everyone, 3, null);
+    assertEquals(4, first.getCount());
+    assertEquals(Arrays.asList(1L, 2L, 3L), first.getPatientIds());
+    assertNotNull(first.getNextCursor());
+
+    CohortResult second = cohortServiceImpl.queryCohort(everyone, 3, first.getNextCursor());
+    assertEquals(4, second.getCount());
+    assertEquals(Collections.singletonList(4L), second.getPatientIds());
+    assertNull(second.getNextCursor());
+  }
+
+  @Test
+  public void queryCohortReturnsCountOnlyForZeroLimit() throws Exception {
+    CohortResult result = cohortServiceImpl.queryCohort(
+        mapper.readTree("{\"insurance\": \"Aetna\"}"), 0, null);
+    assertEquals(2, result.getCount());
+    assertTrue(result.getPatientIds().isEmpty());
+    assertNull(result.getNextCursor());
+  }
+
+  @Test
+  public void queryCohortLoadsIndexOnce() throws Exception {
+    query("{\"state\": \"CA\"}");
+    query("{\"state\": \"NY\"}");
+    verify(encounterRepository, times(1)).findCohortEncounters(anyLong(), anyLong());
+  }
+
+  @Test
+  public void queryCohortThrowsErrorWhenExpressionEmpty() {
+    BadRequest exception = assertThrows(BadRequest.class, () -> query("{}"));
+    assertEquals(StringConstants.COHORT_EXPRESSION_EMPTY, exception.getMessage());
+    assertThrows(BadRequest.class, () -> query("[]"));
+    assertThrows(BadRequest.class, () -> query("{\"not\": \"CA\"}"));
+  }
+
+  @Test
+  public void queryCohortThrowsErrorWhenKeyUnknown() {
+    BadRequest exception = assertThrows(BadRequest.class, () -> query("{\"city\": \"Austin\"}"));
+    assertTrue(exception.getMessage().startsWith("Unknown cohort condition 'city'"));
+  }
+
+  @Test
+  public void queryCohortThrowsErrorWhenOperandsInvalid() {
+    BadRequest exception = assertThrows(BadRequest.class, () -> query("{\"or\": []}"));
+    assertEquals(StringConstants.COHORT_OPERANDS_INVALID("or"), exception.getMessage());
+    assertThrows(BadRequest.class, () -> query("{\"and\": {\"state\": \"CA\"}}"));
+  }
+
+  @Test
+  public void queryCohortThrowsErrorWhenValuesInvalid() {
+    BadRequest exception = assertThrows(BadRequest.class, () -> query("{\"state\": [1]}"));
+    assertEquals(StringConstants.COHORT_VALUES_INVALID("state"), exception.getMessage());
+    assertThrows(BadRequest.class, () -> query("{\"state\": []}"));
+    exception = assertThrows(BadRequest.class, () -> query("{\"gender\": \"unknown\"}"));
+    assertEquals(StringConstants.GENDER_INVALID, exception.getMessage());
+  }
+
+  @Test
+  public void queryCohortThrowsErrorWhenAgeInvalid() {
+    BadRequest exception = assertThrows(BadRequest.class,
+        () -> query("{\"age\": {\"min\": \"18\"}}"));
+    assertEquals(StringConstants.COHORT_AGE_INVALID, exception.getMessage());
+    assertThrows(BadRequest.class, () -> query("{\"age\": {}}"));
+    assertThrows(BadRequest.class, () -> query("{\"age\": 18}"));
+    assertThrows(BadRequest.class, () -> query("{\"age\": {\"max\": 1.5}}"));
+    assertThrows(BadRequest.class, () -> query("{\"ageBand\": \"18-64\"}"));
+  }
+
+  @Test
+  public void queryCohortThrowsErrorWhenExpressionTooDeep() {
+    StringBuilder expression = new StringBuilder();
+    for (int i = 0; i <= CohortServiceImpl.MAX_DEPTH; i++) {
+      expression.append("{\"not\": ");
+    }
+    expression.append("{\"state\": \"CA\"}");
+    for (int i = 0; i <= CohortServiceImpl.MAX_DEPTH; i++) {
+      expression.append('}');
+    }
+    BadRequest exception = assertThrows(BadRequest.class, () -> query(expression.toString()));
+    assertEquals(StringConstants.COHORT_EXPRESSION_TOO_DEEP(CohortServiceImpl.MAX_DEPTH),
+        exception.getMessage());
+  }
+
+  @Test
+  public void queryCohortThrowsErrorWhenLimitOrCursorInvalid() throws Exception {
+    JsonNode expression = mapper.readTree("{\"state\": \"CA\"}");
+    assertThrows(BadRequest.class,
+        () -> cohortServiceImpl.queryCohort(expression, CursorPage.MAX_LIMIT + 1, null));
+    assertThrows(BadRequest.class, () -> cohortServiceImpl.queryCohort(expression, -1, null));
+    String dateCursor = new KeysetCursor("date", 1L, "2020-08-04").encode();
+    assertThrows(BadRequest.class,
+        () -> cohortServiceImpl.queryCohort(expression, 10, dateCursor));
+  }
+
+  @Test
+  public void queryCohortThrowsServiceUnavailable() {
+    doThrow(new DataAccessException("TEST EXCEPTION") {
+    }).when(patientRepository).findCohortPatients(anyLong(), any());
+    assertThrows(ServiceUnavailable.class, () -> query("{\"state\": \"CA\"}"));
+  }
+
+  @Test
+  public void indexPatientMovesSavedPatientToItsNewValues() throws Exception {
+    query("{\"state\": \"CA\"}");
+    Patient patient = new Patient();
+    patient.setId(1L);
+    patient.setState("NY");
+    patient.setGender("Female");
+    patient.setInsurance("Medicare");
+    patient.setAge(30);
+    cohortServiceImpl.indexPatient(PatientChange.saved(patient, false));
+
+    assertEquals(Collections.singletonList(3L), query("{\"state\": \"CA\"}").getPatientIds());
+    assertEquals(Arrays.asList(1L, 2L), query("{\"state\": \"NY\"}").getPatientIds());
+  }
+
+  @Test
+  public void putEncounterKeepsValueStillUsedByAnotherEncounter() throws Exception {
+    query("{\"state\": \"CA\"}");
+    Encounter updated = encounter(3L, "C03", "Beta");
+    CohortIndex.Entry previous = CohortIndex.entryOf(encounter(3L, "A01", "Beta"));
+
+    cohortIndex.putEncounter(previous, updated, (patientId, attribute, value) -> true);
+    assertEquals(Arrays.asList(1L, 3L), query("{\"icd10\": \"A01\"}").getPatientIds());
+
+    cohortIndex.putEncounter(previous, updated, (patientId, attribute, value) -> false);
+    assertEquals(Collections.singletonList(1L), query("{\"icd10\": \"A01\"}").getPatientIds());
+    assertEquals(Collections.singletonList(3L), query("{\"icd10\": \"C03\"}").getPatientIds());
+    //the provider did not change, so it is not looked up or removed
+    assertEquals(Arrays.asList(2L, 3L), query("{\"provider\": \"Beta\"}").getPatientIds());
+  }
+
+  @Test
+  public void putEncounterLooksUpAgainWhenPatientChangesMeanwhile() throws Exception {
+    query("{\"state\": \"CA\"}");
+    CohortIndex.Entry previous = CohortIndex.entryOf(encounter(3L, "A01", "Beta"));
+    AtomicInteger lookups = new AtomicInteger();
+
+    cohortIndex.putEncounter(previous, encounter(3L, "C03", "Beta"),
+        (patientId, attribute, value) -> {
+          if (lookups.incrementAndGet() == 1) {
+            //another A01 encounter of the patient commits after this lookup read
+            cohortIndex.putEncounter(null, encounter(3L, "A01", "Gamma"),
+                (otherId, otherAttribute, otherValue) -> false);
+            return false;
+          }
+          return true;
+        });
+
+    assertEquals(2, lookups.get());
+    assertEquals(Arrays.asList(1L, 3L), query("{\"icd10\": \"A01\"}").getPatientIds());
+    assertEquals(Collections.singletonList(3L), query("{\"icd10\": \"C03\"}").getPatientIds());
+  }
+
+  @Test
+  public void loadIsNotKeptWhenPatientChangesMeanwhile() throws Exception {
+    Patient patient = new Patient();
+    patient.setId(4L);
+    patient.setState("CA");
+    when(encounterRepository.findCohortEncounters(anyLong(), anyLong())).thenAnswer(invocation -> {
+      //the patient change commits while the load reads
+      cohortIndex.putPatient(patient);
+      return Collections.emptyList();
+    }).thenReturn(Collections.emptyList());
+
+    query("{\"state\": \"CA\"}");
+    query("{\"state\": \"CA\"}");
+    verify(patientRepository, times(2)).findCohortPatients(anyLong(), any());
+  }
+
+  @Test
+  public void putEncounterDropsIndexWhenLookupFails() throws Exception {
+    query("{\"state\": \"CA\"}");
+    CohortIndex.Entry previous = CohortIndex.entryOf(encounter(3L, "A01", "Beta"));
+    assertThrows(ServiceUnavailable.class, () -> cohortIndex.putEncounter(previous,
+        encounter(3L, "C03", "Beta"), (patientId, attribute, value) -> {
+          throw new ServiceUnavailable("TEST EXCEPTION");
+        }));
+
+    //the next query reloads the index
+    List<Long> ids = query("{\"icd10\": \"A01\"}").getPatientIds();
+    assertEquals(Arrays.asList(1L, 3L), ids);
+    verify(encounterRepository, times(2)).findCohortEncounters(anyLong(), anyLong());
+  }
+
+  @Test
+  public void indexPatientRemovesDeletedPatientFromEveryValue() throws Exception {
+    query("{\"state\": \"CA\"}");
+    cohortServiceImpl.indexPatient(PatientChange.deleted(3L, false));
+
+    assertEquals(Collections.singletonList(1L), query("{\"icd10\": \"A01\"}").getPatientIds());
+    assertEquals(3, query("{\"not\": {\"state\": \"none\"}}").getCount());
+  }
+}
@@ -5,20 +5,26 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.catalyte.training.superhealth.constants.Paths;
 import io.catalyte.training.superhealth.constants.StringConstants;
 import io.catalyte.training.superhealth.data.EncounterFactory;
 import io.catalyte.training.superhealth.data.PatientFactory;
 import io.catalyte.training.superhealth.domains.patient.Patient;
+import io.catalyte.training.superhealth.domains.patient.PatientCache;
 import io.catalyte.training.superhealth.domains.patient.PatientRepository;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import org.junit.After;
@@ -30,6 +36,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
@@ -48,6 +55,8 @@ public class EncounterApiTest {
   @Autowired
   public EncounterRepository encounterRepository;
   @Autowired
+  public PatientCache patientCache;
+  @Autowired
   private WebApplicationContext wac;
   private MockMvc mockMvc;
 
@@ -110,6 +119,116 @@ public class EncounterApiTest {
   }
 
 
+  @Test
+  public void getEncountersByPatientIdPagesLatestFirst() throws Exception {
+    ObjectMapper mapper = new ObjectMapper();
+    List<String> dates = new ArrayList<>();
+    String after = "";
+    do {
+      String body = mockMvc.perform(get(ENCOUNTERS_PATH(testPatient1.getId()))
+          .param("limit", "2")
+          .param("after", after))
+          .andExpect(status().isOk())
+          .andReturn().getResponse().getContentAsString();
+      JsonNode page = mapper.readTree(body);
+      for (JsonNode encounter : page.get("items")) {
+        dates.add(encounter.get("date").asText());
+      }
+      after = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+    } while (after != null);
+
+    List<String> expected = new ArrayList<>();
+    for (Encounter encounter : randomEncounterList) {
+      expected.add(encounter.getDate().toString());
+    }
+    expected.sort(Comparator.reverseOrder());
+    assertEquals(expected, dates);
+  }
+
+  @Test
+  public void getEncountersByPatientIdReturns404WhenPatientNotFound() throws Exception {
+    mockMvc.perform(get(ENCOUNTERS_PATH(testPatient1.getId() + 1000)))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  public void getEncountersByPatientIdReturns400WhenSortInvalid() throws Exception {
+    mockMvc.perform(get(ENCOUNTERS_PATH(testPatient1.getId())).param("sort", "provider"))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  public void streamEncountersByDateReturnsEncountersInRangeInDateOrder() throws Exception {
+    //three encounters on fixed dates, only the last two in range
+    String[] dates = {"1999-12-31", "2000-01-01", "2000-01-31"};
+    for (String date : dates) {
+      encounterDTO.setDate(date);
+      mockMvc.perform(post(ENCOUNTERS_PATH(testPatient1.getId()))
+          .contentType("application/json")
+          .content(new ObjectMapper().writeValueAsString(encounterDTO)))
+          .andExpect(status().isCreated());
+    }
+
+    MvcResult result = mockMvc.perform(get(Paths.ALL_ENCOUNTERS_PATH)
+        .param("from", "1999-12-01")
+        .param("to", "2000-01-01"))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    result.getAsyncResult();
+    MockHttpServletResponse response = mockMvc.perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andReturn().getResponse();
+
+    assertTrue(response.getContentType().startsWith(StringConstants.APPLICATION_NDJSON));
+    String[] lines = response.getContentAsString().split("\n");
+    ObjectMapper mapper = new ObjectMapper();
+    List<String> streamedDates = new ArrayList<>();
+    for (String line : lines) {
+      streamedDates.add(mapper.readTree(line).get("date").asText());
+    }
+    //factory encounters are dated from 2000-01-01 onwards
+    List<String> expected = new ArrayList<>(Arrays.asList("1999-12-31", "2000-01-01"));
+    for (Encounter encounter : randomEncounterList) {
+      if (encounter.getDate().toString().equals("2000-01-01")) {
+        expected.add("2000-01-01");
+      }
+    }
+    assertEquals(expected, streamedDates);
+  }
+
+  @Test
+  public void streamEncountersByDateReturns400WhenRangeInvalid() throws Exception {
+    mockMvc.perform(get(Paths.ALL_ENCOUNTERS_PATH)
+        .param("from", "2000-02-01")
+        .param("to", "2000-01-01"))
+        .andExpect(status().isBadRequest());
+    mockMvc.perform(get(Paths.ALL_ENCOUNTERS_PATH).param("from", "2000-02-01"))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  public void saveEncounterReturns400WhenDateNotInMonth() throws Exception {
+    encounterDTO.setDate("2021-02-29");
+    mockMvc.perform(post(ENCOUNTERS_PATH(testPatient1.getId()))
+        .contentType("application/json")
+        .content(new ObjectMapper().writeValueAsString(encounterDTO)))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  public void saveEncounterIsListedWithPatientEncounters() throws Exception {
+    mockMvc.perform(post(ENCOUNTERS_PATH(testPatient1.getId()))
+        .contentType("application/json")
+        .content(new ObjectMapper().writeValueAsString(encounterDTO)))
+        .andExpect(status().isCreated());
+
+    String body = mockMvc.perform(get(ENCOUNTERS_PATH(testPatient1.getId()))
+        .param("limit", String.valueOf(randomEncounterList.size() + 1)))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+    assertTrue(body.contains(encounterDTO.getChiefComplaint()));
+  }
+
   @Test
   public void saveEncounterReturns201WithEncounterObject() throws Exception {
     ObjectMapper mapper = new ObjectMapper();
@@ -123,6 +242,22 @@ public class EncounterApiTest {
     assertNotNull(returnedEncounter.getId());
   }
 
+  @Test
+  public void saveEncounterReturnsCostsAsAmounts() throws Exception {
+    encounterDTO.setTotalCost(1.0E7);
+    encounterDTO.setCopay(25.5);
+    String body = mockMvc.perform(post(ENCOUNTERS_PATH(testPatient1.getId()))
+        .contentType("application/json")
+        .content(new ObjectMapper().writeValueAsString(encounterDTO)))
+        .andExpect(status().isCreated())
+        .andReturn().getResponse().getContentAsString();
+
+    JsonNode encounter = new ObjectMapper().readTree(body);
+    assertEquals(1.0E7, encounter.get("totalCost").asDouble(), 0);
+    assertEquals(25.5, encounter.get("copay").asDouble(), 0);
+    assertFalse(encounter.has("totalCostCents"));
+  }
+
   @Test
   public void saveEncounterReturns400WhenVisitCodeIsInvalid() throws Exception{
     encounterDTO.setVisitCode("n0+ V@l1d");
@@ -320,6 +455,20 @@ public class EncounterApiTest {
     assertNotNull(returnedEncounter.getId());
   }
 
+  @Test
+  public void updateEncounterLeavesPatientReadable() throws Exception {
+    //the update loads the patient while the encounter's lazy patient is in the session
+    patientCache.invalidateAll();
+    ObjectMapper mapper = new ObjectMapper();
+    mockMvc.perform(put(ENCOUNTERS_PATH(testPatient1.getId()) + "/" + randomEncounterList.get(0).getId())
+            .contentType("application/json")
+            .content(mapper.writeValueAsString(encounterDTO)))
+        .andExpect(status().isOk());
+
+    mockMvc.perform(get(Paths.PATIENTS_PATH + "/" + testPatient1.getId()))
+        .andExpect(status().isOk());
+  }
+
   @Test
   public void updateEncounterReturns400WhenVisitCodeIsInvalid() throws Exception{
     encounterDTO.setVisitCode("n0+ V@l1d");
@@ -1,10 +1,15 @@
 package io.catalyte.training.superhealth.domains.encounter;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 
@@ -12,9 +17,15 @@ import io.catalyte.training.superhealth.data.PatientFactory;
 import io.catalyte.training.superhealth.domains.patient.Patient;
 import io.catalyte.training.superhealth.domains.patient.PatientRepository;
 import io.catalyte.training.superhealth.domains.patient.PatientService;
+import io.catalyte.training.superhealth.domains.patient.PatientSummaryRepository;
+import io.catalyte.training.superhealth.exceptions.BadRequest;
 import io.catalyte.training.superhealth.exceptions.ResourceNotFound;
 import io.catalyte.training.superhealth.exceptions.ServiceUnavailable;
+import io.catalyte.training.superhealth.pagination.CursorPage;
+import io.catalyte.training.superhealth.pagination.KeysetCursor;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import org.junit.Before;
@@ -22,12 +33,15 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataAccessException;
+import org.springframework.transaction.PlatformTransactionManager;
 
 @RunWith(MockitoJUnitRunner.class)
 @WebMvcTest(EncounterServiceImpl.class)
@@ -49,6 +63,12 @@ public class EncounterServiceImplTest {
   private PatientRepository patientRepository;
   @Mock
   private EncounterRepository encounterRepository;
+  @Mock
+  private PatientSummaryRepository patientSummaryRepository;
+  @Mock
+  private PlatformTransactionManager transactionManager;
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
 
   @Before
   public void setUp() {
@@ -57,7 +77,9 @@ public class EncounterServiceImplTest {
     setTestEncounters();
 
     when(encounterRepository.findById(anyLong())).thenReturn(Optional.of(testEncounter1));
+    when(encounterRepository.findByIdForUpdate(anyLong())).thenReturn(testEncounter1);
     when(encounterRepository.save(any())).thenReturn(testEncounter1);
+    when(patientService.getPatientById(any())).thenReturn(testPatient1);
   }
 
   private void setTestEncounters() {
@@ -73,13 +95,13 @@ public class EncounterServiceImplTest {
         "New Hospital",
         "123.456.789-00",
         "Z99",
-        0.11,
-        0.11,
+        11L,
+        11L,
         "new complaint",
         78,
         120,
         80,
-        "2020-08-04"
+        LocalDate.parse("2020-08-04")
     );
     testEncounterDTO = new EncounterDTO(
         testPatient1.getId(),
@@ -108,6 +130,64 @@ public class EncounterServiceImplTest {
     assertEquals(testEncounter1, actual);
   }
 
+  @Test
+  public void getEncountersByPatientIdReturnsLatestFirstWithNextCursor() {
+    Encounter older = new Encounter();
+    older.setId(2L);
+    older.setDate(LocalDate.parse("2020-01-01"));
+    when(encounterRepository.findPageByPatientId(eq(1L), eq(true), isNull(), eq(2)))
+        .thenReturn(Arrays.asList(testEncounter1, older));
+
+    CursorPage<Encounter> page = encounterServiceImpl.getEncountersByPatientId(1L, 1, null, null);
+
+    assertEquals(Arrays.asList(testEncounter1), page.getItems());
+    KeysetCursor next = KeysetCursor.decode(page.getNextCursor());
+    assertEquals("date,desc", next.getSort());
+    assertEquals(testEncounter1.getDate().toString(), next.getValue());
+  }
+
+  @Test
+  public void getEncountersByPatientIdReturnsLastPageWithoutCursor() {
+    when(encounterRepository.findPageByPatientId(eq(1L), eq(false), any(), eq(51)))
+        .thenReturn(Arrays.asList(testEncounter1));
+    String after = new KeysetCursor("date,asc", 1L, "2020-01-01").encode();
+
+    CursorPage<Encounter> page = encounterServiceImpl.getEncountersByPatientId(1L, 50, after,
+        "date,asc");
+
+    assertEquals(Arrays.asList(testEncounter1), page.getItems());
+    assertEquals(null, page.getNextCursor());
+  }
+
+  @Test
+  public void getEncountersByPatientIdThrowsBadRequestWhenSortInvalid() {
+    assertThrows(BadRequest.class,
+        () -> encounterServiceImpl.getEncountersByPatientId(1L, 50, null, "provider"));
+  }
+
+  @Test
+  public void getEncountersByPatientIdThrowsBadRequestWhenCursorSortDiffers() {
+    String after = new KeysetCursor("date,asc", 1L, "2020-01-01").encode();
+    assertThrows(BadRequest.class,
+        () -> encounterServiceImpl.getEncountersByPatientId(1L, 50, after, "date,desc"));
+  }
+
+  @Test
+  public void getEncountersByPatientIdThrowsErrorWhenPatientNotFound() {
+    when(patientService.getPatientById(1L)).thenThrow(new ResourceNotFound("TEST EXCEPTION"));
+    assertThrows(ResourceNotFound.class,
+        () -> encounterServiceImpl.getEncountersByPatientId(1L, 50, null, null));
+    verify(encounterRepository, never()).findPageByPatientId(anyLong(), eq(true), any(), eq(51));
+  }
+
+  @Test
+  public void getEncountersByPatientIdThrowsServiceUnavailable() {
+    doThrow(new DataAccessException("TEST EXCEPTION") {
+    }).when(encounterRepository).findPageByPatientId(anyLong(), eq(true), any(), eq(51));
+    assertThrows(ServiceUnavailable.class,
+        () -> encounterServiceImpl.getEncountersByPatientId(1L, 50, null, null));
+  }
+
   @Test
   public void getEncounterByIdThrowsErrorWhenNotFound() {
     when(encounterRepository.findById(anyLong())).thenReturn(Optional.empty());
@@ -137,6 +217,73 @@ public class EncounterServiceImplTest {
    assertEquals(testEncounter1, encounterServiceImpl.updateEncounter(testEncounter1.getPatient().getId(), testEncounter1.getId(), testEncounterDTO));
   }
 
+  @Test
+  public void saveEncounterCountsItInPatientSummary() {
+    testPatient1.setId(5L);
+    testEncounterDTO.setPatientId(5L);
+    encounterServiceImpl.saveEncounter(5L, testEncounterDTO);
+    verify(patientSummaryRepository).addEncounter(5L, LocalDate.parse("2020-08-04"), 11L);
+    ArgumentCaptor<EncounterChange> change = ArgumentCaptor.forClass(EncounterChange.class);
+    verify(eventPublisher).publishEvent(change.capture());
+    assertNull(change.getValue().getPrevious());
+    assertEquals(testEncounter1.getId(), change.getValue().getCurrent().getId());
+  }
+
+  @Test
+  public void updateEncounterMovesItBetweenPatientSummaries() {
+    testPatient1.setId(5L);
+    testEncounterDTO.setPatientId(6L);
+    Encounter moved = new Encounter(1L, new Patient(), "notes", "N3W 3C3", "New Hospital",
+        "123.456.789-00", "Z99", 20L, 11L, "complaint", 78, 120, 80, LocalDate.parse("2021-01-01"));
+    when(encounterRepository.save(any())).thenReturn(moved);
+    encounterServiceImpl.updateEncounter(6L, 1L, testEncounterDTO);
+    verify(patientSummaryRepository).removeEncounter(5L, 11L);
+    verify(patientSummaryRepository).addEncounter(6L, LocalDate.parse("2021-01-01"), 20L);
+    ArgumentCaptor<EncounterChange> change = ArgumentCaptor.forClass(EncounterChange.class);
+    verify(eventPublisher).publishEvent(change.capture());
+    assertEquals(5L, change.getValue().getPrevious().getPatient().getId());
+    assertEquals(11L, change.getValue().getPrevious().getTotalCostCents());
+    assertEquals(20L, change.getValue().getCurrent().getTotalCostCents());
+  }
+
+  @Test
+  public void updateEncounterPublishesChangeFromLockedRow() {
+    testEncounterDTO.setPatientId(testPatient1.getId());
+    //an update committed between the first read and the row lock
+    Encounter committed = new Encounter(1L, testPatient1, "notes", "N3W 3C3", "Other Hospital",
+        "123.456.789-00", "A01", 30L, 11L, "complaint", 78, 120, 80, LocalDate.parse("2020-08-04"));
+    when(encounterRepository.findByIdForUpdate(1L)).thenReturn(committed);
+    when(encounterRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    encounterServiceImpl.updateEncounter(testPatient1.getId(), 1L, testEncounterDTO);
+    ArgumentCaptor<EncounterChange> change = ArgumentCaptor.forClass(EncounterChange.class);
+    verify(eventPublisher).publishEvent(change.capture());
+    assertEquals("Other Hospital", change.getValue().getPrevious().getProvider());
+    assertEquals("New Hospital", change.getValue().getCurrent().getProvider());
+  }
+
+  @Test
+  public void updateEncounterMovesLockedRowBetweenPatientSummaries() {
+    testPatient1.setId(5L);
+    testEncounterDTO.setPatientId(6L);
+    Patient otherPatient = new Patient();
+    otherPatient.setId(7L);
+    //an update moved the encounter to patient 7 between the first read and the row lock
+    Encounter committed = new Encounter(1L, otherPatient, "notes", "N3W 3C3", "New Hospital",
+        "123.456.789-00", "Z99", 30L, 11L, "complaint", 78, 120, 80, LocalDate.parse("2020-08-04"));
+    when(encounterRepository.findByIdForUpdate(1L)).thenReturn(committed);
+    when(encounterRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    encounterServiceImpl.updateEncounter(6L, 1L, testEncounterDTO);
+    verify(patientSummaryRepository).removeEncounter(7L, 30L);
+    verify(patientSummaryRepository, never()).removeEncounter(5L, 11L);
+  }
+
+  @Test
+  public void updateEncounterThrowsErrorWhenDeletedBeforeLock() {
+    when(encounterRepository.findByIdForUpdate(1L)).thenReturn(null);
+    assertThrows(ResourceNotFound.class, () -> encounterServiceImpl.updateEncounter(
+        testEncounter1.getPatient().getId(), 1L, testEncounterDTO));
+  }
+
   @Test
   public void updateEncounterThrowsServiceUnavailable() {
     doThrow(new DataAccessException("TEST EXCEPTION") {
@@ -216,6 +363,16 @@ public class EncounterServiceImplTest {
     testEncounterDTO.setCopay(2.11);
     assertEquals(true, encounterServiceImpl.validateCost(testEncounterDTO.getCopay()));
   }
+  @Test
+  public void validateCostReturnsTrueForLargeAmountInExponentForm(){
+    assertEquals(true, encounterServiceImpl.validateCost(1.0E7));
+  }
+
+  @Test
+  public void validateCostReturnsFalseForInexactSum(){
+    assertEquals(false, encounterServiceImpl.validateCost(0.1 + 0.2));
+  }
+
   @Test
   public void validateCostReturnsTrueIfNull(){
     testEncounterDTO.setTotalCost(null);
@@ -232,6 +389,30 @@ public class EncounterServiceImplTest {
     testEncounterDTO.setDate("1234-12-12");
     assertEquals(true, encounterServiceImpl.validateDateFormat(testEncounterDTO));
   }
+  @Test
+  public void validateDateFormatReturnsFalseIfDayNotInMonth(){
+    testEncounterDTO.setDate("2021-02-29");
+    assertEquals(false, encounterServiceImpl.validateDateFormat(testEncounterDTO));
+  }
+
+  @Test
+  public void validateDateRangeAcceptsSingleDay() {
+    encounterServiceImpl.validateDateRange("2020-08-04", "2020-08-04");
+  }
+
+  @Test
+  public void validateDateRangeThrowsBadRequestWhenFromAfterTo() {
+    assertThrows(BadRequest.class,
+        () -> encounterServiceImpl.validateDateRange("2020-08-05", "2020-08-04"));
+  }
+
+  @Test
+  public void validateDateRangeThrowsBadRequestWhenBoundMissingOrInvalid() {
+    assertThrows(BadRequest.class, () -> encounterServiceImpl.validateDateRange(null, "2020-08-04"));
+    assertThrows(BadRequest.class,
+        () -> encounterServiceImpl.validateDateRange("2020-08-04", "2020-13-01"));
+  }
+
   @Test
   public void validateDateFormatReturnsTrueIfNull(){
     testEncounterDTO.setDate(null);
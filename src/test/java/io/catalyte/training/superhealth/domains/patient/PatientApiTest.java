@@ -1,20 +1,40 @@
 package io.catalyte.training.superhealth.domains.patient;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.catalyte.training.superhealth.constants.Paths;
 import io.catalyte.training.superhealth.constants.StringConstants;
+import io.catalyte.training.superhealth.data.EncounterFactory;
 import io.catalyte.training.superhealth.data.PatientFactory;
+import io.catalyte.training.superhealth.domains.encounter.ArchivedEncounter;
+import io.catalyte.training.superhealth.domains.encounter.ArchivedEncounterRepository;
+import io.catalyte.training.superhealth.domains.encounter.Encounter;
+import io.catalyte.training.superhealth.domains.encounter.EncounterDTO;
+import io.catalyte.training.superhealth.domains.encounter.EncounterRepository;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -24,6 +44,8 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
@@ -37,10 +59,40 @@ public class PatientApiTest {
   Patient testPatient1;
   Patient testPatient2;
 
+  @Autowired
+  EncounterRepository encounterRepository;
+
+  @Autowired
+  ArchivedEncounterRepository archivedEncounterRepository;
+
+  EncounterFactory encounterFactory = new EncounterFactory();
+
+  @Autowired
+  PatientEmailSnapshot patientEmailSnapshot;
+
+  @Autowired
+  PatientCache patientCache;
+
+  @Autowired
+  PatientSummaryRepository patientSummaryRepository;
+
+  @Autowired
+  EntityManagerFactory entityManagerFactory;
+
   @Autowired
   private WebApplicationContext wac;
   private MockMvc mockMvc;
 
+  private static final ObjectMapper JSON = new ObjectMapper();
+
+  private static final TypeReference<Map<String, Object>> JSON_OBJECT =
+      new TypeReference<Map<String, Object>>() {
+      };
+
+  private static final TypeReference<List<Map<String, Object>>> JSON_OBJECTS =
+      new TypeReference<List<Map<String, Object>>>() {
+      };
+
   @Before
   public void setUp() {
     setTestPatients();
@@ -54,10 +106,14 @@ public class PatientApiTest {
     testPatient2.setEmail("test2@test.com");
     patientRepository.save(testPatient1);
     patientRepository.save(testPatient2);
+    patientEmailSnapshot.invalidate();
+    patientCache.invalidateAll();
   }
 
   @After
   public void removeTestPatients() {
+    encounterRepository.deleteAll();
+    patientSummaryRepository.deleteAll();
     patientRepository.deleteAll();
   }
 
@@ -67,6 +123,67 @@ public class PatientApiTest {
         .andExpect(status().isOk());
   }
 
+  @Test
+  public void getPatientsReturnsJsonArrayForBrowserAcceptHeader() throws Exception {
+    MockHttpServletResponse response = mockMvc.perform(get(Paths.PATIENTS_PATH)
+        .header("Accept", "application/json, text/plain, */*"))
+        .andExpect(status().isOk())
+        .andReturn().getResponse();
+    assertTrue(response.getContentAsString().startsWith("["));
+  }
+
+  @Test
+  public void streamPatientsReturnsOnePatientPerLine() throws Exception {
+    MvcResult result = mockMvc.perform(get(Paths.PATIENTS_PATH)
+        .accept(StringConstants.APPLICATION_NDJSON))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    result.getAsyncResult();
+    MockHttpServletResponse response = mockMvc.perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andReturn().getResponse();
+
+    assertTrue(response.getContentType().startsWith(StringConstants.APPLICATION_NDJSON));
+    String[] lines = response.getContentAsString().split("\n");
+    assertEquals(2, lines.length);
+    ObjectMapper mapper = new ObjectMapper();
+    HashMap first = mapper.readValue(lines[0], HashMap.class);
+    HashMap second = mapper.readValue(lines[1], HashMap.class);
+    assertEquals(testPatient1.getEmail(), first.get("email"));
+    assertEquals(testPatient2.getEmail(), second.get("email"));
+    assertFalse(first.containsKey("encounters"));
+  }
+
+  @Test
+  public void getPatientPageFollowsCursorThroughAllPatients() throws Exception {
+    ObjectMapper mapper = new ObjectMapper();
+    List<Object> ids = new ArrayList<>();
+    String after = "";
+    do {
+      MockHttpServletResponse response = mockMvc.perform(get(Paths.PATIENTS_PATH)
+          .param("limit", "1")
+          .param("sort", "lastName,desc")
+          .param("after", after))
+          .andExpect(status().isOk())
+          .andReturn().getResponse();
+      HashMap page = mapper.readValue(response.getContentAsString(), HashMap.class);
+      List<HashMap> items = (List<HashMap>) page.get("items");
+      items.forEach(item -> ids.add(((Number) item.get("id")).longValue()));
+      after = (String) page.get("nextCursor");
+    } while (after != null);
+
+    assertEquals(2, ids.size());
+    assertTrue(ids.containsAll(Arrays.asList(testPatient1.getId(), testPatient2.getId())));
+  }
+
+  @Test
+  public void getPatientPageReturns400IfSortInvalid() throws Exception {
+    mockMvc.perform(get(Paths.PATIENTS_PATH)
+        .param("limit", "10")
+        .param("sort", "ssn"))
+        .andExpect(status().isBadRequest());
+  }
+
   @Test
   public void getPatientByIdReturnsPatientWith200() throws Exception {
 
@@ -76,11 +193,349 @@ public class PatientApiTest {
 
   }
 
+  @Test
+  public void getPatientByIdLeavesOutEncounters() throws Exception {
+    String body = mockMvc.perform(get(Paths.PATIENTS_PATH + "/" + testPatient1.getId()))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+    assertFalse(new ObjectMapper().readValue(body, HashMap.class).containsKey("encounters"));
+  }
+
+  @Test
+  public void getPatientPageReadsNoEncountersWithoutInclude() throws Exception {
+    MockHttpServletRequestBuilder page = get(Paths.PATIENTS_PATH).param("limit", "10");
+    long withoutEncounters = statementsFor(page);
+    encounterRepository.saveAll(encounterFactory.generateRandomEncounterList(testPatient1));
+    encounterRepository.saveAll(encounterFactory.generateRandomEncounterList(testPatient2));
+
+    assertEquals(withoutEncounters, statementsFor(page));
+    List<Map<String, Object>> items = items(mockMvc.perform(page)
+        .andReturn().getResponse().getContentAsString());
+    assertFalse(items.get(0).containsKey("encounters"));
+  }
+
+  @Test
+  public void getPatientPageIncludesEncountersWithOneQuery() throws Exception {
+    List<Encounter> encounters = encounterRepository.saveAll(
+        encounterFactory.generateRandomEncounterList(testPatient1));
+    encounterRepository.saveAll(encounterFactory.generateRandomEncounterList(testPatient2));
+    MockHttpServletRequestBuilder page = get(Paths.PATIENTS_PATH).param("limit", "10");
+    MockHttpServletRequestBuilder included = get(Paths.PATIENTS_PATH).param("limit", "10")
+        .param("include", "encounters");
+
+    //one query for the encounters of the whole page, not one per patient
+    assertEquals(statementsFor(page) + 1, statementsFor(included));
+    Map<String, Object> first = items(mockMvc.perform(included)
+        .andReturn().getResponse().getContentAsString()).get(0);
+    assertEquals(testPatient1.getEmail(), first.get("email"));
+    List<Map<String, Object>> firstEncounters = JSON.convertValue(first.get("encounters"),
+        JSON_OBJECTS);
+    assertEquals(encounters.size(), firstEncounters.size());
+    for (int i = 1; i < firstEncounters.size(); i++) {
+      assertTrue(((String) firstEncounters.get(i - 1).get("date"))
+          .compareTo((String) firstEncounters.get(i).get("date")) <= 0);
+    }
+  }
+
+  @Test
+  public void getPatientsIncludesEmptyEncountersForPatientWithout() throws Exception {
+    encounterRepository.saveAll(encounterFactory.generateRandomEncounterList(testPatient1));
+
+    String body = mockMvc.perform(get(Paths.PATIENTS_PATH).param("include", "encounters"))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+    List<Map<String, Object>> patients = JSON.readValue(body, JSON_OBJECTS);
+    assertEquals(2, patients.size());
+    assertFalse(JSON.convertValue(patients.get(0).get("encounters"), JSON_OBJECTS).isEmpty());
+    assertTrue(JSON.convertValue(patients.get(1).get("encounters"), JSON_OBJECTS).isEmpty());
+  }
+
+  @Test
+  public void searchPatientsIncludesEncounters() throws Exception {
+    encounterRepository.saveAll(encounterFactory.generateRandomEncounterList(testPatient1));
+
+    String body = mockMvc.perform(get(Paths.PATIENTS_PATH + "/search")
+        .param("include", "ENCOUNTERS"))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+    assertTrue(items(body).stream().allMatch(item -> item.containsKey("encounters")));
+  }
+
+  @Test
+  public void getPatientByIdIncludesEncounters() throws Exception {
+    List<Encounter> encounters = encounterRepository.saveAll(
+        encounterFactory.generateRandomEncounterList(testPatient1));
+
+    String body = mockMvc.perform(get(Paths.PATIENTS_PATH + "/" + testPatient1.getId())
+        .param("include", "encounters"))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+    Map<String, Object> patient = JSON.readValue(body, JSON_OBJECT);
+    assertEquals(testPatient1.getEmail(), patient.get("email"));
+    assertEquals(encounters.size(),
+        JSON.convertValue(patient.get("encounters"), JSON_OBJECTS).size());
+  }
+
+  @Test
+  public void getPatientByIdIncludingEncountersReturns404IfPatientDoesNotExist()
+      throws Exception {
+    mockMvc.perform(get(Paths.PATIENTS_PATH + "/" + (testPatient2.getId() + 1000))
+        .param("include", "encounters"))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  public void getPatientsReturns400IfIncludeInvalid() throws Exception {
+    mockMvc.perform(get(Paths.PATIENTS_PATH).param("include", "summary"))
+        .andExpect(status().isBadRequest());
+    mockMvc.perform(get(Paths.PATIENTS_PATH).param("limit", "10").param("include", "summary"))
+        .andExpect(status().isBadRequest());
+  }
+
+  /**
+   * @param page - body of a page of patients
+   * @return the page's items
+   */
+  private static List<Map<String, Object>> items(String page) throws Exception {
+    return JSON.convertValue(JSON.readTree(page).get("items"), JSON_OBJECTS);
+  }
+
+  /**
+   * @param request - a request that succeeds
+   * @return the number of SQL statements the request prepared
+   */
+  private long statementsFor(MockHttpServletRequestBuilder request) throws Exception {
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.setStatisticsEnabled(true);
+    statistics.clear();
+    try {
+      mockMvc.perform(request).andExpect(status().isOk());
+      return statistics.getPrepareStatementCount();
+    } finally {
+      statistics.setStatisticsEnabled(false);
+    }
+  }
+
+  @Test
+  public void getPatientByIdReturnsUpdatedPatientAfterCacheHit() throws Exception {
+    String path = Paths.PATIENTS_PATH + "/" + testPatient1.getId();
+    mockMvc.perform(get(path)).andExpect(status().isOk());
+    mockMvc.perform(get(path)).andExpect(status().isOk());
+
+    testPatient1.setFirstName("Changed");
+    testPatient1.setHeight(70);
+    testPatient1.setWeight(150);
+    mockMvc.perform(put(path)
+        .contentType("application/json")
+        .content(new ObjectMapper().writeValueAsString(testPatient1)))
+        .andExpect(status().isOk());
+
+    String body = mockMvc.perform(get(path))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+    assertTrue(body.contains("\"firstName\":\"Changed\""));
+
+    String stats = mockMvc.perform(get(Paths.PATIENTS_PATH + "/cache/stats"))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+    HashMap counters = new ObjectMapper().readValue(stats, HashMap.class);
+    assertTrue(((Number) counters.get("hits")).longValue() >= 1);
+  }
+
+  @Test
+  public void importPatientsCreatesPatientsFromJsonArray() throws Exception {
+    ObjectMapper mapper = new ObjectMapper();
+    List<Patient> patients = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      Patient patient = patientFactory.createRandomPatient();
+      patient.setEmail("bulk" + i + "@test.com");
+      patient.setHeight(70);
+      patient.setWeight(150);
+      patients.add(patient);
+    }
+    patients.get(2).setEmail(testPatient1.getEmail().toUpperCase());
+
+    MockHttpServletResponse response = mockMvc.perform(post(Paths.PATIENTS_PATH + "/bulk")
+        .contentType("application/json")
+        .content(mapper.writeValueAsString(patients)))
+        .andExpect(status().isOk())
+        .andReturn().getResponse();
+    HashMap report = mapper.readValue(response.getContentAsString(), HashMap.class);
+    assertEquals(2, report.get("created"));
+    List<HashMap> results = (List<HashMap>) report.get("results");
+    assertEquals("CONFLICT", results.get(2).get("status"));
+
+    Long id = ((Number) results.get(0).get("id")).longValue();
+    assertEquals("bulk0@test.com", patientRepository.findById(id).get().getEmail());
+  }
+
+  @Test
+  public void importPatientsCreatesPatientsFromNdjson() throws Exception {
+    ObjectMapper mapper = new ObjectMapper();
+    StringBuilder body = new StringBuilder();
+    for (int i = 0; i < 2; i++) {
+      Patient patient = patientFactory.createRandomPatient();
+      patient.setEmail("ndjson" + i + "@test.com");
+      patient.setHeight(70);
+      patient.setWeight(150);
+      body.append(mapper.writeValueAsString(patient)).append('\n');
+    }
+
+    MockHttpServletResponse response = mockMvc.perform(post(Paths.PATIENTS_PATH + "/bulk")
+        .contentType(StringConstants.APPLICATION_NDJSON)
+        .content(body.toString()))
+        .andExpect(status().isOk())
+        .andReturn().getResponse();
+    HashMap report = mapper.readValue(response.getContentAsString(), HashMap.class);
+    assertEquals(2, report.get("created"));
+    assertEquals(4, patientRepository.count());
+  }
+
+  @Test
+  public void searchPatientsCombinesFilters() throws Exception {
+    testPatient1.setState("ZZ");
+    testPatient1.setAge(30);
+    testPatient1.setGender("Female");
+    patientRepository.save(testPatient1);
+    testPatient2.setState("ZZ");
+    testPatient2.setAge(60);
+    testPatient2.setGender("Female");
+    patientRepository.save(testPatient2);
+
+    ObjectMapper mapper = new ObjectMapper();
+    MockHttpServletResponse response = mockMvc.perform(get(Paths.PATIENTS_PATH + "/search")
+        .param("state", "ZZ")
+        .param("gender", "female")
+        .param("maxAge", "40"))
+        .andExpect(status().isOk())
+        .andReturn().getResponse();
+    HashMap page = mapper.readValue(response.getContentAsString(), HashMap.class);
+    List<HashMap> items = (List<HashMap>) page.get("items");
+    assertEquals(1, items.size());
+    assertEquals(testPatient1.getEmail(), items.get(0).get("email"));
+  }
+
+  @Test
+  public void searchPatientsReturns400IfFilterInvalid() throws Exception {
+    mockMvc.perform(get(Paths.PATIENTS_PATH + "/search").param("postal", "abc"))
+        .andExpect(status().isBadRequest());
+  }
+
+  private Long postPatient(String email) throws Exception {
+    ObjectMapper mapper = new ObjectMapper();
+    Patient patient = patientFactory.createRandomPatient();
+    patient.setEmail(email);
+    patient.setHeight(70);
+    patient.setWeight(150);
+    String body = mockMvc.perform(post(Paths.PATIENTS_PATH)
+        .contentType("application/json")
+        .content(mapper.writeValueAsString(patient)))
+        .andExpect(status().isCreated())
+        .andReturn().getResponse().getContentAsString();
+    return mapper.readTree(body).get("id").asLong();
+  }
+
+  private String encounterJson(Long patientId, double totalCost, String date) throws Exception {
+    return new ObjectMapper().writeValueAsString(new EncounterDTO(patientId, "notes", "N3W 3C3",
+        "Summary Clinic", "123.456.789-00", "Z99", totalCost, 1.50, "complaint", 78, 120, 80,
+        date));
+  }
+
+  @Test
+  public void getPatientSummariesFollowsEncounterWrites() throws Exception {
+    ObjectMapper mapper = new ObjectMapper();
+    Long patientId = postPatient("summary@test.com");
+    mockMvc.perform(post(Paths.ENCOUNTERS_PATH(patientId))
+        .contentType("application/json")
+        .content(encounterJson(patientId, 100.25, "2020-08-04")))
+        .andExpect(status().isCreated());
+    String created = mockMvc.perform(post(Paths.ENCOUNTERS_PATH(patientId))
+        .contentType("application/json")
+        .content(encounterJson(patientId, 50.50, "2021-01-15")))
+        .andExpect(status().isCreated())
+        .andReturn().getResponse().getContentAsString();
+    //moving the latest encounter earlier moves the last visit back to the other one
+    mockMvc.perform(put(Paths.ENCOUNTERS_PATH(patientId) + "/"
+        + mapper.readTree(created).get("id").asLong())
+        .contentType("application/json")
+        .content(encounterJson(patientId, 10.00, "2019-03-01")))
+        .andExpect(status().isOk());
+
+    String body = mockMvc.perform(get(Paths.PATIENTS_PATH + "/summary"))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+    HashMap page = mapper.readValue(body, HashMap.class);
+    List<HashMap> items = (List<HashMap>) page.get("items");
+    assertEquals(1, items.size());
+    assertEquals(patientId.longValue(), ((Number) items.get(0).get("patientId")).longValue());
+    assertEquals(2, ((Number) items.get(0).get("encounterCount")).intValue());
+    assertEquals("2020-08-04", items.get(0).get("lastVisit"));
+    assertEquals(110.25, ((Number) items.get(0).get("totalCost")).doubleValue(), 0);
+  }
+
+  @Test
+  public void getPatientSummariesFollowsCursorAndDropsDeletedPatient() throws Exception {
+    ObjectMapper mapper = new ObjectMapper();
+    Long firstId = postPatient("summary1@test.com");
+    Long secondId = postPatient("summary2@test.com");
+    Long deletedId = postPatient("summary3@test.com");
+    mockMvc.perform(delete(Paths.PATIENTS_PATH + "/" + deletedId))
+        .andExpect(status().isNoContent());
+
+    List<Long> ids = new ArrayList<>();
+    String after = "";
+    do {
+      String body = mockMvc.perform(get(Paths.PATIENTS_PATH + "/summary")
+          .param("limit", "1")
+          .param("after", after))
+          .andExpect(status().isOk())
+          .andReturn().getResponse().getContentAsString();
+      HashMap page = mapper.readValue(body, HashMap.class);
+      List<HashMap> items = (List<HashMap>) page.get("items");
+      items.forEach(item -> ids.add(((Number) item.get("patientId")).longValue()));
+      after = (String) page.get("nextCursor");
+    } while (after != null);
+
+    assertEquals(Arrays.asList(firstId, secondId), ids);
+  }
+
+  @Test
+  public void getPatientSummariesReturns400IfLimitInvalid() throws Exception {
+    mockMvc.perform(get(Paths.PATIENTS_PATH + "/summary").param("limit", "0"))
+        .andExpect(status().isBadRequest());
+  }
+
   @Test
   public void getPatientEmailsReturns200() throws Exception {
     mockMvc.perform(get(Paths.PATIENTS_PATH + "/emails"))
         .andExpect(status().isOk());
   }
+
+  @Test
+  public void getPatientEmailsReturns304UntilEmailsChange() throws Exception {
+    String eTag = mockMvc.perform(get(Paths.PATIENTS_PATH + "/emails"))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getHeader("ETag");
+    assertNotNull(eTag);
+
+    mockMvc.perform(get(Paths.PATIENTS_PATH + "/emails").header("If-None-Match", eTag))
+        .andExpect(status().isNotModified());
+
+    Patient newPatient = patientFactory.createRandomPatient();
+    newPatient.setEmail("new@test.com");
+    newPatient.setHeight(70);
+    newPatient.setWeight(150);
+    mockMvc.perform(post(Paths.PATIENTS_PATH)
+        .contentType("application/json")
+        .content(new ObjectMapper().writeValueAsString(newPatient)))
+        .andExpect(status().isCreated());
+
+    MockHttpServletResponse response = mockMvc.perform(get(Paths.PATIENTS_PATH + "/emails")
+        .header("If-None-Match", eTag))
+        .andExpect(status().isOk())
+        .andReturn().getResponse();
+    assertTrue(response.getContentAsString().contains("new@test.com"));
+  }
   @Test
   public void savePatientReturns201() throws Exception {
     ObjectMapper mapper = new ObjectMapper();
@@ -236,6 +691,53 @@ public class PatientApiTest {
 
   }
 
+  @Test
+  public void savePatientReturns409IfEmailExistsWithDifferentCase() throws Exception {
+    Patient newPatient = patientFactory.createRandomPatient();
+    newPatient.setEmail(testPatient1.getEmail().toUpperCase());
+    newPatient.setHeight(70);
+    newPatient.setWeight(150);
+    ObjectMapper mapper = new ObjectMapper();
+    mockMvc.perform(post(Paths.PATIENTS_PATH)
+        .contentType("application/json")
+        .content(mapper.writeValueAsString(newPatient)))
+        .andExpect(status().isConflict());
+  }
+
+  @Test
+  public void concurrentSavesWithSameEmailOnlyCreateOnePatient() throws Exception {
+    ObjectMapper mapper = new ObjectMapper();
+    int requests = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(requests);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Integer>> statuses = new ArrayList<>();
+    Patient newPatient = patientFactory.createRandomPatient();
+    newPatient.setEmail("concurrent@test.com");
+    newPatient.setHeight(70);
+    newPatient.setWeight(150);
+    String body = mapper.writeValueAsString(newPatient);
+    for (int i = 0; i < requests; i++) {
+      statuses.add(executor.submit(() -> {
+        start.await();
+        return mockMvc.perform(post(Paths.PATIENTS_PATH)
+            .contentType("application/json")
+            .content(body))
+            .andReturn().getResponse().getStatus();
+      }));
+    }
+    start.countDown();
+    int created = 0;
+    for (Future<Integer> status : statuses) {
+      if (status.get() == 201) {
+        created++;
+      } else {
+        assertEquals(409, status.get().intValue());
+      }
+    }
+    executor.shutdown();
+    assertEquals(1, created);
+  }
+
   @Test
   public void savePatientReturns400IfFieldsAreNull() throws Exception {
     Patient newPatient = patientFactory.createRandomPatient();
@@ -523,5 +1025,45 @@ public class PatientApiTest {
         .andExpect(status().isNoContent());
   }
 
+  @Test
+  public void deletePatientReturns404IfPatientDoesNotExist() throws Exception {
+    mockMvc.perform(delete(Paths.PATIENTS_PATH + "/" + (testPatient2.getId() + 1000)))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  public void deletePatientReturns409IfPatientHasEncounters() throws Exception {
+    encounterRepository.saveAll(encounterFactory.generateRandomEncounterList(testPatient1));
+    mockMvc.perform(delete(Paths.PATIENTS_PATH + "/" + testPatient1.getId()))
+        .andExpect(status().isConflict());
+  }
+
+  @Test
+  public void deletePatientCascadeDeletesEncounters() throws Exception {
+    encounterRepository.saveAll(encounterFactory.generateRandomEncounterList(testPatient1));
+    mockMvc.perform(delete(Paths.PATIENTS_PATH + "/" + testPatient1.getId())
+        .param("mode", "cascade"))
+        .andExpect(status().isNoContent());
+    assertFalse(encounterRepository.existsByPatientId(testPatient1.getId()));
+    assertFalse(patientRepository.existsById(testPatient1.getId()));
+  }
+
+  @Test
+  public void deletePatientArchiveArchivesEncounters() throws Exception {
+    List<Encounter> encounters = encounterRepository.saveAll(
+        encounterFactory.generateRandomEncounterList(testPatient1));
+    mockMvc.perform(delete(Paths.PATIENTS_PATH + "/" + testPatient1.getId())
+        .param("mode", "archive"))
+        .andExpect(status().isNoContent());
+    assertFalse(encounterRepository.existsByPatientId(testPatient1.getId()));
+    List<ArchivedEncounter> archived =
+        archivedEncounterRepository.findByPatientId(testPatient1.getId());
+    assertEquals(encounters.size(), archived.size());
+    assertEquals(encounters.get(0).getChiefComplaint(), archivedEncounterRepository
+        .findById(encounters.get(0).getId()).get().getChiefComplaint());
+    assertNotNull(archived.get(0).getArchivedAt());
+    archivedEncounterRepository.deleteAll();
+  }
+
 
 }
@@ -0,0 +1,175 @@
+package io.catalyte.training.superhealth.domains.patient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.catalyte.training.superhealth.constants.StringConstants;
+import io.catalyte.training.superhealth.domains.cohort.CohortIndex;
+import io.catalyte.training.superhealth.domains.patient.PatientImportResult.Status;
+import io.catalyte.training.superhealth.exceptions.ServiceUnavailable;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PatientImportServiceImplTest {
+
+  private final ObjectMapper mapper = new ObjectMapper();
+  private PatientImportServiceImpl patientImportServiceImpl;
+  @Mock
+  private PatientRepository patientRepository;
+  @Mock
+  private JdbcTemplate jdbcTemplate;
+  @Mock
+  private PlatformTransactionManager transactionManager;
+  @Mock
+  private PatientSummaryRepository patientSummaryRepository;
+
+  @Before
+  public void setUp() {
+    MockitoAnnotations.initMocks(this);
+    patientImportServiceImpl = new PatientImportServiceImpl(patientRepository, jdbcTemplate,
+        transactionManager, mapper, new PatientEmailSnapshot(true), patientSummaryRepository,
+        new CohortIndex(), 2);
+
+    //no email exists, and ids are reserved in ascending order
+    when(patientRepository.findByNormalizedEmailIn(anyCollection()))
+        .thenReturn(Collections.emptyList());
+    long[] nextId = {1};
+    when(patientRepository.allocateIds(anyInt())).thenAnswer(invocation -> {
+      long[] ids = new long[invocation.<Integer>getArgument(0)];
+      for (int i = 0; i < ids.length; i++) {
+        ids[i] = nextId[0]++;
+      }
+      return ids;
+    });
+  }
+
+  private Patient patient(String email) {
+    return new Patient(null, "Test", "Patient", "123-45-6789", email, "1 Main St", "Denver",
+        "CO", "80202", 30, 70, 150, "Self-Insured", "other");
+  }
+
+  private InputStream json(Object value) throws Exception {
+    return new ByteArrayInputStream(mapper.writeValueAsBytes(value));
+  }
+
+  @Test
+  public void importPatientsCreatesEveryValidRecordFromJsonArray() throws Exception {
+    PatientImportReport report = patientImportServiceImpl.importPatients(json(Arrays.asList(
+        patient("a@test.com"), patient("b@test.com"), patient("c@test.com"))));
+    assertEquals(3, report.getReceived());
+    assertEquals(3, report.getCreated());
+    assertEquals(Status.CREATED, report.getResults().get(2).getStatus());
+    assertEquals(2, report.getResults().get(2).getIndex());
+    assertEquals(Long.valueOf(3), report.getResults().get(2).getId());
+    //one batch per chunk of two
+    verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+  }
+
+  @Test
+  public void importPatientsReadsNdjson() throws Exception {
+    String body = mapper.writeValueAsString(patient("a@test.com")) + "\n"
+        + mapper.writeValueAsString(patient("b@test.com")) + "\n";
+    PatientImportReport report = patientImportServiceImpl.importPatients(
+        new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+    assertEquals(2, report.getCreated());
+  }
+
+  @Test
+  public void importPatientsRejectsInvalidRecordsWithoutInserting() throws Exception {
+    Patient invalid = patient("not an email");
+    PatientImportReport report = patientImportServiceImpl.importPatients(
+        json(Collections.singletonList(invalid)));
+    assertEquals(Status.INVALID, report.getResults().get(0).getStatus());
+    assertEquals(Collections.singletonList(StringConstants.EMAIL_INVALID),
+        report.getResults().get(0).getErrors());
+    verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+  }
+
+  @Test
+  public void importPatientsRejectsEmailRepeatedInImport() throws Exception {
+    PatientImportReport report = patientImportServiceImpl.importPatients(json(Arrays.asList(
+        patient("a@test.com"), patient("b@test.com"), patient("A@Test.com"))));
+    assertEquals(2, report.getCreated());
+    assertEquals(Status.CONFLICT, report.getResults().get(2).getStatus());
+    assertEquals(Collections.singletonList(StringConstants.EMAIL_DUPLICATED_IN_IMPORT),
+        report.getResults().get(2).getErrors());
+  }
+
+  @Test
+  public void importPatientsRejectsEmailThatAlreadyExists() throws Exception {
+    when(patientRepository.findByNormalizedEmailIn(anyCollection()))
+        .thenReturn(Collections.singletonList(new PatientEmail(1L, "a@test.com")));
+    PatientImportReport report = patientImportServiceImpl.importPatients(
+        json(Collections.singletonList(patient("a@test.com"))));
+    assertEquals(Status.CONFLICT, report.getResults().get(0).getStatus());
+    assertEquals(0, report.getCreated());
+  }
+
+  @Test
+  public void importPatientsReportsMalformedRecordAndStops() throws Exception {
+    String body = mapper.writeValueAsString(patient("a@test.com")) + "\n{\"age\": oops}\n";
+    PatientImportReport report = patientImportServiceImpl.importPatients(
+        new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+    assertEquals(2, report.getReceived());
+    assertEquals(Status.CREATED, report.getResults().get(0).getStatus());
+    assertEquals(Status.INVALID, report.getResults().get(1).getStatus());
+  }
+
+  @Test
+  public void importPatientsReportsConflictWhenInsertKeepsFailing() throws Exception {
+    when(patientRepository.findByNormalizedEmailIn(anyCollection()))
+        .thenReturn(Collections.emptyList());
+    doThrow(new DuplicateKeyException("TEST EXCEPTION", new SQLException(
+        "duplicate key value violates unique constraint \"patient_normalized_email_uk\"")))
+        .when(jdbcTemplate).batchUpdate(anyString(), anyList());
+    PatientImportReport report = patientImportServiceImpl.importPatients(
+        json(Collections.singletonList(patient("a@test.com"))));
+    assertEquals(Status.CONFLICT, report.getResults().get(0).getStatus());
+    verify(jdbcTemplate, times(3)).batchUpdate(anyString(), anyList());
+  }
+
+  @Test
+  public void importPatientsThrowsServiceUnavailableOnOtherIntegrityViolation() {
+    when(patientRepository.findByNormalizedEmailIn(anyCollection()))
+        .thenReturn(Collections.emptyList());
+    doThrow(new DuplicateKeyException("TEST EXCEPTION", new SQLException(
+        "duplicate key value violates unique constraint \"patient_pkey\"")))
+        .when(jdbcTemplate).batchUpdate(anyString(), anyList());
+    assertThrows(ServiceUnavailable.class, () -> patientImportServiceImpl.importPatients(
+        json(Collections.singletonList(patient("a@test.com")))));
+    verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList());
+  }
+
+  @Test
+  public void importPatientsThrowsServiceUnavailable() {
+    doThrow(new DataAccessException("TEST EXCEPTION") {
+    }).when(jdbcTemplate).batchUpdate(anyString(), anyList());
+    assertThrows(ServiceUnavailable.class, () -> patientImportServiceImpl.importPatients(
+        json(Collections.singletonList(patient("a@test.com")))));
+  }
+}
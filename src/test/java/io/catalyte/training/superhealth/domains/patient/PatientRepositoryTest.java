@@ -0,0 +1,94 @@
+package io.catalyte.training.superhealth.domains.patient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import io.catalyte.training.superhealth.data.PatientFactory;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.junit4.SpringRunner;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class PatientRepositoryTest {
+
+  private static final int PATIENTS = 2 * Patient.ID_BLOCK_SIZE;
+
+  private final PatientFactory patientFactory = new PatientFactory();
+  @Autowired
+  public PatientRepository patientRepository;
+  @Autowired
+  public EntityManagerFactory entityManagerFactory;
+  private Statistics statistics;
+
+  @Before
+  public void setUp() {
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.setStatisticsEnabled(true);
+    statistics.clear();
+  }
+
+  @After
+  public void tearDown() {
+    statistics.setStatisticsEnabled(false);
+    patientRepository.deleteAllInBatch();
+  }
+
+  private List<Patient> patients(int first) {
+    List<Patient> patients = new ArrayList<>();
+    for (int i = first; i < first + PATIENTS; i++) {
+      patients.add(patientFactory.createRandomPatient(i));
+    }
+    return patients;
+  }
+
+  @Test
+  public void saveAllBatchesInserts() {
+    patientRepository.saveAll(patients(0));
+
+    assertEquals(PATIENTS, statistics.getEntityInsertCount());
+    //one sequence call per block of ids and one insert statement per JDBC batch, not one per row
+    assertTrue(statistics.getPrepareStatementCount() <= 2 * PATIENTS / Patient.ID_BLOCK_SIZE + 1);
+  }
+
+  @Test
+  public void allocateIdsNeverReturnsIdsHibernateAssigns() {
+    Set<Long> ids = new HashSet<>();
+    for (Patient saved : patientRepository.saveAll(patients(0))) {
+      ids.add(saved.getId());
+    }
+    for (long id : patientRepository.allocateIds(PATIENTS + 1)) {
+      assertTrue(ids.add(id));
+    }
+    for (Patient saved : patientRepository.saveAll(patients(PATIENTS))) {
+      assertTrue(ids.add(saved.getId()));
+    }
+  }
+
+  @Test
+  public void duplicateEmailViolatesNamedConstraint() {
+    Patient first = patientFactory.createRandomPatient(0);
+    Patient second = patientFactory.createRandomPatient(1);
+    second.setEmail(" " + first.getEmail().toUpperCase() + " ");
+    patientRepository.save(first);
+    try {
+      patientRepository.saveAndFlush(second);
+      fail("expected the normalized email to be unique");
+    } catch (DataIntegrityViolationException e) {
+      assertTrue(PatientEmailIndex.isEmailViolation(e));
+    }
+  }
+}
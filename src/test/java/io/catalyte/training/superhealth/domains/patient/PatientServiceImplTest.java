@@ -1,17 +1,38 @@
 package io.catalyte.training.superhealth.domains.patient;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.notNull;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import io.catalyte.training.superhealth.data.PatientFactory;
+import io.catalyte.training.superhealth.domains.encounter.Encounter;
+import io.catalyte.training.superhealth.domains.encounter.EncounterRepository;
+import io.catalyte.training.superhealth.exceptions.BadRequest;
+import io.catalyte.training.superhealth.exceptions.RequestConflict;
 import io.catalyte.training.superhealth.exceptions.ResourceNotFound;
 import io.catalyte.training.superhealth.exceptions.ServiceUnavailable;
+import io.catalyte.training.superhealth.pagination.CursorPage;
+import io.catalyte.training.superhealth.pagination.KeysetCursor;
+import java.sql.SQLException;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
@@ -20,12 +41,20 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @RunWith(MockitoJUnitRunner.class)
 @WebMvcTest(PatientServiceImpl.class)
@@ -43,6 +72,20 @@ public class PatientServiceImplTest {
   private PatientServiceImpl patientServiceImpl;
   @Mock
   private PatientRepository patientRepository;
+  @Spy
+  private PatientEmailIndex patientEmailIndex = new PatientEmailIndex();
+  @Spy
+  private PatientEmailSnapshot patientEmailSnapshot = new PatientEmailSnapshot(true);
+  @Spy
+  private PatientCache patientCache = new PatientCache(false, 0);
+  @Mock
+  private EncounterRepository encounterRepository;
+  @Mock
+  private PatientSummaryRepository patientSummaryRepository;
+  @Mock
+  private PlatformTransactionManager transactionManager;
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
 
   @Before
   public void setUp() {
@@ -61,8 +104,13 @@ public class PatientServiceImplTest {
 
 
     when(patientRepository.findAll()).thenReturn(testPatients);
+    List<PatientEmail> testPatientEmails = new ArrayList<>();
+    testPatients.forEach(patient ->
+        testPatientEmails.add(new PatientEmail(patient.getId(), patient.getEmail())));
+    when(patientRepository.findAllEmails()).thenReturn(testPatientEmails);
     when(patientRepository.findById(anyLong())).thenReturn(Optional.of(testPatient));
     when(patientRepository.save(any())).thenReturn(testPatient);
+    when(patientRepository.removeById(anyLong())).thenReturn(1);
 
 
   }
@@ -120,12 +168,157 @@ public class PatientServiceImplTest {
     assertThrows(ServiceUnavailable.class, () -> patientServiceImpl.getPatients());
   }
 
+  @Test
+  public void getPatientPageReturnsCursorWhenMorePatientsExist() {
+    when(patientRepository.findPage(null, PatientSort.ID, false, null, 2))
+        .thenReturn(testPatients);
+    CursorPage<Patient> page = patientServiceImpl.getPatientPage(1, null, null);
+    assertEquals(1, page.getItems().size());
+    KeysetCursor cursor = KeysetCursor.decode(page.getNextCursor());
+    assertEquals("id,asc", cursor.getSort());
+    assertEquals(1L, cursor.getId());
+  }
+
+  @Test
+  public void getPatientPageReturnsNoCursorOnLastPage() {
+    when(patientRepository.findPage(null, PatientSort.LAST_NAME, true, null, 3))
+        .thenReturn(testPatients);
+    CursorPage<Patient> page = patientServiceImpl.getPatientPage(2, null, "lastName,desc");
+    assertEquals(testPatients, page.getItems());
+    assertNull(page.getNextCursor());
+  }
+
+  @Test
+  public void getPatientPageThrowsBadRequestIfLimitInvalid() {
+    assertThrows(BadRequest.class, () -> patientServiceImpl.getPatientPage(0, null, null));
+  }
+
+  @Test
+  public void getPatientPageThrowsBadRequestIfCursorSortDiffers() {
+    String cursor = new KeysetCursor("id,asc", 1L, "1").encode();
+    assertThrows(BadRequest.class,
+        () -> patientServiceImpl.getPatientPage(10, cursor, "lastName"));
+  }
+
+  @Test
+  public void getPatientPageThrowsBadRequestIfCursorMalformed() {
+    assertThrows(BadRequest.class,
+        () -> patientServiceImpl.getPatientPage(10, "not a cursor", null));
+  }
+
+  @Test
+  public void getPatientSummariesReturnsCursorWhenMoreSummariesExist() {
+    when(patientSummaryRepository.findByPatientIdGreaterThanOrderByPatientIdAsc(0L,
+        PageRequest.of(0, 2))).thenReturn(testSummaries());
+    CursorPage<PatientSummary> page = patientServiceImpl.getPatientSummaries(1, null);
+    assertEquals(1, page.getItems().size());
+    assertEquals(1L, KeysetCursor.decode(page.getNextCursor()).getId());
+  }
+
+  @Test
+  public void getPatientSummariesReadsAfterCursor() {
+    when(patientSummaryRepository.findByPatientIdGreaterThanOrderByPatientIdAsc(1L,
+        PageRequest.of(0, 3))).thenReturn(testSummaries().subList(1, 2));
+    String cursor = new KeysetCursor("patientId,asc", 1L, "1").encode();
+    CursorPage<PatientSummary> page = patientServiceImpl.getPatientSummaries(2, cursor);
+    assertEquals(2L, page.getItems().get(0).getPatientId());
+    assertNull(page.getNextCursor());
+  }
+
+  @Test
+  public void getPatientSummariesThrowsBadRequestIfCursorSortDiffers() {
+    String cursor = new KeysetCursor("id,asc", 1L, "1").encode();
+    assertThrows(BadRequest.class, () -> patientServiceImpl.getPatientSummaries(10, cursor));
+  }
+
+  @Test
+  public void getPatientSummariesThrowsBadRequestIfLimitInvalid() {
+    assertThrows(BadRequest.class, () -> patientServiceImpl.getPatientSummaries(0, null));
+  }
+
+  @Test
+  public void getPatientSummariesThrowsServiceUnavailable() {
+    doThrow(new DataAccessException("TEST EXCEPTION") {
+    }).when(patientSummaryRepository).findByPatientIdGreaterThanOrderByPatientIdAsc(anyLong(),
+        any());
+    assertThrows(ServiceUnavailable.class, () -> patientServiceImpl.getPatientSummaries(10, null));
+  }
+
+  private List<PatientSummary> testSummaries() {
+    List<PatientSummary> summaries = new ArrayList<>();
+    summaries.add(new PatientSummary(1L, "Test", "Patient", 2L, LocalDate.parse("2020-08-04"),
+        1000L));
+    summaries.add(new PatientSummary(2L, "Other", "Patient", 0L, null, 0L));
+    return summaries;
+  }
+
+  @Test
+  public void searchPatientsFiltersPage() {
+    when(patientRepository.findPage(any(), any(), anyBoolean(), any(), anyInt()))
+        .thenReturn(testPatients);
+    PatientSearch search = new PatientSearch("CA", null, null, "female", 10, 40);
+    CursorPage<Patient> page = patientServiceImpl.searchPatients(search, 10, null, null);
+    assertEquals(testPatients, page.getItems());
+    assertEquals("Female", search.getGender());
+    verify(patientRepository).findPage(notNull(), any(), anyBoolean(), any(), anyInt());
+  }
+
+  @Test
+  public void searchPatientsThrowsBadRequestIfStateInvalid() {
+    PatientSearch search = new PatientSearch("California", null, null, null, null, null);
+    assertThrows(BadRequest.class,
+        () -> patientServiceImpl.searchPatients(search, 10, null, null));
+  }
+
+  @Test
+  public void searchPatientsThrowsBadRequestIfAgeRangeInvalid() {
+    PatientSearch search = new PatientSearch(null, null, null, null, 50, 20);
+    assertThrows(BadRequest.class,
+        () -> patientServiceImpl.searchPatients(search, 10, null, null));
+  }
+
   @Test
   public void getPatientByIdReturnsPatient() {
     Patient actual = patientServiceImpl.getPatientById(123L);
     assertEquals(testPatient, actual);
   }
 
+  @Test
+  public void getPatientByIdReadsDatabaseOnceWhenCacheEnabled() {
+    PatientServiceImpl cachedService = new PatientServiceImpl(patientRepository,
+        patientEmailIndex, null, patientEmailSnapshot, new PatientCache(true, 100),
+        encounterRepository, patientSummaryRepository, transactionManager, eventPublisher);
+    when(patientRepository.findById(1L)).thenReturn(Optional.of(testPatient));
+    assertEquals(testPatient, cachedService.getPatientById(1L));
+    assertEquals(testPatient, cachedService.getPatientById(1L));
+    verify(patientRepository, times(1)).findById(1L);
+    assertEquals(1, cachedService.getPatientCacheStats().getHits());
+    assertEquals(1, cachedService.getPatientCacheStats().getMisses());
+  }
+
+  @Test
+  public void updatePatientInvalidatesCachedPatient() {
+    PatientServiceImpl cachedService = new PatientServiceImpl(patientRepository,
+        patientEmailIndex, null, patientEmailSnapshot, new PatientCache(true, 100),
+        encounterRepository, patientSummaryRepository, transactionManager, eventPublisher);
+    when(patientRepository.findById(1L)).thenReturn(Optional.of(testPatient));
+    cachedService.getPatientById(1L);
+    cachedService.updatePatient(1L, testPatient);
+    cachedService.getPatientById(1L);
+    //the first read, the update's own lookup and the reload after invalidation
+    verify(patientRepository, times(3)).findById(1L);
+  }
+
+  @Test
+  public void getPatientByIdDoesNotCacheMissingPatient() {
+    PatientServiceImpl cachedService = new PatientServiceImpl(patientRepository,
+        patientEmailIndex, null, patientEmailSnapshot, new PatientCache(true, 100),
+        encounterRepository, patientSummaryRepository, transactionManager, eventPublisher);
+    when(patientRepository.findById(1L)).thenReturn(Optional.empty());
+    assertThrows(ResourceNotFound.class, () -> cachedService.getPatientById(1L));
+    assertEquals(0, cachedService.getPatientCacheStats().getSize());
+  }
+
   @Test
   public void getPatientByIdThrowsErrorWhenNotFound() {
     when(patientRepository.findById(anyLong())).thenReturn(Optional.empty());
@@ -139,6 +332,44 @@ public class PatientServiceImplTest {
     assertThrows(ServiceUnavailable.class, () -> patientServiceImpl.getPatientById(123L));
   }
 
+  @Test
+  public void withEncountersKeepsPatientOrderInOneQuery() {
+    Patient first = new Patient();
+    first.setId(1L);
+    Patient second = new Patient();
+    second.setId(2L);
+    Patient loaded = new Patient();
+    loaded.setId(1L);
+    loaded.setEncounters(Collections.singletonList(new Encounter()));
+    when(patientRepository.findWithEncountersByIdIn(anyCollection()))
+        .thenReturn(Collections.singletonList(loaded));
+
+    List<PatientWithEncounters> actual =
+        patientServiceImpl.withEncounters(Arrays.asList(first, second));
+
+    verify(patientRepository, times(1)).findWithEncountersByIdIn(anyCollection());
+    assertEquals(first, actual.get(0).getPatient());
+    assertEquals(1, actual.get(0).getEncounters().size());
+    assertEquals(second, actual.get(1).getPatient());
+    assertTrue(actual.get(1).getEncounters().isEmpty());
+  }
+
+  @Test
+  public void getPatientWithEncountersByIdThrowsErrorWhenNotFound() {
+    when(patientRepository.findWithEncountersByIdIn(anyCollection()))
+        .thenReturn(Collections.emptyList());
+    assertThrows(ResourceNotFound.class,
+        () -> patientServiceImpl.getPatientWithEncountersById(123L));
+  }
+
+  @Test
+  public void getPatientWithEncountersByIdThrowsServiceUnavailable() {
+    doThrow(new DataAccessException("TEST EXCEPTION") {
+    }).when(patientRepository).findWithEncountersByIdIn(anyCollection());
+    assertThrows(ServiceUnavailable.class,
+        () -> patientServiceImpl.getPatientWithEncountersById(123L));
+  }
+
   @Test
   public void getPatientEmailsReturnsHashmap(){
     HashMap<Long, String> actual = patientServiceImpl.getPatientEmails();
@@ -148,10 +379,26 @@ public class PatientServiceImplTest {
   @Test
   public void getPatientEmailsThrowsServiceUnavailable() {
     doThrow(new DataAccessException("TEST EXCEPTION") {
-    }).when(patientRepository).findAll();
+    }).when(patientRepository).findAllEmails();
     assertThrows(ServiceUnavailable.class, () -> patientServiceImpl.getPatientEmails());
   }
 
+  @Test
+  public void getPatientEmailsReadsDatabaseOnce() {
+    patientServiceImpl.getPatientEmails();
+    patientServiceImpl.getPatientEmails();
+    verify(patientRepository, times(1)).findAllEmails();
+  }
+
+  @Test
+  public void getPatientEmailsETagChangesWhenPatientDeleted() {
+    String before = patientServiceImpl.getPatientEmailsETag();
+    assertEquals(before, patientServiceImpl.getPatientEmailsETag());
+    patientServiceImpl.deletePatientById(1L);
+    assertNotEquals(before, patientServiceImpl.getPatientEmailsETag());
+    assertFalse(patientServiceImpl.getPatientEmails().containsKey(1L));
+  }
+
 
   @Test
   public void saveValidPatientReturnsPatient() {
@@ -159,6 +406,31 @@ public class PatientServiceImplTest {
     assertEquals(testPatient, patientServiceImpl.savePatient(testPatient));
   }
 
+  @Test
+  public void savePatientCreatesSummary() {
+    testPatient.setEmail("newTest@test.com");
+    patientServiceImpl.savePatient(testPatient);
+    verify(patientSummaryRepository).insertForPatients(Collections.singletonList(1L));
+  }
+
+  @Test
+  public void savePatientTrimsAndCapitalizesGender() {
+    testPatient.setEmail("newTest@test.com");
+    testPatient.setGender(" male ");
+    assertEquals("Male", patientServiceImpl.savePatient(testPatient).getGender());
+  }
+
+  @Test
+  public void savePatientPublishesChange() {
+    testPatient.setEmail("newTest@test.com");
+    patientServiceImpl.savePatient(testPatient);
+    ArgumentCaptor<PatientChange> change = ArgumentCaptor.forClass(PatientChange.class);
+    verify(eventPublisher).publishEvent(change.capture());
+    assertEquals(testPatient.getId(), change.getValue().getPatientId());
+    assertEquals("newTest@test.com", change.getValue().getCurrent().getEmail());
+    assertFalse(change.getValue().isDeleted());
+  }
+
   @Test
   public void savePatientThrowsServiceUnavailable() {
     doThrow(new DataAccessException("TEST EXCEPTION") {
@@ -169,7 +441,7 @@ public class PatientServiceImplTest {
   @Test
   public void patientEmailAlreadyExistsThrowsServiceUnavailableWhenPatientSaved(){
     doThrow(new DataAccessException("TEST EXCEPTION") {
-    }).when(patientRepository).findAll();
+    }).when(patientRepository).existsByNormalizedEmailAndIdNot(anyString(), anyLong());
     assertThrows(ServiceUnavailable.class, () -> patientServiceImpl.savePatient(testPatient));
   }
 
@@ -178,6 +450,40 @@ public class PatientServiceImplTest {
     assertEquals(testPatient, patientServiceImpl.updatePatient(1L, testPatient));
   }
 
+  @Test
+  public void updatePatientTrimsAndCapitalizesGender(){
+    testPatient.setGender("FEMALE ");
+    assertEquals("Female", patientServiceImpl.updatePatient(1L, testPatient).getGender());
+  }
+
+  @Test
+  public void updatePatientCopiesNameToSummary(){
+    patientServiceImpl.updatePatient(1L, testPatient);
+    verify(patientSummaryRepository).updateName(1L, "Test", "Patient");
+  }
+
+  @Test
+  public void updatePatientPublishesChangeWithinSameSlice(){
+    Patient older = new Patient(1L, "Test", "Patient", "123-45-6789", "test@test.com",
+        "8430 W Sunset Blvd", "Los Angeles", "CA", "90049", 33, 68, 147, "Self-Insured", "other");
+    patientServiceImpl.updatePatient(1L, older);
+    ArgumentCaptor<PatientChange> change = ArgumentCaptor.forClass(PatientChange.class);
+    verify(eventPublisher).publishEvent(change.capture());
+    assertEquals("Other", change.getValue().getCurrent().getGender());
+    assertFalse(change.getValue().isSliceChanged());
+  }
+
+  @Test
+  public void updatePatientPublishesSliceChangeWhenAgeBandChanges(){
+    Patient older = new Patient(1L, "Test", "Patient", "123-45-6789", "test@test.com",
+        "8430 W Sunset Blvd", "Los Angeles", "CA", "90049", 40, 68, 147, "Self-Insured", "Other");
+    patientServiceImpl.updatePatient(1L, older);
+    ArgumentCaptor<PatientChange> change = ArgumentCaptor.forClass(PatientChange.class);
+    verify(eventPublisher).publishEvent(change.capture());
+    assertEquals(Integer.valueOf(40), change.getValue().getCurrent().getAge());
+    assertTrue(change.getValue().isSliceChanged());
+  }
+
   @Test
   public void updatePatientThrowsServiceUnavailable() {
     doThrow(new DataAccessException("TEST EXCEPTION") {
@@ -200,29 +506,107 @@ public class PatientServiceImplTest {
   @Test
   public void deletePatientReturnsVoid(){
     patientServiceImpl.deletePatientById(123L);
-    verify(patientRepository).deleteById(anyLong());
+    verify(patientRepository).removeById(123L);
+  }
+
+  @Test
+  public void deletePatientDropsCachedPatientAfterCommit(){
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      patientServiceImpl.deletePatientById(123L);
+      verify(patientCache, never()).invalidate(123L);
+      verify(patientEmailSnapshot, never()).remove(123L);
+
+      TransactionSynchronizationManager.getSynchronizations()
+          .forEach(TransactionSynchronization::afterCommit);
+      verify(patientCache).invalidate(123L);
+      verify(patientEmailSnapshot).remove(123L);
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  public void deletePatientRemovesSummary(){
+    patientServiceImpl.deletePatientById(123L);
+    verify(patientSummaryRepository).removeByPatientId(123L);
   }
 
   @Test
   public void deletePatientThrowsServiceUnavailable(){
     doThrow(new DataAccessException("TEST EXCEPTION") {
-    }).when(patientRepository).deleteById(anyLong());
+    }).when(patientRepository).removeById(anyLong());
     assertThrows(ServiceUnavailable.class, () -> patientServiceImpl.deletePatientById(123L));
   }
 
   @Test
-  public void deletePatientThrowsServiceUnavailableWhenFindingPatient(){
+  public void deletePatientThrowsServiceUnavailableWhenCheckingEncounters(){
     doThrow(new DataAccessException("TEST EXCEPTION") {
-    }).when(patientRepository).findById(anyLong());
+    }).when(encounterRepository).existsByPatientId(anyLong());
     assertThrows(ServiceUnavailable.class, () -> patientServiceImpl.deletePatientById(123L));
   }
 
   @Test
   public void deletePatientThrowsResourceNotFound(){
-    when(patientRepository.findById(anyLong())).thenReturn(Optional.empty());
+    when(patientRepository.removeById(anyLong())).thenReturn(0);
     assertThrows(ResourceNotFound.class, () -> patientServiceImpl.deletePatientById(123L));
   }
 
+  @Test
+  public void deletePatientThrowsRequestConflictIfPatientHasEncounters(){
+    when(encounterRepository.existsByPatientId(123L)).thenReturn(true);
+    assertThrows(RequestConflict.class, () -> patientServiceImpl.deletePatientById(123L));
+    verify(patientRepository, never()).removeById(anyLong());
+  }
+
+  @Test
+  public void deletePatientCascadeDeletesEncounters(){
+    patientServiceImpl.deletePatientById(123L, "cascade");
+    verify(encounterRepository).deleteByPatientId(123L);
+    verify(encounterRepository, never()).existsByPatientId(anyLong());
+    verify(encounterRepository, never()).archiveByPatientId(anyLong());
+    verify(patientRepository).removeById(123L);
+  }
+
+  @Test
+  public void deletePatientPublishesDelete(){
+    patientServiceImpl.deletePatientById(123L);
+    ArgumentCaptor<PatientChange> change = ArgumentCaptor.forClass(PatientChange.class);
+    verify(eventPublisher).publishEvent(change.capture());
+    assertEquals(Long.valueOf(123L), change.getValue().getPatientId());
+    assertTrue(change.getValue().isDeleted());
+    assertFalse(change.getValue().isEncountersDeleted());
+  }
+
+  @Test
+  public void deletePatientCascadePublishesEncountersDeleted(){
+    when(encounterRepository.deleteByPatientId(123L)).thenReturn(2);
+    patientServiceImpl.deletePatientById(123L, "cascade");
+    ArgumentCaptor<PatientChange> change = ArgumentCaptor.forClass(PatientChange.class);
+    verify(eventPublisher).publishEvent(change.capture());
+    assertTrue(change.getValue().isEncountersDeleted());
+  }
+
+  @Test
+  public void deletePatientThrowsResourceNotFoundWithoutPublishing(){
+    when(patientRepository.removeById(anyLong())).thenReturn(0);
+    assertThrows(ResourceNotFound.class, () -> patientServiceImpl.deletePatientById(123L));
+    verify(eventPublisher, never()).publishEvent(any());
+  }
+
+  @Test
+  public void deletePatientArchiveArchivesEncounters(){
+    patientServiceImpl.deletePatientById(123L, "ARCHIVE");
+    verify(encounterRepository).archiveByPatientId(123L);
+    verify(encounterRepository).deleteByPatientId(123L);
+    verify(patientRepository).removeById(123L);
+  }
+
+  @Test
+  public void deletePatientThrowsBadRequestIfModeInvalid(){
+    assertThrows(BadRequest.class, () -> patientServiceImpl.deletePatientById(123L, "purge"));
+  }
+
   @Test
   public void validateNameFormatReturnsFalseForInvalidFormat(){
     testPatient.setFirstName("1nv@l1d N@m3");
@@ -345,9 +729,49 @@ public class PatientServiceImplTest {
   @Test
   public void patientEmailAlreadyExistsReturnsTrueIfTrue(){
     testPatient.setEmail(testPatient2.getEmail());
+    when(patientRepository.existsByNormalizedEmailAndIdNot(testPatient2.getEmail(), 1L))
+        .thenReturn(true);
     assertEquals(true, patientServiceImpl.patientEmailAlreadyExists(testPatient));
   }
 
+  @Test
+  public void patientEmailAlreadyExistsComparesNormalizedEmail(){
+    testPatient.setEmail(" TEST2@Test.com ");
+    when(patientRepository.existsByNormalizedEmailAndIdNot("test2@test.com", 1L))
+        .thenReturn(true);
+    assertEquals(true, patientServiceImpl.patientEmailAlreadyExists(testPatient));
+  }
+
+  @Test
+  public void patientEmailAlreadyExistsChecksAllPatientsForNewPatient(){
+    testPatient.setId(null);
+    when(patientRepository.existsByNormalizedEmail("test@test.com")).thenReturn(true);
+    assertEquals(true, patientServiceImpl.patientEmailAlreadyExists(testPatient));
+  }
+
+  @Test
+  public void savePatientThrowsRequestConflictWhenEmailExists(){
+    testPatient.setId(null);
+    when(patientRepository.existsByNormalizedEmail(anyString())).thenReturn(true);
+    assertThrows(RequestConflict.class, () -> patientServiceImpl.savePatient(testPatient));
+  }
+
+  @Test
+  public void savePatientThrowsRequestConflictOnUniqueEmailViolation(){
+    doThrow(new DataIntegrityViolationException("TEST EXCEPTION", new SQLException(
+        "duplicate key value violates unique constraint \"patient_normalized_email_uk\"")))
+        .when(patientRepository).save(any());
+    assertThrows(RequestConflict.class, () -> patientServiceImpl.savePatient(testPatient));
+  }
+
+  @Test
+  public void savePatientThrowsServiceUnavailableOnOtherIntegrityViolation(){
+    doThrow(new DataIntegrityViolationException("TEST EXCEPTION", new SQLException(
+        "duplicate key value violates unique constraint \"patient_summary_pkey\"")))
+        .when(patientSummaryRepository).insertForPatients(anyCollection());
+    assertThrows(ServiceUnavailable.class, () -> patientServiceImpl.savePatient(testPatient));
+  }
+
   @Test
   public void patientEmailAlreadyExistsReturnsFalseIfFalse(){
     testPatient.setEmail("newTest@test.com");
@@ -0,0 +1,119 @@
+package io.catalyte.training.superhealth.domains.vitals;
+
+import static io.catalyte.training.superhealth.constants.Paths.ENCOUNTERS_PATH;
+import static io.catalyte.training.superhealth.constants.Paths.PATIENTS_PATH;
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.catalyte.training.superhealth.data.PatientFactory;
+import io.catalyte.training.superhealth.domains.encounter.EncounterDTO;
+import io.catalyte.training.superhealth.domains.encounter.EncounterRepository;
+import io.catalyte.training.superhealth.domains.patient.Patient;
+import io.catalyte.training.superhealth.domains.patient.PatientRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class VitalsApiTest {
+
+  private final PatientFactory patientFactory = new PatientFactory();
+  private final ObjectMapper mapper = new ObjectMapper();
+  Patient testPatient;
+  @Autowired
+  public PatientRepository patientRepository;
+  @Autowired
+  public EncounterRepository encounterRepository;
+  @Autowired
+  private WebApplicationContext wac;
+  private MockMvc mockMvc;
+
+  @Before
+  public void setUp() {
+    mockMvc = MockMvcBuilders.webAppContextSetup(this.wac).build();
+    testPatient = patientFactory.createRandomPatient();
+    testPatient.setHeight(70);
+    testPatient.setWeight(150);
+    patientRepository.save(testPatient);
+  }
+
+  @After
+  public void tearDown() {
+    encounterRepository.deleteAll();
+    patientRepository.deleteAll();
+  }
+
+  private String encounterJson(Integer pulse, String date) throws Exception {
+    return mapper.writeValueAsString(new EncounterDTO(testPatient.getId(), "notes", "N3W 3C3",
+        "Vitals Clinic", "123.456.789-00", "Z99", 100.00, 10.00, "complaint", pulse, 120, 80,
+        date));
+  }
+
+  private long postEncounter(Integer pulse, String date) throws Exception {
+    String body = mockMvc.perform(post(ENCOUNTERS_PATH(testPatient.getId()))
+        .contentType("application/json")
+        .content(encounterJson(pulse, date)))
+        .andExpect(status().isCreated())
+        .andReturn().getResponse().getContentAsString();
+    return mapper.readTree(body).get("id").asLong();
+  }
+
+  private JsonNode getVitals(String from, String to) throws Exception {
+    String body = mockMvc.perform(get(PATIENTS_PATH + "/" + testPatient.getId() + "/vitals")
+        .param("from", from)
+        .param("to", to))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+    return mapper.readTree(body);
+  }
+
+  @Test
+  public void getVitalsFollowsEncounterWrites() throws Exception {
+    postEncounter(60, "2020-01-01");
+    //loads the series, later writes update it in place
+    assertEquals(1, getVitals("", "").get("points").size());
+    long id = postEncounter(80, "2020-01-03");
+    postEncounter(null, "2020-01-02");
+
+    JsonNode chart = getVitals("2020-01-01", "2020-01-31");
+    assertEquals(3, chart.get("points").size());
+    assertEquals("2020-01-02", chart.get("points").get(1).get("date").asText());
+    assertEquals(true, chart.get("points").get(1).get("pulse").isNull());
+    assertEquals(2, chart.get("stats").get("pulse").get("count").asLong());
+    assertEquals(70.0, chart.get("stats").get("pulse").get("mean").asDouble(), 0);
+
+    mockMvc.perform(put(ENCOUNTERS_PATH(testPatient.getId()) + "/" + id)
+        .contentType("application/json")
+        .content(encounterJson(100, "2020-01-03")))
+        .andExpect(status().isOk());
+    chart = getVitals("", "");
+    assertEquals(100, chart.get("stats").get("pulse").get("max").asInt());
+    assertEquals(2, chart.get("stats").get("pulse").get("count").asLong());
+  }
+
+  @Test
+  public void getVitalsReturns404IfPatientDoesNotExist() throws Exception {
+    mockMvc.perform(get(PATIENTS_PATH + "/" + (testPatient.getId() + 1000) + "/vitals"))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  public void getVitalsReturns400IfPointsInvalid() throws Exception {
+    mockMvc.perform(get(PATIENTS_PATH + "/" + testPatient.getId() + "/vitals")
+        .param("points", "0"))
+        .andExpect(status().isBadRequest());
+  }
+}
@@ -0,0 +1,180 @@
+package io.catalyte.training.superhealth.domains.vitals;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.catalyte.training.superhealth.domains.encounter.Encounter;
+import io.catalyte.training.superhealth.domains.encounter.EncounterChange;
+import io.catalyte.training.superhealth.domains.encounter.EncounterRepository;
+import io.catalyte.training.superhealth.domains.patient.Patient;
+import io.catalyte.training.superhealth.domains.patient.PatientChange;
+import io.catalyte.training.superhealth.domains.patient.PatientService;
+import io.catalyte.training.superhealth.exceptions.BadRequest;
+import io.catalyte.training.superhealth.exceptions.ResourceNotFound;
+import io.catalyte.training.superhealth.exceptions.ServiceUnavailable;
+import java.time.LocalDate;
+import java.util.Arrays;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.dao.DataAccessException;
+
+@RunWith(MockitoJUnitRunner.class)
+public class VitalsServiceImplTest {
+
+  private VitalsServiceImpl vitalsServiceImpl;
+  private VitalsStore vitalsStore;
+  @Mock
+  private EncounterRepository encounterRepository;
+  @Mock
+  private PatientService patientService;
+
+  @Before
+  public void setUp() {
+    MockitoAnnotations.initMocks(this);
+    vitalsStore = new VitalsStore(100);
+    vitalsServiceImpl = new VitalsServiceImpl(encounterRepository, patientService, vitalsStore);
+    when(encounterRepository.findVitalsByPatientId(1L)).thenReturn(Arrays.asList(
+        new VitalsReading(10L, LocalDate.parse("2020-01-01"), 60, 120, 80),
+        new VitalsReading(11L, LocalDate.parse("2020-01-02"), 80, null, 90),
+        new VitalsReading(12L, LocalDate.parse("2020-01-10"), 100, 140, 85)));
+  }
+
+  private Encounter encounter(Long id, Long patientId, String date, Integer pulse) {
+    Patient patient = new Patient();
+    patient.setId(patientId);
+    return new Encounter(id, patient, null, "N3W 3C3", "Provider", "111.111.111-11", "A01", 100L,
+        100L, "complaint", pulse, 120, 80, LocalDate.parse(date));
+  }
+
+  @Test
+  public void getVitalsReturnsOnePointPerDayWhenPointsAllow() {
+    VitalsChart chart = vitalsServiceImpl.getVitals(1L, null, null, 200);
+    assertEquals(1, chart.getBucketDays());
+    assertEquals(3, chart.getPoints().size());
+    assertEquals(LocalDate.parse("2020-01-02"), chart.getPoints().get(1).getDate());
+    assertEquals(80.0, chart.getPoints().get(1).getPulse());
+    assertNull(chart.getPoints().get(1).getSystolic());
+  }
+
+  @Test
+  public void getVitalsKeepsRunningStatistics() {
+    VitalStats pulse = vitalsServiceImpl.getVitals(1L, null, null, 200).getStats().get("pulse");
+    assertEquals(3, pulse.getCount());
+    assertEquals(60, pulse.getMin());
+    assertEquals(100, pulse.getMax());
+    assertEquals(80.0, pulse.getMean(), 1e-9);
+    assertEquals(800.0 / 3, pulse.getVariance(), 1e-9);
+    assertEquals(2, vitalsServiceImpl.getVitals(1L, null, null, 200).getStats().get("systolic")
+        .getCount());
+  }
+
+  @Test
+  public void getVitalsAveragesReadingsIntoBuckets() {
+    VitalsChart chart = vitalsServiceImpl.getVitals(1L, null, null, 2);
+    //ten days in two buckets of five
+    assertEquals(5, chart.getBucketDays());
+    assertEquals(2, chart.getPoints().size());
+    assertEquals(2, chart.getPoints().get(0).getCount());
+    assertEquals(70.0, chart.getPoints().get(0).getPulse());
+    assertEquals(120.0, chart.getPoints().get(0).getSystolic());
+    assertEquals(LocalDate.parse("2020-01-06"), chart.getPoints().get(1).getDate());
+  }
+
+  @Test
+  public void getVitalsLimitsPointsToRange() {
+    VitalsChart chart = vitalsServiceImpl.getVitals(1L, "2020-01-02", "2020-01-09", 200);
+    assertEquals(1, chart.getPoints().size());
+    assertEquals(LocalDate.parse("2020-01-02"), chart.getPoints().get(0).getDate());
+    //statistics still cover every reading
+    assertEquals(3, chart.getStats().get("pulse").getCount());
+  }
+
+  @Test
+  public void getVitalsLoadsSeriesOnce() {
+    vitalsServiceImpl.getVitals(1L, null, null, 200);
+    vitalsServiceImpl.getVitals(1L, null, null, 200);
+    verify(encounterRepository, times(1)).findVitalsByPatientId(1L);
+  }
+
+  @Test
+  public void getVitalsReloadsSeriesOfDeletedPatient() {
+    vitalsServiceImpl.getVitals(1L, null, null, 200);
+    vitalsStore.recordPatient(PatientChange.deleted(1L, true));
+    vitalsServiceImpl.getVitals(1L, null, null, 200);
+    verify(encounterRepository, times(2)).findVitalsByPatientId(1L);
+  }
+
+  @Test
+  public void getVitalsIncludesRecordedEncounterInDateOrder() {
+    vitalsServiceImpl.getVitals(1L, null, null, 200);
+    vitalsStore.record(new EncounterChange(null, encounter(13L, 1L, "2019-12-31", 50)));
+    VitalsChart chart = vitalsServiceImpl.getVitals(1L, null, null, 200);
+    assertEquals(4, chart.getPoints().size());
+    assertEquals(LocalDate.parse("2019-12-31"), chart.getPoints().get(0).getDate());
+    assertEquals(LocalDate.parse("2020-01-10"), chart.getPoints().get(3).getDate());
+    assertEquals(50, chart.getStats().get("pulse").getMin());
+  }
+
+  @Test
+  public void getVitalsReplacesUpdatedEncounter() {
+    vitalsServiceImpl.getVitals(1L, null, null, 200);
+    vitalsStore.record(new EncounterChange(encounter(12L, 1L, "2020-01-03", 70),
+        encounter(12L, 1L, "2020-01-05", 90)));
+    VitalsChart chart = vitalsServiceImpl.getVitals(1L, null, null, 200);
+    assertEquals(3, chart.getPoints().size());
+    assertEquals(LocalDate.parse("2020-01-05"), chart.getPoints().get(2).getDate());
+    assertEquals(90, chart.getStats().get("pulse").getMax());
+    assertEquals(3, chart.getStats().get("pulse").getCount());
+  }
+
+  @Test
+  public void getVitalsDropsEncounterMovedToAnotherPatient() {
+    vitalsServiceImpl.getVitals(1L, null, null, 200);
+    vitalsStore.record(new EncounterChange(encounter(10L, 1L, "2020-01-01", 60),
+        encounter(10L, 2L, "2020-01-01", 60)));
+    VitalsChart chart = vitalsServiceImpl.getVitals(1L, null, null, 200);
+    assertEquals(2, chart.getPoints().size());
+    assertEquals(LocalDate.parse("2020-01-02"), chart.getPoints().get(0).getDate());
+    assertEquals(80, chart.getStats().get("pulse").getMin());
+    assertEquals(90.0, chart.getStats().get("pulse").getMean(), 1e-9);
+    assertEquals(100.0, chart.getStats().get("pulse").getVariance(), 1e-9);
+  }
+
+  @Test
+  public void getVitalsThrowsBadRequestIfPointsInvalid() {
+    assertThrows(BadRequest.class, () -> vitalsServiceImpl.getVitals(1L, null, null, 0));
+    assertThrows(BadRequest.class,
+        () -> vitalsServiceImpl.getVitals(1L, null, null, VitalsChart.MAX_POINTS + 1));
+  }
+
+  @Test
+  public void getVitalsThrowsBadRequestIfRangeInvalid() {
+    assertThrows(BadRequest.class,
+        () -> vitalsServiceImpl.getVitals(1L, "2020-02-30", null, 200));
+    assertThrows(BadRequest.class,
+        () -> vitalsServiceImpl.getVitals(1L, "2020-02-02", "2020-02-01", 200));
+  }
+
+  @Test
+  public void getVitalsThrowsErrorWhenPatientNotFound() {
+    when(patientService.getPatientById(1L)).thenThrow(new ResourceNotFound("TEST EXCEPTION"));
+    assertThrows(ResourceNotFound.class, () -> vitalsServiceImpl.getVitals(1L, null, null, 200));
+  }
+
+  @Test
+  public void getVitalsThrowsServiceUnavailable() {
+    doThrow(new DataAccessException("TEST EXCEPTION") {
+    }).when(encounterRepository).findVitalsByPatientId(1L);
+    assertThrows(ServiceUnavailable.class,
+        () -> vitalsServiceImpl.getVitals(1L, null, null, 200));
+  }
+}
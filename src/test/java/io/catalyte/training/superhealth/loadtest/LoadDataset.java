@@ -0,0 +1,143 @@
+package io.catalyte.training.superhealth.loadtest;
+
+import static io.catalyte.training.superhealth.constants.Paths.ENCOUNTERS_PATH;
+import static io.catalyte.training.superhealth.constants.Paths.PATIENTS_PATH;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.catalyte.training.superhealth.data.EncounterFactory;
+import io.catalyte.training.superhealth.data.PatientFactory;
+import io.catalyte.training.superhealth.domains.encounter.Encounter;
+import io.catalyte.training.superhealth.domains.encounter.EncounterDTO;
+import io.catalyte.training.superhealth.domains.patient.Patient;
+import io.catalyte.training.superhealth.pagination.KeysetCursor;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * The patients and encounters seeded for a load test, and the requests built from them. Reads
+ * and updates target a random seeded row; saves create new rows with emails no other request
+ * uses, so every request is valid and the responses measure the normal path of each endpoint.
+ */
+public class LoadDataset {
+
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  private final PatientFactory patientFactory = new PatientFactory();
+
+  private final EncounterFactory encounterFactory = new EncounterFactory();
+
+  private final AtomicLong nextEmail = new AtomicLong();
+
+  private final long[] patientIds;
+
+  private final String[] patientEmails;
+
+  private final long[] encounterIds;
+
+  private final long[] encounterPatientIds;
+
+  private LoadDataset(long[] patientIds, String[] patientEmails, long[] encounterIds,
+      long[] encounterPatientIds) {
+    this.patientIds = patientIds;
+    this.patientEmails = patientEmails;
+    this.encounterIds = encounterIds;
+    this.encounterPatientIds = encounterPatientIds;
+  }
+
+  /**
+   * Reads the ids of the seeded patients and encounters.
+   *
+   * @param jdbcTemplate - template bound to the application's datasource
+   * @return the dataset
+   * @throws IllegalStateException if there are no patients or no encounters
+   */
+  public static LoadDataset load(JdbcTemplate jdbcTemplate) {
+    List<Map<String, Object>> patients = jdbcTemplate.queryForList(
+        "SELECT id, email FROM patient ORDER BY id");
+    List<Map<String, Object>> encounters = jdbcTemplate.queryForList(
+        "SELECT id, patient_id FROM encounter ORDER BY id");
+    if (patients.isEmpty() || encounters.isEmpty()) {
+      throw new IllegalStateException("The load test needs at least one patient and encounter");
+    }
+    long[] patientIds = new long[patients.size()];
+    String[] patientEmails = new String[patients.size()];
+    for (int i = 0; i < patients.size(); i++) {
+      patientIds[i] = ((Number) patients.get(i).get("id")).longValue();
+      patientEmails[i] = (String) patients.get(i).get("email");
+    }
+    long[] encounterIds = new long[encounters.size()];
+    long[] encounterPatientIds = new long[encounters.size()];
+    for (int i = 0; i < encounters.size(); i++) {
+      encounterIds[i] = ((Number) encounters.get(i).get("id")).longValue();
+      encounterPatientIds[i] = ((Number) encounters.get(i).get("patient_id")).longValue();
+    }
+    return new LoadDataset(patientIds, patientEmails, encounterIds, encounterPatientIds);
+  }
+
+  /**
+   * @param operation - endpoint to send the request to
+   * @param random - source of the targeted rows
+   * @return a valid request for the endpoint
+   */
+  public LoadRequest request(LoadOperation operation, Random random) {
+    int patient = random.nextInt(patientIds.length);
+    int encounter = random.nextInt(encounterIds.length);
+    switch (operation) {
+      case GET_PATIENT:
+        return new LoadRequest(operation, PATIENTS_PATH + "/" + patientIds[patient], null);
+      case GET_PATIENT_PAGE:
+        //the page that starts at the patient, in id order
+        long after = patientIds[patient] - 1;
+        return new LoadRequest(operation, PATIENTS_PATH + "?limit=20&after="
+            + new KeysetCursor("id,asc", after, String.valueOf(after)).encode(), null);
+      case SAVE_PATIENT:
+        return new LoadRequest(operation, PATIENTS_PATH,
+            json(patient(null, "load" + nextEmail.getAndIncrement() + "@bench.com")));
+      case UPDATE_PATIENT:
+        return new LoadRequest(operation, PATIENTS_PATH + "/" + patientIds[patient],
+            json(patient(patientIds[patient], patientEmails[patient])));
+      case GET_ENCOUNTERS:
+        return new LoadRequest(operation,
+            ENCOUNTERS_PATH(encounterPatientIds[encounter]) + "?limit=20", null);
+      case GET_ENCOUNTER:
+        return new LoadRequest(operation, ENCOUNTERS_PATH(encounterPatientIds[encounter]) + "/"
+            + encounterIds[encounter], null);
+      case POST_ENCOUNTER:
+        return new LoadRequest(operation, ENCOUNTERS_PATH(patientIds[patient]),
+            json(encounterDTO(patientIds[patient])));
+      default:
+        return new LoadRequest(operation, ENCOUNTERS_PATH(encounterPatientIds[encounter]) + "/"
+            + encounterIds[encounter], json(encounterDTO(encounterPatientIds[encounter])));
+    }
+  }
+
+  private Patient patient(Long id, String email) {
+    Patient patient = patientFactory.createRandomPatient();
+    patient.setId(id);
+    patient.setEmail(email);
+    patient.setHeight(70);
+    patient.setWeight(150);
+    return patient;
+  }
+
+  private EncounterDTO encounterDTO(long patientId) {
+    Encounter encounter = encounterFactory.createRandomEncounter(null);
+    return new EncounterDTO(patientId, encounter.getNotes(), encounter.getVisitCode(),
+        encounter.getProvider(), encounter.getBillingCode(), encounter.getIcd10(),
+        encounter.getTotalCost().doubleValue(), encounter.getCopay().doubleValue(),
+        encounter.getChiefComplaint(), encounter.getPulse(), encounter.getSystolic(),
+        encounter.getDiastolic(), encounter.getDate().toString());
+  }
+
+  private byte[] json(Object body) {
+    try {
+      return mapper.writeValueAsBytes(body);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,191 @@
+package io.catalyte.training.superhealth.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.catalyte.training.superhealth.benchmarks.BenchmarkContext;
+import io.catalyte.training.superhealth.domains.analytics.DistinctPatients;
+import io.catalyte.training.superhealth.domains.analytics.EncounterColumns;
+import io.catalyte.training.superhealth.domains.analytics.EncounterRollup;
+import io.catalyte.training.superhealth.domains.analytics.VitalsQuantiles;
+import io.catalyte.training.superhealth.domains.cohort.CohortIndex;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Open loop load test of the patient and encounter endpoints. Boots the application with its web
+ * server against the in-memory H2 database, seeds loadtest.patients patients and
+ * loadtest.encounters encounters, and sends loadtest.rate requests per second, mixed as
+ * loadtest.mix says, first for loadtest.warmup seconds and then for loadtest.duration measured
+ * seconds. Requests are sent on a fixed schedule whether or not earlier ones have completed, as
+ * independent users would send them, through at most loadtest.threads connections. A request
+ * that waits more than loadtest.timeout seconds to connect, or for its response, is recorded as a
+ * timed out error with the latency it had reached.
+ *
+ * <p>Prints the percentiles of each endpoint and writes the full report as JSON to
+ * loadtest.report. Run it with the load-test profile:
+ *
+ * <pre>
+ *   mvn -P load-test test -Dloadtest.rate=500 -Dloadtest.duration=60
+ * </pre>
+ */
+public class LoadGenerator {
+
+  private static final int DRAIN_TIMEOUT_SECONDS = 60;
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private final LoadSettings settings;
+
+  private final String baseUrl;
+
+  private final LoadDataset dataset;
+
+  private LoadGenerator(LoadSettings settings, String baseUrl, LoadDataset dataset) {
+    this.settings = settings;
+    this.baseUrl = baseUrl;
+    this.dataset = dataset;
+  }
+
+  public static void main(String[] args) throws Exception {
+    LoadSettings settings = LoadSettings.fromSystemProperties();
+    ConfigurableApplicationContext context = BenchmarkContext.startServer();
+    try {
+      BenchmarkContext.seedPatients(context, settings.getPatients());
+      BenchmarkContext.seedEncounters(context, settings.getEncounters());
+      //the snapshots loaded when the application started do not hold the seeded rows
+      context.getBean(EncounterRollup.class).invalidate();
+      context.getBean(VitalsQuantiles.class).invalidate();
+      context.getBean(EncounterColumns.class).invalidate();
+      context.getBean(DistinctPatients.class).invalidate();
+      context.getBean(CohortIndex.class).invalidate();
+
+      int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+      LoadGenerator generator = new LoadGenerator(settings, "http://localhost:" + port,
+          LoadDataset.load(context.getBean(JdbcTemplate.class)));
+      generator.run(settings.getWarmUpSeconds(), new LoadResults());
+      LoadResults results = new LoadResults();
+      long sent = generator.run(settings.getDurationSeconds(), results);
+
+      LoadReport report = new LoadReport(settings, sent, results);
+      File file = new File(settings.getReport());
+      if (file.getAbsoluteFile().getParentFile() != null) {
+        file.getAbsoluteFile().getParentFile().mkdirs();
+      }
+      new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(file, report);
+      print(report, file);
+    } finally {
+      context.close();
+    }
+  }
+
+  /**
+   * Sends requests on the schedule for a number of seconds, then waits for the ones in flight.
+   *
+   * @param seconds - how long to send requests for
+   * @param results - where the latencies are recorded
+   * @return the number of requests sent
+   */
+  private long run(int seconds, LoadResults results) throws InterruptedException {
+    if (seconds == 0) {
+      return 0;
+    }
+    ExecutorService workers = Executors.newFixedThreadPool(settings.getThreads());
+    Random random = new Random();
+    double intervalNanos = TimeUnit.SECONDS.toNanos(1) / settings.getRate();
+    long start = System.nanoTime();
+    long end = start + TimeUnit.SECONDS.toNanos(seconds);
+    long sent = 0;
+    while (true) {
+      long intended = start + (long) (sent * intervalNanos);
+      if (intended >= end) {
+        break;
+      }
+      long wait = intended - System.nanoTime();
+      if (wait > 0) {
+        LockSupport.parkNanos(wait);
+      }
+      LoadRequest request = dataset.request(settings.getMix().pick(random), random);
+      workers.execute(() -> send(request, intended, results));
+      sent++;
+    }
+    workers.shutdown();
+    if (!workers.awaitTermination(DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+      workers.shutdownNow();
+    }
+    return sent;
+  }
+
+  private void send(LoadRequest request, long intended, LoadResults results) {
+    long sentNanos = System.nanoTime();
+    boolean failed;
+    boolean timedOut = false;
+    try {
+      HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + request.getPath())
+          .openConnection();
+      int timeoutMillis = (int) TimeUnit.SECONDS.toMillis(settings.getTimeoutSeconds());
+      connection.setConnectTimeout(timeoutMillis);
+      connection.setReadTimeout(timeoutMillis);
+      connection.setRequestMethod(request.getOperation().getMethod());
+      connection.setRequestProperty("Accept", "application/json");
+      if (request.getBody() != null) {
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/json");
+        try (OutputStream out = connection.getOutputStream()) {
+          out.write(request.getBody());
+        }
+      }
+      int status = connection.getResponseCode();
+      //read the whole response so the connection goes back to the keep-alive pool
+      try (InputStream in = status < 400 ? connection.getInputStream()
+          : connection.getErrorStream()) {
+        if (in != null) {
+          byte[] buffer = new byte[BUFFER_SIZE];
+          while (in.read(buffer) >= 0) {
+            //discard
+          }
+        }
+      }
+      failed = status < 200 || status >= 300;
+    } catch (SocketTimeoutException e) {
+      failed = true;
+      timedOut = true;
+    } catch (IOException e) {
+      failed = true;
+    }
+    results.record(request.getOperation(), intended, sentNanos, System.nanoTime(), failed,
+        timedOut);
+  }
+
+  private static void print(LoadReport report, File file) {
+    System.out.printf("%nTarget %.1f requests/s, achieved %.1f requests/s over %d s%n",
+        report.getTargetRate(), report.getAchievedRate(), report.getDurationSeconds());
+    System.out.printf("%-16s %8s %7s %8s %10s %10s %10s %10s %10s%n", "operation", "count",
+        "errors", "timeouts", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+    for (Map.Entry<String, LoadReport.OperationReport> operation
+        : report.getOperations().entrySet()) {
+      LoadReport.Percentiles latency = operation.getValue().getLatency();
+      System.out.printf("%-16s %8d %7d %8d %10.2f %10.2f %10.2f %10.2f %10.2f%n",
+          operation.getKey(), operation.getValue().getCount(), operation.getValue().getErrors(),
+          operation.getValue().getTimeouts(), latency.getP50(), latency.getP90(), latency.getP99(),
+          latency.getP999(), latency.getMax());
+    }
+    if (report.getUnrecorded() > 0) {
+      System.out.printf("%d of %d requests were sent but never recorded%n",
+          report.getUnrecorded(), report.getSent());
+    }
+    System.out.println("Report written to " + file.getAbsolutePath());
+  }
+}
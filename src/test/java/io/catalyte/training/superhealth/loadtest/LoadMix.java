@@ -0,0 +1,77 @@
+package io.catalyte.training.superhealth.loadtest;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * The share of requests each operation gets, parsed from 'operation:weight' pairs separated by
+ * commas, for example 'getPatient:60,postEncounter:40'.
+ */
+public class LoadMix {
+
+  private final Map<LoadOperation, Integer> weights;
+
+  private final LoadOperation[] operations;
+
+  private final int[] cumulativeWeights;
+
+  private LoadMix(Map<LoadOperation, Integer> weights) {
+    this.weights = Collections.unmodifiableMap(weights);
+    operations = weights.keySet().toArray(new LoadOperation[0]);
+    cumulativeWeights = new int[operations.length];
+    int total = 0;
+    for (int i = 0; i < operations.length; i++) {
+      total += weights.get(operations[i]);
+      cumulativeWeights[i] = total;
+    }
+  }
+
+  /**
+   * @param mix - 'operation:weight' pairs separated by commas
+   * @return the mix
+   * @throws IllegalArgumentException if an operation is unknown or a weight is not a positive
+   * integer
+   */
+  public static LoadMix parse(String mix) {
+    Map<LoadOperation, Integer> weights = new EnumMap<>(LoadOperation.class);
+    for (String pair : mix.split(",")) {
+      String[] parts = pair.trim().split(":");
+      LoadOperation operation = parts.length == 2 ? LoadOperation.fromParameter(parts[0].trim())
+          : null;
+      if (operation == null) {
+        throw new IllegalArgumentException("Unknown load operation in mix: " + pair);
+      }
+      int weight;
+      try {
+        weight = Integer.parseInt(parts[1].trim());
+      } catch (NumberFormatException e) {
+        weight = 0;
+      }
+      if (weight <= 0) {
+        throw new IllegalArgumentException("Weight must be a positive integer in mix: " + pair);
+      }
+      weights.merge(operation, weight, Integer::sum);
+    }
+    return new LoadMix(weights);
+  }
+
+  /**
+   * @param random - source of the choice
+   * @return an operation, each picked in proportion to its weight
+   */
+  public LoadOperation pick(Random random) {
+    int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+    for (int i = 0; i < cumulativeWeights.length; i++) {
+      if (value < cumulativeWeights[i]) {
+        return operations[i];
+      }
+    }
+    return operations[operations.length - 1];
+  }
+
+  public Map<LoadOperation, Integer> getWeights() {
+    return weights;
+  }
+}
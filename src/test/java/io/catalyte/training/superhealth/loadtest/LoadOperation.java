@@ -0,0 +1,46 @@
+package io.catalyte.training.superhealth.loadtest;
+
+/**
+ * The patient and encounter endpoints the load test can send requests to, named as they are in
+ * the loadtest.mix property and the report.
+ */
+public enum LoadOperation {
+  GET_PATIENT("getPatient", "GET"),
+  GET_PATIENT_PAGE("getPatientPage", "GET"),
+  SAVE_PATIENT("savePatient", "POST"),
+  UPDATE_PATIENT("updatePatient", "PUT"),
+  GET_ENCOUNTERS("getEncounters", "GET"),
+  GET_ENCOUNTER("getEncounter", "GET"),
+  POST_ENCOUNTER("postEncounter", "POST"),
+  UPDATE_ENCOUNTER("updateEncounter", "PUT");
+
+  private final String parameter;
+
+  private final String method;
+
+  LoadOperation(String parameter, String method) {
+    this.parameter = parameter;
+    this.method = method;
+  }
+
+  public String getParameter() {
+    return parameter;
+  }
+
+  public String getMethod() {
+    return method;
+  }
+
+  /**
+   * @param parameter - name of an operation in the mix
+   * @return the matching operation, null if there is none
+   */
+  public static LoadOperation fromParameter(String parameter) {
+    for (LoadOperation operation : values()) {
+      if (operation.parameter.equals(parameter)) {
+        return operation;
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,223 @@
+package io.catalyte.training.superhealth.loadtest;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.HdrHistogram.Histogram;
+
+/**
+ * The machine readable result of a load test, written as JSON. Latencies are in milliseconds.
+ * Each operation also carries its latency histogram in HdrHistogram's compressed encoding, base64
+ * encoded, so reports of two builds can be compared over the whole distribution rather than a
+ * few percentiles.
+ */
+public class LoadReport {
+
+  private final int patients;
+
+  private final int encounters;
+
+  private final double targetRate;
+
+  private final double achievedRate;
+
+  private final int durationSeconds;
+
+  private final int warmUpSeconds;
+
+  private final int threads;
+
+  private final int timeoutSeconds;
+
+  private final long sent;
+
+  private final long unrecorded;
+
+  private final Map<String, Integer> mix = new LinkedHashMap<>();
+
+  private final Map<String, OperationReport> operations = new LinkedHashMap<>();
+
+  /**
+   * @param settings - settings the test ran with
+   * @param sent - number of requests sent while measuring
+   * @param results - latencies recorded while measuring
+   */
+  public LoadReport(LoadSettings settings, long sent, LoadResults results) {
+    this.patients = settings.getPatients();
+    this.encounters = settings.getEncounters();
+    this.targetRate = settings.getRate();
+    this.achievedRate = (double) sent / settings.getDurationSeconds();
+    this.durationSeconds = settings.getDurationSeconds();
+    this.warmUpSeconds = settings.getWarmUpSeconds();
+    this.threads = settings.getThreads();
+    this.timeoutSeconds = settings.getTimeoutSeconds();
+    this.sent = sent;
+    this.unrecorded = sent - results.getRecorded();
+    for (Map.Entry<LoadOperation, Integer> weight : settings.getMix().getWeights().entrySet()) {
+      mix.put(weight.getKey().getParameter(), weight.getValue());
+      operations.put(weight.getKey().getParameter(), new OperationReport(
+          results.getLatency(weight.getKey()), results.getServiceTime(weight.getKey()),
+          results.getErrors(weight.getKey()), results.getTimeouts(weight.getKey())));
+    }
+  }
+
+  public int getPatients() {
+    return patients;
+  }
+
+  public int getEncounters() {
+    return encounters;
+  }
+
+  public double getTargetRate() {
+    return targetRate;
+  }
+
+  public double getAchievedRate() {
+    return achievedRate;
+  }
+
+  public int getDurationSeconds() {
+    return durationSeconds;
+  }
+
+  public int getWarmUpSeconds() {
+    return warmUpSeconds;
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+
+  public int getTimeoutSeconds() {
+    return timeoutSeconds;
+  }
+
+  public long getSent() {
+    return sent;
+  }
+
+  /**
+   * @return the number of requests sent but never recorded, because they were still waiting for
+   *     a connection or a response when the test stopped waiting for them
+   */
+  public long getUnrecorded() {
+    return unrecorded;
+  }
+
+  public Map<String, Integer> getMix() {
+    return mix;
+  }
+
+  public Map<String, OperationReport> getOperations() {
+    return operations;
+  }
+
+  /**
+   * The requests sent to one endpoint.
+   */
+  public static class OperationReport {
+
+    private final long count;
+
+    private final long errors;
+
+    private final long timeouts;
+
+    private final Percentiles latency;
+
+    private final Percentiles serviceTime;
+
+    private final String latencyHistogram;
+
+    OperationReport(Histogram latency, Histogram serviceTime, long errors, long timeouts) {
+      this.count = latency.getTotalCount();
+      this.errors = errors;
+      this.timeouts = timeouts;
+      this.latency = new Percentiles(latency);
+      this.serviceTime = new Percentiles(serviceTime);
+      ByteBuffer buffer = ByteBuffer.allocate(latency.getNeededByteBufferCapacity());
+      int length = latency.encodeIntoCompressedByteBuffer(buffer);
+      this.latencyHistogram = Base64.getEncoder()
+          .encodeToString(Arrays.copyOf(buffer.array(), length));
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    public long getErrors() {
+      return errors;
+    }
+
+    public long getTimeouts() {
+      return timeouts;
+    }
+
+    public Percentiles getLatency() {
+      return latency;
+    }
+
+    public Percentiles getServiceTime() {
+      return serviceTime;
+    }
+
+    public String getLatencyHistogram() {
+      return latencyHistogram;
+    }
+  }
+
+  /**
+   * Percentiles of a histogram recorded in microseconds, in milliseconds.
+   */
+  public static class Percentiles {
+
+    private final double mean;
+
+    private final double p50;
+
+    private final double p90;
+
+    private final double p99;
+
+    private final double p999;
+
+    private final double max;
+
+    Percentiles(Histogram histogram) {
+      boolean empty = histogram.getTotalCount() == 0;
+      this.mean = empty ? 0 : histogram.getMean() / 1000;
+      this.p50 = histogram.getValueAtPercentile(50) / 1000.0;
+      this.p90 = histogram.getValueAtPercentile(90) / 1000.0;
+      this.p99 = histogram.getValueAtPercentile(99) / 1000.0;
+      this.p999 = histogram.getValueAtPercentile(99.9) / 1000.0;
+      this.max = histogram.getMaxValue() / 1000.0;
+    }
+
+    public double getMean() {
+      return mean;
+    }
+
+    public double getP50() {
+      return p50;
+    }
+
+    public double getP90() {
+      return p90;
+    }
+
+    public double getP99() {
+      return p99;
+    }
+
+    public double getP999() {
+      return p999;
+    }
+
+    public double getMax() {
+      return max;
+    }
+  }
+}
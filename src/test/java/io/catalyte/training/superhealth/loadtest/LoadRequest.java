@@ -0,0 +1,31 @@
+package io.catalyte.training.superhealth.loadtest;
+
+/**
+ * One request of a load test: the endpoint, its path and query, and its JSON body if it has one.
+ */
+public class LoadRequest {
+
+  private final LoadOperation operation;
+
+  private final String path;
+
+  private final byte[] body;
+
+  public LoadRequest(LoadOperation operation, String path, byte[] body) {
+    this.operation = operation;
+    this.path = path;
+    this.body = body;
+  }
+
+  public LoadOperation getOperation() {
+    return operation;
+  }
+
+  public String getPath() {
+    return path;
+  }
+
+  public byte[] getBody() {
+    return body;
+  }
+}
@@ -0,0 +1,104 @@
+package io.catalyte.training.superhealth.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * The latencies of one phase of a load test, per operation, in microseconds.
+ *
+ * <p>Each request is recorded twice. Its latency runs from the time the schedule intended to send
+ * it, so a request that waited behind slow ones is charged for the wait, as a user arriving at
+ * that time would have been; this corrects the coordinated omission of measuring only from when a
+ * request was actually sent. Its service time runs from when it was actually sent, so the gap
+ * between the two shows how far the server fell behind the offered rate.
+ */
+public class LoadResults {
+
+  private static final int SIGNIFICANT_DIGITS = 3;
+
+  private final Map<LoadOperation, Histogram> latencies = new EnumMap<>(LoadOperation.class);
+
+  private final Map<LoadOperation, Histogram> serviceTimes = new EnumMap<>(LoadOperation.class);
+
+  private final Map<LoadOperation, AtomicLong> errors = new EnumMap<>(LoadOperation.class);
+
+  private final Map<LoadOperation, AtomicLong> timeouts = new EnumMap<>(LoadOperation.class);
+
+  public LoadResults() {
+    for (LoadOperation operation : LoadOperation.values()) {
+      latencies.put(operation, new ConcurrentHistogram(SIGNIFICANT_DIGITS));
+      serviceTimes.put(operation, new ConcurrentHistogram(SIGNIFICANT_DIGITS));
+      errors.put(operation, new AtomicLong());
+      timeouts.put(operation, new AtomicLong());
+    }
+  }
+
+  /**
+   * @param operation - endpoint the request was sent to
+   * @param intendedNanos - time the schedule intended to send the request, from System.nanoTime
+   * @param sentNanos - time the request was sent
+   * @param completedNanos - time the response was read, or the request failed
+   * @param failed - true if the request failed or its status was not 2xx
+   * @param timedOut - true if the request failed because it timed out
+   */
+  public void record(LoadOperation operation, long intendedNanos, long sentNanos,
+      long completedNanos, boolean failed, boolean timedOut) {
+    latencies.get(operation).recordValue(
+        TimeUnit.NANOSECONDS.toMicros(completedNanos - intendedNanos));
+    serviceTimes.get(operation).recordValue(
+        TimeUnit.NANOSECONDS.toMicros(completedNanos - sentNanos));
+    if (failed) {
+      errors.get(operation).incrementAndGet();
+    }
+    if (timedOut) {
+      timeouts.get(operation).incrementAndGet();
+    }
+  }
+
+  /**
+   * @param operation - endpoint to read
+   * @return the latencies from the intended send times, in microseconds
+   */
+  public Histogram getLatency(LoadOperation operation) {
+    return latencies.get(operation);
+  }
+
+  /**
+   * @param operation - endpoint to read
+   * @return the latencies from the actual send times, in microseconds
+   */
+  public Histogram getServiceTime(LoadOperation operation) {
+    return serviceTimes.get(operation);
+  }
+
+  /**
+   * @param operation - endpoint to read
+   * @return the number of requests that failed or did not return 2xx
+   */
+  public long getErrors(LoadOperation operation) {
+    return errors.get(operation).get();
+  }
+
+  /**
+   * @param operation - endpoint to read
+   * @return the number of requests that timed out, which are also counted as errors
+   */
+  public long getTimeouts(LoadOperation operation) {
+    return timeouts.get(operation).get();
+  }
+
+  /**
+   * @return the number of requests recorded for every endpoint
+   */
+  public long getRecorded() {
+    long recorded = 0;
+    for (Histogram latency : latencies.values()) {
+      recorded += latency.getTotalCount();
+    }
+    return recorded;
+  }
+}
@@ -0,0 +1,115 @@
+package io.catalyte.training.superhealth.loadtest;
+
+/**
+ * The settings of a load test, read from loadtest.* system properties.
+ */
+public class LoadSettings {
+
+  private static final String DEFAULT_MIX = "getPatient:30,getPatientPage:10,savePatient:5,"
+      + "updatePatient:5,getEncounters:20,getEncounter:15,postEncounter:10,updateEncounter:5";
+
+  private final int patients;
+
+  private final int encounters;
+
+  private final double rate;
+
+  private final int durationSeconds;
+
+  private final int warmUpSeconds;
+
+  private final int threads;
+
+  private final int timeoutSeconds;
+
+  private final LoadMix mix;
+
+  private final String report;
+
+  public LoadSettings(int patients, int encounters, double rate, int durationSeconds,
+      int warmUpSeconds, int threads, int timeoutSeconds, LoadMix mix, String report) {
+    if (patients < 1 || encounters < 1 || rate <= 0 || durationSeconds < 1 || warmUpSeconds < 0
+        || threads < 1 || timeoutSeconds < 1) {
+      throw new IllegalArgumentException("loadtest.patients, loadtest.encounters, loadtest.rate, "
+          + "loadtest.duration, loadtest.threads and loadtest.timeout must be positive, and "
+          + "loadtest.warmup must not be negative");
+    }
+    this.patients = patients;
+    this.encounters = encounters;
+    this.rate = rate;
+    this.durationSeconds = durationSeconds;
+    this.warmUpSeconds = warmUpSeconds;
+    this.threads = threads;
+    this.timeoutSeconds = timeoutSeconds;
+    this.mix = mix;
+    this.report = report;
+  }
+
+  /**
+   * Reads the settings from system properties, falling back to a short run against a small
+   * dataset.
+   *
+   * @return the settings
+   */
+  public static LoadSettings fromSystemProperties() {
+    return new LoadSettings(
+        Integer.getInteger("loadtest.patients", 1000),
+        Integer.getInteger("loadtest.encounters", 5000),
+        Double.parseDouble(System.getProperty("loadtest.rate", "200")),
+        Integer.getInteger("loadtest.duration", 30),
+        Integer.getInteger("loadtest.warmup", 10),
+        Integer.getInteger("loadtest.threads", 32),
+        Integer.getInteger("loadtest.timeout", 10),
+        LoadMix.parse(System.getProperty("loadtest.mix", DEFAULT_MIX)),
+        System.getProperty("loadtest.report", "target/load-test-report.json"));
+  }
+
+  public int getPatients() {
+    return patients;
+  }
+
+  public int getEncounters() {
+    return encounters;
+  }
+
+  /**
+   * @return the number of requests per second the schedule sends
+   */
+  public double getRate() {
+    return rate;
+  }
+
+  public int getDurationSeconds() {
+    return durationSeconds;
+  }
+
+  public int getWarmUpSeconds() {
+    return warmUpSeconds;
+  }
+
+  /**
+   * @return the number of requests that can be in flight at once
+   */
+  public int getThreads() {
+    return threads;
+  }
+
+  /**
+   * @return how long a request may wait to connect, and then for each read of its response,
+   *     before it is recorded as a timed out error
+   */
+  public int getTimeoutSeconds() {
+    return timeoutSeconds;
+  }
+
+  public LoadMix getMix() {
+    return mix;
+  }
+
+  /**
+   * @return the file the JSON report is written to
+   */
+  public String getReport() {
+    return report;
+  }
+}
@@ -0,0 +1,133 @@
+package io.catalyte.training.superhealth.validation;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+import org.junit.Test;
+
+/**
+ * Checks each hand-rolled matcher against the regular expression it replaces.
+ */
+public class FormatMatchersTest {
+
+  private static final List<String> SAMPLES = Arrays.asList(
+      "", " ", "a", "Z", "Test", "O'Brien-Smith", "Mary Ann", "Tab\tName", "1nv@l1d N@m3",
+      "123-45-6789", "123-456-789", "12-345-6789", "123-45-678a", "123-45-67890",
+      "test@test.com", "TEST2@Test.com", "a1@b.c", "@test.com", "test@.com", "test@test.",
+      "test@test.com.au", "test@te5t.com", "1nv@l1d 3m@1L",
+      "CA", "ca", "C", "CAL", "C1",
+      "12345", "12345-6789", "1234", "12345-678", "12345 6789", "ab3ed-3f",
+      "N3W 3C3", "n3w 3c3", "N3W3C3", "N3W  3C3", "N3W 3C",
+      "123.456.789-00", "123x456y789-00", "123\n456.789-00", "123.456.789.00", "123.456.789-0",
+      "Z99", "z99", "Z9", "Z999", "ZZ9",
+      "2020-08-04", "2020-13-01", "2020-00-10", "2020-12-00", "2020-12-31", "2020-12-32",
+      "2020-1-01", "20201-01-01", "1234-12-12", "1nV@l1d",
+      "male", "FEMALE", " Other ", "others", "Invalid", "Not a gender");
+
+  private void assertSameAsRegex(String regex, FormatMatchers.StringMatcher matcher) {
+    Pattern pattern = Pattern.compile(regex);
+    for (String sample : SAMPLES) {
+      assertEquals(regex + " on '" + sample + "'", pattern.matcher(sample).matches(),
+          matcher.matches(sample));
+    }
+  }
+
+  @Test
+  public void isNameMatchesNameRegex() {
+    assertSameAsRegex("^[a-zA-Z\\s'-]+$", FormatMatchers::isName);
+  }
+
+  @Test
+  public void isSsnMatchesSsnRegex() {
+    assertSameAsRegex("^\\d{3}-\\d{2}-\\d{4}$", FormatMatchers::isSsn);
+  }
+
+  @Test
+  public void isEmailMatchesEmailRegex() {
+    assertSameAsRegex("^[A-Za-z0-9]+@[A-Za-z]+\\.[A-Za-z]+$", FormatMatchers::isEmail);
+  }
+
+  @Test
+  public void isStateMatchesStateRegex() {
+    assertSameAsRegex("^[A-Z]{2}$", FormatMatchers::isState);
+  }
+
+  @Test
+  public void isPostalMatchesPostalRegex() {
+    assertSameAsRegex("^\\d{5}$|^\\d{5}-\\d{4}$", FormatMatchers::isPostal);
+  }
+
+  @Test
+  public void isVisitCodeMatchesVisitCodeRegex() {
+    assertSameAsRegex("^[A-Z]\\d[A-Z] \\d[A-Z]\\d$", FormatMatchers::isVisitCode);
+  }
+
+  @Test
+  public void isBillingCodeMatchesBillingCodeRegex() {
+    assertSameAsRegex("^\\d{3}.\\d{3}.\\d{3}-\\d{2}$", FormatMatchers::isBillingCode);
+  }
+
+  @Test
+  public void isIcd10MatchesIcd10Regex() {
+    assertSameAsRegex("^[A-Z]\\d{2}$", FormatMatchers::isIcd10);
+  }
+
+  @Test
+  public void isDateMatchesDateRegex() {
+    assertSameAsRegex("^\\d{4}-(0[1-9]|1[0-2])-([0-2][0-9]|3[0-1])$", FormatMatchers::isDate);
+  }
+
+  @Test
+  public void isCalendarDateMatchesLocalDateParse() {
+    List<String> dates = Arrays.asList("2020-02-29", "2021-02-29", "2000-02-29", "1900-02-29",
+        "2020-04-30", "2020-04-31", "2020-01-31", "2020-12-00", "2020-13-01");
+    for (String sample : dates) {
+      boolean expected;
+      try {
+        LocalDate.parse(sample);
+        expected = true;
+      } catch (DateTimeParseException e) {
+        expected = false;
+      }
+      assertEquals(sample, expected, FormatMatchers.isCalendarDate(sample));
+    }
+    for (String sample : SAMPLES) {
+      if (!FormatMatchers.isDate(sample)) {
+        assertEquals(sample, false, FormatMatchers.isCalendarDate(sample));
+      }
+    }
+  }
+
+  @Test
+  public void isGenderMatchesCaseInsensitiveTrimmedGender() {
+    for (String sample : SAMPLES) {
+      String gender = sample.toLowerCase().trim();
+      boolean expected =
+          gender.equals("male") || gender.equals("female") || gender.equals("other");
+      assertEquals(sample, expected, FormatMatchers.isGender(sample));
+    }
+  }
+
+  @Test
+  public void formatGenderTrimsAndCapitalizesGenders() {
+    for (String sample : SAMPLES) {
+      if (FormatMatchers.isGender(sample)) {
+        String gender = sample.trim().toLowerCase();
+        assertEquals(sample, gender.substring(0, 1).toUpperCase() + gender.substring(1),
+            FormatMatchers.formatGender(sample));
+      }
+    }
+    assertEquals("Female", FormatMatchers.formatGender(" fEmAlE\t"));
+  }
+
+  @Test
+  public void isBlankMatchesTrimIsEmpty() {
+    for (String sample : SAMPLES) {
+      assertEquals(sample, sample.trim().isEmpty(), FormatMatchers.isBlank(sample));
+    }
+  }
+}